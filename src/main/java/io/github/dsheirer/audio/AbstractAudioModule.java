@@ -126,7 +126,11 @@ public abstract class AbstractAudioModule extends Module implements IAudioSegmen
         }
     }
 
-    protected void addAudio(float[] audioBuffer)
+    /**
+     * Gets the current audio segment.  If the current segment exceeds the max samples length, it is closed and a new
+     * segment is generated and linked to the previous segment.
+     */
+    private AudioSegment getCurrentAudioSegment()
     {
         AudioSegment audioSegment = getAudioSegment();
 
@@ -140,6 +144,13 @@ public abstract class AbstractAudioModule extends Module implements IAudioSegmen
             audioSegment.linkTo(previous);
         }
 
+        return audioSegment;
+    }
+
+    protected void addAudio(float[] audioBuffer)
+    {
+        AudioSegment audioSegment = getCurrentAudioSegment();
+
         try
         {
             audioSegment.addAudio(audioBuffer);
@@ -151,6 +162,53 @@ public abstract class AbstractAudioModule extends Module implements IAudioSegmen
         }
     }
 
+    /**
+     * Adds a compressed audio frame to the current audio segment.  The frame is decoded to PCM audio only if a
+     * consumer of the audio segment requests the audio.  Modules that use this method must override the
+     * createAudioFrameDecoder() method.  Frames are ignored when the module does not provide a decoder.
+     *
+     * @param audioFrame to add
+     */
+    protected void addAudioFrame(byte[] audioFrame)
+    {
+        AudioSegment audioSegment = getCurrentAudioSegment();
+
+        try
+        {
+            if(!audioSegment.hasAudioFrameDecoder())
+            {
+                IAudioFrameDecoder audioFrameDecoder = createAudioFrameDecoder();
+
+                if(audioFrameDecoder == null)
+                {
+                    mLog.error("Audio module does not support compressed audio frames - ignoring audio frame");
+                    return;
+                }
+
+                audioSegment.setAudioFrameDecoder(audioFrameDecoder);
+            }
+
+            audioSegment.addAudioFrame(audioFrame);
+            mAudioSampleCount += audioSegment.getAudioFrameDecoder().getSamplesPerFrame();
+        }
+        catch(Exception e)
+        {
+            mLog.error("Error adding audio frame to audio segment", e);
+            closeAudioSegment();
+        }
+    }
+
+    /**
+     * Creates a decoder for compressed audio frames added via the addAudioFrame() method.  A new decoder is created
+     * for each audio segment.
+     *
+     * @return audio frame decoder, or null if the module does not support compressed audio frames
+     */
+    protected IAudioFrameDecoder createAudioFrameDecoder()
+    {
+        return null;
+    }
+
     /**
      * Sets all audio segments as recordable when the argument is true.  Otherwise, defers to the aliased identifiers
      * from the identifier collection to determine whether to record the audio or not.
@@ -35,6 +35,7 @@ import javafx.collections.ObservableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -42,6 +43,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -60,6 +63,12 @@ import java.util.concurrent.atomic.AtomicInteger;
  * will signal the completion of an audio segment by setting the complete property to true.  This allows consumers the
  * option to process the audio buffers throughout the life-cycle of the segment, or to process all of the buffers once
  * the segment is complete.
+ *
+ * Producers of compressed (vocoder) audio can instead add the compressed audio frames along with an audio frame
+ * decoder.  The frames are decoded to PCM audio buffers only when a consumer requests the audio buffers, so audio that
+ * is never played, streamed or recorded is never decoded.  Once a consumer has requested the audio buffers, any
+ * frames that are subsequently added are decoded as they arrive so that live consumers don't wait on the decoder.
+ * Producers should not add both PCM audio buffers and compressed audio frames to the same audio segment.
  */
 public class AudioSegment implements Listener<IdentifierUpdateNotification>
 {
@@ -72,11 +81,16 @@ public class AudioSegment implements Listener<IdentifierUpdateNotification>
     private MutableIdentifierCollection mIdentifierCollection = new MutableIdentifierCollection();
     private Broadcaster<IdentifierUpdateNotification> mIdentifierUpdateNotificationBroadcaster = new Broadcaster<>();
     private List<float[]> mAudioBuffers = new CopyOnWriteArrayList();
+    private List<byte[]> mAudioFrames = new ArrayList<>();
+    private AtomicInteger mPendingFrameCount = new AtomicInteger();
+    private IAudioFrameDecoder mAudioFrameDecoder;
+    private final Object mDecodeLock = new Object();
+    private volatile boolean mDecodeOnArrival = false;
     private AtomicInteger mConsumerCount = new AtomicInteger();
     private AliasList mAliasList;
     private long mStartTimestamp = System.currentTimeMillis();
     private long mSampleCount = 0;
-    private boolean mDisposing = false;
+    private volatile boolean mDisposing = false;
     private AudioSegment mLinkedAudioSegment;
     private int mTimeslot;
 
@@ -271,35 +285,51 @@ public class AudioSegment implements Listener<IdentifierUpdateNotification>
     }
 
     /**
-     * Unmodifiable copy of the list of audio buffers for this segment.
+     * Unmodifiable copy of the list of audio buffers for this segment.  Any compressed audio frames that have not yet
+     * been decoded are decoded before this method returns.
      *
      * @return list of audio buffers
      */
     public List<float[]> getAudioBuffers()
     {
+        awaitAudioFrameDecode();
         return Collections.unmodifiableList(mAudioBuffers);
     }
 
     /**
-     * Count of audio buffers contained in this segment.
+     * Count of audio buffers contained in this segment, including compressed audio frames that will be decoded to
+     * an audio buffer when requested.  This method does not cause the compressed audio frames to be decoded.
      *
      * Note: audio buffers can be added to an audio segment throughout the segment's life-cycle by the audio producer.
      */
     public int getAudioBufferCount()
     {
-        return mAudioBuffers.size();
+        return mAudioBuffers.size() + mPendingFrameCount.get();
     }
 
     /**
-     * Gets the audio buffer at the specified index
+     * Gets the audio buffer at the specified index, decoding any pending compressed audio frames when the index refers
+     * to a frame that has not yet been decoded.
+     *
      * @param index of the buffer to fetch
-     * @return audio buffer
+     * @return audio buffer, or null if the audio buffer is not available because the wait for decoding was
+     * interrupted or failed, or because the frame was not decoded while this segment is disposing.
      * @throws IllegalArgumentException if requested index is not valid
      */
     public float[] getAudioBuffer(int index)
     {
         if(0 <= index && index < getAudioBufferCount())
         {
+            if(index >= mAudioBuffers.size())
+            {
+                awaitAudioFrameDecode();
+
+                if(index >= mAudioBuffers.size())
+                {
+                    return null;
+                }
+            }
+
             return mAudioBuffers.get(index);
         }
         else
@@ -309,11 +339,84 @@ public class AudioSegment implements Listener<IdentifierUpdateNotification>
     }
 
     /**
-     * Indicates if this audio segment has one or more audio buffers
+     * Indicates if this audio segment has one or more audio buffers or compressed audio frames.  This method does not
+     * cause the compressed audio frames to be decoded.
      */
     public boolean hasAudio()
     {
-        return !mAudioBuffers.isEmpty();
+        return !mAudioBuffers.isEmpty() || mPendingFrameCount.get() > 0;
+    }
+
+    /**
+     * Decodes any pending compressed audio frames on the decoder's worker pool and blocks until the decoding is
+     * complete.  After the first request, frames are decoded as they arrive.
+     */
+    private void awaitAudioFrameDecode()
+    {
+        IAudioFrameDecoder decoder = mAudioFrameDecoder;
+
+        if(decoder == null)
+        {
+            return;
+        }
+
+        mDecodeOnArrival = true;
+
+        if(mPendingFrameCount.get() > 0)
+        {
+            Future<?> future = decoder.submit(this::decodeAudioFrames);
+
+            try
+            {
+                future.get();
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch(ExecutionException ee)
+            {
+                mLog.error("Error decoding audio frames", ee);
+            }
+        }
+    }
+
+    /**
+     * Decodes all pending compressed audio frames, in order, and appends the decoded audio to the audio buffers.
+     * Invoked on the decoder's worker pool.  The decode lock ensures that successive decode tasks for this segment
+     * are processed sequentially.
+     */
+    private void decodeAudioFrames()
+    {
+        synchronized(mDecodeLock)
+        {
+            List<byte[]> frames;
+
+            synchronized(mAudioFrames)
+            {
+                if(mAudioFrames.isEmpty())
+                {
+                    return;
+                }
+
+                frames = new ArrayList<>(mAudioFrames);
+                mAudioFrames.clear();
+            }
+
+            for(byte[] frame: frames)
+            {
+                float[] audio = mDisposing ? null : mAudioFrameDecoder.decode(frame);
+
+                //Add the buffer before decrementing the pending count so that the buffer count is never understated.
+                //Frames that are not decoded because the segment or decoder is disposed are still counted down.
+                if(audio != null)
+                {
+                    mAudioBuffers.add(audio);
+                }
+
+                mPendingFrameCount.decrementAndGet();
+            }
+        }
     }
 
     /**
@@ -323,6 +426,22 @@ public class AudioSegment implements Listener<IdentifierUpdateNotification>
     {
         mDisposing = true;
         mAudioBuffers.clear();
+
+        if(mAudioFrameDecoder != null)
+        {
+            int undecoded;
+
+            synchronized(mAudioFrames)
+            {
+                undecoded = mAudioFrames.size();
+                mAudioFrames.clear();
+            }
+
+            //Frames that are currently being decoded are counted down by the decode task
+            mPendingFrameCount.addAndGet(-undecoded);
+            mAudioFrameDecoder.dispose(undecoded);
+        }
+
         mIdentifierCollection.clear();
         mIdentifierUpdateNotificationBroadcaster.clear();
         mLinkedAudioSegment = null;
@@ -379,6 +498,76 @@ public class AudioSegment implements Listener<IdentifierUpdateNotification>
         mSampleCount += audioBuffer.length;
     }
 
+    /**
+     * Indicates if this segment has an audio frame decoder for compressed audio frames.
+     */
+    public boolean hasAudioFrameDecoder()
+    {
+        return mAudioFrameDecoder != null;
+    }
+
+    /**
+     * Audio frame decoder for compressed audio frames, or null.
+     */
+    public IAudioFrameDecoder getAudioFrameDecoder()
+    {
+        return mAudioFrameDecoder;
+    }
+
+    /**
+     * Sets the decoder for compressed audio frames added to this segment.  The decoder is disposed when all consumers
+     * are finished with this segment.
+     *
+     * @param audioFrameDecoder for this segment
+     */
+    public void setAudioFrameDecoder(IAudioFrameDecoder audioFrameDecoder)
+    {
+        if(mAudioFrameDecoder != null)
+        {
+            throw new IllegalStateException("Audio frame decoder is already set for this audio segment");
+        }
+
+        mAudioFrameDecoder = audioFrameDecoder;
+    }
+
+    /**
+     * Adds a compressed audio frame to this segment.  The frame is decoded to an audio buffer when a consumer
+     * requests the audio buffers for this segment.
+     *
+     * @param audioFrame to add to this segment
+     * @throws IllegalStateException if the audio frame decoder is not set or the segment is being disposed
+     */
+    public void addAudioFrame(byte[] audioFrame)
+    {
+        if(audioFrame == null)
+        {
+            throw new IllegalArgumentException("Can't add null audio frame");
+        }
+
+        if(mAudioFrameDecoder == null)
+        {
+            throw new IllegalStateException("Can't add audio frame to an audio segment without an audio frame decoder");
+        }
+
+        if(mDisposing)
+        {
+            throw new IllegalStateException("Can't add audio to an audio segment that is being disposed");
+        }
+
+        synchronized(mAudioFrames)
+        {
+            mAudioFrames.add(audioFrame);
+        }
+
+        mPendingFrameCount.incrementAndGet();
+        mSampleCount += mAudioFrameDecoder.getSamplesPerFrame();
+
+        if(mDecodeOnArrival)
+        {
+            mAudioFrameDecoder.submit(this::decodeAudioFrames);
+        }
+    }
+
     /**
      * Adds a listener to receive identifier update notifications
      */
@@ -22,6 +22,7 @@ package io.github.dsheirer.audio;
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.IdentifierClass;
+import io.github.dsheirer.identifier.IdentifierUpdateNotification;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.configuration.SystemConfigurationIdentifier;
 import io.github.dsheirer.identifier.patch.PatchGroupIdentifier;
@@ -30,28 +31,36 @@ import io.github.dsheirer.identifier.talkgroup.TalkgroupIdentifier;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.preference.duplicate.DuplicateCallDetectionPreference;
 import io.github.dsheirer.sample.Listener;
-import io.github.dsheirer.util.ThreadPool;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Detects duplicate calls that occur within the same system.  This detector is thread safe for the receive() method.
  *
+ * Duplicates are detected as audio segments arrive and as their identifiers are updated, so there is no periodic
+ * processing.
+ *
  * Note: system in this context refers to the system name value that is used in channel configurations.  All decoder
  * channels must share the same system name for call duplication detection.
  */
 public class DuplicateCallDetector implements Listener<AudioSegment>
 {
     private final static Logger mLog = LoggerFactory.getLogger(DuplicateCallDetector.class);
+    private static final long KEY_TALKGROUP = 1;
+    private static final long KEY_TO_RADIO = 2;
+    private static final long KEY_FROM_RADIO = 3;
+
     private DuplicateCallDetectionPreference mDuplicateCallDetectionPreference;
     private Map<String,SystemDuplicateCallDetector> mDetectorMap = new HashMap();
 
@@ -71,240 +80,256 @@ public class DuplicateCallDetector implements Listener<AudioSegment>
             if(identifier instanceof SystemConfigurationIdentifier)
             {
                 String system = ((SystemConfigurationIdentifier)identifier).getValue();
+                SystemDuplicateCallDetector detector;
 
                 synchronized(mDetectorMap)
                 {
-                    SystemDuplicateCallDetector detector = mDetectorMap.get(system);
-
-                    if(detector == null)
-                    {
-                        detector = new SystemDuplicateCallDetector();
-                        mDetectorMap.put(system, detector);
-                    }
-
-                    detector.add(audioSegment);
+                    detector = mDetectorMap.computeIfAbsent(system, key -> new SystemDuplicateCallDetector());
                 }
+
+                detector.add(audioSegment);
             }
         }
     }
 
+    /**
+     * Event-driven duplicate call detector for a single system.
+     *
+     * In-flight audio segments are indexed by normalized identifier keys (talkgroup, patch group talkgroup and radio
+     * values) in a hash map.  Duplicates are decided when a segment arrives and when a segment's identifiers are
+     * updated, with a hash lookup per identifier, and segments are removed from the index when they complete.  When
+     * two in-flight segments share a key, the segment that arrived later is flagged as the duplicate.
+     */
     public class SystemDuplicateCallDetector
     {
-        private LinkedTransferQueue<AudioSegment> mAudioSegmentQueue = new LinkedTransferQueue<>();
-        private List<AudioSegment> mAudioSegments = new ArrayList<>();
-        private AtomicBoolean mMonitoring = new AtomicBoolean();
-        private ScheduledFuture<?> mProcessorFuture;
+        private Map<Long,TrackedSegment> mSegmentsByKey = new HashMap<>();
+        private long mSequence;
 
         public SystemDuplicateCallDetector()
         {
         }
 
+        /**
+         * Adds the audio segment and checks it against the in-flight audio segments
+         */
         public void add(AudioSegment audioSegment)
         {
-            //Block on audio segment queue so that we don't interfere with monitoring shutdown
-            synchronized(mAudioSegmentQueue)
+            TrackedSegment trackedSegment = new TrackedSegment(audioSegment);
+
+            //Register before reading the identifiers so that an identifier update can't be missed
+            audioSegment.addIdentifierUpdateNotificationListener(trackedSegment);
+            audioSegment.completeProperty().addListener(trackedSegment);
+
+            if(audioSegment.completeProperty().get())
             {
-                mAudioSegmentQueue.add(audioSegment);
-                startMonitoring();
+                trackedSegment.release();
+            }
+            else
+            {
+                update(trackedSegment);
             }
         }
 
-        private void startMonitoring()
+        /**
+         * Updates the index with the tracked segment's current identifier keys and flags any duplicates.  The
+         * duplicate segments are released outside of the index lock.
+         */
+        private void update(TrackedSegment trackedSegment)
         {
-            if(mMonitoring.compareAndSet(false, true))
+            List<TrackedSegment> duplicates = null;
+
+            synchronized(mSegmentsByKey)
             {
-                mProcessorFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(() -> process(),
-                    0, 25, TimeUnit.MILLISECONDS);
+                if(trackedSegment.mReleased)
+                {
+                    return;
+                }
+
+                if(trackedSegment.mSequence < 0)
+                {
+                    trackedSegment.mSequence = mSequence++;
+                }
+
+                Set<Long> keys = getKeys(trackedSegment.mAudioSegment);
+
+                //Remove keys for identifiers that are no longer present (e.g. replaced identifiers)
+                for(Long key: trackedSegment.mKeys)
+                {
+                    if(!keys.contains(key))
+                    {
+                        mSegmentsByKey.remove(key, trackedSegment);
+                    }
+                }
+
+                trackedSegment.mKeys = keys;
+
+                for(Long key: keys)
+                {
+                    TrackedSegment existing = mSegmentsByKey.get(key);
+
+                    if(existing == null)
+                    {
+                        mSegmentsByKey.put(key, trackedSegment);
+                    }
+                    else if(existing != trackedSegment)
+                    {
+                        //The later arriving segment is the duplicate
+                        TrackedSegment duplicate = existing.mSequence < trackedSegment.mSequence ?
+                            trackedSegment : existing;
+
+                        unindex(duplicate);
+
+                        if(duplicates == null)
+                        {
+                            duplicates = new ArrayList<>();
+                        }
+
+                        duplicates.add(duplicate);
+
+                        if(duplicate == trackedSegment)
+                        {
+                            break;
+                        }
+
+                        mSegmentsByKey.put(key, trackedSegment);
+                    }
+                }
             }
-        }
 
-        private void stopMonitoring()
-        {
-            if(mMonitoring.compareAndSet(true, false))
+            if(duplicates != null)
             {
-                if(mProcessorFuture != null)
+                for(TrackedSegment duplicate: duplicates)
                 {
-                    mProcessorFuture.cancel(true);
+                    duplicate.mAudioSegment.setDuplicate(true);
+                    duplicate.release();
                 }
             }
         }
 
         /**
-         * Checks if either the TO or FROM integer identifiers for the audio segments are the same
-         * @param segment1 to compare
-         * @param segment2 to compare
-         * @return true if integer identifiers are the same
+         * Removes the tracked segment from the index and flags it as released.
          */
-        private boolean isDuplicate(AudioSegment segment1, AudioSegment segment2)
+        private void unindex(TrackedSegment trackedSegment)
         {
-            if(mDuplicateCallDetectionPreference.isDuplicateCallDetectionByTalkgroupEnabled())
+            for(Long key: trackedSegment.mKeys)
             {
-                //Step 1 check for duplicate TO values
-                List<Identifier> to1 = segment1.getIdentifierCollection().getIdentifiers(Role.TO);
-                List<Identifier> to2 = segment2.getIdentifierCollection().getIdentifiers(Role.TO);
-
-                if(isDuplicate(to1, to2))
-                {
-                    return true;
-                }
+                mSegmentsByKey.remove(key, trackedSegment);
             }
 
-            if(mDuplicateCallDetectionPreference.isDuplicateCallDetectionByRadioEnabled())
-            {
-                //Step 2 check for duplicate FROM values
-                List<Identifier> from1 = segment1.getIdentifierCollection().getIdentifiers(Role.FROM);
-                List<Identifier> from2 = segment2.getIdentifierCollection().getIdentifiers(Role.FROM);
+            trackedSegment.mKeys = Collections.emptySet();
+            trackedSegment.mReleased = true;
+        }
 
-                return isDuplicate(from1, from2);
+        /**
+         * Removes the completed segment from the index
+         */
+        private void complete(TrackedSegment trackedSegment)
+        {
+            synchronized(mSegmentsByKey)
+            {
+                unindex(trackedSegment);
             }
 
-            return false;
+            trackedSegment.release();
         }
 
         /**
-         * Checks both lists of identifiers to determine if there are talkgroups or radio identifiers that are
-         * the same in both lists.  Note: talkgroup check compares both talkgroups and patch groups.
-         *
-         * @param identifiers1
-         * @param identifiers2
-         * @return
+         * Normalized identifier keys for the audio segment, according to the duplicate detection preferences.  Patch
+         * groups are resolved to the patch group talkgroup value so that they match the equivalent talkgroup.
          */
-        private boolean isDuplicate(List<Identifier> identifiers1, List<Identifier> identifiers2)
+        private Set<Long> getKeys(AudioSegment audioSegment)
         {
-            for(Identifier identifier1: identifiers1)
+            Set<Long> keys = new HashSet<>();
+
+            if(mDuplicateCallDetectionPreference.isDuplicateCallDetectionByTalkgroupEnabled())
             {
-                if(identifier1 instanceof TalkgroupIdentifier)
+                for(Identifier identifier: audioSegment.getIdentifierCollection().getIdentifiers(Role.TO))
                 {
-                    int talkgroup1 = ((TalkgroupIdentifier)identifier1).getValue();
-
-                    for(Identifier identifier2: identifiers2)
+                    if(identifier instanceof TalkgroupIdentifier)
                     {
-                        if(identifier2 instanceof TalkgroupIdentifier &&
-                           ((TalkgroupIdentifier)identifier2).getValue() == talkgroup1)
-                        {
-                            return true;
-                        }
-                        else if(identifier2 instanceof PatchGroupIdentifier &&
-                            ((PatchGroupIdentifier)identifier2).getValue().getPatchGroup().getValue() == talkgroup1)
-                        {
-                            return true;
-                        }
+                        keys.add(key(KEY_TALKGROUP, ((TalkgroupIdentifier)identifier).getValue()));
                     }
-                }
-                else if(identifier1 instanceof PatchGroupIdentifier)
-                {
-                    int talkgroup1 = ((PatchGroupIdentifier)identifier1).getValue().getPatchGroup().getValue();
-
-                    for(Identifier identifier2: identifiers2)
+                    else if(identifier instanceof PatchGroupIdentifier)
                     {
-                        if(identifier2 instanceof TalkgroupIdentifier &&
-                            ((TalkgroupIdentifier)identifier2).getValue() == talkgroup1)
-                        {
-                            return true;
-                        }
-                        else if(identifier2 instanceof PatchGroupIdentifier &&
-                            ((PatchGroupIdentifier)identifier2).getValue().getPatchGroup().getValue() == talkgroup1)
-                        {
-                            return true;
-                        }
+                        keys.add(key(KEY_TALKGROUP,
+                            ((PatchGroupIdentifier)identifier).getValue().getPatchGroup().getValue()));
+                    }
+                    else if(identifier instanceof RadioIdentifier)
+                    {
+                        keys.add(key(KEY_TO_RADIO, ((RadioIdentifier)identifier).getValue()));
                     }
                 }
-                else if(identifier1 instanceof RadioIdentifier)
-                {
-                    int radio1 = ((RadioIdentifier)identifier1).getValue();
+            }
 
-                    for(Identifier identifier2: identifiers2)
+            if(mDuplicateCallDetectionPreference.isDuplicateCallDetectionByRadioEnabled())
+            {
+                for(Identifier identifier: audioSegment.getIdentifierCollection().getIdentifiers(Role.FROM))
+                {
+                    if(identifier instanceof RadioIdentifier)
                     {
-                        if(identifier2 instanceof RadioIdentifier && ((RadioIdentifier)identifier2).getValue() == radio1)
-                        {
-                            return true;
-                        }
+                        keys.add(key(KEY_FROM_RADIO, ((RadioIdentifier)identifier).getValue()));
                     }
                 }
             }
 
-            return false;
+            return keys;
         }
 
         /**
-         * Processes audio segments to detect duplicates
+         * Audio segment tracked by this detector.  Receives identifier updates and completion notifications for the
+         * audio segment.
          */
-        private void process()
+        private class TrackedSegment implements Listener<IdentifierUpdateNotification>, ChangeListener<Boolean>
         {
-            //Transfer in newly arrived audio segments
-            mAudioSegmentQueue.drainTo(mAudioSegments);
+            private AudioSegment mAudioSegment;
+            private Set<Long> mKeys = Collections.emptySet();
+            private long mSequence = -1;
+            private boolean mReleased;
+            private AtomicBoolean mConsumerReleased = new AtomicBoolean();
 
-            //Remove any completed audio segments.
-            mAudioSegments.removeIf(audioSegment -> {
-                boolean complete = audioSegment.completeProperty().get();
+            public TrackedSegment(AudioSegment audioSegment)
+            {
+                mAudioSegment = audioSegment;
+            }
 
-                if(complete)
+            @Override
+            public void receive(IdentifierUpdateNotification notification)
+            {
+                if(notification.isAdd() || notification.isSilentAdd())
                 {
-                    audioSegment.decrementConsumerCount();
+                    update(this);
                 }
+            }
 
-                return complete;
-            });
-
-            //Only check for duplicates if there is more than one call
-            if(mAudioSegments.size() > 1)
+            @Override
+            public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean complete)
             {
-                List<AudioSegment> duplicates = new ArrayList<>();
-
-                int currentIndex = 0;
-                while(currentIndex < mAudioSegments.size() - 1)
+                if(complete)
                 {
-                    AudioSegment current = mAudioSegments.get(currentIndex);
-
-                    if(!current.isDuplicate())
-                    {
-                        int checkIndex = currentIndex + 1;
-
-                        while(checkIndex < mAudioSegments.size())
-                        {
-                            AudioSegment toCheck = mAudioSegments.get(checkIndex);
-
-                            if(!toCheck.isDuplicate())
-                            {
-                                if(isDuplicate(current, toCheck))
-                                {
-                                    toCheck.setDuplicate(true);
-                                    toCheck.decrementConsumerCount();
-                                    duplicates.add(toCheck);
-                                }
-                            }
-
-                            checkIndex++;
-                        }
-                    }
-
-                    currentIndex++;
+                    complete(this);
                 }
-
-                mAudioSegments.removeAll(duplicates);
             }
 
-            //Finally, if the audio segment queue is empty, shutdown montitoring until a new segment arrives
-            if(mAudioSegments.isEmpty())
+            /**
+             * Deregisters from the audio segment and releases this detector's consumer count, once.
+             */
+            public void release()
             {
-                //Block on the audio segment queue so that we can shutdown before any new segments are added, and
-                //allow the add(segment) to restart monitoring as soon as needed.
-                synchronized(mAudioSegmentQueue)
+                if(mConsumerReleased.compareAndSet(false, true))
                 {
-                    if(mAudioSegmentQueue.isEmpty())
-                    {
-                        try
-                        {
-                            stopMonitoring();
-                        }
-                        catch(Exception e)
-                        {
-                            mLog.error("Unexpected error during duplicate audio segment monitoring shutdown", e);
-                            //Do nothing, we got interrupted
-                        }
-                    }
+                    mAudioSegment.removeIdentifierUpdateNotificationListener(this);
+                    mAudioSegment.completeProperty().removeListener(this);
+                    mAudioSegment.decrementConsumerCount();
                 }
             }
         }
     }
+
+    /**
+     * Creates a normalized identifier key from the key type and the identifier value
+     */
+    private static long key(long type, int value)
+    {
+        return (type << 32) | (value & 0xFFFFFFFFL);
+    }
 }
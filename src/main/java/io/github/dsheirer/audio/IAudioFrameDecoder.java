@@ -0,0 +1,61 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio;
+
+import java.util.concurrent.Future;
+
+/**
+ * Decoder for compressed audio frames (e.g. vocoder frames) that are carried in an audio segment and converted to PCM
+ * audio only when a consumer of the audio segment requests the audio buffers.
+ *
+ * Each audio segment uses its own decoder instance so that decoder state is continuous across the frames of the
+ * segment.  The audio segment invokes decode() sequentially and in frame order from tasks that are scheduled via the
+ * submit() method.
+ */
+public interface IAudioFrameDecoder
+{
+    /**
+     * Number of 8 kHz PCM audio samples produced by each decoded frame
+     */
+    int getSamplesPerFrame();
+
+    /**
+     * Schedules the decode task for execution on the decoder's worker thread pool
+     *
+     * @param decodeTask to execute
+     * @return future for the task
+     */
+    Future<?> submit(Runnable decodeTask);
+
+    /**
+     * Decodes the compressed audio frame
+     *
+     * @param frame to decode
+     * @return decoded PCM audio, or null if the decoder has been disposed
+     */
+    float[] decode(byte[] frame);
+
+    /**
+     * Releases decoder resources.  Invoked by the audio segment when all segment consumers are finished.
+     *
+     * @param undecodedFrameCount number of frames that were never requested by a consumer and never decoded
+     */
+    void dispose(int undecodedFrameCount);
+}
@@ -25,7 +25,9 @@ package io.github.dsheirer.audio.codec.mbe;
 import com.google.common.eventbus.Subscribe;
 import io.github.dsheirer.alias.AliasList;
 import io.github.dsheirer.audio.AbstractAudioModule;
+import io.github.dsheirer.audio.IAudioFrameDecoder;
 import io.github.dsheirer.audio.squelch.ISquelchStateListener;
+import io.github.dsheirer.dsp.gain.NonClippingGain;
 import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.IMessageListener;
@@ -52,6 +54,7 @@ public abstract class JmbeAudioModule extends AbstractAudioModule implements Lis
     private static final String JMBE_AUDIO_LIBRARY = "JMBE";
     private static List<String> mLibraryLoadStatusLogged = new ArrayList<>();
     private IAudioCodec mAudioCodec;
+    private IAudioCodecLibrary mAudioCodecLibrary;
     private UserPreferences mUserPreferences;
 
     public JmbeAudioModule(UserPreferences userPreferences, AliasList aliasList)
@@ -75,6 +78,40 @@ public abstract class JmbeAudioModule extends AbstractAudioModule implements Lis
         return getAudioCodec() != null;
     }
 
+    /**
+     * Adds the compressed vocoder frame to the current audio segment for on-demand decoding.  The frame is only
+     * decoded if a consumer (playback, streaming or recording) requests the audio from the audio segment.
+     *
+     * @param frame to add
+     */
+    protected void addVocoderFrame(byte[] frame)
+    {
+        VocoderDecodePool.getInstance().frameReceived();
+        addAudioFrame(frame);
+    }
+
+    /**
+     * Creates an audio frame decoder that uses a pooled codec instance from the vocoder decode pool.
+     *
+     * @param gain to apply to decoded audio, or null
+     */
+    protected IAudioFrameDecoder createAudioFrameDecoder(NonClippingGain gain)
+    {
+        IAudioCodecLibrary library = mAudioCodecLibrary;
+        String codecName = getCodecName();
+
+        return new VocoderFrameDecoder(VocoderDecodePool.getInstance(), codecName, () ->
+        {
+            return library != null ? library.getAudioConverter(codecName) : null;
+        }, gain);
+    }
+
+    @Override
+    protected IAudioFrameDecoder createAudioFrameDecoder()
+    {
+        return createAudioFrameDecoder(null);
+    }
+
     @Override
     public Listener<IMessage> getMessageListener()
     {
@@ -92,6 +129,7 @@ public abstract class JmbeAudioModule extends AbstractAudioModule implements Lis
         if(preferenceType == PreferenceType.JMBE_LIBRARY)
         {
             mLibraryLoadStatusLogged.clear();
+            VocoderDecodePool.getInstance().clear();
             loadConverter();
         }
     }
@@ -109,6 +147,7 @@ public abstract class JmbeAudioModule extends AbstractAudioModule implements Lis
     protected void loadConverter()
     {
         IAudioCodec audioConverter = null;
+        IAudioCodecLibrary audioCodecLibrary = null;
 
         Path path = mUserPreferences.getJmbeLibraryPreference().getPathJmbeLibrary();
 
@@ -136,6 +175,7 @@ public abstract class JmbeAudioModule extends AbstractAudioModule implements Lis
                         library.getBuildVersion() >= 0) || library.getMajorVersion() >= 1)
                     {
                         audioConverter = library.getAudioConverter(getCodecName());
+                        audioCodecLibrary = library;
 
                         if(!mLibraryLoadStatusLogged.contains(JMBE_AUDIO_LIBRARY))
                         {
@@ -230,10 +270,12 @@ public abstract class JmbeAudioModule extends AbstractAudioModule implements Lis
         if(audioConverter != null)
         {
             mAudioCodec = audioConverter;
+            mAudioCodecLibrary = audioCodecLibrary;
         }
         else
         {
             mAudioCodec = null;
+            mAudioCodecLibrary = null;
         }
     }
 
@@ -241,5 +283,6 @@ public abstract class JmbeAudioModule extends AbstractAudioModule implements Lis
     public void dispose()
     {
         mAudioCodec = null;
+        mAudioCodecLibrary = null;
     }
 }
@@ -27,21 +27,30 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonRootName;
+import io.github.dsheirer.bits.BinaryMessage;
 import io.github.dsheirer.identifier.encryption.EncryptionKey;
 import io.github.dsheirer.module.decode.p25.audio.VoiceFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * MBE Call Sequence containing one or more voice frames with optional encryption parameters and optional from and to
  * radio identifiers.
+ *
+ * When a binary call sequence writer is attached, voice frames and metadata changes are streamed to the writer as they
+ * are added and voice frames are not retained in the voice frames list.
  */
 @JsonRootName("mbe_call")
 @JsonPropertyOrder({"protocol", "call_type", "from", "to", "encrypted", "frames"})
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class MBECallSequence
 {
+    private final static Logger mLog = LoggerFactory.getLogger(MBECallSequence.class);
+
     private String mProtocol;
     private String mFromIdentifier;
     private String mToIdentifier;
@@ -51,6 +60,9 @@ public class MBECallSequence
     private boolean mEncrypted;
     private List<VoiceFrame> mVoiceFrames = new ArrayList<>();
     private IEncryptionSyncParameters mTemporaryEncryptionSyncParameters;
+    private MBECallSequenceWriter mWriter;
+    private boolean mWriterFailed;
+    private int mFrameCount;
 
     /**
      * Constructs a call sequence
@@ -86,7 +98,116 @@ public class MBECallSequence
     @JsonIgnore
     public boolean hasAudio()
     {
-        return mVoiceFrames.size() > 4;
+        return getFrameCount() > 4;
+    }
+
+    /**
+     * Number of voice frames in this call sequence, including voice frames streamed to an attached writer
+     */
+    @JsonIgnore
+    public int getFrameCount()
+    {
+        return mFrameCount + mVoiceFrames.size();
+    }
+
+    /**
+     * Attaches a binary call sequence writer.  Any metadata that is already set is written immediately and subsequent
+     * voice frames and metadata changes are streamed to the writer.
+     *
+     * @param writer to attach
+     */
+    public void attachWriter(MBECallSequenceWriter writer)
+    {
+        mWriter = writer;
+        mWriterFailed = false;
+
+        writeValue(MBECallSequenceWriter.RECORD_FROM, mFromIdentifier);
+        writeValue(MBECallSequenceWriter.RECORD_TO, mToIdentifier);
+        writeValue(MBECallSequenceWriter.RECORD_CALL_TYPE, mCallType);
+
+        if(mEncrypted)
+        {
+            writeEncrypted();
+        }
+    }
+
+    /**
+     * Detaches and returns the binary call sequence writer
+     *
+     * @return writer or null if a writer is not attached
+     */
+    public MBECallSequenceWriter detachWriter()
+    {
+        MBECallSequenceWriter writer = mWriter;
+        mWriter = null;
+        return writer;
+    }
+
+    /**
+     * Indicates if a binary call sequence writer is attached
+     */
+    public boolean hasWriter()
+    {
+        return mWriter != null;
+    }
+
+    /**
+     * Indicates if there was an error writing to the attached writer.  Writing stops after the first error.
+     */
+    @JsonIgnore
+    public boolean isWriterFailed()
+    {
+        return mWriterFailed;
+    }
+
+    /**
+     * Indicates if voice frames and metadata should be streamed to the attached writer
+     */
+    private boolean isStreaming()
+    {
+        return mWriter != null && !mWriterFailed;
+    }
+
+    /**
+     * Writes an identifier or call type record to the attached writer
+     */
+    private void writeValue(int recordType, String value)
+    {
+        if(isStreaming() && value != null)
+        {
+            try
+            {
+                mWriter.writeValue(recordType, value);
+            }
+            catch(IOException ioe)
+            {
+                writeFailed(ioe);
+            }
+        }
+    }
+
+    /**
+     * Writes the encrypted call flag to the attached writer
+     */
+    private void writeEncrypted()
+    {
+        if(isStreaming())
+        {
+            try
+            {
+                mWriter.writeEncrypted(mEncrypted);
+            }
+            catch(IOException ioe)
+            {
+                writeFailed(ioe);
+            }
+        }
+    }
+
+    private void writeFailed(IOException ioe)
+    {
+        mWriterFailed = true;
+        mLog.error("Error writing binary MBE call sequence [" + mWriter.getPath() + "] - recording stopped", ioe);
     }
 
     /**
@@ -105,7 +226,11 @@ public class MBECallSequence
      */
     public void setEncrypted(boolean encrypted)
     {
-        mEncrypted = encrypted;
+        if(mEncrypted != encrypted)
+        {
+            mEncrypted = encrypted;
+            writeEncrypted();
+        }
     }
 
     /**
@@ -126,9 +251,10 @@ public class MBECallSequence
      */
     public void setFromIdentifier(String from)
     {
-        if(from != null && !from.isEmpty() && !from.contentEquals("0"))
+        if(from != null && !from.isEmpty() && !from.contentEquals("0") && !from.equals(mFromIdentifier))
         {
             mFromIdentifier = from;
+            writeValue(MBECallSequenceWriter.RECORD_FROM, from);
         }
     }
 
@@ -150,9 +276,10 @@ public class MBECallSequence
      */
     public void setToIdentifier(String to)
     {
-        if(to != null && !to.isEmpty() && !to.contentEquals("0"))
+        if(to != null && !to.isEmpty() && !to.contentEquals("0") && !to.equals(mToIdentifier))
         {
             mToIdentifier = to;
+            writeValue(MBECallSequenceWriter.RECORD_TO, to);
         }
     }
 
@@ -174,6 +301,11 @@ public class MBECallSequence
      */
     public void setCallType(String type)
     {
+        if(type != null && !type.equals(mCallType))
+        {
+            writeValue(MBECallSequenceWriter.RECORD_CALL_TYPE, type);
+        }
+
         mCallType = type;
     }
 
@@ -242,6 +374,33 @@ public class MBECallSequence
         mVoiceFrames = voiceFrames;
     }
 
+    /**
+     * Adds an audio frame to this call sequence.  The frame is encrypted when encryption sync parameters were set
+     * for the next frame.
+     *
+     * @param timestamp of the audio frame
+     * @param frame bytes of the transmitted audio frame and ecc bits
+     */
+    public void addVoiceFrame(long timestamp, byte[] frame)
+    {
+        if(mWriter == null)
+        {
+            addVoiceFrame(timestamp, BinaryMessage.from(frame).toHexString());
+        }
+        else if(mTemporaryEncryptionSyncParameters != null)
+        {
+            EncryptionKey encryption = mTemporaryEncryptionSyncParameters.getEncryptionKey().getValue();
+            streamVoiceFrame(timestamp, frame, encryption.getAlgorithm(), encryption.getKey(),
+                mTemporaryEncryptionSyncParameters.getMessageIndicator());
+            mTemporaryEncryptionSyncParameters = null;
+            setEncrypted(true);
+        }
+        else
+        {
+            streamVoiceFrame(timestamp, frame, null, null, null);
+        }
+    }
+
     /**
      * Adds an unencrypted audio frame to this call sequence
      *
@@ -255,6 +414,10 @@ public class MBECallSequence
             addEncryptedVoiceFrame(timestamp, frame, mTemporaryEncryptionSyncParameters);
             mTemporaryEncryptionSyncParameters = null;
         }
+        else if(mWriter != null)
+        {
+            streamVoiceFrame(timestamp, new VoiceFrame(timestamp, frame).getFrameBytes(), null, null, null);
+        }
         else
         {
             mVoiceFrames.add(new VoiceFrame(timestamp, frame));
@@ -286,6 +449,40 @@ public class MBECallSequence
      */
     public void addEncryptedVoiceFrame(long timestamp, String frame, int algorithm, int keyid, String messageIndicator)
     {
-        mVoiceFrames.add(new VoiceFrame(timestamp, frame, algorithm, keyid, messageIndicator));
+        if(mWriter != null)
+        {
+            streamVoiceFrame(timestamp, new VoiceFrame(timestamp, frame).getFrameBytes(), algorithm, keyid,
+                messageIndicator);
+        }
+        else
+        {
+            mVoiceFrames.add(new VoiceFrame(timestamp, frame, algorithm, keyid, messageIndicator));
+        }
+    }
+
+    /**
+     * Streams the voice frame, preceded by the optional encryption sync parameters, to the attached writer
+     */
+    private void streamVoiceFrame(long timestamp, byte[] frame, Integer algorithm, Integer keyId,
+                                  String messageIndicator)
+    {
+        mFrameCount++;
+
+        if(isStreaming())
+        {
+            try
+            {
+                if(algorithm != null)
+                {
+                    mWriter.writeEncryptionSync(algorithm, keyId, messageIndicator);
+                }
+
+                mWriter.writeFrame(timestamp, frame);
+            }
+            catch(IOException ioe)
+            {
+                writeFailed(ioe);
+            }
+        }
     }
 }
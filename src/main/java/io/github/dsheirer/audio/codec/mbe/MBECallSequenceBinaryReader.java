@@ -0,0 +1,361 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.audio.codec.mbe;
+
+import io.github.dsheirer.module.decode.p25.audio.VoiceFrame;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for the binary MBE call sequence format produced by the MBECallSequenceWriter.
+ *
+ * Voice frames are returned one at a time by next().  Metadata records (identifiers, call type and encrypted flag)
+ * are applied to the reader's metadata properties as they are read, so the metadata reflects the records that precede
+ * the most recently returned frame.  A truncated file (e.g. recording interrupted by a crash) is read up to the last
+ * complete record.
+ */
+public class MBECallSequenceBinaryReader implements AutoCloseable
+{
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int MAXIMUM_RECORD_LENGTH = 65536;
+
+    private DataInputStream mInputStream;
+    private String mProtocol;
+    private int mTimeslot;
+    private long mChannelFrequency;
+    private String mSystem;
+    private String mSite;
+    private long mStartTimestamp;
+    private long mPreviousTimestamp;
+    private String mFromIdentifier;
+    private String mToIdentifier;
+    private String mCallType;
+    private boolean mEncrypted;
+    private int mFrameCount;
+    private boolean mComplete;
+    private boolean mEndOfStream;
+    private Integer mSyncAlgorithm;
+    private Integer mSyncKeyId;
+    private String mSyncMessageIndicator;
+
+    /**
+     * Constructs a reader for the input stream and reads the header
+     *
+     * @param inputStream to read
+     * @throws IOException if the stream is not a binary MBE call sequence or the header can't be read
+     */
+    public MBECallSequenceBinaryReader(InputStream inputStream) throws IOException
+    {
+        mInputStream = new DataInputStream(new BufferedInputStream(inputStream));
+
+        byte[] magic = new byte[MBECallSequenceWriter.MAGIC.length];
+        mInputStream.readFully(magic);
+
+        if(!Arrays.equals(magic, MBECallSequenceWriter.MAGIC))
+        {
+            throw new IOException("Not a binary MBE call sequence");
+        }
+
+        int version = mInputStream.readUnsignedByte();
+
+        if(version > MBECallSequenceWriter.VERSION)
+        {
+            throw new IOException("Unsupported binary MBE call sequence version [" + version + "]");
+        }
+
+        mProtocol = emptyToNull(mInputStream.readUTF());
+        mTimeslot = mInputStream.readByte();
+        mChannelFrequency = mInputStream.readLong();
+        mSystem = emptyToNull(mInputStream.readUTF());
+        mSite = emptyToNull(mInputStream.readUTF());
+        mStartTimestamp = mInputStream.readLong();
+        mPreviousTimestamp = mStartTimestamp;
+    }
+
+    /**
+     * Indicates if the file starts with the binary MBE call sequence magic bytes
+     */
+    public static boolean isBinary(Path path) throws IOException
+    {
+        try(InputStream in = Files.newInputStream(path))
+        {
+            byte[] magic = new byte[MBECallSequenceWriter.MAGIC.length];
+            return in.readNBytes(magic, 0, magic.length) == magic.length &&
+                Arrays.equals(magic, MBECallSequenceWriter.MAGIC);
+        }
+    }
+
+    /**
+     * Reads the complete binary call sequence file into a call sequence
+     *
+     * @param path to the binary call sequence file
+     * @return call sequence with all voice frames
+     */
+    public static MBECallSequence read(Path path) throws IOException
+    {
+        try(MBECallSequenceBinaryReader reader = new MBECallSequenceBinaryReader(Files.newInputStream(path)))
+        {
+            MBECallSequence sequence = new MBECallSequence(reader.getProtocol());
+
+            VoiceFrame frame = reader.next();
+
+            while(frame != null)
+            {
+                sequence.getVoiceFrames().add(frame);
+                frame = reader.next();
+            }
+
+            sequence.setSystem(reader.getSystem());
+            sequence.setSite(reader.getSite());
+            sequence.setFromIdentifier(reader.getFromIdentifier());
+            sequence.setToIdentifier(reader.getToIdentifier());
+            sequence.setCallType(reader.getCallType());
+            sequence.setEncrypted(reader.isEncrypted());
+
+            return sequence;
+        }
+    }
+
+    /**
+     * Reads the next voice frame, applying any metadata records that precede it
+     *
+     * @return next voice frame or null when there are no more frames
+     */
+    public VoiceFrame next() throws IOException
+    {
+        while(!mEndOfStream)
+        {
+            int recordType;
+            byte[] payload;
+
+            try
+            {
+                recordType = mInputStream.read();
+
+                if(recordType < 0)
+                {
+                    mEndOfStream = true;
+                    return null;
+                }
+
+                long length = readVarLong(mInputStream);
+
+                if(length > MAXIMUM_RECORD_LENGTH)
+                {
+                    throw new IOException("Invalid binary MBE call sequence record length [" + length + "]");
+                }
+
+                payload = new byte[(int)length];
+                mInputStream.readFully(payload);
+            }
+            catch(EOFException eofe)
+            {
+                //Truncated record - the recording wasn't closed cleanly
+                mEndOfStream = true;
+                return null;
+            }
+
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+
+            switch(recordType)
+            {
+                case MBECallSequenceWriter.RECORD_FRAME:
+                    long timestamp = mPreviousTimestamp + unZigZag(readVarLong(record));
+                    mPreviousTimestamp = timestamp;
+                    mFrameCount++;
+                    String frame = toHex(record.readAllBytes());
+
+                    if(mSyncAlgorithm != null)
+                    {
+                        VoiceFrame encrypted = new VoiceFrame(timestamp, frame, mSyncAlgorithm, mSyncKeyId,
+                            mSyncMessageIndicator);
+                        mSyncAlgorithm = null;
+                        mSyncKeyId = null;
+                        mSyncMessageIndicator = null;
+                        return encrypted;
+                    }
+
+                    return new VoiceFrame(timestamp, frame);
+                case MBECallSequenceWriter.RECORD_ENCRYPTION_SYNC:
+                    mSyncAlgorithm = (int)readVarLong(record);
+                    mSyncKeyId = (int)readVarLong(record);
+                    mSyncMessageIndicator = emptyToNull(record.readUTF());
+                    break;
+                case MBECallSequenceWriter.RECORD_FROM:
+                    mFromIdentifier = emptyToNull(record.readUTF());
+                    break;
+                case MBECallSequenceWriter.RECORD_TO:
+                    mToIdentifier = emptyToNull(record.readUTF());
+                    break;
+                case MBECallSequenceWriter.RECORD_CALL_TYPE:
+                    mCallType = emptyToNull(record.readUTF());
+                    break;
+                case MBECallSequenceWriter.RECORD_ENCRYPTED:
+                    mEncrypted = record.readByte() != 0;
+                    break;
+                case MBECallSequenceWriter.RECORD_END:
+                    mComplete = true;
+                    mEndOfStream = true;
+                    return null;
+                default:
+                    //Unrecognized record type - skipped
+                    break;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        mInputStream.close();
+    }
+
+    /**
+     * Indicates if the end record was read, meaning that the recording was closed cleanly
+     */
+    public boolean isComplete()
+    {
+        return mComplete;
+    }
+
+    /**
+     * Number of voice frames read
+     */
+    public int getFrameCount()
+    {
+        return mFrameCount;
+    }
+
+    public String getProtocol()
+    {
+        return mProtocol;
+    }
+
+    /**
+     * Timeslot or -1 when not applicable
+     */
+    public int getTimeslot()
+    {
+        return mTimeslot;
+    }
+
+    public long getChannelFrequency()
+    {
+        return mChannelFrequency;
+    }
+
+    public String getSystem()
+    {
+        return mSystem;
+    }
+
+    public String getSite()
+    {
+        return mSite;
+    }
+
+    /**
+     * Timestamp when the call sequence recording started
+     */
+    public long getStartTimestamp()
+    {
+        return mStartTimestamp;
+    }
+
+    public String getFromIdentifier()
+    {
+        return mFromIdentifier;
+    }
+
+    public String getToIdentifier()
+    {
+        return mToIdentifier;
+    }
+
+    public String getCallType()
+    {
+        return mCallType;
+    }
+
+    public boolean isEncrypted()
+    {
+        return mEncrypted;
+    }
+
+    private static String emptyToNull(String value)
+    {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static long unZigZag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads an unsigned variable length value, 7 bits per byte, least significant group first
+     */
+    private static long readVarLong(DataInputStream in) throws IOException
+    {
+        long value = 0;
+        int shift = 0;
+        int b;
+
+        do
+        {
+            if(shift > 63)
+            {
+                throw new IOException("Malformed variable length value");
+            }
+
+            b = in.readUnsignedByte();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        }
+        while((b & 0x80) != 0);
+
+        return value;
+    }
+
+    /**
+     * Upper case hexadecimal representation of the frame bytes, matching the JSON format voice frames
+     */
+    private static String toHex(byte[] bytes)
+    {
+        char[] chars = new char[bytes.length * 2];
+
+        for(int x = 0; x < bytes.length; x++)
+        {
+            chars[2 * x] = HEX[(bytes[x] >> 4) & 0xF];
+            chars[2 * x + 1] = HEX[bytes[x] & 0xF];
+        }
+
+        return new String(chars);
+    }
+}
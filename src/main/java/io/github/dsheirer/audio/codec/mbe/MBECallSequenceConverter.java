@@ -22,16 +22,161 @@
 
 package io.github.dsheirer.audio.codec.mbe;
 
+import io.github.dsheirer.module.decode.p25.audio.VoiceFrame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
- * Utility for converting MBE call sequences (*.mbe) to PCM wave audio format
+ * Utility for converting MBE call sequences (*.mbe) to PCM wave audio format and for converting JSON format MBE call
+ * sequences to the binary call sequence format (*.mbec)
  */
 public class MBECallSequenceConverter
 {
     private final static Logger mLog = LoggerFactory.getLogger(MBECallSequenceConverter.class);
 
+    /**
+     * Converts a JSON format call sequence recording to the binary format.  The channel frequency and timeslot are
+     * parsed from the recording file name when available.
+     *
+     * @param input JSON format call sequence recording
+     * @param output binary format call sequence recording
+     * @throws IOException if there is an error reading or writing
+     */
+    public static void toBinary(Path input, Path output) throws IOException
+    {
+        MBECallSequence sequence = MBECallSequenceReader.read(input);
+
+        String[] tokens = input.getFileName().toString().split("_");
+        long frequency = 0;
+        int timeslot = -1;
+
+        if(tokens.length > 1)
+        {
+            try
+            {
+                frequency = Long.parseLong(tokens[1]);
+            }
+            catch(NumberFormatException nfe)
+            {
+                //Not a recorder generated file name
+            }
+        }
+
+        for(String token: tokens)
+        {
+            if(token.equals("TS0") || token.equals("TS1"))
+            {
+                timeslot = token.charAt(2) - '0';
+            }
+        }
+
+        List<VoiceFrame> frames = sequence.getVoiceFrames();
+        long start = frames.isEmpty() ? 0 : frames.get(0).getTimestamp();
+
+        try(MBECallSequenceWriter writer = new MBECallSequenceWriter(output, sequence.getProtocol(), timeslot,
+            frequency, sequence.getSystem(), sequence.getSite(), start))
+        {
+            if(sequence.getFromIdentifier() != null)
+            {
+                writer.writeValue(MBECallSequenceWriter.RECORD_FROM, sequence.getFromIdentifier());
+            }
+
+            if(sequence.getToIdentifier() != null)
+            {
+                writer.writeValue(MBECallSequenceWriter.RECORD_TO, sequence.getToIdentifier());
+            }
+
+            if(sequence.getCallType() != null)
+            {
+                writer.writeValue(MBECallSequenceWriter.RECORD_CALL_TYPE, sequence.getCallType());
+            }
+
+            if(sequence.isEncrypted())
+            {
+                writer.writeEncrypted(true);
+            }
+
+            for(VoiceFrame frame: frames)
+            {
+                if(frame.getAlgorithm() != null)
+                {
+                    writer.writeEncryptionSync(frame.getAlgorithm(), frame.getKeyId() != null ? frame.getKeyId() : 0,
+                        frame.getMessageIndicator());
+                }
+
+                writer.writeFrame(frame.getTimestamp(), frame.getFrameBytes());
+            }
+        }
+    }
+
+    /**
+     * Converts JSON format call sequence recordings (*.mbe) to the binary format (*.mbec) and reports the size
+     * reduction.  Arguments are recording files or directories containing recordings.
+     */
+    public static void main(String[] args)
+    {
+        List<Path> inputs = new ArrayList<>();
+
+        for(String arg: args)
+        {
+            Path path = Paths.get(arg);
+
+            if(Files.isDirectory(path))
+            {
+                try(Stream<Path> stream = Files.list(path))
+                {
+                    stream.filter(file -> file.toString().endsWith(MBECallSequenceFormat.JSON.getExtension()))
+                        .sorted().forEach(inputs::add);
+                }
+                catch(IOException ioe)
+                {
+                    mLog.error("Error listing directory [" + path.toString() + "]", ioe);
+                }
+            }
+            else
+            {
+                inputs.add(path);
+            }
+        }
+
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+
+        for(Path input: inputs)
+        {
+            String name = input.toString();
+
+            if(name.endsWith(MBECallSequenceFormat.JSON.getExtension()))
+            {
+                name = name.substring(0, name.length() - MBECallSequenceFormat.JSON.getExtension().length());
+            }
+
+            Path output = Paths.get(name + MBECallSequenceFormat.BINARY.getExtension());
+
+            try
+            {
+                toBinary(input, output);
+                jsonBytes += Files.size(input);
+                binaryBytes += Files.size(output);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Error converting [" + input.toString() + "]", e);
+            }
+        }
+
+        mLog.info("Converted [" + inputs.size() + "] call sequences - JSON:" + jsonBytes + " bytes binary:" +
+            binaryBytes + " bytes" + (binaryBytes > 0 ? " ratio:" + ((double)jsonBytes / binaryBytes) : ""));
+    }
+
 //    public static void convert(Path input, Path output) throws IOException
 //    {
 //        InputStream inputStream = Files.newInputStream(input);
@@ -0,0 +1,58 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.audio.codec.mbe;
+
+/**
+ * MBE call sequence recording file formats
+ */
+public enum MBECallSequenceFormat
+{
+    /**
+     * Binary container with length-prefixed frame and metadata records, written while the call is in progress
+     */
+    BINARY("Binary", ".mbec"),
+
+    /**
+     * JSON document with hexadecimal voice frames, written when the call completes
+     */
+    JSON("JSON", ".mbe");
+
+    private String mLabel;
+    private String mExtension;
+
+    MBECallSequenceFormat(String label, String extension)
+    {
+        mLabel = label;
+        mExtension = extension;
+    }
+
+    /**
+     * File extension for the format, including the leading period
+     */
+    public String getExtension()
+    {
+        return mExtension;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mLabel;
+    }
+}
@@ -24,6 +24,7 @@ package io.github.dsheirer.audio.codec.mbe;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Joiner;
 import io.github.dsheirer.module.decode.p25.audio.VoiceFrame;
 
@@ -31,34 +32,44 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
- * Reader for MBE call sequence recordings
+ * Reader for MBE call sequence recordings in either the binary or the JSON format
  */
 public class MBECallSequenceReader
 {
-    public static List<String> getAudioFrames(Path path) throws IOException
-    {
-        ObjectMapper mapper = new ObjectMapper();
-        Object obj = mapper.readValue(path.toFile(), MBECallSequence.class);
+    private static final ObjectReader JSON_READER = new ObjectMapper().readerFor(MBECallSequence.class);
 
-        if(obj instanceof MBECallSequence)
+    /**
+     * Reads the binary or JSON call sequence recording
+     *
+     * @param path to the recording
+     * @return call sequence
+     * @throws IOException if there is an error reading the recording
+     */
+    public static MBECallSequence read(Path path) throws IOException
+    {
+        if(MBECallSequenceBinaryReader.isBinary(path))
         {
-            MBECallSequence sequence = (MBECallSequence)obj;
+            return MBECallSequenceBinaryReader.read(path);
+        }
 
-            List<String> audioFrames = new ArrayList<>();
+        return JSON_READER.readValue(path.toFile());
+    }
 
-            for(VoiceFrame voiceFrame: sequence.getVoiceFrames())
-            {
-                audioFrames.add(voiceFrame.getFrame());
-            }
+    public static List<String> getAudioFrames(Path path) throws IOException
+    {
+        MBECallSequence sequence = read(path);
 
-            return audioFrames;
+        List<String> audioFrames = new ArrayList<>();
+
+        for(VoiceFrame voiceFrame: sequence.getVoiceFrames())
+        {
+            audioFrames.add(voiceFrame.getFrame());
         }
 
-        return Collections.emptyList();
+        return audioFrames;
     }
 
     public static void main(String[] args)
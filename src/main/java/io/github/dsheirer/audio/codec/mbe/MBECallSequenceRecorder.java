@@ -23,11 +23,13 @@
 package io.github.dsheirer.audio.codec.mbe;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.IMessageListener;
 import io.github.dsheirer.module.Module;
 import io.github.dsheirer.preference.TimestampFormat;
 import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.sample.Listener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +41,11 @@ import java.nio.file.Path;
 import java.util.Date;
 
 /**
- * Records MBE audio frame call sequences and metadata to a JSON format recording file
+ * Records MBE audio frame call sequences and metadata to a recording file.
+ *
+ * The recording format is set by the mbe.call.sequence.format system property (BINARY or JSON).  Binary recordings
+ * are streamed to a temporary file while the call is in progress and renamed with the call identifiers when the call
+ * completes.  JSON recordings are written when the call completes.
  */
 public abstract class MBECallSequenceRecorder extends Module implements IMessageListener, Listener<IMessage>
 {
@@ -48,11 +54,15 @@ public abstract class MBECallSequenceRecorder extends Module implements IMessage
     protected static final String CALL_TYPE_GROUP = "GROUP";
     protected static final String CALL_TYPE_INDIVIDUAL = "INDIVIDUAL";
     protected static final String CALL_TYPE_TELEPHONE_INTERCONNECT = "TELEPHONE INTERCONNECT";
+    private static final String FORMAT_PROPERTY = "mbe.call.sequence.format";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
     protected UserPreferences mUserPreferences;
     protected long mChannelFrequency;
     protected String mSystem;
     protected String mSite;
     private int mCallNumber = 1;
+    private MBECallSequenceFormat mFormat = MBECallSequenceFormat.BINARY;
 
     /**
      * Constructs an instance
@@ -65,6 +75,110 @@ public abstract class MBECallSequenceRecorder extends Module implements IMessage
         mChannelFrequency = channelFrequency;
         mSystem = system;
         mSite = site;
+
+        String format = SystemProperties.getInstance().get(FORMAT_PROPERTY, mFormat.name());
+
+        try
+        {
+            mFormat = MBECallSequenceFormat.valueOf(format);
+        }
+        catch(Exception e)
+        {
+            mLog.error("Unrecognized MBE call sequence format [" + format + "] - using " + mFormat.name());
+        }
+    }
+
+    /**
+     * Creates a new call sequence.  For the binary format, the call sequence recording is started immediately and
+     * the voice frames are streamed to the recording as they are added.  If the binary recording can't be created,
+     * the call sequence is recorded in JSON format when the call completes.
+     *
+     * @param protocol for the voice frames
+     * @param timeslot for the call sequence or -1 when not applicable
+     * @return call sequence
+     */
+    protected MBECallSequence createCallSequence(String protocol, int timeslot)
+    {
+        MBECallSequence sequence = new MBECallSequence(protocol);
+        sequence.setSystem(mSystem);
+        sequence.setSite(mSite);
+
+        if(mFormat == MBECallSequenceFormat.BINARY)
+        {
+            Path filePath = getRecordingDirectory().resolve(getFileNamePrefix() + TEMPORARY_EXTENSION);
+
+            try
+            {
+                sequence.attachWriter(new MBECallSequenceWriter(filePath, protocol, timeslot, mChannelFrequency,
+                    mSystem, mSite, System.currentTimeMillis()));
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Couldn't create binary MBE call sequence recording [" + filePath.toString() + "]", ioe);
+            }
+        }
+
+        return sequence;
+    }
+
+    /**
+     * Recording directory from the user preferences
+     */
+    private Path getRecordingDirectory()
+    {
+        return mUserPreferences.getDirectoryPreference().getDirectoryRecording();
+    }
+
+    /**
+     * Creates a recording file name prefix from the current timestamp, channel frequency and call number and
+     * increments the call number.
+     */
+    private String getFileNamePrefix()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(TimestampFormat.TIMESTAMP_COMPACT.getFormatter().format(new Date(System.currentTimeMillis())));
+        sb.append("_").append(mChannelFrequency);
+        sb.append("_").append(mCallNumber++);
+
+        if(mCallNumber < 1)
+        {
+            mCallNumber = 1;
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Creates the recording file name from the prefix, optional channel tag and the call sequence identifiers.
+     */
+    private static String getFileName(String prefix, MBECallSequence sequence, String optionalChannelTag,
+                                      MBECallSequenceFormat format)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(prefix);
+
+        if(optionalChannelTag != null)
+        {
+            sb.append("_").append(optionalChannelTag);
+        }
+
+        if(sequence.getToIdentifier() != null)
+        {
+            sb.append("_").append(sequence.getToIdentifier().replace(":", ""));
+        }
+        if(sequence.getFromIdentifier() != null)
+        {
+            sb.append("_").append(sequence.getFromIdentifier().replace(":", ""));
+        }
+
+        if(sequence.isEncrypted())
+        {
+            sb.append("_encrypted");
+        }
+
+        sb.append(format.getExtension());
+
+        return sb.toString();
     }
 
     @Override
@@ -92,64 +206,67 @@ public abstract class MBECallSequenceRecorder extends Module implements IMessage
     }
 
     /**
-     * Writes an MBE call sequence recording to the recording directory.
+     * Writes an MBE call sequence recording to the recording directory, or completes the binary recording when the
+     * call sequence is being streamed to a binary recording.
      *
      * @param optionalChannelTag to include in the filename
      * @param sequence containing voice frames
      */
     protected void writeCallSequence(MBECallSequence sequence, String optionalChannelTag)
     {
-        if(sequence != null && sequence.hasAudio())
+        if(sequence != null && sequence.hasWriter())
+        {
+            closeCallSequence(sequence, optionalChannelTag);
+        }
+        else if(sequence != null && sequence.hasAudio())
         {
             sequence.setSystem(mSystem);
             sequence.setSite(mSite);
 
-            StringBuilder sb = new StringBuilder();
-            sb.append(TimestampFormat.TIMESTAMP_COMPACT.getFormatter().format(new Date(System.currentTimeMillis())));
-            sb.append("_").append(mChannelFrequency);
-            sb.append("_").append(mCallNumber++);
-
-            if(mCallNumber < 1)
-            {
-                mCallNumber = 1;
-            }
-
-            if(optionalChannelTag != null)
-            {
-                sb.append("_").append(optionalChannelTag);
-            }
+            String fileName = getFileName(getFileNamePrefix(), sequence, optionalChannelTag, MBECallSequenceFormat.JSON);
+            Path filePath = getRecordingDirectory().resolve(fileName);
 
-            if(sequence.getToIdentifier() != null)
-            {
-                sb.append("_").append(sequence.getToIdentifier().replace(":", ""));
-            }
-            if(sequence.getFromIdentifier() != null)
+            try(OutputStream outputStream = Files.newOutputStream(filePath))
             {
-                sb.append("_").append(sequence.getFromIdentifier().replace(":", ""));
+                JSON_WRITER.writeValue(outputStream, sequence);
             }
-
-            if(sequence.isEncrypted())
+            catch(IOException ioe)
             {
-                sb.append("_encrypted");
+                mLog.error("Couldn't write MBE call sequence to path [" + filePath.toString() + "]", ioe);
             }
+        }
+    }
 
-            sb.append(".mbe");
+    /**
+     * Closes the binary call sequence recording and renames it with the call identifiers, or deletes the recording
+     * when the call sequence doesn't contain audio or the recording failed.
+     */
+    private void closeCallSequence(MBECallSequence sequence, String optionalChannelTag)
+    {
+        MBECallSequenceWriter writer = sequence.detachWriter();
+        Path temporaryPath = writer.getPath();
 
-            Path recordingDirectory = mUserPreferences.getDirectoryPreference().getDirectoryRecording();
-            Path filePath = recordingDirectory.resolve(sb.toString());
+        try
+        {
+            writer.close();
 
-            try
+            if(sequence.hasAudio() && !sequence.isWriterFailed())
             {
-                OutputStream outputStream = Files.newOutputStream(filePath);
-                ObjectMapper mapper = new ObjectMapper();
-                mapper.writerWithDefaultPrettyPrinter().writeValue(outputStream, sequence);
-                outputStream.close();
+                String temporaryName = temporaryPath.getFileName().toString();
+                String prefix = temporaryName.substring(0, temporaryName.length() - TEMPORARY_EXTENSION.length());
+                Path filePath = temporaryPath.resolveSibling(getFileName(prefix, sequence, optionalChannelTag,
+                    MBECallSequenceFormat.BINARY));
+                Files.move(temporaryPath, filePath);
             }
-            catch(IOException ioe)
+            else
             {
-                mLog.error("Couldn't write MBE call sequence to path [" + filePath.toString() + "]", ioe);
+                Files.deleteIfExists(temporaryPath);
             }
         }
+        catch(IOException ioe)
+        {
+            mLog.error("Couldn't complete binary MBE call sequence recording [" + temporaryPath.toString() + "]", ioe);
+        }
     }
 
     /**
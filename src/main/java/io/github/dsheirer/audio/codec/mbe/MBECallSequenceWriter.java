@@ -0,0 +1,236 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.audio.codec.mbe;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streaming writer for the binary MBE call sequence format.  Voice frames and call metadata are appended to the file
+ * as they are received, so a call sequence doesn't have to be held in memory until the call completes.
+ *
+ * File layout (big-endian):
+ *
+ * Header: 4-byte magic (MBEC), format version byte, protocol (UTF), timeslot byte (-1 when not applicable), channel
+ * frequency (long), system (UTF), site (UTF) and start timestamp (long milliseconds).
+ *
+ * Records: record type byte, payload length (unsigned varint) and payload.  Readers skip record types that they don't
+ * recognize, using the payload length.
+ *
+ * - FRAME: timestamp delta from the previous frame, or from the header start timestamp for the first frame
+ *   (zig-zag varint milliseconds), followed by the raw frame bytes
+ * - ENCRYPTION_SYNC: algorithm (varint), key id (varint) and message indicator (UTF).  Applies to the next frame.
+ * - FROM, TO, CALL_TYPE: identifier or call type value (UTF)
+ * - ENCRYPTED: encrypted call flag byte
+ * - END: total frame count (varint).  Written when the writer is closed.  A file without an END record was not
+ *   closed cleanly, but every complete record before the end of the file is still readable.
+ */
+public class MBECallSequenceWriter implements AutoCloseable
+{
+    public static final byte[] MAGIC = "MBEC".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+
+    public static final int RECORD_FRAME = 1;
+    public static final int RECORD_ENCRYPTION_SYNC = 2;
+    public static final int RECORD_FROM = 3;
+    public static final int RECORD_TO = 4;
+    public static final int RECORD_CALL_TYPE = 5;
+    public static final int RECORD_ENCRYPTED = 6;
+    public static final int RECORD_END = 127;
+
+    private static final int BUFFER_SIZE = 16384;
+
+    private Path mPath;
+    private DataOutputStream mOutputStream;
+    private ByteArrayOutputStream mRecordBuffer = new ByteArrayOutputStream(64);
+    private DataOutputStream mRecord = new DataOutputStream(mRecordBuffer);
+    private long mPreviousTimestamp;
+    private int mFrameCount;
+    private boolean mClosed;
+
+    /**
+     * Constructs a writer for the output stream and writes the header
+     *
+     * @param outputStream to write to
+     * @param protocol for the voice frames
+     * @param timeslot for the call, or -1 when not applicable
+     * @param channelFrequency for the channel
+     * @param system name or null
+     * @param site name or null
+     * @param startTimestamp for the call sequence
+     * @throws IOException if there is an error writing the header
+     */
+    public MBECallSequenceWriter(OutputStream outputStream, String protocol, int timeslot, long channelFrequency,
+                                 String system, String site, long startTimestamp) throws IOException
+    {
+        mOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+        mOutputStream.write(MAGIC);
+        mOutputStream.writeByte(VERSION);
+        mOutputStream.writeUTF(protocol != null ? protocol : "");
+        mOutputStream.writeByte(timeslot);
+        mOutputStream.writeLong(channelFrequency);
+        mOutputStream.writeUTF(system != null ? system : "");
+        mOutputStream.writeUTF(site != null ? site : "");
+        mOutputStream.writeLong(startTimestamp);
+        mPreviousTimestamp = startTimestamp;
+    }
+
+    /**
+     * Constructs a writer for a new file and writes the header
+     *
+     * @param path for the new file
+     * @see #MBECallSequenceWriter(OutputStream, String, int, long, String, String, long)
+     */
+    public MBECallSequenceWriter(Path path, String protocol, int timeslot, long channelFrequency, String system,
+                                 String site, long startTimestamp) throws IOException
+    {
+        this(Files.newOutputStream(path), protocol, timeslot, channelFrequency, system, site, startTimestamp);
+        mPath = path;
+    }
+
+    /**
+     * File path for this writer or null when the writer was constructed for an output stream
+     */
+    public Path getPath()
+    {
+        return mPath;
+    }
+
+    /**
+     * Number of voice frames written
+     */
+    public int getFrameCount()
+    {
+        return mFrameCount;
+    }
+
+    /**
+     * Writes a voice frame record
+     *
+     * @param timestamp of the frame in milliseconds
+     * @param frame bytes
+     */
+    public void writeFrame(long timestamp, byte[] frame) throws IOException
+    {
+        writeVarLong(mRecord, zigZag(timestamp - mPreviousTimestamp));
+        mRecord.write(frame);
+        mPreviousTimestamp = timestamp;
+        mFrameCount++;
+        writeRecord(RECORD_FRAME);
+    }
+
+    /**
+     * Writes an encryption sync record that applies to the next voice frame
+     */
+    public void writeEncryptionSync(int algorithm, int keyId, String messageIndicator) throws IOException
+    {
+        writeVarLong(mRecord, algorithm);
+        writeVarLong(mRecord, keyId);
+        mRecord.writeUTF(messageIndicator != null ? messageIndicator : "");
+        writeRecord(RECORD_ENCRYPTION_SYNC);
+    }
+
+    /**
+     * Writes an identifier or call type record
+     *
+     * @param recordType RECORD_FROM, RECORD_TO or RECORD_CALL_TYPE
+     * @param value for the record
+     */
+    public void writeValue(int recordType, String value) throws IOException
+    {
+        mRecord.writeUTF(value != null ? value : "");
+        writeRecord(recordType);
+    }
+
+    /**
+     * Writes the encrypted call flag record
+     */
+    public void writeEncrypted(boolean encrypted) throws IOException
+    {
+        mRecord.writeByte(encrypted ? 1 : 0);
+        writeRecord(RECORD_ENCRYPTED);
+    }
+
+    /**
+     * Writes the end record and closes the output stream
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if(!mClosed)
+        {
+            mClosed = true;
+
+            try
+            {
+                writeVarLong(mRecord, mFrameCount);
+                writeRecord(RECORD_END);
+            }
+            finally
+            {
+                mOutputStream.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the record type, the payload length and the payload from the record buffer and resets the buffer
+     */
+    private void writeRecord(int recordType) throws IOException
+    {
+        if(mClosed && recordType != RECORD_END)
+        {
+            mRecordBuffer.reset();
+            throw new IOException("MBE call sequence writer is closed");
+        }
+
+        mOutputStream.writeByte(recordType);
+        writeVarLong(mOutputStream, mRecordBuffer.size());
+        mRecordBuffer.writeTo(mOutputStream);
+        mRecordBuffer.reset();
+    }
+
+    /**
+     * Zig-zag encodes a signed value so that small negative values are also encoded with few varint bytes
+     */
+    private static long zigZag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Writes an unsigned variable length value, 7 bits per byte, least significant group first
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException
+    {
+        while((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int)value);
+    }
+}
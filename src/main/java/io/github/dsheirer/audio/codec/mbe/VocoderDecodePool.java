@@ -0,0 +1,243 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.codec.mbe;
+
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.properties.SystemProperties;
+import jmbe.iface.IAudioCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide bounded worker pool for decoding compressed vocoder audio frames to PCM audio on demand.
+ *
+ * Vocoder codec instances are expensive to create and hold per-call synthesis state.  The pool retains idle codec
+ * instances, per codec name, for reuse by subsequent calls.  A codec instance is reset before it is reused.
+ *
+ * The pool tracks the number of frames received, decoded and never decoded (ie audio that no consumer requested) and
+ * the cumulative decode time.
+ */
+public class VocoderDecodePool
+{
+    private final static Logger mLog = LoggerFactory.getLogger(VocoderDecodePool.class);
+
+    private static final String THREAD_COUNT_PROPERTY = "vocoder.decode.pool.threads";
+    private static VocoderDecodePool sInstance;
+
+    private ThreadPoolExecutor mExecutor;
+    private Map<String,Queue<IAudioCodec>> mIdleCodecs = new ConcurrentHashMap<>();
+
+    //Metrics
+    private AtomicLong mFramesReceived = new AtomicLong();
+    private AtomicLong mFramesDecoded = new AtomicLong();
+    private AtomicLong mFramesNotDecoded = new AtomicLong();
+    private AtomicLong mDecodeNanoseconds = new AtomicLong();
+    private AtomicLong mCodecsCreated = new AtomicLong();
+    private AtomicLong mCodecsReused = new AtomicLong();
+
+    /**
+     * Constructs an instance
+     *
+     * @param threadCount for the worker pool
+     */
+    public VocoderDecodePool(int threadCount)
+    {
+        mExecutor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new NamingThreadFactory("sdrtrunk vocoder decoder"));
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Application-wide instance, sized from the system properties.  The default thread count is half of the
+     * available processors, between one and four threads.
+     */
+    public static synchronized VocoderDecodePool getInstance()
+    {
+        if(sInstance == null)
+        {
+            int defaultThreadCount = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            int threadCount = SystemProperties.getInstance().get(THREAD_COUNT_PROPERTY, defaultThreadCount);
+            sInstance = new VocoderDecodePool(Math.max(1, threadCount));
+            mLog.info("Vocoder decode pool created with [" + threadCount + "] threads");
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Schedules the decode task on the worker pool
+     */
+    public Future<?> submit(Runnable decodeTask)
+    {
+        return mExecutor.submit(decodeTask);
+    }
+
+    /**
+     * Obtains an idle codec instance for the codec name, or creates a new instance when none are idle.
+     *
+     * @param codecName for the codec
+     * @param codecFactory to create a new codec instance
+     * @return codec instance, or null if the factory can't create a codec
+     */
+    public IAudioCodec borrow(String codecName, Supplier<IAudioCodec> codecFactory)
+    {
+        Queue<IAudioCodec> idle = mIdleCodecs.get(codecName);
+
+        if(idle != null)
+        {
+            IAudioCodec codec = idle.poll();
+
+            if(codec != null)
+            {
+                codec.reset();
+                mCodecsReused.incrementAndGet();
+                return codec;
+            }
+        }
+
+        IAudioCodec codec = codecFactory.get();
+
+        if(codec != null)
+        {
+            mCodecsCreated.incrementAndGet();
+        }
+
+        return codec;
+    }
+
+    /**
+     * Returns the codec instance to the idle pool for reuse
+     *
+     * @param codecName for the codec
+     * @param codec to reuse
+     */
+    public void release(String codecName, IAudioCodec codec)
+    {
+        if(codec != null)
+        {
+            mIdleCodecs.computeIfAbsent(codecName, name -> new ConcurrentLinkedQueue<>()).add(codec);
+        }
+    }
+
+    /**
+     * Discards all idle codec instances.  Use when the codec library changes.
+     */
+    public void clear()
+    {
+        mIdleCodecs.clear();
+    }
+
+    /**
+     * Records that a compressed frame was added to an audio segment
+     */
+    public void frameReceived()
+    {
+        mFramesReceived.incrementAndGet();
+    }
+
+    /**
+     * Records that a frame was decoded
+     *
+     * @param decodeNanoseconds elapsed decode time
+     */
+    public void frameDecoded(long decodeNanoseconds)
+    {
+        mFramesDecoded.incrementAndGet();
+        mDecodeNanoseconds.addAndGet(decodeNanoseconds);
+    }
+
+    /**
+     * Records frames that were discarded without being decoded
+     *
+     * @param count of frames
+     */
+    public void framesNotDecoded(int count)
+    {
+        mFramesNotDecoded.addAndGet(count);
+    }
+
+    /**
+     * Number of compressed frames received
+     */
+    public long getFramesReceived()
+    {
+        return mFramesReceived.get();
+    }
+
+    /**
+     * Number of compressed frames decoded to PCM audio
+     */
+    public long getFramesDecoded()
+    {
+        return mFramesDecoded.get();
+    }
+
+    /**
+     * Number of compressed frames discarded without being decoded
+     */
+    public long getFramesNotDecoded()
+    {
+        return mFramesNotDecoded.get();
+    }
+
+    /**
+     * Average decode time per frame in microseconds
+     */
+    public double getAverageDecodeMicroseconds()
+    {
+        long decoded = mFramesDecoded.get();
+        return decoded > 0 ? (mDecodeNanoseconds.get() / 1E3) / decoded : 0.0;
+    }
+
+    /**
+     * Number of decode tasks waiting for a worker thread
+     */
+    public int getQueueDepth()
+    {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * Formatted statistics summary
+     */
+    public String getStatistics()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("VOCODER FRAMES RECEIVED:").append(getFramesReceived());
+        sb.append(" DECODED:").append(getFramesDecoded());
+        sb.append(" NOT DECODED:").append(getFramesNotDecoded());
+        sb.append(" AVG DECODE:").append(String.format("%.1f", getAverageDecodeMicroseconds())).append("us");
+        sb.append(" QUEUE:").append(getQueueDepth());
+        sb.append(" CODECS CREATED:").append(mCodecsCreated.get());
+        sb.append(" REUSED:").append(mCodecsReused.get());
+        return sb.toString();
+    }
+}
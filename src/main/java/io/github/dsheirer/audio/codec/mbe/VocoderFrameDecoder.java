@@ -0,0 +1,117 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.codec.mbe;
+
+import io.github.dsheirer.audio.IAudioFrameDecoder;
+import io.github.dsheirer.dsp.gain.NonClippingGain;
+import jmbe.iface.IAudioCodec;
+
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Audio segment frame decoder for JMBE vocoder frames.  Borrows a codec instance from the vocoder decode pool on the
+ * first decode request and returns it to the pool when the audio segment is disposed.
+ */
+public class VocoderFrameDecoder implements IAudioFrameDecoder
+{
+    public static final int SAMPLES_PER_FRAME = 160; //20 milliseconds at 8 kHz
+
+    private VocoderDecodePool mPool;
+    private String mCodecName;
+    private Supplier<IAudioCodec> mCodecFactory;
+    private NonClippingGain mGain;
+    private IAudioCodec mAudioCodec;
+    private boolean mDisposed;
+
+    /**
+     * Constructs an instance
+     *
+     * @param pool for decoding and codec reuse
+     * @param codecName of the JMBE codec
+     * @param codecFactory to create a codec instance when the pool has none available
+     * @param gain to apply to the decoded audio, or null
+     */
+    public VocoderFrameDecoder(VocoderDecodePool pool, String codecName, Supplier<IAudioCodec> codecFactory,
+                               NonClippingGain gain)
+    {
+        mPool = pool;
+        mCodecName = codecName;
+        mCodecFactory = codecFactory;
+        mGain = gain;
+    }
+
+    @Override
+    public int getSamplesPerFrame()
+    {
+        return SAMPLES_PER_FRAME;
+    }
+
+    @Override
+    public Future<?> submit(Runnable decodeTask)
+    {
+        return mPool.submit(decodeTask);
+    }
+
+    @Override
+    public synchronized float[] decode(byte[] frame)
+    {
+        if(mDisposed)
+        {
+            return null;
+        }
+
+        if(mAudioCodec == null)
+        {
+            mAudioCodec = mPool.borrow(mCodecName, mCodecFactory);
+
+            if(mAudioCodec == null)
+            {
+                return new float[SAMPLES_PER_FRAME];
+            }
+        }
+
+        long start = System.nanoTime();
+
+        float[] audio = mAudioCodec.getAudio(frame);
+
+        if(mGain != null)
+        {
+            audio = mGain.apply(audio);
+        }
+
+        mPool.frameDecoded(System.nanoTime() - start);
+
+        return audio;
+    }
+
+    @Override
+    public synchronized void dispose(int undecodedFrameCount)
+    {
+        mDisposed = true;
+        mPool.framesNotDecoded(undecodedFrameCount);
+
+        if(mAudioCodec != null)
+        {
+            mPool.release(mCodecName, mAudioCodec);
+            mAudioCodec = null;
+        }
+    }
+}
@@ -33,7 +33,6 @@ import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.source.mixer.MixerChannel;
-import io.github.dsheirer.util.ThreadPool;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -52,22 +51,31 @@ import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
 import javax.sound.sampled.SourceDataLine;
 import java.nio.ByteBuffer;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Audio output/playback channel for a single audio mixer channel.  Providers support for playback of audio segments
  * and broadcasts audio segment metadata to registered listeners (ie gui components).
+ *
+ * Each audio output has a dedicated audio render thread that writes to the source data line.  The render thread
+ * takes audio segments from the shared audio segment queue, or from the linked audio segment handoff, and is woken
+ * when new audio segments arrive.  Preemption of the current audio segment by a higher priority audio segment is
+ * decided by the render thread without locking.
  */
 public abstract class AudioOutput implements LineListener, Listener<IdentifierUpdateNotification>
 {
     private final static Logger mLog = LoggerFactory.getLogger(AudioOutput.class);
+    private static final long IDLE_WAIT_NANOSECONDS = TimeUnit.SECONDS.toNanos(1);
+    private static final long AUDIO_WAIT_NANOSECONDS = TimeUnit.MILLISECONDS.toNanos(10);
     private int mBufferStartThreshold;
     private int mBufferStopThreshold;
     private Listener<IdentifierCollection> mIdentifierCollectionListener;
     private Broadcaster<AudioEvent> mAudioEventBroadcaster = new Broadcaster<>();
-    private ScheduledFuture<?> mProcessorFuture;
+    private AudioSegmentQueue mAudioSegmentQueue;
+    private volatile Thread mRenderThread;
     private SourceDataLine mOutput;
     private Mixer mMixer;
     private MixerChannel mMixerChannel;
@@ -75,10 +83,11 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     private BooleanControl mMuteControl;
     private AudioEvent mAudioStartEvent;
     private AudioEvent mAudioStopEvent;
-    private boolean mCanProcessAudio = false;
-    private AudioSegment mCurrentAudioSegment;
-    private AudioSegment mNextAudioSegment;
-    private ReentrantLock mLock = new ReentrantLock();
+    private volatile boolean mCanProcessAudio = false;
+    private volatile AudioSegment mCurrentAudioSegment;
+    private AtomicReference<AudioSegment> mNextAudioSegment = new AtomicReference<>();
+    private AtomicLong mUnderrunCount = new AtomicLong();
+    private AtomicLong mOverrunCount = new AtomicLong();
     private int mCurrentBufferIndex = 0;
     private UserPreferences mUserPreferences;
     private BooleanProperty mEmptyProperty = new SimpleBooleanProperty(true);
@@ -93,20 +102,22 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
      * underlying sourcedataline specified by the mixer and mixer channel
      * arguments.
      *
-     * Maintains an internal non-blocking audio packet queue and processes this
-     * queue 25 times a second (every 40 ms).
+     * Audio segments are played by a dedicated audio render thread that takes audio segments from the shared audio
+     * segment queue.
      *
      * @param mixer to obtain source data line
      * @param mixerChannel either mono or left/right stereo
      * @param audioFormat to use during playback
      * @param lineInfo to use when obtaining the source data line
      * @param requestedBufferSize of approximately 1 second of audio
+     * @param audioSegmentQueue shared by all audio outputs
      */
     public AudioOutput(Mixer mixer, MixerChannel mixerChannel, AudioFormat audioFormat, Line.Info lineInfo,
-                       int requestedBufferSize, UserPreferences userPreferences)
+                       int requestedBufferSize, AudioSegmentQueue audioSegmentQueue, UserPreferences userPreferences)
     {
         mMixer = mixer;
         mMixerChannel = mixerChannel;
+        mAudioSegmentQueue = audioSegmentQueue;
         mUserPreferences = userPreferences;
 
         try
@@ -148,10 +159,6 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
                         mLog.warn("Couldn't obtain MUTE control for stereo line [" +
                             mixer.getMixerInfo().getName() + " | " + getChannelName() + "]");
                     }
-
-					//Run the queue processor task every 100 milliseconds or 10 times a second
-                    mProcessorFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(new AudioSegmentProcessor(),
-                        0, 100, TimeUnit.MILLISECONDS);
                 }
 
                 mAudioStartEvent = new AudioEvent(AudioEvent.Type.AUDIO_STARTED, getChannelName());
@@ -169,6 +176,24 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
 
         //Register to receive directory preference update notifications so we can update the preference items
         MyEventBus.getEventBus().register(this);
+
+        if(mCanProcessAudio)
+        {
+            mRenderThread = new Thread(new AudioRenderer());
+            mRenderThread.setName("sdrtrunk audio output " + getChannelName());
+            mRenderThread.setDaemon(true);
+
+            try
+            {
+                mRenderThread.setPriority(Thread.MAX_PRIORITY);
+            }
+            catch(IllegalArgumentException iae)
+            {
+                //Do nothing ... couldn't set the priority
+            }
+
+            mRenderThread.start();
+        }
     }
 
     /**
@@ -179,6 +204,15 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
         return mEmptyProperty;
     }
 
+    /**
+     * Indicates if this audio output is able to play audio and has no audio segment assigned or in process of
+     * playback.  This is safe to invoke from any thread.
+     */
+    public boolean isIdle()
+    {
+        return mCanProcessAudio && mCurrentAudioSegment == null && mNextAudioSegment.get() == null;
+    }
+
     /**
      * Audio playback priority of the current audio segment or default audio priority if nothing is currently loaded.
      */
@@ -188,7 +222,24 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     }
 
     /**
-     * Schedules the audio segment for playback.
+     * Number of times that the source data line ran out of audio while an audio segment was playing
+     */
+    public long getUnderrunCount()
+    {
+        return mUnderrunCount.get();
+    }
+
+    /**
+     * Number of times that the source data line was full and the audio render thread had to wait to write audio
+     */
+    public long getOverrunCount()
+    {
+        return mOverrunCount.get();
+    }
+
+    /**
+     * Schedules the audio segment for playback, bypassing the shared audio segment queue.  This is used for linked
+     * audio segments to maintain audio continuity.
      *
      * Note: if a segment is currently playing and another audio segment is already queued for playback, invoking
      * this method will overwrite the queued segment with the argument.
@@ -199,23 +250,28 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     {
         if(audioSegment != null)
         {
-            mLock.lock();
+            AudioSegment replaced = mNextAudioSegment.getAndSet(audioSegment);
 
-            if(mNextAudioSegment != null)
+            if(replaced != null)
             {
-                mNextAudioSegment.decrementConsumerCount();
-                mNextAudioSegment = null;
+                replaced.decrementConsumerCount();
             }
 
-            try
-            {
-                mNextAudioSegment = audioSegment;
-                mEmptyProperty.set(false);
-            }
-            finally
-            {
-                mLock.unlock();
-            }
+            mEmptyProperty.set(false);
+            wake();
+        }
+    }
+
+    /**
+     * Wakes the audio render thread to check for newly arrived audio segments.
+     */
+    public void wake()
+    {
+        Thread renderThread = mRenderThread;
+
+        if(renderThread != null)
+        {
+            LockSupport.unpark(renderThread);
         }
     }
 
@@ -224,7 +280,8 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
      */
     public boolean isLinkedTo(AudioSegment audioSegment)
     {
-        return audioSegment.isLinked() && audioSegment.isLinkedTo(mCurrentAudioSegment);
+        AudioSegment current = mCurrentAudioSegment;
+        return current != null && audioSegment.isLinked() && audioSegment.isLinkedTo(current);
     }
 
     /**
@@ -233,9 +290,11 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     @Override
     public void receive(IdentifierUpdateNotification identifierUpdateNotification)
     {
-        if(mCurrentAudioSegment != null)
+        AudioSegment current = mCurrentAudioSegment;
+
+        if(current != null)
         {
-            IdentifierCollection identifierCollection = mCurrentAudioSegment.getIdentifierCollection();
+            IdentifierCollection identifierCollection = current.getIdentifierCollection();
 
             if(identifierCollection != null)
             {
@@ -295,6 +354,7 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     private void dispose(AudioSegment audioSegment)
     {
         mAudioPriority.unbind();
+        mAudioPriority.setValue(Priority.DEFAULT_PRIORITY);
 
         if(audioSegment != null)
         {
@@ -361,6 +421,11 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
 
             if(mOutput.isRunning() && wrote < buffer.array().length)
             {
+                if(mOutput.available() < buffer.array().length - wrote)
+                {
+                    mOverrunCount.incrementAndGet();
+                }
+
                 //This will block until the buffer is fully written to the data line
                 mOutput.write(buffer.array(), wrote, buffer.array().length - wrote);
             }
@@ -368,145 +433,182 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     }
 
     /**
-     * Manage audio segment playback and process audio segment buffers.  This method is designed to be called
-     * by a threaded processor repeatedly to playback the current audio segment and check for and start a newly
-     * assigned audio segment.  It also handles starting and stopping the playback source data line to avoid audio
-     * discontinuities due to buffer underruns.
+     * Indicates if the audio segment should not be played because it is flagged as do not monitor or as a suppressed
+     * duplicate call.
      */
-    private void processAudio()
+    private boolean isSuppressed(AudioSegment audioSegment)
     {
-        if(mNextAudioSegment != null)
-        {
-            mLock.lock();
+        return audioSegment.isDoNotMonitor() || (audioSegment.isDuplicate() &&
+            mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled());
+    }
 
-            try
-            {
-                //Remove an assigned segment that's subsequently flagged as duplicate or do not monitor before playback
-                if(mNextAudioSegment.isDoNotMonitor() || (mNextAudioSegment.isDuplicate() &&
-                    mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled()))
-                {
-                    mNextAudioSegment = null;
+    /**
+     * Takes the next audio segment for playback from the linked audio segment handoff or from the shared audio
+     * segment queue.  When an audio segment is currently playing, only a higher priority audio segment is taken from
+     * the queue, to preempt the current audio segment, and only when no other audio output is idle.  An idle audio
+     * output always gets the first chance to play a queued audio segment.
+     *
+     * @return next audio segment or null
+     */
+    private AudioSegment takeNextAudioSegment()
+    {
+        AudioSegment next = mNextAudioSegment.get();
 
-                    if(mCurrentAudioSegment == null)
-                    {
-                        mEmptyProperty.set(true);
-                    }
-                }
-                //For linked audio segments, allow the linked segment to complete first before assigning the next
-                else if(mNextAudioSegment.isLinked())
+        if(next != null)
+        {
+            //Remove an assigned segment that's subsequently flagged as duplicate or do not monitor before playback
+            if(isSuppressed(next))
+            {
+                if(mNextAudioSegment.compareAndSet(next, null))
                 {
-                    if(mCurrentAudioSegment == null)
-                    {
-                        mCurrentAudioSegment = mNextAudioSegment;
-                        mNextAudioSegment = null;
-                        mCurrentBufferIndex = 0;
-
-                        if(mCurrentAudioSegment != null)
-                        {
-                            mAudioPriority.bind(mCurrentAudioSegment.monitorPriorityProperty());
-                            mCurrentAudioSegment.addIdentifierUpdateNotificationListener(this);
-                            broadcast(mCurrentAudioSegment.getIdentifierCollection());
-                        }
-                        else
-                        {
-                            mAudioPriority.setValue(Priority.DEFAULT_PRIORITY);
-                        }
-                    }
+                    next.decrementConsumerCount();
                 }
-                else
-                {
-                    //Insert audio segment start or audio priority preemption bonk tone
-                    if(mCurrentAudioSegment == null)
-                    {
-                        playAudio(getAudioSegmentStartTone());
-                    }
-                    else if(mCurrentBufferIndex > 0 &&
-                        (!mCurrentAudioSegment.completeProperty().get() ||
-                            mCurrentBufferIndex < mCurrentAudioSegment.getAudioBufferCount()))
-                    {
-                        playAudio(getAudioSegmentPreemptionTone());
-                    }
-                    else
-                    {
-                        playAudio(getAudioSegmentStartTone());
-                    }
 
-                    //Close current audio segment
-                    dispose(mCurrentAudioSegment);
-                    mCurrentAudioSegment = mNextAudioSegment;
-                    mNextAudioSegment = null;
-                    mCurrentBufferIndex = 0;
+                return null;
+            }
 
-                    if(mCurrentAudioSegment != null)
-                    {
-                        mAudioPriority.bind(mCurrentAudioSegment.monitorPriorityProperty());
-                        mCurrentAudioSegment.addIdentifierUpdateNotificationListener(this);
-                        broadcast(mCurrentAudioSegment.getIdentifierCollection());
-                    }
-                    else
-                    {
-                        mAudioPriority.setValue(Priority.DEFAULT_PRIORITY);
-                    }
-                }
+            //For linked audio segments, allow the linked segment to complete first before assigning the next
+            if(next.isLinked() && mCurrentAudioSegment != null)
+            {
+                return null;
             }
-            finally
+
+            return mNextAudioSegment.compareAndSet(next, null) ? next : null;
+        }
+
+        AudioSegment current = mCurrentAudioSegment;
+
+        if(current == null)
+        {
+            return mAudioSegmentQueue.take(Integer.MAX_VALUE);
+        }
+
+        //Don't preempt the current audio segment when another audio output is idle and can play the queued segment
+        if(mAudioSegmentQueue.hasIdleAudioOutput())
+        {
+            return null;
+        }
+
+        return mAudioSegmentQueue.take(current.monitorPriorityProperty().get());
+    }
+
+    /**
+     * Starts playback of the audio segment, closing out the current audio segment.
+     */
+    private void start(AudioSegment audioSegment)
+    {
+        //Insert audio segment start or audio priority preemption bonk tone.  Linked audio segments continue the
+        //previous audio segment without a tone.
+        if(mCurrentAudioSegment == null)
+        {
+            if(!audioSegment.isLinked())
             {
-                mLock.unlock();
+                playAudio(getAudioSegmentStartTone());
             }
         }
+        else if(mCurrentBufferIndex > 0 &&
+            (!mCurrentAudioSegment.completeProperty().get() ||
+                mCurrentBufferIndex < mCurrentAudioSegment.getAudioBufferCount()))
+        {
+            playAudio(getAudioSegmentPreemptionTone());
+        }
+        else
+        {
+            playAudio(getAudioSegmentStartTone());
+        }
+
+        //Close current audio segment
+        dispose(mCurrentAudioSegment);
+        mCurrentAudioSegment = audioSegment;
+        mCurrentBufferIndex = 0;
+        mEmptyProperty.set(false);
+        mAudioPriority.bind(audioSegment.monitorPriorityProperty());
+        audioSegment.addIdentifierUpdateNotificationListener(this);
+        broadcast(audioSegment.getIdentifierCollection());
+    }
+
+    /**
+     * Manage audio segment playback and process audio segment buffers.  This method is called repeatedly by the audio
+     * render thread to start a newly assigned or higher priority audio segment and to play the next buffer of the
+     * current audio segment.  It also handles starting and stopping the playback source data line to avoid audio
+     * discontinuities due to buffer underruns.
+     *
+     * @return true if an audio segment was started or closed, or an audio buffer was played, or false if there is no
+     * audio to process
+     */
+    private boolean processAudio()
+    {
+        AudioSegment next = takeNextAudioSegment();
+
+        if(next != null)
+        {
+            start(next);
+            return true;
+        }
 
-        if(mCurrentAudioSegment != null)
+        AudioSegment current = mCurrentAudioSegment;
+
+        if(current != null)
         {
             //Check for completed audio segment or a segment flagged as duplicate or Do Not Monitor
-            if(mCurrentAudioSegment.isDoNotMonitor() ||
-               (mCurrentAudioSegment.isDuplicate() &&
-                mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled()) ||
-                (mCurrentAudioSegment.completeProperty().get() && mCurrentBufferIndex >= mCurrentAudioSegment.getAudioBufferCount()))
+            if(isSuppressed(current) ||
+                (current.completeProperty().get() && mCurrentBufferIndex >= current.getAudioBufferCount()))
             {
-                if(mCurrentAudioSegment.isDoNotMonitor())
+                if(current.isDoNotMonitor())
                 {
                     playAudio(getAudioSegmentDropTone());
                 }
 
-                dispose(mCurrentAudioSegment);
+                dispose(current);
                 mCurrentAudioSegment = null;
 
-                mLock.lock();
-
-                try
-                {
-                    if(mNextAudioSegment == null)
-                    {
-                        mEmptyProperty.set(true);
-                    }
-                }
-                finally
+                if(mNextAudioSegment.get() == null)
                 {
-                    mLock.unlock();
+                    mEmptyProperty.set(true);
                 }
 
-                return;
+                return true;
             }
 
-            //Process any new buffers that have been added to the audio segment.  If a next audio segment gets assigned
-            //while processing, exit the loop so that we can evaluate the next for higher priority preempt.  If the next
-            //segment is a linked segment, ignore it so that we can close out the current segment.
-            while(mCurrentAudioSegment != null && (mNextAudioSegment == null || mNextAudioSegment.isLinked()) &&
-                   mCurrentBufferIndex < mCurrentAudioSegment.getAudioBufferCount() &&
-                   !mCurrentAudioSegment.isDoNotMonitor() && !(mCurrentAudioSegment.isDuplicate() &&
-                mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled()))
+            //Play the next audio buffer that has been added to the audio segment.  A buffer that isn't available yet
+            //(ie the wait for decoding was interrupted) is retried on the next pass after a brief wait.  A frame that
+            //could not be decoded is removed from the buffer count, so playback moves past it.
+            if(mCurrentBufferIndex < current.getAudioBufferCount())
             {
-                float[] audioBuffer = mCurrentAudioSegment.getAudioBuffers().get(mCurrentBufferIndex++);
+                float[] audioBuffer = current.getAudioBuffer(mCurrentBufferIndex);
 
                 if(audioBuffer != null)
                 {
-                    ByteBuffer audio = convert(audioBuffer);
-                    playAudio(audio);
+                    mCurrentBufferIndex++;
+                    playAudio(convert(audioBuffer));
+                    return true;
                 }
+
+                return false;
             }
         }
 
         checkStop();
+
+        return false;
+    }
+
+    /**
+     * Parks the audio render thread until it is woken by an arriving audio segment.  While an audio segment is
+     * playing or the source data line is running, the wait is brief so that newly added audio buffers are played
+     * and the source data line can be stopped once it drains.
+     */
+    private void waitForAudio()
+    {
+        if(mCurrentAudioSegment == null && !mRunning && mNextAudioSegment.get() == null &&
+            mAudioSegmentQueue.isEmpty())
+        {
+            LockSupport.parkNanos(this, IDLE_WAIT_NANOSECONDS);
+        }
+        else
+        {
+            LockSupport.parkNanos(this, AUDIO_WAIT_NANOSECONDS);
+        }
     }
 
     /**
@@ -516,42 +618,66 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     {
         mCanProcessAudio = false;
 
-        if(mProcessorFuture != null)
-        {
-            mProcessorFuture.cancel(true);
-        }
+        Thread renderThread = mRenderThread;
 
-        mProcessorFuture = null;
+        if(renderThread != null)
+        {
+            //Stopping and flushing the source data line releases the render thread from any blocking write.  The render
+            //thread closes the source data line and releases the audio segments once it exits.
+            mOutput.stop();
+            mOutput.flush();
+            LockSupport.unpark(renderThread);
 
-        mLock.lock();
+            try
+            {
+                renderThread.join(1000);
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
 
-        try
-        {
-            if(mNextAudioSegment != null)
+            if(renderThread.isAlive())
             {
-                mNextAudioSegment.decrementConsumerCount();
-                mNextAudioSegment = null;
+                mLog.warn("Audio output [" + getChannelName() + "] render thread did not stop within 1 second - the " +
+                    "source data line will be closed when the render thread exits");
             }
+
+            mRenderThread = null;
         }
-        finally
+        else
         {
-            mLock.unlock();
+            release();
         }
 
-        dispose(mCurrentAudioSegment);
-        mCurrentAudioSegment = null;
-
         mAudioEventBroadcaster.clear();
         mIdentifierCollectionListener = null;
 
+        mGainControl = null;
+        mMuteControl = null;
+    }
+
+    /**
+     * Releases the audio segments and closes the source data line.  Invoked by the audio render thread as it exits, or
+     * by dispose() when there is no audio render thread, so that the source data line is never closed while the render
+     * thread is using it.
+     */
+    private void release()
+    {
+        AudioSegment next = mNextAudioSegment.getAndSet(null);
+
+        if(next != null)
+        {
+            next.decrementConsumerCount();
+        }
+
+        dispose(mCurrentAudioSegment);
+        mCurrentAudioSegment = null;
+
         if(mOutput != null)
         {
             mOutput.close();
         }
-
-        mOutput = null;
-        mGainControl = null;
-        mMuteControl = null;
     }
 
     /**
@@ -661,6 +787,12 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
                 mRunning = false;
             }
 
+            //Stopping while an audio segment is still in progress means that audio didn't arrive in time
+            if(!mRunning && mCurrentAudioSegment != null)
+            {
+                mUnderrunCount.incrementAndGet();
+            }
+
             //If we stopped audio playback, broadcast a null identifier to clear the gui panel
             if(!mRunning)
             {
@@ -730,21 +862,32 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     }
 
     /**
-     * Runnable audio segment processor
+     * Audio render thread runnable
      */
-    public class AudioSegmentProcessor implements Runnable
+    public class AudioRenderer implements Runnable
     {
         @Override
         public void run()
         {
-            try
-            {
-                processAudio();
-            }
-            catch(Throwable t)
+            while(mCanProcessAudio)
             {
-                mLog.error("Error while processing audio buffers", t);
+                try
+                {
+                    if(!processAudio())
+                    {
+                        waitForAudio();
+                    }
+                }
+                catch(Throwable t)
+                {
+                    if(mCanProcessAudio)
+                    {
+                        mLog.error("Error while processing audio buffers", t);
+                    }
+                }
             }
+
+            release();
         }
     }
 }
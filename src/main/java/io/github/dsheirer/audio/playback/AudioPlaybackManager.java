@@ -25,26 +25,27 @@ import io.github.dsheirer.audio.AudioException;
 import io.github.dsheirer.audio.AudioSegment;
 import io.github.dsheirer.audio.IAudioController;
 import io.github.dsheirer.eventbus.MyEventBus;
+import io.github.dsheirer.metrics.MetricsRegistry;
 import io.github.dsheirer.preference.PreferenceType;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.source.mixer.MixerChannel;
 import io.github.dsheirer.source.mixer.MixerChannelConfiguration;
-import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages scheduling and playback of audio segments to the local users audio system.
+ *
+ * Arriving audio segments are placed in an audio segment queue that is shared by the audio outputs and the audio
+ * outputs are woken to claim them.  Each audio output's render thread decides playback order and priority preemption,
+ * so there is no periodic processing of the audio segments.
  */
 public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioController
 {
@@ -57,13 +58,10 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
     public static final AudioEvent CONFIGURATION_CHANGE_COMPLETE =
         new AudioEvent(AudioEvent.Type.AUDIO_CONFIGURATION_CHANGE_COMPLETE, null);
     private Broadcaster<AudioEvent> mControllerBroadcaster = new Broadcaster<>();
-    private ScheduledFuture<?> mProcessingTask;
     private UserPreferences mUserPreferences;
-    private MixerChannelConfiguration mMixerChannelConfiguration;
-    private List<AudioOutput> mAudioOutputs = new ArrayList<>();
-    private List<AudioSegment> mAudioSegments = new ArrayList<>();
-    private List<AudioSegment> mPendingAudioSegments = new ArrayList<>();
-    private LinkedTransferQueue<AudioSegment> mNewAudioSegmentQueue = new LinkedTransferQueue<>();
+    private volatile MixerChannelConfiguration mMixerChannelConfiguration;
+    private List<AudioOutput> mAudioOutputs = new CopyOnWriteArrayList<>();
+    private AudioSegmentQueue mAudioSegmentQueue;
 
     /**
      * Constructs an instance.
@@ -73,7 +71,9 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
     public AudioPlaybackManager(UserPreferences userPreferences)
     {
         mUserPreferences = userPreferences;
+        mAudioSegmentQueue = new AudioSegmentQueue(userPreferences, mAudioOutputs);
         MyEventBus.getEventBus().register(this);
+        MetricsRegistry.getInstance().registerAudioPlayback(this);
 
         MixerChannelConfiguration configuration = mUserPreferences.getPlaybackPreference().getMixerChannelConfiguration();
 
@@ -97,171 +97,53 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
     }
 
     /**
-     * Receives audio segments from channel audio modules.
+     * Receives audio segments from channel audio modules.  Linked audio segments are assigned directly to the audio
+     * output that is playing the linked audio segment for audio continuity.  All other audio segments are queued for
+     * the audio outputs.
+     *
      * @param audioSegment
      */
     @Override
     public void receive(AudioSegment audioSegment)
     {
-        mNewAudioSegmentQueue.add(audioSegment);
-    }
-
-    /**
-     * Processes new audio segments and automatically assigns them to audio outputs.
-     *
-     * Note: this method is intended to be repeatedly invoked by a scheduled processing thread.
-     */
-    private void processAudioSegments()
-    {
-        //Process new audio segments queue.  If segment has audio, queue it for replay, otherwise place in pending queue
-        AudioSegment newSegment = mNewAudioSegmentQueue.poll();
-
-        while(newSegment != null)
+        if(mMixerChannelConfiguration == null || (audioSegment.isDuplicate() &&
+            mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled()))
         {
-            if(newSegment.isDuplicate() &&
-               mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled())
-            {
-                newSegment.decrementConsumerCount();
-            }
-            else if(newSegment.hasAudio())
-            {
-                mAudioSegments.add(newSegment);
-            }
-            else
-            {
-                mPendingAudioSegments.add(newSegment);
-            }
-
-            newSegment = mNewAudioSegmentQueue.poll();
+            audioSegment.decrementConsumerCount();
+            return;
         }
 
-        //Transfer pending audio segments that now have audio or that completed without ever having audio
-        if(!mPendingAudioSegments.isEmpty())
+        if(audioSegment.isLinked())
         {
-            Iterator<AudioSegment> it = mPendingAudioSegments.iterator();
-
-            AudioSegment audioSegment;
-
-            while(it.hasNext())
+            for(AudioOutput audioOutput: mAudioOutputs)
             {
-                audioSegment = it.next();
-
-                if(audioSegment.isDuplicate() &&
-                   mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled())
-                {
-                    it.remove();
-                    audioSegment.decrementConsumerCount();
-                }
-                else if(audioSegment.hasAudio())
-                {
-                    //Queue it up for replay
-                    it.remove();
-                    mAudioSegments.add(audioSegment);
-                }
-                else if(audioSegment.completeProperty().get())
+                if(audioOutput.isLinkedTo(audioSegment))
                 {
-                    //Rare situation: the audio segment completed but never had audio ... dispose it
-                    it.remove();
-                    audioSegment.decrementConsumerCount();
+                    audioOutput.play(audioSegment);
+                    return;
                 }
             }
         }
 
-        //Process all audio segments that have audio
-        if(!mAudioSegments.isEmpty())
-        {
-            Iterator<AudioSegment> it = mAudioSegments.iterator();
-            AudioSegment audioSegment;
-
-            //Remove any audio segments flagged as do not monitor.  Don't remove completed segments yet, because
-            //we want to give them a brief chance at playback.  Automatically assign linked audio segments to the
-            //current audio output for audio continuity
-            while(it.hasNext())
-            {
-                audioSegment = it.next();
-
-                if(audioSegment.isDoNotMonitor() || (audioSegment.isDuplicate() &&
-                   mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled()))
-                {
-                    it.remove();
-                    audioSegment.decrementConsumerCount();
-                }
-                else if(audioSegment.isLinked())
-                {
-                    for(AudioOutput audioOutput: mAudioOutputs)
-                    {
-                        if(audioOutput.isLinkedTo(audioSegment))
-                        {
-                            it.remove();
-                            audioOutput.play(audioSegment);
-                        }
-                    }
-                }
-            }
-
-            //Sort audio segments by playback priority and assign to empty audio outputs
-            if(!mAudioSegments.isEmpty())
-            {
-                mAudioSegments.sort(Comparator.comparingInt(o -> o.monitorPriorityProperty().get()));
-
-                //Assign empty audio outputs first
-                for(AudioOutput audioOutput: mAudioOutputs)
-                {
-                    if(audioOutput.emptyProperty().get())
-                    {
-                        audioOutput.play(mAudioSegments.remove(0));
+        mAudioSegmentQueue.offer(audioSegment);
 
-                        if(mAudioSegments.isEmpty())
-                        {
-                            return;
-                        }
-                    }
-                }
-            }
-
-            //Preempt ongoing audio segment playback when higher priority audio segments are available
-            if(!mAudioSegments.isEmpty())
-            {
-                for(AudioOutput audioOutput: mAudioOutputs)
-                {
-                    if(mAudioSegments.get(0).monitorPriorityProperty().get() < audioOutput.audioPriorityProperty().get())
-                    {
-                        audioOutput.play(mAudioSegments.remove(0));
-
-                        if(mAudioSegments.isEmpty())
-                        {
-                            return;
-                        }
-                    }
-                }
-            }
-
-            //Remove any audio segments marked as complete that didn't get assigned to an output
-            it = mAudioSegments.iterator(); //reset the iterator
-            while(it.hasNext())
-            {
-                audioSegment = it.next();
-
-                if(audioSegment.completeProperty().get() || (audioSegment.isDuplicate() &&
-                   mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled()))
-                {
-                    it.remove();
-                    audioSegment.decrementConsumerCount();
-                }
-            }
+        for(AudioOutput audioOutput: mAudioOutputs)
+        {
+            audioOutput.wake();
         }
     }
 
     public void dispose()
     {
-        if(mProcessingTask != null)
+        MetricsRegistry.getInstance().unregisterAudioPlayback(this);
+
+        for(AudioOutput audioOutput: mAudioOutputs)
         {
-            mProcessingTask.cancel(true);
-            mProcessingTask = null;
+            audioOutput.dispose();
         }
 
-        mNewAudioSegmentQueue.clear();
-        mAudioSegments.clear();
+        mAudioOutputs.clear();
+        mAudioSegmentQueue.clear();
     }
 
     /**
@@ -302,11 +184,6 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
         {
             mControllerBroadcaster.broadcast(CONFIGURATION_CHANGE_STARTED);
 
-            if(mProcessingTask != null)
-            {
-                mProcessingTask.cancel(true);
-            }
-
             for(AudioOutput audioOutput: mAudioOutputs)
             {
                 audioOutput.dispose();
@@ -317,22 +194,22 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
             switch(entry.getMixerChannel())
             {
                 case MONO:
-                    AudioOutput mono = new MonoAudioOutput(entry.getMixer(), mUserPreferences);
+                    AudioOutput mono = new MonoAudioOutput(entry.getMixer(), mAudioSegmentQueue, mUserPreferences);
                     mAudioOutputs.add(mono);
                     break;
                 case STEREO:
-                    AudioOutput left = new StereoAudioOutput(entry.getMixer(), MixerChannel.LEFT, mUserPreferences);
+                    AudioOutput left = new StereoAudioOutput(entry.getMixer(), MixerChannel.LEFT, mAudioSegmentQueue,
+                        mUserPreferences);
                     mAudioOutputs.add(left);
 
-                    AudioOutput right = new StereoAudioOutput(entry.getMixer(), MixerChannel.RIGHT, mUserPreferences);
+                    AudioOutput right = new StereoAudioOutput(entry.getMixer(), MixerChannel.RIGHT, mAudioSegmentQueue,
+                        mUserPreferences);
                     mAudioOutputs.add(right);
                     break;
                 default:
                     throw new AudioException("Unsupported mixer channel configuration: " + entry.getMixerChannel());
             }
 
-            mProcessingTask = ThreadPool.SCHEDULED.scheduleAtFixedRate(new AudioSegmentProcessor(),
-                0, 100, TimeUnit.MILLISECONDS);
             mControllerBroadcaster.broadcast(CONFIGURATION_CHANGE_COMPLETE);
             mMixerChannelConfiguration = entry;
         }
@@ -360,6 +237,15 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
         return outputs;
     }
 
+    /**
+     * Number of audio segments that were discarded from the audio segment queue without being assigned to an audio
+     * output
+     */
+    public long getDiscardedAudioSegmentCount()
+    {
+        return mAudioSegmentQueue.getDiscardedCount();
+    }
+
     /**
      * Adds an audio event listener to receive audio event notifications.
      */
@@ -377,23 +263,4 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
     {
         mControllerBroadcaster.removeListener(listener);
     }
-
-    /**
-     * Scheduled runnable to process incoming audio segments
-     */
-    public class AudioSegmentProcessor implements Runnable
-    {
-        @Override
-        public void run()
-        {
-            try
-            {
-                processAudioSegments();
-            }
-            catch(Throwable t)
-            {
-                mLog.error("Encountered error while processing audio segments", t);
-            }
-        }
-    }
 }
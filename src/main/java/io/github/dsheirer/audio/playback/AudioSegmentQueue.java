@@ -0,0 +1,230 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.audio.playback;
+
+import io.github.dsheirer.audio.AudioSegment;
+import io.github.dsheirer.preference.UserPreferences;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free queue of audio segments awaiting assignment to an audio output.  Audio output render threads take the
+ * highest priority segment that has audio, so the ordering reflects the current monitor priority of each segment
+ * rather than the priority at the time the segment was queued.
+ *
+ * Each taken segment is claimed with an atomic removal from the queue, so when several audio outputs compete for the
+ * same segment, only one of them will receive it.  Segments that are flagged as do not monitor, suppressed
+ * duplicates, or that completed without being assigned to an audio output are discarded while scanning the queue.
+ */
+public class AudioSegmentQueue
+{
+    //Brief chance for a completed audio segment to be assigned to an audio output before it is discarded
+    private static final long COMPLETED_SEGMENT_RETENTION_MILLISECONDS = 100;
+
+    private ConcurrentLinkedQueue<QueuedAudioSegment> mQueue = new ConcurrentLinkedQueue<>();
+    private AtomicLong mDiscardedCount = new AtomicLong();
+    private UserPreferences mUserPreferences;
+    private List<AudioOutput> mAudioOutputs;
+
+    /**
+     * Constructs an instance
+     *
+     * @param userPreferences for duplicate call playback suppression
+     * @param audioOutputs that take audio segments from this queue.  The list is read on each audio output's render
+     * thread and must be safe for concurrent iteration.
+     */
+    public AudioSegmentQueue(UserPreferences userPreferences, List<AudioOutput> audioOutputs)
+    {
+        mUserPreferences = userPreferences;
+        mAudioOutputs = audioOutputs;
+    }
+
+    /**
+     * Adds the audio segment to the queue
+     */
+    public void offer(AudioSegment audioSegment)
+    {
+        mQueue.offer(new QueuedAudioSegment(audioSegment));
+    }
+
+    /**
+     * Indicates if the queue is empty
+     */
+    public boolean isEmpty()
+    {
+        return mQueue.isEmpty();
+    }
+
+    /**
+     * Indicates if any of the audio outputs is idle and can take an audio segment from this queue without preempting
+     * an audio segment that is currently playing.
+     */
+    public boolean hasIdleAudioOutput()
+    {
+        for(AudioOutput audioOutput: mAudioOutputs)
+        {
+            if(audioOutput.isIdle())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Number of audio segments that were discarded without being assigned to an audio output
+     */
+    public long getDiscardedCount()
+    {
+        return mDiscardedCount.get();
+    }
+
+    /**
+     * Removes and returns the highest priority audio segment that has audio and that has a higher priority (ie lower
+     * priority value) than the priority argument.
+     *
+     * @param priority of the audio segment currently playing, or Integer.MAX_VALUE to take any audio segment
+     * @return audio segment or null if there are no eligible audio segments
+     */
+    public AudioSegment take(int priority)
+    {
+        while(true)
+        {
+            long now = System.currentTimeMillis();
+            QueuedAudioSegment best = null;
+            int bestPriority = priority;
+
+            for(QueuedAudioSegment queued: mQueue)
+            {
+                AudioSegment audioSegment = queued.getAudioSegment();
+
+                if(isDiscardable(queued, now))
+                {
+                    if(mQueue.remove(queued))
+                    {
+                        audioSegment.decrementConsumerCount();
+                        mDiscardedCount.incrementAndGet();
+                    }
+                }
+                else if(audioSegment.hasAudio())
+                {
+                    int segmentPriority = audioSegment.monitorPriorityProperty().get();
+
+                    if(segmentPriority < bestPriority)
+                    {
+                        best = queued;
+                        bestPriority = segmentPriority;
+                    }
+                }
+            }
+
+            if(best == null)
+            {
+                return null;
+            }
+
+            if(mQueue.remove(best))
+            {
+                return best.getAudioSegment();
+            }
+
+            //Another audio output claimed the segment ... scan again
+        }
+    }
+
+    /**
+     * Removes all queued audio segments and notifies each segment that processing is complete.
+     */
+    public void clear()
+    {
+        QueuedAudioSegment queued = mQueue.poll();
+
+        while(queued != null)
+        {
+            queued.getAudioSegment().decrementConsumerCount();
+            queued = mQueue.poll();
+        }
+    }
+
+    /**
+     * Indicates if the queued audio segment should be discarded
+     */
+    private boolean isDiscardable(QueuedAudioSegment queued, long now)
+    {
+        AudioSegment audioSegment = queued.getAudioSegment();
+
+        if(audioSegment.isDoNotMonitor() || (audioSegment.isDuplicate() &&
+            mUserPreferences.getDuplicateCallDetectionPreference().isDuplicatePlaybackSuppressionEnabled()))
+        {
+            return true;
+        }
+
+        if(audioSegment.completeProperty().get())
+        {
+            //Rare situation: the audio segment completed but never had audio
+            if(!audioSegment.hasAudio())
+            {
+                return true;
+            }
+
+            if(queued.getCompleteTimestamp() == 0)
+            {
+                queued.setCompleteTimestamp(now);
+            }
+            else
+            {
+                return now - queued.getCompleteTimestamp() > COMPLETED_SEGMENT_RETENTION_MILLISECONDS;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Queued audio segment with the time that the segment was first observed as complete
+     */
+    private static class QueuedAudioSegment
+    {
+        private AudioSegment mAudioSegment;
+        private volatile long mCompleteTimestamp;
+
+        public QueuedAudioSegment(AudioSegment audioSegment)
+        {
+            mAudioSegment = audioSegment;
+        }
+
+        public AudioSegment getAudioSegment()
+        {
+            return mAudioSegment;
+        }
+
+        public long getCompleteTimestamp()
+        {
+            return mCompleteTimestamp;
+        }
+
+        public void setCompleteTimestamp(long timestamp)
+        {
+            mCompleteTimestamp = timestamp;
+        }
+    }
+}
@@ -34,10 +34,10 @@ public class MonoAudioOutput extends AudioOutput
 {
     private final static int BUFFER_SIZE = 8000;
 
-    public MonoAudioOutput(Mixer mixer, UserPreferences userPreferences)
+    public MonoAudioOutput(Mixer mixer, AudioSegmentQueue audioSegmentQueue, UserPreferences userPreferences)
     {
         super(mixer, MixerChannel.MONO, AudioFormats.PCM_SIGNED_8KHZ_16BITS_MONO,
-            AudioFormats.MONO_SOURCE_DATALINE_INFO, BUFFER_SIZE, userPreferences);
+            AudioFormats.MONO_SOURCE_DATALINE_INFO, BUFFER_SIZE, audioSegmentQueue, userPreferences);
     }
 
     /**
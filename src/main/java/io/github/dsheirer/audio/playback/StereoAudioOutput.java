@@ -34,10 +34,11 @@ public class StereoAudioOutput extends AudioOutput
 {
     private final static int BUFFER_SIZE = 16000;
 
-    public StereoAudioOutput(Mixer mixer, MixerChannel channel, UserPreferences userPreferences)
+    public StereoAudioOutput(Mixer mixer, MixerChannel channel, AudioSegmentQueue audioSegmentQueue,
+                             UserPreferences userPreferences)
     {
         super(mixer, channel, AudioFormats.PCM_SIGNED_8KHZ_16BITS_STEREO, AudioFormats.STEREO_SOURCE_DATALINE_INFO,
-            BUFFER_SIZE, userPreferences);
+            BUFFER_SIZE, audioSegmentQueue, userPreferences);
     }
 
     /**
@@ -28,17 +28,34 @@ import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.decoder.DecoderLogicalChannelNameIdentifier;
 import io.github.dsheirer.preference.PreferenceType;
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.util.SwingPlatform;
+import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.table.AbstractTableModel;
-import java.awt.EventQueue;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Channel metadata table model.
+ *
+ * Metadata field updates can arrive from any thread at message rate.  Updated channel metadata rows are accumulated
+ * in a dirty set and applied once per display frame on the Swing event dispatch thread (or the headless dispatch
+ * thread when running without a display) as a single rows updated table notification spanning the dirty rows, so that
+ * the number of queued GUI events doesn't grow with the update rate.
+ * The display frame rate is configurable via the channel.metadata.update.fps system property.
+ */
 public class ChannelMetadataModel extends AbstractTableModel implements IChannelMetadataUpdateListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(ChannelMetadataModel.class);
@@ -55,14 +72,60 @@ public class ChannelMetadataModel extends AbstractTableModel implements IChannel
 
     private static final String[] COLUMNS = {"Status", "Decoder", "From", "Alias", "To", "Alias", "Channel", "Frequency", "Channel Name"};
 
+    private static final String UPDATE_RATE_PROPERTY = "channel.metadata.update.fps";
+    public static final int DEFAULT_UPDATE_RATE = 20;
+
     private List<ChannelMetadata> mChannelMetadata = new ArrayList();
     private Map<ChannelMetadata,Channel> mMetadataChannelMap = new HashMap();
+    private Set<ChannelMetadata> mDirtyChannelMetadata = ConcurrentHashMap.newKeySet();
+    private AtomicBoolean mUpdateScheduled = new AtomicBoolean();
+    private volatile long mUpdateDelayMilliseconds;
+    private AtomicLong mUpdatesReceived = new AtomicLong();
+    private AtomicLong mUpdatesCoalesced = new AtomicLong();
+    private long mTableUpdates;
 
     public ChannelMetadataModel()
     {
+        setUpdateRate(SystemProperties.getInstance().get(UPDATE_RATE_PROPERTY, DEFAULT_UPDATE_RATE));
         MyEventBus.getEventBus().register(this);
     }
 
+    /**
+     * Sets the maximum rate for applying accumulated metadata updates to the table
+     *
+     * @param framesPerSecond update rate, 1 - 1000
+     */
+    public void setUpdateRate(int framesPerSecond)
+    {
+        int rate = Math.min(1000, Math.max(1, framesPerSecond));
+        mUpdateDelayMilliseconds = 1000 / rate;
+    }
+
+    /**
+     * Number of individual metadata field updates received
+     */
+    public long getUpdatesReceived()
+    {
+        return mUpdatesReceived.get();
+    }
+
+    /**
+     * Number of metadata field updates that were coalesced into a pending table update for the same row.  Updates to
+     * different rows are batched into each table update as well, as shown by the table update count.
+     */
+    public long getUpdatesCoalesced()
+    {
+        return mUpdatesCoalesced.get();
+    }
+
+    /**
+     * Number of batched table updates fired
+     */
+    public long getTableUpdates()
+    {
+        return mTableUpdates;
+    }
+
     /**
      * Receives preference update notifications via the event bus
      * @param preferenceType that was updated
@@ -72,11 +135,10 @@ public class ChannelMetadataModel extends AbstractTableModel implements IChannel
     {
         if(preferenceType == PreferenceType.TALKGROUP_FORMAT)
         {
-            EventQueue.invokeLater(() -> {
-                for(int row = 0; row < mChannelMetadata.size(); row++)
+            SwingPlatform.invokeLater(() -> {
+                if(!mChannelMetadata.isEmpty())
                 {
-                    fireTableCellUpdated(row, COLUMN_USER_FROM);
-                    fireTableCellUpdated(row, COLUMN_USER_TO);
+                    fireTableRowsUpdated(0, mChannelMetadata.size() - 1);
                 }
             });
         }
@@ -85,7 +147,7 @@ public class ChannelMetadataModel extends AbstractTableModel implements IChannel
     public void add(Collection<ChannelMetadata> channelMetadatas, Channel channel)
     {
         //Execute on the swing thread to avoid threading issues
-        EventQueue.invokeLater(() -> {
+        SwingPlatform.invokeLater(() -> {
             for(ChannelMetadata channelMetadata: channelMetadatas)
             {
                 mChannelMetadata.add(channelMetadata);
@@ -100,8 +162,9 @@ public class ChannelMetadataModel extends AbstractTableModel implements IChannel
     public void remove(ChannelMetadata channelMetadata)
     {
         //Execute on the swing thread to avoid threading issues
-        EventQueue.invokeLater(() -> {
+        SwingPlatform.invokeLater(() -> {
             channelMetadata.removeUpdateEventListener();
+            mDirtyChannelMetadata.remove(channelMetadata);
             int index = mChannelMetadata.indexOf(channelMetadata);
             mChannelMetadata.remove(channelMetadata);
             mMetadataChannelMap.remove(channelMetadata);
@@ -227,47 +290,58 @@ public class ChannelMetadataModel extends AbstractTableModel implements IChannel
         return null;
     }
 
+    /**
+     * Marks the channel metadata row as dirty.  Dirty rows are applied to the table on the next display frame.
+     */
     @Override
     public void updated(ChannelMetadata channelMetadata, ChannelMetadataField channelMetadataField)
     {
-        final int rowIndex = mChannelMetadata.indexOf(channelMetadata);
+        mUpdatesReceived.incrementAndGet();
 
-        if(rowIndex >= 0)
+        if(!mDirtyChannelMetadata.add(channelMetadata))
         {
-            //Execute on the swing thread to avoid threading issues
-            EventQueue.invokeLater(new Runnable()
+            //Row is already dirty - this update is coalesced into the pending table update
+            mUpdatesCoalesced.incrementAndGet();
+        }
+
+        if(mUpdateScheduled.compareAndSet(false, true))
+        {
+            ThreadPool.SCHEDULED.schedule(() -> SwingPlatform.invokeLater(this::processDirtyChannelMetadata),
+                mUpdateDelayMilliseconds, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Fires a single rows updated notification spanning all dirty channel metadata rows.  Invoked on the event
+     * dispatch thread once per display frame.
+     */
+    private void processDirtyChannelMetadata()
+    {
+        mUpdateScheduled.set(false);
+
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = -1;
+
+        Iterator<ChannelMetadata> it = mDirtyChannelMetadata.iterator();
+
+        while(it.hasNext())
+        {
+            ChannelMetadata channelMetadata = it.next();
+            it.remove();
+
+            int row = mChannelMetadata.indexOf(channelMetadata);
+
+            if(row >= 0)
             {
-                @Override
-                public void run()
-                {
-                    switch(channelMetadataField)
-                    {
-                        case CONFIGURATION_CHANNEL:
-                            fireTableCellUpdated(rowIndex, COLUMN_CONFIGURATION_CHANNEL);
-                            break;
-                        case CONFIGURATION_FREQUENCY:
-                            fireTableCellUpdated(rowIndex, COLUMN_CONFIGURATION_FREQUENCY);
-                            break;
-                        case DECODER_CHANNEL_NAME:
-                            fireTableCellUpdated(rowIndex, COLUMN_DECODER_LOGICAL_CHANNEL_NAME);
-                            break;
-                        case DECODER_TYPE:
-                            fireTableCellUpdated(rowIndex, COLUMN_DECODER_TYPE);
-                            break;
-                        case DECODER_STATE:
-                            fireTableCellUpdated(rowIndex, COLUMN_DECODER_STATE);
-                            break;
-                        case USER_FROM:
-                            fireTableCellUpdated(rowIndex, COLUMN_USER_FROM);
-                            fireTableCellUpdated(rowIndex, COLUMN_USER_FROM_ALIAS);
-                            break;
-                        case USER_TO:
-                            fireTableCellUpdated(rowIndex, COLUMN_USER_TO);
-                            fireTableCellUpdated(rowIndex, COLUMN_USER_TO_ALIAS);
-                            break;
-                    }
-                }
-            });
+                firstRow = Math.min(firstRow, row);
+                lastRow = Math.max(lastRow, row);
+            }
+        }
+
+        if(lastRow >= 0)
+        {
+            fireTableRowsUpdated(firstRow, lastRow);
+            mTableUpdates++;
         }
     }
 }
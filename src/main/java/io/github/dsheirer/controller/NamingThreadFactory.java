@@ -22,8 +22,23 @@ public class NamingThreadFactory implements ThreadFactory
     
     private final String mNamePrefix;
 
+    private final boolean mDaemon;
+
     public NamingThreadFactory( String prefix ) 
     {
+        this(prefix, false);
+    }
+
+    /**
+     * Constructs an instance
+     *
+     * @param prefix for thread names
+     * @param daemon true to create daemon threads that don't prevent the JVM from exiting
+     */
+    public NamingThreadFactory( String prefix, boolean daemon )
+    {
+        mDaemon = daemon;
+
     	SecurityManager s = System.getSecurityManager();
         
         mThreadGroup = (s != null)? s.getThreadGroup() : Thread.currentThread().getThreadGroup();
@@ -36,9 +51,9 @@ public class NamingThreadFactory implements ThreadFactory
         Thread thread = new Thread(mThreadGroup, runnable,
               mNamePrefix + mThreadNumber.getAndIncrement(), 0 );
         
-        if( thread.isDaemon() )
+        if( thread.isDaemon() != mDaemon )
         {
-            thread.setDaemon( false );
+            thread.setDaemon( mDaemon );
         }
         
         if( thread.getPriority() != Thread.NORM_PRIORITY )
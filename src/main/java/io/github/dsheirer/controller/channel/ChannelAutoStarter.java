@@ -0,0 +1,175 @@
+/*
+ * ******************************************************************************
+ * sdrtrunk
+ * Copyright (C) 2014-2018 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+package io.github.dsheirer.controller.channel;
+
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.source.config.SourceConfigTuner;
+import io.github.dsheirer.source.config.SourceConfigTunerMultipleFrequency;
+import io.github.dsheirer.source.config.SourceConfiguration;
+import io.github.dsheirer.source.tuner.TunerEvent;
+import io.github.dsheirer.source.tuner.TunerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Starts auto-start channels as soon as the tuner that each channel uses has finished initializing, instead of
+ * waiting for all tuners to initialize.
+ *
+ * Channel enable requests for channels that specify a preferred tuner are held until that tuner is added to the
+ * tuner model.  Requests for tuner channels without a preferred tuner are held until tuner initialization is
+ * complete so that the channel can be placed across all of the available tuners.  Once tuner initialization is
+ * complete, any held requests (e.g. for a preferred tuner that failed to load) are released in the order received
+ * and all further requests are passed through immediately.
+ */
+public class ChannelAutoStarter implements Listener<ChannelEvent>
+{
+    private final static Logger mLog = LoggerFactory.getLogger(ChannelAutoStarter.class);
+
+    private Listener<ChannelEvent> mChannelEventListener;
+    private TunerModel mTunerModel;
+    private List<ChannelEvent> mHeldEvents = new ArrayList<>();
+    private boolean mTunerInitializationComplete;
+
+    /**
+     * Constructs an instance
+     *
+     * @param channelEventListener to receive the channel enable requests, normally the channel processing manager
+     * @param tunerModel to monitor for tuners as they finish initializing
+     */
+    public ChannelAutoStarter(Listener<ChannelEvent> channelEventListener, TunerModel tunerModel)
+    {
+        mChannelEventListener = channelEventListener;
+        mTunerModel = tunerModel;
+        mTunerModel.addListener(this::receiveTunerEvent);
+        mTunerModel.addTunerInitializationCompleteListener(this::tunerInitializationComplete);
+    }
+
+    /**
+     * Processes the channel event request.  Channel enable requests are held until the channel's tuner is available.
+     */
+    @Override
+    public void receive(ChannelEvent event)
+    {
+        if(event.getEvent() == ChannelEvent.Event.REQUEST_ENABLE)
+        {
+            synchronized(this)
+            {
+                if(!isTunerAvailable(event.getChannel()))
+                {
+                    mLog.info("Auto-start of channel [" + event.getChannel().getName() +
+                        "] is waiting for tuner initialization");
+                    mHeldEvents.add(event);
+                    return;
+                }
+            }
+        }
+
+        mChannelEventListener.receive(event);
+    }
+
+    /**
+     * Indicates if the tuner for the channel is available.
+     */
+    private boolean isTunerAvailable(Channel channel)
+    {
+        if(mTunerInitializationComplete)
+        {
+            return true;
+        }
+
+        SourceConfiguration config = channel.getSourceConfiguration();
+
+        if(config instanceof SourceConfigTuner)
+        {
+            String preferredTuner = ((SourceConfigTuner)config).getPreferredTuner();
+            return preferredTuner != null && mTunerModel.getTuner(preferredTuner) != null;
+        }
+        else if(config instanceof SourceConfigTunerMultipleFrequency)
+        {
+            String preferredTuner = ((SourceConfigTunerMultipleFrequency)config).getPreferredTuner();
+            return preferredTuner != null && mTunerModel.getTuner(preferredTuner) != null;
+        }
+
+        //Non-tuner sources (e.g. sound card or recording) don't depend on tuner initialization
+        return true;
+    }
+
+    /**
+     * Releases the held requests for channels that can use a newly added tuner
+     */
+    private void receiveTunerEvent(TunerEvent event)
+    {
+        if(event.getEvent() == TunerEvent.Event.TUNER_ADDED)
+        {
+            List<ChannelEvent> released = new ArrayList<>();
+
+            synchronized(this)
+            {
+                Iterator<ChannelEvent> it = mHeldEvents.iterator();
+
+                while(it.hasNext())
+                {
+                    ChannelEvent heldEvent = it.next();
+
+                    if(isTunerAvailable(heldEvent.getChannel()))
+                    {
+                        it.remove();
+                        released.add(heldEvent);
+                    }
+                }
+            }
+
+            release(released, "tuner [" + event.getTuner().getName() + "] is ready");
+        }
+    }
+
+    /**
+     * Releases all held requests once all of the tuners have been processed
+     */
+    private void tunerInitializationComplete()
+    {
+        List<ChannelEvent> released;
+
+        synchronized(this)
+        {
+            mTunerInitializationComplete = true;
+            released = new ArrayList<>(mHeldEvents);
+            mHeldEvents.clear();
+        }
+
+        release(released, "tuner initialization is complete");
+    }
+
+    /**
+     * Sends the released requests to the channel event listener in the order that they were received
+     */
+    private void release(List<ChannelEvent> events, String reason)
+    {
+        for(ChannelEvent event: events)
+        {
+            mLog.info("Auto-starting channel [" + event.getChannel().getName() + "] - " + reason);
+            mChannelEventListener.receive(event);
+        }
+    }
+}
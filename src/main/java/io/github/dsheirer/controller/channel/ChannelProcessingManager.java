@@ -51,7 +51,8 @@ import io.github.dsheirer.source.SourceException;
 import io.github.dsheirer.source.SourceManager;
 import io.github.dsheirer.source.config.SourceConfigTuner;
 import io.github.dsheirer.source.config.SourceConfigTunerMultipleFrequency;
-import javafx.application.Platform;
+import io.github.dsheirer.source.tuner.channel.TunerChannelSource;
+import io.github.dsheirer.util.FxPlatform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -282,6 +283,9 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
      */
     private void startProcessing(ChannelEvent event) throws ChannelException
     {
+        //Capture the request time so that traffic channel sources can be preloaded with samples from the grant forward
+        long requestTimestamp = System.currentTimeMillis();
+
         Channel channel = event.getChannel();
 
         ProcessingChain processingChain = mProcessingChains.get(channel);
@@ -308,7 +312,7 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
         if(source == null)
         {
             //This has to be done on the FX event thread when the playlist editor is constructed
-            Platform.runLater(() -> channel.setProcessing(false));
+            FxPlatform.runLater(() -> channel.setProcessing(false));
 
             mChannelEventBroadcaster.broadcast(new ChannelEvent(channel,
                 ChannelEvent.Event.NOTIFICATION_PROCESSING_START_REJECTED, TUNER_UNAVAILABLE_DESCRIPTION));
@@ -394,6 +398,13 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
         //Add recorders
         processingChain.addModules(RecorderFactory.getRecorders(mUserPreferences, channel));
 
+        //Traffic channels replay samples from the time of the request to capture the start of the call while the
+        //processing chain is constructed
+        if(channel.isTrafficChannel() && source instanceof TunerChannelSource)
+        {
+            ((TunerChannelSource)source).setStartTimestamp(requestTimestamp);
+        }
+
         //Set the samples source
         processingChain.setSource(source);
 
@@ -448,7 +459,7 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
 
         processingChain.start();
         //This has to be done on the FX event thread when the playlist editor is constructed
-        Platform.runLater(() -> channel.setProcessing(true));
+        FxPlatform.runLater(() -> channel.setProcessing(true));
 
         getChannelMetadataModel().add(processingChain.getChannelState().getChannelMetadata(), channel);
 
@@ -466,7 +477,7 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
     private void stopProcessing(Channel channel, boolean remove) throws ChannelException
     {
         //This has to be done on the FX event thread when the playlist editor is constructed
-        Platform.runLater(() -> channel.setProcessing(false));
+        FxPlatform.runLater(() -> channel.setProcessing(false));
 
         if(mProcessingChains.containsKey(channel))
         {
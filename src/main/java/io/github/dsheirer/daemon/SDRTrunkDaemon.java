@@ -0,0 +1,256 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.daemon;
+
+import io.github.dsheirer.alias.AliasModel;
+import io.github.dsheirer.audio.DuplicateCallDetector;
+import io.github.dsheirer.audio.broadcast.AudioStreamingManager;
+import io.github.dsheirer.audio.broadcast.BroadcastFormat;
+import io.github.dsheirer.controller.channel.Channel;
+import io.github.dsheirer.controller.channel.ChannelAutoStarter;
+import io.github.dsheirer.controller.channel.ChannelEvent;
+import io.github.dsheirer.icon.IconModel;
+import io.github.dsheirer.identifier.IdentifierCache;
+import io.github.dsheirer.log.ApplicationLog;
+import io.github.dsheirer.metrics.MetricsHttpServer;
+import io.github.dsheirer.metrics.MetricsRegistry;
+import io.github.dsheirer.module.log.EventLogManager;
+import io.github.dsheirer.playlist.PlaylistManager;
+import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.record.AudioRecordingManager;
+import io.github.dsheirer.sample.buffer.BufferPoolTelemetry;
+import io.github.dsheirer.settings.SettingsManager;
+import io.github.dsheirer.source.SourceManager;
+import io.github.dsheirer.source.tuner.TunerModel;
+import io.github.dsheirer.source.tuner.channel.ChannelScheduler;
+import io.github.dsheirer.source.tuner.configuration.TunerConfigurationModel;
+import io.github.dsheirer.spectrum.PowerSpectrumExportManager;
+import io.github.dsheirer.util.ApplicationHome;
+import io.github.dsheirer.util.FxPlatform;
+import io.github.dsheirer.util.RuntimeReport;
+import io.github.dsheirer.util.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless live processing entry point.  Runs the tuners, channels, audio recording, audio streaming and event
+ * logging from a playlist without creating any Swing windows and without starting the JavaFX toolkit.
+ *
+ * The playlist is the playlist from the user preferences, or the playlist file path specified as the optional first
+ * argument.  Channels that are designated for auto-start in the playlist are started immediately, in auto-start
+ * order.  There is no audio playback.  The application runs until the JVM is terminated (e.g. SIGTERM or Ctrl-C),
+ * where a shutdown hook stops the channels and tuners.
+ *
+ * Startup time and heap usage are logged by the RuntimeReport in the same format as the GUI application so that the
+ * two modes can be compared from the application log.
+ */
+public class SDRTrunkDaemon
+{
+    private final static Logger mLog = LoggerFactory.getLogger(SDRTrunkDaemon.class);
+
+    private static final int DEFAULT_RUNTIME_REPORT_INTERVAL_MINUTES = 60;
+
+    private UserPreferences mUserPreferences = new UserPreferences();
+    private ApplicationLog mApplicationLog;
+    private IconModel mIconModel = new IconModel();
+    private PlaylistManager mPlaylistManager;
+    private SourceManager mSourceManager;
+    private AudioRecordingManager mAudioRecordingManager;
+    private AudioStreamingManager mAudioStreamingManager;
+    private MetricsHttpServer mMetricsHttpServer;
+    private PowerSpectrumExportManager mPowerSpectrumExportManager;
+    private CountDownLatch mShutdownLatch = new CountDownLatch(1);
+
+    /**
+     * Constructs an instance
+     */
+    public SDRTrunkDaemon()
+    {
+    }
+
+    /**
+     * Loads the playlist, starts the processing managers and auto-starts the playlist channels.
+     *
+     * @param playlist optional playlist path, or null to use the playlist from the user preferences
+     */
+    public void start(Path playlist)
+    {
+        mApplicationLog = new ApplicationLog(mUserPreferences);
+        mApplicationLog.start();
+
+        mLog.info("starting headless application");
+
+        //Setup the application home directory
+        Path home = ApplicationHome.getHomePath();
+
+        ThreadPool.logSettings();
+
+        //Load properties file
+        if(home != null)
+        {
+            mLog.info("Home path: " + home.toString());
+            ApplicationHome.loadProperties(home);
+        }
+
+        //Log current properties setting
+        SystemProperties.getInstance().logCurrentSettings();
+
+        //Optional local metrics endpoint (metrics.http.port system property)
+        mMetricsHttpServer = new MetricsHttpServer(MetricsRegistry.getInstance());
+        mMetricsHttpServer.start();
+        BufferPoolTelemetry.getInstance().start();
+
+        TunerConfigurationModel tunerConfigurationModel = new TunerConfigurationModel();
+        TunerModel tunerModel = new TunerModel(tunerConfigurationModel);
+
+        SettingsManager settingsManager = new SettingsManager(tunerConfigurationModel);
+        mSourceManager = new SourceManager(tunerModel, settingsManager, mUserPreferences);
+
+        //Optional power spectral density export for each tuner (spectrum.export.enabled system property)
+        mPowerSpectrumExportManager = new PowerSpectrumExportManager(tunerModel, mUserPreferences);
+        mPowerSpectrumExportManager.start();
+
+        AliasModel aliasModel = new AliasModel();
+        EventLogManager eventLogManager = new EventLogManager(aliasModel, mUserPreferences);
+        mPlaylistManager = new PlaylistManager(mUserPreferences, mSourceManager, aliasModel, eventLogManager, mIconModel);
+
+        mAudioRecordingManager = new AudioRecordingManager(mUserPreferences);
+        mAudioRecordingManager.start();
+
+        mAudioStreamingManager = new AudioStreamingManager(mPlaylistManager.getBroadcastModel(), BroadcastFormat.MP3,
+            mUserPreferences);
+        mAudioStreamingManager.start();
+
+        DuplicateCallDetector duplicateCallDetector = new DuplicateCallDetector(mUserPreferences);
+
+        mPlaylistManager.getChannelProcessingManager().addAudioSegmentListener(duplicateCallDetector);
+        mPlaylistManager.getChannelProcessingManager().addAudioSegmentListener(mAudioRecordingManager);
+        mPlaylistManager.getChannelProcessingManager().addAudioSegmentListener(mAudioStreamingManager);
+
+        if(playlist != null)
+        {
+            try
+            {
+                mPlaylistManager.setPlaylist(playlist);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Error loading playlist [" + playlist.toAbsolutePath() + "]", e);
+            }
+        }
+        else
+        {
+            mPlaylistManager.init();
+        }
+
+        mLog.info("Playlist: " + mUserPreferences.getPlaylistPreference().getPlaylist());
+
+        autoStartChannels();
+
+        RuntimeReport.startupComplete("Headless", DEFAULT_RUNTIME_REPORT_INTERVAL_MINUTES);
+    }
+
+    /**
+     * Starts each of the channels that are designated for auto-start, in auto-start order.  Each channel starts once
+     * its tuner has finished initializing.
+     */
+    private void autoStartChannels()
+    {
+        List<Channel> channels = mPlaylistManager.getChannelModel().getAutoStartChannels();
+
+        if(channels.isEmpty())
+        {
+            mLog.warn("No channels are designated for auto-start in the playlist - nothing to process");
+        }
+
+        ChannelAutoStarter channelAutoStarter = new ChannelAutoStarter(mPlaylistManager.getChannelProcessingManager(),
+            mSourceManager.getTunerModel());
+
+        for(Channel channel: channels)
+        {
+            mLog.info("Auto-starting channel [" + channel.getName() + "]");
+            channelAutoStarter.receive(new ChannelEvent(channel, ChannelEvent.Event.REQUEST_ENABLE));
+        }
+    }
+
+    /**
+     * Stops all channels and tuners and releases resources
+     */
+    public void shutdown()
+    {
+        mLog.info("Application shutdown started ...");
+        mLog.info("Stopping channels ...");
+        mPlaylistManager.getChannelProcessingManager().shutdown();
+        mAudioRecordingManager.stop();
+        mAudioStreamingManager.stop();
+
+        mLog.info("Stopping tuners ...");
+        mPowerSpectrumExportManager.stop();
+        mSourceManager.shutdown();
+        IdentifierCache.logStatistics();
+        BufferPoolTelemetry.getInstance().stop();
+        BufferPoolTelemetry.getInstance().logStatistics();
+        ChannelScheduler.logStatistics();
+        mLog.info("Headless runtime - " + RuntimeReport.getHeapSummary());
+        mMetricsHttpServer.stop();
+        mLog.info("Shutdown complete.");
+        mApplicationLog.stop();
+        mShutdownLatch.countDown();
+    }
+
+    /**
+     * Blocks the calling thread until shutdown completes
+     */
+    public void awaitShutdown() throws InterruptedException
+    {
+        mShutdownLatch.await();
+    }
+
+    /**
+     * Launch the headless application.
+     *
+     * @param args optional playlist file path
+     */
+    public static void main(String[] args)
+    {
+        System.setProperty("java.awt.headless", "true");
+        FxPlatform.disableToolkit();
+
+        Path playlist = args.length > 0 ? Paths.get(args[0]) : null;
+
+        SDRTrunkDaemon daemon = new SDRTrunkDaemon();
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::shutdown, "sdrtrunk shutdown"));
+        daemon.start(playlist);
+
+        try
+        {
+            daemon.awaitShutdown();
+        }
+        catch(InterruptedException ie)
+        {
+            mLog.info("Interrupted - exiting");
+        }
+    }
+}
@@ -30,6 +30,9 @@ import org.apache.commons.math3.util.FastMath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * Audio Frequency Shift Keying (AFSK) 1200-baud correlation decoder for decoding 8 kHz FM-demodulated audio samples.
  *
@@ -68,9 +71,12 @@ public class AFSK1200Decoder implements Listener<ReusableFloatBuffer>
     protected AFSKSampleBuffer mSampleBuffer;
     protected AFSKTimingErrorDetector mTimingErrorDetector = new AFSKTimingErrorDetector(SAMPLES_PER_SYMBOL);
     protected IBinarySymbolProcessor mBinarySymbolProcessor;
+    private List<IBinarySymbolProcessor> mNormalSymbolProcessors = new CopyOnWriteArrayList<>();
+    private List<IBinarySymbolProcessor> mInvertedSymbolProcessors = new CopyOnWriteArrayList<>();
     private boolean mSampleDecision;
 
-    //Resample to an integral of the baud rate 1200 baud * 6 samples per symbol = 7200.0 Hertz
+    //Resample to an integral of the baud rate 1200 baud * 6 samples per symbol = 7200.0 Hertz.  The 9/10 ratio uses
+    //the rational polyphase resampler which dispatches one resampled buffer per input buffer
     private RealResampler mResampler = new RealResampler(8000.0, SAMPLE_RATE, 2000, 1);
 
     /**
@@ -126,6 +132,44 @@ public class AFSK1200Decoder implements Listener<ReusableFloatBuffer>
         {
             mBinarySymbolProcessor.process(mNormalOutput ? symbol : !symbol);
         }
+
+        for(IBinarySymbolProcessor processor: mNormalSymbolProcessors)
+        {
+            processor.process(symbol);
+        }
+
+        for(IBinarySymbolProcessor processor: mInvertedSymbolProcessors)
+        {
+            processor.process(!symbol);
+        }
+    }
+
+    /**
+     * Adds a symbol processor to receive decoded symbols with the specified output polarity, independent of the
+     * output polarity of this decoder.  This allows a single decoder to feed multiple protocol decoders.
+     *
+     * @param binarySymbolProcessor to receive symbols
+     * @param output NORMAL: 1200Hz = Mark(1) and 1800Hz = Space(0), or INVERTED (vice-versa)
+     */
+    public void addSymbolProcessor(IBinarySymbolProcessor binarySymbolProcessor, Output output)
+    {
+        if(output == Output.NORMAL)
+        {
+            mNormalSymbolProcessors.add(binarySymbolProcessor);
+        }
+        else
+        {
+            mInvertedSymbolProcessors.add(binarySymbolProcessor);
+        }
+    }
+
+    /**
+     * Removes a symbol processor that was added via addSymbolProcessor()
+     */
+    public void removeSymbolProcessor(IBinarySymbolProcessor binarySymbolProcessor)
+    {
+        mNormalSymbolProcessors.remove(binarySymbolProcessor);
+        mInvertedSymbolProcessors.remove(binarySymbolProcessor);
     }
 
     /**
@@ -37,6 +37,7 @@ public abstract class AbstractComplexPolyphaseChannelizer implements Listener<Re
     private ReusableChannelResultsBufferQueue mBufferQueue = new ReusableChannelResultsBufferQueue("AbstractComplexPolyphaseChannelizer");
     private Broadcaster<SourceEvent> mSourceChangeBroadcaster = new Broadcaster();
     private List<PolyphaseChannelSource> mChannels = new CopyOnWriteArrayList<>();
+    private ChannelResultsReplayBuffer mReplayBuffer = new ChannelResultsReplayBuffer();
     private double mSampleRate;
     private int mChannelCount;
     private int mSubChannelCount;
@@ -101,19 +102,32 @@ public abstract class AbstractComplexPolyphaseChannelizer implements Listener<Re
     }
 
     /**
-     * Dispatches the processed channel samples to any registered polyphase channel outputs.
+     * Dispatches the processed channel samples to any registered polyphase channel outputs.  Channels that signal
+     * backpressure are skipped until they catch up, so that a lagging channel doesn't queue results that it would
+     * drop anyway.
      *
      * @param channelResultsBuffer containing an array of an array of I/Q samples per channel
      */
     protected void dispatch(ReusableChannelResultsBuffer channelResultsBuffer)
     {
+        //Replay retained buffers to newly added channels before they receive the current buffer
+        mReplayBuffer.processPendingReplays();
+
         for(PolyphaseChannelSource channel : mChannels)
         {
-            channelResultsBuffer.incrementUserCount();
-            channel.receiveChannelResults(channelResultsBuffer);
+            if(channel.isBackpressure())
+            {
+                channel.skipChannelResults(channelResultsBuffer);
+            }
+            else if(!mReplayBuffer.isPending(channel))
+            {
+                channelResultsBuffer.incrementUserCount();
+                channel.receiveChannelResults(channelResultsBuffer);
+            }
         }
 
-        channelResultsBuffer.decrementUserCount();
+        //The replay buffer takes over our user count and releases the buffer once it ages out
+        mReplayBuffer.store(channelResultsBuffer);
     }
 
     /**
@@ -122,9 +136,27 @@ public abstract class AbstractComplexPolyphaseChannelizer implements Listener<Re
      * @param polyphaseChannelSource
      */
     public void addChannel(PolyphaseChannelSource polyphaseChannelSource)
+    {
+        addChannel(polyphaseChannelSource, 0);
+    }
+
+    /**
+     * Adds the polyphase channel source to receive processed output channel samples, preloading the channel with
+     * retained channel results that contain or follow the start timestamp.
+     *
+     * @param polyphaseChannelSource to add
+     * @param timestamp for the start of the channel sample stream in milliseconds, or zero for no replay
+     */
+    public void addChannel(PolyphaseChannelSource polyphaseChannelSource, long timestamp)
     {
         if(polyphaseChannelSource != null && !mChannels.contains(polyphaseChannelSource))
         {
+            //Register the replay before adding the channel so that the channel doesn't receive live buffers first
+            if(timestamp > 0)
+            {
+                mReplayBuffer.addReplay(polyphaseChannelSource, timestamp);
+            }
+
             mChannels.add(polyphaseChannelSource);
             mSourceChangeBroadcaster.addListener(polyphaseChannelSource.getSourceEventListener());
         }
@@ -140,6 +172,7 @@ public abstract class AbstractComplexPolyphaseChannelizer implements Listener<Re
         if(polyphaseChannelSource != null && mChannels.contains(polyphaseChannelSource))
         {
             mChannels.remove(polyphaseChannelSource);
+            mReplayBuffer.removeReplay(polyphaseChannelSource);
             mSourceChangeBroadcaster.removeListener(polyphaseChannelSource.getSourceEventListener());
         }
     }
@@ -152,6 +185,14 @@ public abstract class AbstractComplexPolyphaseChannelizer implements Listener<Re
         return mChannels.size();
     }
 
+    /**
+     * Replay buffer of recent channel results for preloading newly added channels
+     */
+    public ChannelResultsReplayBuffer getReplayBuffer()
+    {
+        return mReplayBuffer;
+    }
+
     /**
      * Creates or reuses a channel results buffer for subclass implementations to use for temporary
      * storage of channel results through distribution and consumption of channel results by
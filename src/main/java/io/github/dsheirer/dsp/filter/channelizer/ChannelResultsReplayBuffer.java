@@ -0,0 +1,415 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.channelizer;
+
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.sample.buffer.ReusableChannelResultsBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, timestamp-indexed replay buffer of recent polyphase channelizer output (channel results) buffers.
+ *
+ * The channelizer output contains every polyphase channel, so a single replay buffer serves all channels sourced
+ * from the tuner.  Buffers are retained by incrementing their user count, so no sample data is copied.  The buffer
+ * is bounded by both a maximum duration and a maximum memory size and the oldest buffers are released first.
+ *
+ * A channel source that is added with a start timestamp is held in a pending state until the next channel results
+ * buffer is dispatched.  At that time, every retained buffer that contains or follows the start timestamp is replayed
+ * to the channel in a single burst and the channel then joins the live stream.  The channel processes the replayed
+ * backlog on its next processing interval, catching up faster than real time.
+ *
+ * Note: all buffer management occurs on the channelizer's dispatch thread.  Methods are synchronized so that the
+ * buffer can be cleared from the channel manager's thread when the channelizer is stopped.
+ */
+public class ChannelResultsReplayBuffer implements ChannelResultsReplayBufferMBean
+{
+    private final static Logger mLog = LoggerFactory.getLogger(ChannelResultsReplayBuffer.class);
+
+    private static final String DURATION_PROPERTY = "polyphase.replay.buffer.duration.milliseconds";
+    private static final String MEMORY_PROPERTY = "polyphase.replay.buffer.maximum.megabytes";
+    public static final int DEFAULT_DURATION_MILLISECONDS = 500;
+    public static final int DEFAULT_MAXIMUM_MEGABYTES = 32;
+
+    private ArrayDeque<ReusableChannelResultsBuffer> mBuffers = new ArrayDeque<>();
+    private Map<PolyphaseChannelSource,Long> mPendingReplays = new ConcurrentHashMap<>();
+    private List<ReusableChannelResultsBuffer> mReplayBuffers = new ArrayList<>();
+    private long mMaximumDuration;
+    private long mMaximumBytes;
+    private volatile long mBytes;
+    private volatile boolean mClearRequested;
+
+    //Metrics - updated on the dispatch and channel threads and read from other threads
+    private volatile long mReplayCount;
+    private volatile int mLastReplayDepth;
+    private volatile long mLastReplayDuration;
+    private volatile long mMaximumReplayDuration;
+    private volatile long mLastCatchUpTime;
+    private volatile long mMaximumCatchUpTime;
+
+    /**
+     * Constructs an instance
+     *
+     * @param maximumDuration in milliseconds of channel results to retain, or zero to disable replay
+     * @param maximumMegabytes of channel results to retain
+     */
+    public ChannelResultsReplayBuffer(long maximumDuration, int maximumMegabytes)
+    {
+        mMaximumDuration = maximumDuration;
+        mMaximumBytes = maximumMegabytes * 1024L * 1024L;
+    }
+
+    /**
+     * Constructs an instance using the duration and memory limits from the system properties
+     */
+    public ChannelResultsReplayBuffer()
+    {
+        this(SystemProperties.getInstance().get(DURATION_PROPERTY, DEFAULT_DURATION_MILLISECONDS),
+            SystemProperties.getInstance().get(MEMORY_PROPERTY, DEFAULT_MAXIMUM_MEGABYTES));
+    }
+
+    /**
+     * Indicates if this buffer is enabled for replay
+     */
+    public boolean isEnabled()
+    {
+        return mMaximumDuration > 0 && mMaximumBytes > 0;
+    }
+
+    /**
+     * Registers the channel source to receive a replay of retained buffers that contain or follow the timestamp.
+     * The channel remains in a pending state and should not receive live buffers until the replay is complete.
+     *
+     * @param channelSource to replay
+     * @param timestamp for the start of the replay in milliseconds
+     */
+    public void addReplay(PolyphaseChannelSource channelSource, long timestamp)
+    {
+        if(isEnabled())
+        {
+            mPendingReplays.put(channelSource, timestamp);
+        }
+    }
+
+    /**
+     * Removes any pending replay for the channel source
+     */
+    public void removeReplay(PolyphaseChannelSource channelSource)
+    {
+        mPendingReplays.remove(channelSource);
+    }
+
+    /**
+     * Indicates if the channel source is waiting for a replay and should not yet receive live buffers
+     */
+    public boolean isPending(PolyphaseChannelSource channelSource)
+    {
+        return !mPendingReplays.isEmpty() && mPendingReplays.containsKey(channelSource);
+    }
+
+    /**
+     * Replays retained buffers to each pending channel source.  Invoke on the dispatch thread before dispatching
+     * the current buffer.
+     */
+    public synchronized void processPendingReplays()
+    {
+        if(mClearRequested)
+        {
+            clearBuffers();
+        }
+
+        if(mPendingReplays.isEmpty())
+        {
+            return;
+        }
+
+        Iterator<Map.Entry<PolyphaseChannelSource,Long>> it = mPendingReplays.entrySet().iterator();
+
+        while(it.hasNext())
+        {
+            Map.Entry<PolyphaseChannelSource,Long> entry = it.next();
+            replay(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * Replays the retained buffers that contain or follow the timestamp to the channel source.
+     */
+    private void replay(PolyphaseChannelSource channelSource, long timestamp)
+    {
+        mReplayBuffers.clear();
+
+        ReusableChannelResultsBuffer previous = null;
+
+        for(ReusableChannelResultsBuffer buffer: mBuffers)
+        {
+            //Include the previous buffer when it contains the timestamp (ie. this buffer starts after the timestamp)
+            if(previous != null && mReplayBuffers.isEmpty() && buffer.getTimestamp() > timestamp &&
+               previous.getTimestamp() <= timestamp)
+            {
+                mReplayBuffers.add(previous);
+            }
+
+            if(buffer.getTimestamp() >= timestamp)
+            {
+                mReplayBuffers.add(buffer);
+            }
+
+            previous = buffer;
+        }
+
+        if(mReplayBuffers.isEmpty())
+        {
+            return;
+        }
+
+        for(ReusableChannelResultsBuffer buffer: mReplayBuffers)
+        {
+            buffer.incrementUserCount();
+        }
+
+        channelSource.replayChannelResults(mReplayBuffers, this);
+
+        mReplayCount++;
+        mLastReplayDepth = mReplayBuffers.size();
+        mLastReplayDuration = mBuffers.peekLast().getTimestamp() - mReplayBuffers.get(0).getTimestamp();
+
+        if(mLastReplayDuration > mMaximumReplayDuration)
+        {
+            mMaximumReplayDuration = mLastReplayDuration;
+        }
+
+        mReplayBuffers.clear();
+    }
+
+    /**
+     * Retains the buffer for replay.  This method takes ownership of the caller's user count on the buffer and the
+     * buffer's user count is decremented when the buffer is released from this replay buffer.
+     *
+     * @param buffer to retain
+     */
+    public synchronized void store(ReusableChannelResultsBuffer buffer)
+    {
+        if(!isEnabled() || mClearRequested || buffer.getChannelResults().isEmpty())
+        {
+            buffer.decrementUserCount();
+            return;
+        }
+
+        mBuffers.addLast(buffer);
+        mBytes += getSize(buffer);
+
+        //Release the oldest buffers that exceed the duration or memory limits
+        while(mBuffers.size() > 1 && (mBytes > mMaximumBytes ||
+            buffer.getTimestamp() - mBuffers.peekFirst().getTimestamp() > mMaximumDuration))
+        {
+            release(mBuffers.pollFirst());
+        }
+    }
+
+    /**
+     * Requests that all retained buffers be released on the next dispatch.  Use this when the retained buffers are
+     * no longer valid, for example when the tuner center frequency changes.
+     */
+    public void clear()
+    {
+        mClearRequested = true;
+    }
+
+    /**
+     * Releases all retained buffers immediately and removes any pending replays.  Use when the dispatch thread is
+     * stopped.
+     */
+    public synchronized void dispose()
+    {
+        mPendingReplays.clear();
+        clearBuffers();
+    }
+
+    /**
+     * Releases all retained buffers
+     */
+    private void clearBuffers()
+    {
+        mClearRequested = false;
+
+        ReusableChannelResultsBuffer buffer = mBuffers.pollFirst();
+
+        while(buffer != null)
+        {
+            release(buffer);
+            buffer = mBuffers.pollFirst();
+        }
+
+        mBytes = 0;
+    }
+
+    /**
+     * Releases the retained buffer
+     */
+    private void release(ReusableChannelResultsBuffer buffer)
+    {
+        mBytes -= getSize(buffer);
+        buffer.decrementUserCount();
+    }
+
+    /**
+     * Size in bytes of the channel results contained in the buffer
+     */
+    private static long getSize(ReusableChannelResultsBuffer buffer)
+    {
+        List<float[]> results = buffer.getChannelResults();
+
+        if(results.isEmpty())
+        {
+            return 0;
+        }
+
+        return (long)results.size() * results.get(0).length * 4;
+    }
+
+    /**
+     * Invoked by a channel source once it has processed a replayed backlog
+     *
+     * @param catchUpTime in milliseconds from the replay until the channel processed the replayed backlog
+     */
+    public void catchUpComplete(long catchUpTime)
+    {
+        mLastCatchUpTime = catchUpTime;
+
+        if(catchUpTime > mMaximumCatchUpTime)
+        {
+            mMaximumCatchUpTime = catchUpTime;
+        }
+
+        mLog.debug("Channel replay catch-up complete in [" + catchUpTime + "ms] " + getStatistics());
+    }
+
+    /**
+     * Number of buffers currently retained
+     */
+    @Override
+    public synchronized int getBufferCount()
+    {
+        return mBuffers.size();
+    }
+
+    /**
+     * Approximate memory in bytes used by the retained buffers
+     */
+    @Override
+    public long getMemoryUsed()
+    {
+        return mBytes;
+    }
+
+    /**
+     * Duration in milliseconds spanned by the retained buffers
+     */
+    @Override
+    public synchronized long getRetainedDuration()
+    {
+        if(mBuffers.size() < 2)
+        {
+            return 0;
+        }
+
+        return mBuffers.peekLast().getTimestamp() - mBuffers.peekFirst().getTimestamp();
+    }
+
+    /**
+     * Number of replays performed
+     */
+    @Override
+    public long getReplayCount()
+    {
+        return mReplayCount;
+    }
+
+    /**
+     * Number of buffers replayed in the most recent replay
+     */
+    @Override
+    public int getLastReplayDepth()
+    {
+        return mLastReplayDepth;
+    }
+
+    /**
+     * Duration in milliseconds of the most recent replay
+     */
+    @Override
+    public long getLastReplayDuration()
+    {
+        return mLastReplayDuration;
+    }
+
+    /**
+     * Maximum duration in milliseconds of any replay
+     */
+    @Override
+    public long getMaximumReplayDuration()
+    {
+        return mMaximumReplayDuration;
+    }
+
+    /**
+     * Time in milliseconds for the most recently replayed channel to process its replayed backlog
+     */
+    @Override
+    public long getLastCatchUpTime()
+    {
+        return mLastCatchUpTime;
+    }
+
+    /**
+     * Maximum time in milliseconds for any replayed channel to process its replayed backlog
+     */
+    @Override
+    public long getMaximumCatchUpTime()
+    {
+        return mMaximumCatchUpTime;
+    }
+
+    /**
+     * Formatted statistics summary
+     */
+    public String getStatistics()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("REPLAY BUFFER RETAINED:").append(getBufferCount());
+        sb.append(" MEMORY:").append(getMemoryUsed() / 1024).append("KB");
+        sb.append(" REPLAYS:").append(mReplayCount);
+        sb.append(" LAST DEPTH:").append(mLastReplayDepth);
+        sb.append(" LAST DURATION:").append(mLastReplayDuration).append("ms");
+        sb.append(" MAX DURATION:").append(mMaximumReplayDuration).append("ms");
+        sb.append(" LAST CATCH-UP:").append(mLastCatchUpTime).append("ms");
+        sb.append(" MAX CATCH-UP:").append(mMaximumCatchUpTime).append("ms");
+        return sb.toString();
+    }
+}
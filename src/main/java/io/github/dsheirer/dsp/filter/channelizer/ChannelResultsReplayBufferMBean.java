@@ -0,0 +1,70 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.dsp.filter.channelizer;
+
+/**
+ * JMX management interface for channel results replay buffer statistics
+ */
+public interface ChannelResultsReplayBufferMBean
+{
+    /**
+     * Number of buffers currently retained
+     */
+    int getBufferCount();
+
+    /**
+     * Approximate memory in bytes used by the retained buffers
+     */
+    long getMemoryUsed();
+
+    /**
+     * Duration in milliseconds spanned by the retained buffers
+     */
+    long getRetainedDuration();
+
+    /**
+     * Number of replays performed
+     */
+    long getReplayCount();
+
+    /**
+     * Number of buffers replayed in the most recent replay
+     */
+    int getLastReplayDepth();
+
+    /**
+     * Duration in milliseconds of the most recent replay
+     */
+    long getLastReplayDuration();
+
+    /**
+     * Maximum duration in milliseconds of any replay
+     */
+    long getMaximumReplayDuration();
+
+    /**
+     * Time in milliseconds for the most recently replayed channel to process its replayed backlog
+     */
+    long getLastCatchUpTime();
+
+    /**
+     * Maximum time in milliseconds for any replayed channel to process its replayed backlog
+     */
+    long getMaximumCatchUpTime();
+}
@@ -137,6 +137,7 @@ public class ComplexPolyphaseChannelizerM2 extends AbstractComplexPolyphaseChann
     public void stop()
     {
         mIFFTProcessor.stop();
+        getReplayBuffer().dispose();
     }
 
     /**
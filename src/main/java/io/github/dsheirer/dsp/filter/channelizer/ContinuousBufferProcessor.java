@@ -105,6 +105,14 @@ public class ContinuousBufferProcessor<E> implements Listener<E>
         mQueue.setOverflowListener(listener);
     }
 
+    /**
+     * Current number of buffers queued for distribution
+     */
+    public int getQueueSize()
+    {
+        return mQueue.size();
+    }
+
     /**
      * Sets or changes the listener to receive buffers from this processor.
      * @param listener to receive buffers
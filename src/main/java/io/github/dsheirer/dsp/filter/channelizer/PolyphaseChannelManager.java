@@ -26,6 +26,9 @@ import io.github.dsheirer.dsp.filter.channelizer.output.IPolyphaseChannelOutputP
 import io.github.dsheirer.dsp.filter.channelizer.output.OneChannelOutputProcessor;
 import io.github.dsheirer.dsp.filter.channelizer.output.TwoChannelOutputProcessor;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
+import io.github.dsheirer.metrics.MetricsCategory;
+import io.github.dsheirer.metrics.MetricsRegistry;
+import io.github.dsheirer.metrics.ProcessingMetrics;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.IReusableComplexBufferProvider;
@@ -84,6 +87,7 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
     private BufferSourceEventMonitor mBufferSourceEventMonitor = new BufferSourceEventMonitor();
     private ContinuousBufferProcessor<ReusableComplexBuffer> mBufferProcessor;
     private Map<Integer,float[]> mOutputProcessorFilters = new HashMap<>();
+    private ProcessingMetrics mMetrics;
 
     /**
      * Creates a polyphase channel manager instance.
@@ -232,11 +236,13 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
 
     /**
      * Starts/adds the channel source to receive channelized sample buffers, registering with the tuner to receive
-     * sample buffers when this is the first channel.
+     * sample buffers when this is the first channel.  The channel source is preloaded with any recent channelizer
+     * output that contains or follows the start timestamp.
      *
      * @param channelSource to start
+     * @param timestamp for the start of the channel sample stream
      */
-    private void startChannelSource(PolyphaseChannelSource channelSource)
+    private void startChannelSource(PolyphaseChannelSource channelSource, long timestamp)
     {
         synchronized(mBufferProcessor)
         {
@@ -244,12 +250,13 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
 
             checkChannelizerConfiguration();
 
-            mPolyphaseChannelizer.addChannel(channelSource);
+            mPolyphaseChannelizer.addChannel(channelSource, timestamp);
             mSourceEventBroadcaster.broadcast(SourceEvent.channelCountChange(getTunerChannelCount()));
 
             //If this is the first channel, register to start the sample buffers flowing
             if(mPolyphaseChannelizer.getRegisteredChannelCount() == 1)
             {
+                registerMetrics();
                 mReusableBufferProvider.addBufferListener(mBufferProcessor);
                 mPolyphaseChannelizer.start();
                 mBufferProcessor.start();
@@ -277,6 +284,7 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
                 mReusableBufferProvider.removeBufferListener(mBufferProcessor);
                 mBufferProcessor.stop();
                 mPolyphaseChannelizer.stop();
+                unregisterMetrics();
             }
         }
 
@@ -291,6 +299,49 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
         }
     }
 
+    /**
+     * Registers channelizer processing metrics and replay buffer statistics while the channelizer is running.  The
+     * metrics are named for the tuner when the buffer provider is a tuner controller with registered metrics.
+     */
+    private void registerMetrics()
+    {
+        String name = "Polyphase";
+
+        if(mReusableBufferProvider instanceof TunerController &&
+            ((TunerController)mReusableBufferProvider).getMetrics() != null)
+        {
+            name = ((TunerController)mReusableBufferProvider).getMetrics().getName();
+        }
+
+        ProcessingMetrics metrics = MetricsRegistry.getInstance().register(MetricsCategory.CHANNELIZER, name);
+        metrics.setQueueDepthSupplier(mBufferProcessor::getQueueSize);
+        mBufferProcessor.setOverflowListener(overflow -> {
+            if(overflow)
+            {
+                metrics.overflow();
+            }
+        });
+        mMetrics = metrics;
+        MetricsRegistry.getInstance().registerReplayBuffer(metrics.getName(), mPolyphaseChannelizer.getReplayBuffer());
+    }
+
+    /**
+     * Unregisters the channelizer processing metrics and replay buffer statistics
+     */
+    private void unregisterMetrics()
+    {
+        mBufferProcessor.setOverflowListener(null);
+
+        if(mMetrics != null)
+        {
+            MetricsRegistry.getInstance().unregisterReplayBuffer(mMetrics.getName(),
+                mPolyphaseChannelizer.getReplayBuffer());
+        }
+
+        MetricsRegistry.getInstance().unregister(mMetrics);
+        mMetrics = null;
+    }
+
     /**
      * Process source events received from the source (ie tuner controller) for frequency and sample rate change
      * notifications.
@@ -473,6 +524,19 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
         return mChannelSources.size();
     }
 
+    /**
+     * Replay buffer statistics (replay depth and catch-up time) for the current channelizer
+     */
+    public String getReplayStatistics()
+    {
+        if(mPolyphaseChannelizer != null)
+        {
+            return mPolyphaseChannelizer.getReplayBuffer().getStatistics();
+        }
+
+        return "REPLAY BUFFER INACTIVE";
+    }
+
     /**
      * Adds the listener to receive source events
      */
@@ -525,7 +589,8 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
                 case REQUEST_START_SAMPLE_STREAM:
                     if(sourceEvent.hasSource() && sourceEvent.getSource() instanceof PolyphaseChannelSource)
                     {
-                        startChannelSource((PolyphaseChannelSource)sourceEvent.getSource());
+                        startChannelSource((PolyphaseChannelSource)sourceEvent.getSource(),
+                            sourceEvent.getValue() != null ? sourceEvent.getValue().longValue() : 0);
                     }
                     else
                     {
@@ -602,18 +667,34 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
                         case NOTIFICATION_FREQUENCY_CHANGE:
                             //Don't send the tuner's frequency change event down to the channels - it would cause chaos
                             updateOutputProcessors(null);
+
+                            //Retained channelizer output is no longer valid for the new center frequency
+                            if(mPolyphaseChannelizer != null)
+                            {
+                                mPolyphaseChannelizer.getReplayBuffer().clear();
+                            }
                             break;
                     }
 
                     queuedSourceEvent = mQueuedSourceEvents.poll();
                 }
 
+                ProcessingMetrics metrics = mMetrics;
+
                 for(ReusableComplexBuffer reusableComplexBuffer: reusableComplexBuffers)
                 {
                     if(mPolyphaseChannelizer != null)
                     {
+                        int samples = reusableComplexBuffer.getSampleCount();
+                        long start = metrics != null ? metrics.begin() : 0;
+
                         //User count management is handled by the channelizer
                         mPolyphaseChannelizer.receive(reusableComplexBuffer);
+
+                        if(metrics != null)
+                        {
+                            metrics.end(start, samples);
+                        }
                     }
                     else
                     {
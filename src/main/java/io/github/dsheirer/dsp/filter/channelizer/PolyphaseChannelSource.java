@@ -34,6 +34,7 @@ import io.github.dsheirer.source.tuner.channel.TunerChannel;
 import io.github.dsheirer.source.tuner.channel.TunerChannelSource;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class PolyphaseChannelSource extends TunerChannelSource
@@ -50,6 +51,8 @@ public class PolyphaseChannelSource extends TunerChannelSource
     private double mChannelSampleRate;
     private long mIndexCenterFrequency;
     private long mChannelFrequencyCorrection;
+    private volatile ChannelResultsReplayBuffer mCatchUpReplayBuffer;
+    private long mCatchUpStartTimestamp;
 
     /**
      * Polyphase channelizer tuner channel source implementation.  Adapts the channel array output samples from the
@@ -170,8 +173,61 @@ public class PolyphaseChannelSource extends TunerChannelSource
             swapOutputProcessor();
         }
 
-        mReusableComplexBufferAssembler.updateTimestamp(channelResultsBuffer.getTimestamp());
         mPolyphaseChannelOutputProcessor.receiveChannelResults(channelResultsBuffer);
+        bufferQueued();
+    }
+
+    /**
+     * Indicates if this channel is signaling backpressure, meaning that the channelizer should skip this channel
+     * until the channel catches up.
+     */
+    public boolean isBackpressure()
+    {
+        return mPolyphaseChannelOutputProcessor.getChannelResultsQueue().isBackpressure();
+    }
+
+    /**
+     * Records a channel results buffer that the channelizer skipped in response to backpressure from this channel.
+     *
+     * @param channelResultsBuffer that was not delivered to this channel
+     */
+    public void skipChannelResults(ReusableChannelResultsBuffer channelResultsBuffer)
+    {
+        mPolyphaseChannelOutputProcessor.getChannelResultsQueue().skipped(channelResultsBuffer);
+    }
+
+    @Override
+    public long getDroppedBufferCount()
+    {
+        return mPolyphaseChannelOutputProcessor.getChannelResultsQueue().getDroppedCount();
+    }
+
+    @Override
+    public long getGapMilliseconds()
+    {
+        return mPolyphaseChannelOutputProcessor.getChannelResultsQueue().getGapMilliseconds();
+    }
+
+    /**
+     * Receives a burst of replayed channel results buffers from the channelizer's replay buffer, ahead of the live
+     * channel results.  The replayed backlog is processed on the next processing interval and the catch-up time is
+     * reported back to the replay buffer.
+     *
+     * @param channelResultsBuffers to replay, in time order, with user counts already incremented for this channel
+     * @param replayBuffer to notify once the replayed backlog is processed
+     */
+    public void replayChannelResults(List<ReusableChannelResultsBuffer> channelResultsBuffers,
+                                     ChannelResultsReplayBuffer replayBuffer)
+    {
+        mCatchUpStartTimestamp = System.currentTimeMillis();
+
+        for(ReusableChannelResultsBuffer channelResultsBuffer: channelResultsBuffers)
+        {
+            receiveChannelResults(channelResultsBuffer);
+        }
+
+        //Set after the backlog is enqueued so the processing thread only reports once the complete backlog is drained
+        mCatchUpReplayBuffer = replayBuffer;
     }
 
     /**
@@ -245,7 +301,16 @@ public class PolyphaseChannelSource extends TunerChannelSource
     @Override
     protected void processSamples()
     {
+        ChannelResultsReplayBuffer catchUpReplayBuffer = mCatchUpReplayBuffer;
+
         mPolyphaseChannelOutputProcessor.processChannelResults(mReusableComplexBufferAssembler);
+
+        //The output processor drains the complete queue, so the replayed backlog has now been processed
+        if(catchUpReplayBuffer != null)
+        {
+            mCatchUpReplayBuffer = null;
+            catchUpReplayBuffer.catchUpComplete(System.currentTimeMillis() - mCatchUpStartTimestamp);
+        }
     }
 
     /**
@@ -21,6 +21,7 @@ package io.github.dsheirer.dsp.filter.channelizer.output;
 import io.github.dsheirer.dsp.mixer.IOscillator;
 import io.github.dsheirer.dsp.mixer.Oscillator;
 import io.github.dsheirer.sample.IOverflowListener;
+import io.github.dsheirer.sample.OverflowableTransferQueue;
 import io.github.dsheirer.sample.buffer.OverflowableReusableBufferTransferQueue;
 import io.github.dsheirer.sample.buffer.ReusableChannelResultsBuffer;
 import io.github.dsheirer.sample.buffer.ReusableComplexBufferAssembler;
@@ -38,6 +39,7 @@ public abstract class ChannelOutputProcessor implements IPolyphaseChannelOutputP
     private OverflowableReusableBufferTransferQueue<ReusableChannelResultsBuffer> mChannelResultsQueue;
     private List<ReusableChannelResultsBuffer> mChannelResultsToProcess = new ArrayList<>();
     private int mMaxResultsToProcess;
+    private boolean mDiscontinuity;
 
     private int mInputChannelCount;
     private IOscillator mFrequencyCorrectionMixer;
@@ -62,6 +64,7 @@ public abstract class ChannelOutputProcessor implements IPolyphaseChannelOutputP
         mMaxResultsToProcess = (int)(sampleRate / 10) * 2;  //process at 100 millis interval, twice the expected inflow rate
 
         mChannelResultsQueue = new OverflowableReusableBufferTransferQueue<>((int)(sampleRate * 3), (int)(sampleRate * 0.5));
+        mChannelResultsQueue.applyChannelSettings();
     }
 
     protected double getGain()
@@ -108,8 +111,19 @@ public abstract class ChannelOutputProcessor implements IPolyphaseChannelOutputP
         mChannelResultsQueue.offer(channelResults);
     }
 
+    @Override
+    public OverflowableTransferQueue<ReusableChannelResultsBuffer> getChannelResultsQueue()
+    {
+        return mChannelResultsQueue;
+    }
+
     /**
-     * Processes all enqueued polyphase channelizer results until the internal queue is empty
+     * Processes all enqueued polyphase channelizer results until the internal queue is empty.
+     *
+     * The assembler timing is anchored to the timestamp of the first results buffer in each batch.  When results
+     * buffers were dropped since the previous batch, the assembler is resynchronized so that an assembled buffer
+     * doesn't span the gap.
+     *
      * @param reusableComplexBufferAssembler to receive the processed channel results
      */
     @Override
@@ -117,10 +131,27 @@ public abstract class ChannelOutputProcessor implements IPolyphaseChannelOutputP
     {
         try
         {
+            //Read the discontinuity indicator before draining so that a drop that occurs during or after the drain is
+            //applied to the next batch, which is the batch that contains the gap.  The indicator is held until there
+            //are results to process.
+            mDiscontinuity |= mChannelResultsQueue.takeDiscontinuity();
+
             int toProcess = mChannelResultsQueue.drainTo(mChannelResultsToProcess, mMaxResultsToProcess);
 
             if(toProcess > 0)
             {
+                long timestamp = mChannelResultsToProcess.get(0).getTimestamp();
+
+                if(mDiscontinuity)
+                {
+                    mDiscontinuity = false;
+                    reusableComplexBufferAssembler.resynchronize(timestamp);
+                }
+                else
+                {
+                    reusableComplexBufferAssembler.updateTimestamp(timestamp);
+                }
+
                 process(mChannelResultsToProcess, reusableComplexBufferAssembler);
             }
         }
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package io.github.dsheirer.dsp.filter.channelizer.output;
 
+import io.github.dsheirer.sample.OverflowableTransferQueue;
 import io.github.dsheirer.sample.buffer.ReusableChannelResultsBuffer;
 import io.github.dsheirer.sample.buffer.ReusableComplexBufferAssembler;
 import io.github.dsheirer.source.Source;
@@ -76,6 +77,11 @@ public interface IPolyphaseChannelOutputProcessor
      */
     void setSourceOverflowListener(Source source);
 
+    /**
+     * Channel results queue, for backpressure signaling and drop/gap statistics
+     */
+    OverflowableTransferQueue<ReusableChannelResultsBuffer> getChannelResultsQueue();
+
 
     void dispose();
 }
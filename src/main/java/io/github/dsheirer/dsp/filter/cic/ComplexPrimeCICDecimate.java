@@ -26,15 +26,13 @@ import io.github.dsheirer.dsp.filter.fir.remez.RemezFIRFilterDesigner;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
 import io.github.dsheirer.sample.buffer.ReusableComplexBufferAssembler;
-import io.github.dsheirer.sample.complex.ComplexSampleListener;
-import io.github.dsheirer.sample.decimator.ComplexDecimator;
-import org.apache.commons.lang3.Validate;
 import org.apache.commons.math3.primes.Primes;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Non-Recursive Prime-Factor CIC Filter.
@@ -43,6 +41,11 @@ import java.util.Map;
  * filter is comprised of multiple decimating stages each with a prime factor decimation rate.  Multiple stages are
  * cascaded to achieve the overall decimation rate.
  *
+ * Each decimating stage processes an entire sample buffer in a single pass (running sum and decimation) and passes
+ * the decimated array to the next stage, so there are no per-sample listener calls between stages.  The stage plan
+ * (prime factors) for each decimation rate and the low-pass cleanup filter coefficients for each output rate and
+ * pass/stop frequency combination are cached and shared across all filter instances.
+ *
  * This filter currently supports a maximum decimation rate of 2801.  Higher decimation rates can be added by
  * adding additional prime factors to the PRIMES array.
  */
@@ -50,11 +53,10 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
 {
 //    private final static Logger mLog = LoggerFactory.getLogger(ComplexPrimeCICDecimate.class);
 
-    private static Map<Integer,float[]> sLowPassFilters = new HashMap();
-    private static Map<Integer,List<Integer>> sPrimeFactors = new HashMap();
+    private static Map<String,float[]> sLowPassFilters = new ConcurrentHashMap<>();
+    private static Map<Integer,List<Integer>> sPrimeFactors = new ConcurrentHashMap<>();
 
     private List<DecimatingStage> mDecimatingStages = new ArrayList<DecimatingStage>();
-    private DecimatingStage mFirstDecimatingStage;
     private Output mOutput;
 
     /**
@@ -82,41 +84,20 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
     {
         List<Integer> stageSizes = getPrimeFactors(decimation);
 
-        for(int x = 0; x < stageSizes.size(); x++)
+        for(int stageSize : stageSizes)
         {
-            DecimatingStage stage = new DecimatingStage(stageSizes.get(x), 1);
-
-            mDecimatingStages.add(stage);
-
-            if(x == 0)
-            {
-                /* Reference to first stage -- will receive all samples */
-                mFirstDecimatingStage = stage;
-            }
-            else
-            {
-                /* Wire the current stage to the previous stage */
-                mDecimatingStages.get(x - 1).setListener(stage);
-            }
+            mDecimatingStages.add(new DecimatingStage(stageSize));
         }
 
         double channelRate = sampleRate / (double)decimation;
 
         mOutput = new Output(channelRate, passFrequency, stopFrequency);
-
-        mDecimatingStages.get(mDecimatingStages.size() - 1).setListener(mOutput);
     }
 
     public void dispose()
     {
-        for(DecimatingStage stage : mDecimatingStages)
-        {
-            stage.dispose();
-        }
-
         mDecimatingStages.clear();
         mDecimatingStages = null;
-        mFirstDecimatingStage = null;
 
         mOutput.dispose();
         mOutput = null;
@@ -147,17 +128,8 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
      */
     public static List<Integer> getPrimeFactors(int decimation)
     {
-        List<Integer> primeFactors = sPrimeFactors.get(decimation);
-        if(primeFactors != null)
-        {
-            return primeFactors;
-        }
-
-        primeFactors = Primes.primeFactors(decimation);
-
-        sPrimeFactors.put(decimation, primeFactors);
-
-        return primeFactors;
+        return sPrimeFactors.computeIfAbsent(decimation,
+            rate -> Collections.unmodifiableList(Primes.primeFactors(rate)));
     }
 
     /**
@@ -166,183 +138,167 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
     @Override
     public void receive(ReusableComplexBuffer buffer)
     {
-        if(mFirstDecimatingStage != null)
+        List<DecimatingStage> stages = mDecimatingStages;
+        Output output = mOutput;
+
+        if(stages != null && output != null)
         {
             float[] samples = buffer.getSamples();
+            int length = samples.length;
 
-            for(int x = 0; x < samples.length; x += 2)
+            for(DecimatingStage stage : stages)
             {
-                mFirstDecimatingStage.receive(samples[x], samples[x + 1]);
+                length = stage.process(samples, length);
+                samples = stage.getOutput();
             }
+
+            output.receive(samples, length);
         }
 
         buffer.decrementUserCount();
     }
 
     /**
-     * Decimating stage combines multiple CIC stages with a decimator.  The
-     * number of stages is indicated by the order value and the size indicates
-     * the decimation rate of this stage.
+     * Decimating stage that combines a non-decimating CIC stage with a decimator and processes whole sample arrays.
+     * The size indicates the decimation rate of this stage.
+     *
+     * The CIC stage uses a circular buffer and a running sum internally so that stage size has essentially no
+     * impact on the computational requirements of the stage.  The running sum is updated for every input sample and
+     * only every size-th sample is written to the reusable output array.
      */
-    public class DecimatingStage implements ComplexSampleListener
+    public static class DecimatingStage
     {
-        private List<Stage> mStages = new ArrayList<Stage>();
-        private Stage mFirstStage;
-        private ComplexDecimator mDecimator;
+        private float[] mISamples;
+        private float[] mQSamples;
+        private float mISum;
+        private float mQSum;
+        private int mSamplePointer = 0;
+        private int mHistorySize;
+        private int mDecimation;
+        private int mDecimationCounter = 0;
+        private float mGain;
+        private float[] mOutput = new float[0];
 
-        public DecimatingStage(int size, int order)
+        public DecimatingStage(int size)
         {
-            for(int x = 0; x < order; x++)
-            {
-                Stage stage;
+            mDecimation = size;
 
-                if(size == 2)
-                {
-                    stage = new TwoStage();
-                }
-                else
-                {
-                    stage = new Stage(size);
-                }
-
-                mStages.add(stage);
-
-                if(x == 0)
-                {
-                    mFirstStage = stage;
-                }
-                else
-                {
-                    mStages.get(x - 1).setListener(stage);
-                }
+            if(size == 2)
+            {
+                mHistorySize = 1;
+                mGain = 0.5f;
             }
-
-            mDecimator = new ComplexDecimator(size);
-            mStages.get(mStages.size() - 1).setListener(mDecimator);
-        }
-
-        public void dispose()
-        {
-            for(Stage stage : mStages)
+            else
             {
-                stage.dispose();
+                mHistorySize = size - 1;
+                float baseGain = 1.0f / (float)size;
+                mGain = baseGain * (1.0f / (1.0f - baseGain));
             }
 
-            mStages.clear();
-            mDecimator.dispose();
-            mDecimator = null;
-            mFirstStage = null;
-            mStages = null;
+            mISamples = new float[mHistorySize];
+            mQSamples = new float[mHistorySize];
         }
 
-        @Override
-        public void receive(float i, float q)
+        /**
+         * Reusable output array containing the decimated samples from the most recent process() invocation.
+         */
+        public float[] getOutput()
         {
-            mFirstStage.receive(i, q);
+            return mOutput;
         }
 
-        public void setListener(ComplexSampleListener listener)
+        /**
+         * Filters and decimates the interleaved complex samples into the reusable output array.
+         *
+         * @param samples interleaved I/Q
+         * @param length of the samples array to process (float count)
+         * @return number of floats written to the output array
+         */
+        public int process(float[] samples, int length)
         {
-            mDecimator.setListener(listener);
-        }
-    }
+            int maxOutputLength = ((length / 2 / mDecimation) + 1) * 2;
 
-    /**
-     * Single non-decimating CIC stage component.  Uses a circular buffer and a running average internally to implement
-     * the stage so that stage size has essentially no impact on the computational requirements of the stage
-     */
-    public class Stage implements ComplexSampleListener
-    {
-        protected ComplexSampleListener mListener;
-
-        private float[] mISamples;
-        private float[] mQSamples;
-
-        protected float mISum;
-        protected float mQSum;
-
-        private int mSamplePointer = 0;
-        private int mSize;
-
-        protected float mGain;
-
-        protected Stage()
-        {
-        }
+            if(mOutput.length < maxOutputLength)
+            {
+                mOutput = new float[maxOutputLength];
+            }
 
-        public Stage(int size)
-        {
-            mSize = size - 1;
+            float[] output = mOutput;
+            int outputPointer = 0;
 
-            mISamples = new float[mSize];
-            mQSamples = new float[mSize];
+            if(mDecimation == 2)
+            {
+                //Size 2 stage eliminates the unnecessary circular buffer management
+                float previousI = mISum;
+                float previousQ = mQSum;
 
-            float baseGain = 1.0f / (float)size;
-            mGain = baseGain * (1.0f / (1.0f - baseGain));
-        }
+                for(int x = 0; x < length; x += 2)
+                {
+                    float i = samples[x];
+                    float q = samples[x + 1];
 
-        public void dispose()
-        {
-            mListener = null;
-        }
+                    if(++mDecimationCounter >= 2)
+                    {
+                        output[outputPointer++] = (previousI + i) * mGain;
+                        output[outputPointer++] = (previousQ + q) * mGain;
+                        mDecimationCounter = 0;
+                    }
 
-        public void receive(float i, float q)
-        {
-            /* Subtract the oldest sample and add in the newest sample */
-            mISum = mISum - mISamples[mSamplePointer] + i;
-            mQSum = mQSum - mQSamples[mSamplePointer] + q;
+                    previousI = i;
+                    previousQ = q;
+                }
 
-            /* Overwrite the oldest sample with the newest */
-            mISamples[mSamplePointer] = i;
-            mQSamples[mSamplePointer] = q;
+                mISum = previousI;
+                mQSum = previousQ;
+            }
+            else
+            {
+                float[] iSamples = mISamples;
+                float[] qSamples = mQSamples;
+                float iSum = mISum;
+                float qSum = mQSum;
+                int pointer = mSamplePointer;
 
-            mSamplePointer++;
+                for(int x = 0; x < length; x += 2)
+                {
+                    float i = samples[x];
+                    float q = samples[x + 1];
 
-            if(mSamplePointer >= mSize)
-            {
-                mSamplePointer = 0;
-            }
+                    /* Subtract the oldest sample and add in the newest sample */
+                    iSum = iSum - iSamples[pointer] + i;
+                    qSum = qSum - qSamples[pointer] + q;
 
-            if(mListener != null)
-            {
-                mListener.receive((mISum * mGain), (mQSum * mGain));
-            }
-        }
+                    /* Overwrite the oldest sample with the newest */
+                    iSamples[pointer] = i;
+                    qSamples[pointer] = q;
 
-        public void setListener(ComplexSampleListener listener)
-        {
-            mListener = listener;
-        }
-    }
+                    if(++pointer >= mHistorySize)
+                    {
+                        pointer = 0;
+                    }
 
-    /**
-     * Size 2 stage that eliminates the unnecessary circular buffer management for a two-stage.
-     */
-    public class TwoStage extends Stage
-    {
-        public TwoStage()
-        {
-            mGain = 0.5f;
-        }
+                    if(++mDecimationCounter >= mDecimation)
+                    {
+                        output[outputPointer++] = iSum * mGain;
+                        output[outputPointer++] = qSum * mGain;
+                        mDecimationCounter = 0;
+                    }
+                }
 
-        public void receive(float i, float q)
-        {
-            if(mListener != null)
-            {
-                mListener.receive(((mISum + i) * mGain), ((mQSum + q) * mGain));
+                mISum = iSum;
+                mQSum = qSum;
+                mSamplePointer = pointer;
             }
 
-            mISum = i;
-            mQSum = q;
+            return outputPointer;
         }
     }
 
-
     /**
      * Output adapter - applies gain correction and cleanup filter and broadcast
      * to registered listener.
      */
-    public class Output implements ComplexSampleListener
+    public class Output
     {
         /* Decimated output buffers will contain 1024 complex samples */
         private ReusableComplexBufferAssembler mBufferAssembler;
@@ -366,7 +322,6 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
                     {
                         ReusableComplexBuffer filteredBuffer = mLowPassFilter.filter(reusableComplexBuffer);
                         mReusableComplexBufferListener.receive(filteredBuffer);
-//                        mReusableComplexBufferListener.receive(reusableComplexBuffer);
                     }
                     else
                     {
@@ -383,12 +338,14 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
         }
 
         /**
-         * Interface for receiving CIC decimated output samples
+         * Receives an array of CIC decimated output samples
+         *
+         * @param samples interleaved I/Q
+         * @param length of the samples array to assemble (float count)
          */
-        @Override
-        public void receive(float inphase, float quadrature)
+        public void receive(float[] samples, int length)
         {
-            mBufferAssembler.receive(inphase, quadrature);
+            mBufferAssembler.receive(samples, 0, length);
         }
 
         public void setListener(Listener<ReusableComplexBuffer> listener)
@@ -425,8 +382,10 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
          */
         private float[] getLowPassFilter(double sampleRate, double passFrequency, double stopFrequency) throws FilterDesignException
         {
+            String key = (int)sampleRate + ":" + (int)passFrequency + ":" + (int)stopFrequency;
+
             //Use existing filter if we've already designed one
-            float[] existingFilter = sLowPassFilters.get((int) sampleRate);
+            float[] existingFilter = sLowPassFilters.get(key);
             if(existingFilter != null)
             {
                 return existingFilter;
@@ -448,9 +407,10 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
             //This will throw an exception if the filter cannot be designed
             float[] taps = designer.getImpulseResponse();
 
-            sLowPassFilters.put((int)sampleRate, taps);
+            //If another thread designed the same filter concurrently, use the first one that was cached
+            existingFilter = sLowPassFilters.putIfAbsent(key, taps);
 
-            return taps;
+            return existingFilter != null ? existingFilter : taps;
         }
     }
 }
@@ -0,0 +1,369 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.resample;
+
+import io.github.dsheirer.dsp.filter.FilterFactory;
+import io.github.dsheirer.dsp.filter.design.FilterDesignException;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.buffer.ReusableBufferQueue;
+import io.github.dsheirer.sample.buffer.ReusableFloatBuffer;
+import org.apache.commons.math3.util.ArithmeticUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+
+/**
+ * Rational L/M polyphase resampler for real sample buffers.
+ *
+ * Conceptually, the input is upsampled by L (zero-stuffed), low-pass filtered and then decimated by M.  The low-pass
+ * prototype filter is decomposed into L polyphase branches that are precomputed at construction, so each output
+ * sample requires a single dot product of (prototype length / L) taps against the input history and no zero-valued
+ * samples are ever processed.
+ *
+ * Output is produced in blocks: each input buffer produces one output buffer containing every output sample that
+ * can be calculated from the input received so far.
+ *
+ * Use isSupported() to determine if the input and output rates reduce to a ratio with small enough terms.
+ */
+public class RationalResampler
+{
+    private final static Logger mLog = LoggerFactory.getLogger(RationalResampler.class);
+
+    public static final int MAXIMUM_INTERPOLATION = 64;
+    public static final int MAXIMUM_DECIMATION = 256;
+    private static final double ATTENUATION_DB = 60.0;
+
+    private ReusableBufferQueue mReusableBufferQueue = new ReusableBufferQueue("RationalResampler");
+    private Listener<ReusableFloatBuffer> mResampledListener;
+    private int mInterpolation;
+    private int mDecimation;
+    private int mTapsPerBranch;
+    private float[][] mBranches;
+    private float[] mBuffer = new float[0];
+    private float[] mOutput = new float[0];
+    private int mBufferPointer;
+    private int mPhase;
+
+    /**
+     * Constructs an instance.
+     *
+     * @param inputRate in hertz
+     * @param outputRate in hertz
+     * @throws IllegalArgumentException if the rates are not supported (see isSupported())
+     */
+    public RationalResampler(double inputRate, double outputRate)
+    {
+        if(!isSupported(inputRate, outputRate))
+        {
+            throw new IllegalArgumentException("Unsupported rational resampling ratio - input rate [" + inputRate +
+                "] output rate [" + outputRate + "]");
+        }
+
+        long input = Math.round(inputRate);
+        long output = Math.round(outputRate);
+        long gcd = ArithmeticUtils.gcd(input, output);
+
+        mInterpolation = (int)(output / gcd);
+        mDecimation = (int)(input / gcd);
+
+        mBranches = createBranches(mInterpolation, mDecimation);
+        mTapsPerBranch = mBranches[0].length;
+
+        //Input history is the first (taps - 1) samples of the working buffer
+        mBufferPointer = mTapsPerBranch - 1;
+    }
+
+    /**
+     * Indicates if the input and output rates are integral and reduce to an interpolation (L) and decimation (M) ratio
+     * with terms that are small enough to use a rational resampler.
+     *
+     * @param inputRate in hertz
+     * @param outputRate in hertz
+     * @return true if supported
+     */
+    public static boolean isSupported(double inputRate, double outputRate)
+    {
+        if(inputRate < 1.0 || outputRate < 1.0 || !isIntegral(inputRate) || !isIntegral(outputRate))
+        {
+            return false;
+        }
+
+        long input = Math.round(inputRate);
+        long output = Math.round(outputRate);
+        long gcd = ArithmeticUtils.gcd(input, output);
+
+        return (output / gcd) <= MAXIMUM_INTERPOLATION && (input / gcd) <= MAXIMUM_DECIMATION;
+    }
+
+    /**
+     * Indicates if the value is an integer, within rounding error
+     */
+    private static boolean isIntegral(double value)
+    {
+        return Math.abs(value - Math.rint(value)) < 1E-6;
+    }
+
+    /**
+     * Interpolation (L) term of the reduced resampling ratio
+     */
+    public int getInterpolation()
+    {
+        return mInterpolation;
+    }
+
+    /**
+     * Decimation (M) term of the reduced resampling ratio
+     */
+    public int getDecimation()
+    {
+        return mDecimation;
+    }
+
+    /**
+     * Number of filter taps applied to produce each output sample
+     */
+    public int getTapsPerBranch()
+    {
+        return mTapsPerBranch;
+    }
+
+    /**
+     * Designs the Kaiser windowed sinc prototype low-pass filter at the upsampled rate and decomposes it into
+     * polyphase branches.  Each branch is reversed so that it can be applied as a forward dot product against the
+     * input history and is scaled so that the pass band gain is unity.
+     */
+    private static float[][] createBranches(int interpolation, int decimation)
+    {
+        //Cutoff and transition width normalized to the upsampled rate, relative to the lower of the input and output
+        //nyquist frequencies.  The pass band extends to 80% and the stop band starts at 100% of nyquist.
+        double nyquist = 0.5 / Math.max(interpolation, decimation);
+        double cutoff = 0.9 * nyquist;
+        double transition = 0.2 * nyquist;
+
+        //Kaiser filter length estimate
+        int length = (int)Math.ceil((ATTENUATION_DB - 7.95) / (2.285 * 2.0 * Math.PI * transition)) + 1;
+        int tapsPerBranch = (int)Math.ceil((double)length / (double)interpolation);
+        int prototypeLength = tapsPerBranch * interpolation;
+
+        float[] prototype = new float[prototypeLength];
+
+        try
+        {
+            //Sinc filters must be odd-length - pad with a trailing zero when the prototype length is even
+            int sincLength = (prototypeLength % 2 == 0) ? prototypeLength - 1 : prototypeLength;
+            float[] sinc = FilterFactory.getKaiserSinc(sincLength, cutoff, ATTENUATION_DB);
+            System.arraycopy(sinc, 0, prototype, 0, sinc.length);
+        }
+        catch(FilterDesignException fde)
+        {
+            //Not possible since we always request an odd length
+            mLog.error("Error designing rational resampler prototype filter", fde);
+        }
+
+        //Scale for unity gain after zero-stuffed interpolation
+        double sum = 0.0;
+
+        for(float tap: prototype)
+        {
+            sum += tap;
+        }
+
+        float gain = (float)(interpolation / sum);
+
+        float[][] branches = new float[interpolation][tapsPerBranch];
+
+        for(int phase = 0; phase < interpolation; phase++)
+        {
+            for(int tap = 0; tap < tapsPerBranch; tap++)
+            {
+                branches[phase][tapsPerBranch - 1 - tap] = prototype[phase + (tap * interpolation)] * gain;
+            }
+        }
+
+        return branches;
+    }
+
+    /**
+     * Registers the listener to receive the resampled buffer output
+     * @param resampledBufferListener to receive buffers
+     */
+    public void setListener(Listener<ReusableFloatBuffer> resampledBufferListener)
+    {
+        mResampledListener = resampledBufferListener;
+    }
+
+    /**
+     * Resamples the buffer and dispatches one resampled buffer to the listener.
+     *
+     * @param reusableFloatBuffer to resample.  The user count is decremented once the samples are consumed.
+     */
+    public void resample(ReusableFloatBuffer reusableFloatBuffer)
+    {
+        float[] samples = reusableFloatBuffer.getSamples();
+        long timestamp = reusableFloatBuffer.getTimestamp();
+
+        int outputLength = resample(samples, 0, samples.length);
+
+        reusableFloatBuffer.decrementUserCount();
+
+        if(outputLength > 0)
+        {
+            if(mResampledListener != null)
+            {
+                ReusableFloatBuffer resampledBuffer = mReusableBufferQueue.getBuffer(outputLength);
+                System.arraycopy(mOutput, 0, resampledBuffer.getSamples(), 0, outputLength);
+                resampledBuffer.setTimestamp(timestamp);
+                mResampledListener.receive(resampledBuffer);
+            }
+        }
+    }
+
+    /**
+     * Resamples the input samples into the internal output array.
+     *
+     * @param samples to resample
+     * @param offset of the first sample
+     * @param length of samples to resample
+     * @return number of resampled samples available from getOutput()
+     */
+    public int resample(float[] samples, int offset, int length)
+    {
+        int historyLength = mTapsPerBranch - 1;
+        int bufferLength = historyLength + length;
+
+        if(mBuffer.length < bufferLength)
+        {
+            float[] buffer = new float[bufferLength];
+            System.arraycopy(mBuffer, 0, buffer, 0, Math.min(mBuffer.length, historyLength));
+            mBuffer = buffer;
+        }
+
+        System.arraycopy(samples, offset, mBuffer, historyLength, length);
+
+        int maximumOutput = (int)(((long)length * mInterpolation) / mDecimation) + 2;
+
+        if(mOutput.length < maximumOutput)
+        {
+            mOutput = new float[maximumOutput];
+        }
+
+        float[] buffer = mBuffer;
+        float[] output = mOutput;
+        int pointer = mBufferPointer;
+        int phase = mPhase;
+        int outputCount = 0;
+        float accumulator;
+        float[] branch;
+        int start;
+
+        while(pointer < bufferLength)
+        {
+            branch = mBranches[phase];
+            start = pointer - historyLength;
+            accumulator = 0.0f;
+
+            for(int tap = 0; tap < mTapsPerBranch; tap++)
+            {
+                accumulator += branch[tap] * buffer[start + tap];
+            }
+
+            output[outputCount++] = accumulator;
+
+            phase += mDecimation;
+            pointer += phase / mInterpolation;
+            phase %= mInterpolation;
+        }
+
+        //Shift the newest samples to the start of the buffer as history for the next invocation
+        System.arraycopy(buffer, bufferLength - historyLength, buffer, 0, historyLength);
+
+        mBufferPointer = pointer - length;
+        mPhase = phase;
+
+        return outputCount;
+    }
+
+    /**
+     * Output array for the most recent invocation of resample(float[],int,int).  Note: this array is reused and only
+     * the number of samples returned from the resample method are valid.
+     */
+    public float[] getOutput()
+    {
+        return mOutput;
+    }
+
+    /**
+     * Compares the throughput of this resampler against the general-purpose libresample4j resampler for typical
+     * channel to audio rate conversions.
+     */
+    public static void main(String[] args)
+    {
+        DecimalFormat decimalFormat = new DecimalFormat("0.00");
+
+        double[][] rates = {{8000.0, 7200.0}, {25000.0, 8000.0}};
+        int bufferSize = 2000;
+        int iterations = 20000;
+
+        for(double[] rate: rates)
+        {
+            float[] samples = new float[bufferSize];
+
+            for(int x = 0; x < samples.length; x++)
+            {
+                samples[x] = (float)Math.sin(2.0 * Math.PI * 1000.0 * x / rate[0]);
+            }
+
+            ReusableBufferQueue queue = new ReusableBufferQueue("Benchmark");
+
+            RealResampler libresample = new RealResampler(rate[0], rate[1], bufferSize * 2, 1000, false);
+            libresample.setListener(ReusableFloatBuffer::decrementUserCount);
+
+            RationalResampler rational = new RationalResampler(rate[0], rate[1]);
+            rational.setListener(ReusableFloatBuffer::decrementUserCount);
+
+            for(int round = 0; round < 3; round++)
+            {
+                long start = System.nanoTime();
+
+                for(int x = 0; x < iterations; x++)
+                {
+                    libresample.resample(queue.getBuffer(samples, 0));
+                }
+
+                double libresampleMs = (System.nanoTime() - start) / 1E6;
+
+                start = System.nanoTime();
+
+                for(int x = 0; x < iterations; x++)
+                {
+                    rational.resample(queue.getBuffer(samples, 0));
+                }
+
+                double rationalMs = (System.nanoTime() - start) / 1E6;
+
+                mLog.info("Resample " + rate[0] + " > " + rate[1] + " (L=" + rational.getInterpolation() +
+                    " M=" + rational.getDecimation() + " taps/branch=" + rational.getTapsPerBranch() + ") round " +
+                    round + " - libresample4j:" + decimalFormat.format(libresampleMs) + "ms rational:" +
+                    decimalFormat.format(rationalMs) + "ms speedup:" + decimalFormat.format(libresampleMs / rationalMs));
+            }
+        }
+    }
+}
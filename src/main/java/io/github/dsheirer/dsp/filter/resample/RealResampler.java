@@ -35,17 +35,48 @@ public class RealResampler
     private Listener<ReusableFloatBuffer> mResampledListener;
     private BufferManager mBufferManager;
     private double mResampleFactor;
+    private RationalResampler mRationalResampler;
 
     /**
      * Resampler for real sample buffers.
+     *
+     * When the input and output rates reduce to a rational ratio with small terms, a rational polyphase resampler is
+     * used and the output is dispatched in blocks, one output buffer per input buffer.  Otherwise, the general purpose
+     * interpolating resampler is used and output buffers are dispatched with the output buffer size.
+     *
      * @param inputRate
      * @param outputRate
+     * @param inputBufferSize maximum input buffer size (interpolating resampler only)
+     * @param outputBufferSize of each dispatched output buffer (interpolating resampler only)
      */
     public RealResampler(double inputRate, double outputRate, int inputBufferSize, int outputBufferSize)
+    {
+        this(inputRate, outputRate, inputBufferSize, outputBufferSize, true);
+    }
+
+    /**
+     * Resampler for real sample buffers.
+     *
+     * @param inputRate
+     * @param outputRate
+     * @param inputBufferSize maximum input buffer size (interpolating resampler only)
+     * @param outputBufferSize of each dispatched output buffer (interpolating resampler only)
+     * @param allowRational true to use a rational polyphase resampler when the rates are supported
+     */
+    public RealResampler(double inputRate, double outputRate, int inputBufferSize, int outputBufferSize,
+                         boolean allowRational)
     {
         mResampleFactor = outputRate / inputRate;
-        mResampler = new Resampler(true, mResampleFactor, mResampleFactor);
-        mBufferManager = new BufferManager(inputBufferSize, outputBufferSize);
+
+        if(allowRational && RationalResampler.isSupported(inputRate, outputRate))
+        {
+            mRationalResampler = new RationalResampler(inputRate, outputRate);
+        }
+        else
+        {
+            mResampler = new Resampler(true, mResampleFactor, mResampleFactor);
+            mBufferManager = new BufferManager(inputBufferSize, outputBufferSize);
+        }
     }
 
     /**
@@ -54,8 +85,15 @@ public class RealResampler
      */
     public void resample(ReusableFloatBuffer reusableFloatBuffer)
     {
-        mBufferManager.load(reusableFloatBuffer);
-        mResampler.process(mResampleFactor, mBufferManager, false);
+        if(mRationalResampler != null)
+        {
+            mRationalResampler.resample(reusableFloatBuffer);
+        }
+        else
+        {
+            mBufferManager.load(reusableFloatBuffer);
+            mResampler.process(mResampleFactor, mBufferManager, false);
+        }
     }
 
     /**
@@ -65,6 +103,11 @@ public class RealResampler
     public void setListener(Listener<ReusableFloatBuffer> resampledBufferListener)
     {
         mResampledListener = resampledBufferListener;
+
+        if(mRationalResampler != null)
+        {
+            mRationalResampler.setListener(resampledBufferListener);
+        }
     }
 
     /**
@@ -0,0 +1,294 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.fm;
+
+import io.github.dsheirer.sample.buffer.ReusableBufferQueue;
+import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
+import io.github.dsheirer.sample.buffer.ReusableComplexBufferQueue;
+import io.github.dsheirer.sample.buffer.ReusableFloatBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+import java.util.Random;
+
+/**
+ * Block FM demodulator using a single-precision polynomial arc-tangent approximation.
+ *
+ * Each buffer is processed in two passes.  The first pass calculates the phase delta vector for each sample by
+ * multiplying the sample by the complex conjugate of the preceding sample.  The second pass calculates the four
+ * quadrant arc-tangent of each phase delta vector.  The second pass is unit-stride, has no per-sample state writes
+ * and uses conditional selects instead of branches so that the JIT compiler can unroll and vectorize it.  The
+ * previous sample is stored once per buffer.
+ *
+ * The arc-tangent approximation has a maximum absolute error of approximately 1.3E-5 radians (see main() for an
+ * accuracy report).  Unlike the parent class, the phase delta is calculated over the full +/- PI range.
+ */
+public class FastFMDemodulator extends FMDemodulator
+{
+    private final static Logger mLog = LoggerFactory.getLogger(FastFMDemodulator.class);
+
+    private static final float PI = (float)Math.PI;
+    private static final float PI_OVER_2 = (float)(Math.PI / 2.0);
+    private static final float TINY = 1E-30f;
+
+    //Least-squares polynomial fit of atan(a) / a for s = a * a over a in [0, 1]
+    private static final float C1 = 0.99987874f;
+    private static final float C3 = -0.33040557f;
+    private static final float C5 = 0.18041268f;
+    private static final float C7 = -0.08540831f;
+    private static final float C9 = 0.02093181f;
+
+    private ReusableBufferQueue mReusableBufferQueue = new ReusableBufferQueue("FastFMDemodulator");
+    private float mPreviousI = 0.0f;
+    private float mPreviousQ = 0.0f;
+    private float[] mInphase = new float[0];
+    private float[] mQuadrature = new float[0];
+
+    /**
+     * Creates an FM demodulator instance with a default gain of 1.0.
+     */
+    public FastFMDemodulator()
+    {
+        this(1.0f);
+    }
+
+    /**
+     * Creates an FM demodulator instance and applies the gain value to each demodulated output sample.
+     * @param gain to apply to demodulated samples.
+     */
+    public FastFMDemodulator(float gain)
+    {
+        super(gain);
+    }
+
+    /**
+     * Approximate four quadrant arc-tangent of y / x.
+     *
+     * @param y coordinate
+     * @param x coordinate
+     * @return angle in radians in the range +/- PI, or zero when both arguments are zero
+     */
+    public static float atan2(float y, float x)
+    {
+        float ax = Math.abs(x);
+        float ay = Math.abs(y);
+        float a = Math.min(ax, ay) / (Math.max(ax, ay) + TINY);
+        float s = a * a;
+        float r = ((((C9 * s + C7) * s + C5) * s + C3) * s + C1) * a;
+        r = (ay > ax) ? PI_OVER_2 - r : r;
+        r = (x < 0.0f) ? PI - r : r;
+        return Math.copySign(r, y);
+    }
+
+    /**
+     * Demodulates the I/Q sample against the previous sample.
+     *
+     * @param currentI of the sample
+     * @param currentQ of the sample
+     * @return demodulated sample
+     */
+    @Override
+    public float demodulate(float currentI, float currentQ)
+    {
+        float inphase = (currentI * mPreviousI) + (currentQ * mPreviousQ);
+        float quadrature = (currentQ * mPreviousI) - (currentI * mPreviousQ);
+
+        mPreviousI = currentI;
+        mPreviousQ = currentQ;
+
+        return atan2(quadrature, inphase) * mGain;
+    }
+
+    /**
+     * Demodulates the complex baseband sample buffer and returns a demodulated reusable buffer with the user count
+     * set to 1.  The complex baseband buffer's user count is decremented after demodulation.
+     *
+     * @param basebandSampleBuffer containing samples to demodulate
+     * @return demodulated sample buffer.
+     */
+    @Override
+    public ReusableFloatBuffer demodulate(ReusableComplexBuffer basebandSampleBuffer)
+    {
+        int sampleCount = basebandSampleBuffer.getSampleCount();
+        ReusableFloatBuffer demodulatedBuffer = mReusableBufferQueue.getBuffer(sampleCount);
+
+        demodulate(basebandSampleBuffer.getSamples(), sampleCount, demodulatedBuffer.getSamples());
+
+        basebandSampleBuffer.decrementUserCount();
+
+        return demodulatedBuffer;
+    }
+
+    /**
+     * Demodulates the interleaved complex samples into the demodulated samples array.
+     *
+     * @param samples interleaved I/Q samples
+     * @param sampleCount number of complex samples to demodulate
+     * @param demodulated array to receive the demodulated samples, sized to at least the sample count
+     */
+    public void demodulate(float[] samples, int sampleCount, float[] demodulated)
+    {
+        if(sampleCount <= 0)
+        {
+            return;
+        }
+
+        if(mInphase.length < sampleCount)
+        {
+            mInphase = new float[sampleCount];
+            mQuadrature = new float[sampleCount];
+        }
+
+        float[] inphase = mInphase;
+        float[] quadrature = mQuadrature;
+
+        //Pass 1: phase delta vector - current sample times the complex conjugate of the previous sample
+        inphase[0] = (samples[0] * mPreviousI) + (samples[1] * mPreviousQ);
+        quadrature[0] = (samples[1] * mPreviousI) - (samples[0] * mPreviousQ);
+
+        for(int x = 1; x < sampleCount; x++)
+        {
+            int current = 2 * x;
+            int previous = current - 2;
+            inphase[x] = (samples[current] * samples[previous]) + (samples[current + 1] * samples[previous + 1]);
+            quadrature[x] = (samples[current + 1] * samples[previous]) - (samples[current] * samples[previous + 1]);
+        }
+
+        //Pass 2: phase angle of each phase delta vector
+        float gain = mGain;
+
+        for(int x = 0; x < sampleCount; x++)
+        {
+            demodulated[x] = atan2(quadrature[x], inphase[x]) * gain;
+        }
+
+        mPreviousI = samples[2 * (sampleCount - 1)];
+        mPreviousQ = samples[2 * (sampleCount - 1) + 1];
+    }
+
+    /**
+     * Resets this demodulator by zeroing the stored previous sample.
+     */
+    @Override
+    public void reset()
+    {
+        mPreviousI = 0.0f;
+        mPreviousQ = 0.0f;
+    }
+
+    /**
+     * Loads a copy of the samples into a reusable buffer from the queue
+     */
+    private static ReusableComplexBuffer getBuffer(ReusableComplexBufferQueue queue, float[] samples)
+    {
+        ReusableComplexBuffer buffer = queue.getBuffer(samples.length);
+        System.arraycopy(samples, 0, buffer.getSamples(), 0, samples.length);
+        return buffer;
+    }
+
+    /**
+     * Reports the arc-tangent approximation accuracy and compares the demodulation throughput against the
+     * FMDemodulator.
+     */
+    public static void main(String[] args)
+    {
+        DecimalFormat decimalFormat = new DecimalFormat("0.00");
+        Random random = new Random(0);
+
+        //Accuracy - arc-tangent approximation versus Math.atan2 over random vectors in all four quadrants
+        double maxError = 0.0;
+        double sumSquaredError = 0.0;
+        int trials = 10_000_000;
+
+        for(int x = 0; x < trials; x++)
+        {
+            float y = (float)(random.nextGaussian());
+            float z = (float)(random.nextGaussian());
+            double error = Math.abs(atan2(y, z) - Math.atan2(y, z));
+            maxError = Math.max(maxError, error);
+            sumSquaredError += error * error;
+        }
+
+        mLog.info("atan2 approximation - max error:" + maxError + " radians RMS error:" +
+            Math.sqrt(sumSquaredError / trials) + " radians over " + trials + " random vectors");
+
+        //Demodulation of an FM modulated 1 kHz tone at 25 kHz with 5 kHz deviation
+        int sampleCount = 2048;
+        double sampleRate = 25000.0;
+        float[] samples = new float[sampleCount * 2];
+        double phase = 0.0;
+
+        for(int x = 0; x < sampleCount; x++)
+        {
+            phase += 2.0 * Math.PI * 5000.0 * Math.sin(2.0 * Math.PI * 1000.0 * x / sampleRate) / sampleRate;
+            samples[2 * x] = (float)Math.cos(phase);
+            samples[2 * x + 1] = (float)Math.sin(phase);
+        }
+
+        ReusableComplexBufferQueue queue = new ReusableComplexBufferQueue("Benchmark");
+        FMDemodulator standard = new FMDemodulator();
+        FastFMDemodulator fast = new FastFMDemodulator();
+
+        ReusableFloatBuffer standardOutput = standard.demodulate(getBuffer(queue, samples));
+        ReusableFloatBuffer fastOutput = fast.demodulate(getBuffer(queue, samples));
+
+        double maxDifference = 0.0;
+
+        for(int x = 1; x < sampleCount; x++)
+        {
+            maxDifference = Math.max(maxDifference,
+                Math.abs(standardOutput.getSamples()[x] - fastOutput.getSamples()[x]));
+        }
+
+        standardOutput.decrementUserCount();
+        fastOutput.decrementUserCount();
+
+        mLog.info("Demodulated FM tone - max difference from FMDemodulator:" + maxDifference + " radians");
+
+        //Throughput
+        int iterations = 50_000;
+
+        for(int round = 0; round < 5; round++)
+        {
+            long start = System.nanoTime();
+
+            for(int x = 0; x < iterations; x++)
+            {
+                standard.demodulate(getBuffer(queue, samples)).decrementUserCount();
+            }
+
+            double standardMs = (System.nanoTime() - start) / 1E6;
+
+            start = System.nanoTime();
+
+            for(int x = 0; x < iterations; x++)
+            {
+                fast.demodulate(getBuffer(queue, samples)).decrementUserCount();
+            }
+
+            double fastMs = (System.nanoTime() - start) / 1E6;
+
+            mLog.info("Round " + round + " - " + iterations + " buffers of " + sampleCount + " samples - standard:" +
+                decimalFormat.format(standardMs) + "ms fast:" + decimalFormat.format(fastMs) + "ms speedup:" +
+                decimalFormat.format(standardMs / fastMs));
+        }
+    }
+}
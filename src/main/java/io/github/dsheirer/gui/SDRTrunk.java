@@ -29,30 +29,39 @@ import io.github.dsheirer.audio.playback.AudioPlaybackManager;
 import io.github.dsheirer.controller.ControllerPanel;
 import io.github.dsheirer.controller.channel.Channel;
 import io.github.dsheirer.controller.channel.ChannelAutoStartFrame;
+import io.github.dsheirer.controller.channel.ChannelAutoStarter;
 import io.github.dsheirer.controller.channel.ChannelSelectionManager;
 import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.gui.icon.ViewIconManagerRequest;
 import io.github.dsheirer.gui.playlist.ViewPlaylistRequest;
 import io.github.dsheirer.gui.preference.ViewUserPreferenceEditorRequest;
 import io.github.dsheirer.icon.IconModel;
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.log.ApplicationLog;
 import io.github.dsheirer.map.MapService;
+import io.github.dsheirer.metrics.MetricsHttpServer;
+import io.github.dsheirer.metrics.MetricsRegistry;
 import io.github.dsheirer.module.log.EventLogManager;
 import io.github.dsheirer.playlist.PlaylistManager;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.record.AudioRecordingManager;
 import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.buffer.BufferPoolTelemetry;
 import io.github.dsheirer.settings.SettingsManager;
 import io.github.dsheirer.source.SourceManager;
 import io.github.dsheirer.source.tuner.Tuner;
 import io.github.dsheirer.source.tuner.TunerEvent;
 import io.github.dsheirer.source.tuner.TunerModel;
 import io.github.dsheirer.source.tuner.TunerSpectralDisplayManager;
+import io.github.dsheirer.source.tuner.channel.ChannelScheduler;
 import io.github.dsheirer.source.tuner.configuration.TunerConfigurationModel;
 import io.github.dsheirer.spectrum.ClearTunerMenuItem;
+import io.github.dsheirer.spectrum.PowerSpectrumExportManager;
 import io.github.dsheirer.spectrum.ShowTunerMenuItem;
 import io.github.dsheirer.spectrum.SpectralDisplayPanel;
+import io.github.dsheirer.util.ApplicationHome;
+import io.github.dsheirer.util.RuntimeReport;
 import io.github.dsheirer.util.ThreadPool;
 import io.github.dsheirer.util.TimeStamp;
 import jiconfont.icons.font_awesome.FontAwesome;
@@ -87,8 +96,6 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
@@ -110,14 +117,17 @@ public class SDRTrunk implements Listener<TunerEvent>
     private ControllerPanel mControllerPanel;
     private IconModel mIconModel = new IconModel();
     private PlaylistManager mPlaylistManager;
+    private ChannelAutoStarter mChannelAutoStarter;
     private SourceManager mSourceManager;
     private SettingsManager mSettingsManager;
+    private PowerSpectrumExportManager mPowerSpectrumExportManager;
     private SpectralDisplayPanel mSpectralPanel;
     private JFrame mMainGui = new JFrame();
     private JideSplitPane mSplitPane;
     private JavaFxWindowManager mJavaFxWindowManager;
     private UserPreferences mUserPreferences = new UserPreferences();
     private ApplicationLog mApplicationLog;
+    private MetricsHttpServer mMetricsHttpServer;
 
     private String mTitle;
 
@@ -142,7 +152,7 @@ public class SDRTrunk implements Listener<TunerEvent>
         }
 
         //Setup the application home directory
-        Path home = getHomePath();
+        Path home = ApplicationHome.getHomePath();
 
         ThreadPool.logSettings();
 
@@ -151,12 +161,17 @@ public class SDRTrunk implements Listener<TunerEvent>
         //Load properties file
         if(home != null)
         {
-            loadProperties(home);
+            ApplicationHome.loadProperties(home);
         }
 
         //Log current properties setting
         SystemProperties.getInstance().logCurrentSettings();
 
+        //Optional local metrics endpoint (metrics.http.port system property)
+        mMetricsHttpServer = new MetricsHttpServer(MetricsRegistry.getInstance());
+        mMetricsHttpServer.start();
+        BufferPoolTelemetry.getInstance().start();
+
         //Register FontAwesome so we can use the fonts in Swing windows
         IconFontSwing.register(FontAwesome.getIconFont());
 
@@ -165,6 +180,8 @@ public class SDRTrunk implements Listener<TunerEvent>
 
         mSettingsManager = new SettingsManager(tunerConfigurationModel);
         mSourceManager = new SourceManager(tunerModel, mSettingsManager, mUserPreferences);
+        mPowerSpectrumExportManager = new PowerSpectrumExportManager(tunerModel, mUserPreferences);
+        mPowerSpectrumExportManager.start();
 
         AliasModel aliasModel = new AliasModel();
         EventLogManager eventLogManager = new EventLogManager(aliasModel, mUserPreferences);
@@ -202,19 +219,22 @@ public class SDRTrunk implements Listener<TunerEvent>
         tunerModel.addListener(this);
 
         mPlaylistManager.init();
+        mChannelAutoStarter = new ChannelAutoStarter(mPlaylistManager.getChannelProcessingManager(), tunerModel);
 
         mLog.info("starting main application gui");
 
         //Initialize the GUI
         initGUI();
 
-        tunerModel.requestFirstTunerDisplay();
+        //Tuners are added as they finish initializing - show the first tuner once all tuners are loaded
+        tunerModel.addTunerInitializationCompleteListener(tunerModel::requestFirstTunerDisplay);
 
         //Start the gui
         EventQueue.invokeLater(() -> {
             try
             {
                 mMainGui.setVisible(true);
+                RuntimeReport.startupComplete("GUI", 0);
                 autoStartChannels();
             }
             catch(Exception e)
@@ -227,7 +247,8 @@ public class SDRTrunk implements Listener<TunerEvent>
     /**
      * Shows a dialog that lists the channels that have been designated for auto-start, sorted by auto-start order and
      * allows the user to start now, cancel, or allow the timer to expire and then start the channels.  The dialog will
-     * only show if there are one ore more channels designated for auto-start.
+     * only show if there are one ore more channels designated for auto-start.  Each channel starts once its tuner has
+     * finished initializing.
      */
     private void autoStartChannels()
     {
@@ -235,8 +256,7 @@ public class SDRTrunk implements Listener<TunerEvent>
 
         if(channels.size() > 0)
         {
-            ChannelAutoStartFrame autoStartFrame = new ChannelAutoStartFrame(mPlaylistManager.getChannelProcessingManager(),
-                channels);
+            ChannelAutoStartFrame autoStartFrame = new ChannelAutoStartFrame(mChannelAutoStarter, channels);
         }
     }
 
@@ -356,7 +376,7 @@ public class SDRTrunk implements Listener<TunerEvent>
             {
                 try
                 {
-                    Desktop.getDesktop().open(getHomePath().toFile());
+                    Desktop.getDesktop().open(ApplicationHome.getHomePath().toFile());
                 }
                 catch(Exception e)
                 {
@@ -364,7 +384,7 @@ public class SDRTrunk implements Listener<TunerEvent>
 
                     JOptionPane.showMessageDialog(mMainGui,
                         "Can't launch file explorer - files are located at: " +
-                            getHomePath().toString(),
+                            ApplicationHome.getHomePath().toString(),
                         "Can't launch file explorer",
                         JOptionPane.ERROR_MESSAGE);
                 }
@@ -434,7 +454,13 @@ public class SDRTrunk implements Listener<TunerEvent>
 
         mLog.info("Stopping spectral display ...");
         mSpectralPanel.clearTuner();
+        mPowerSpectrumExportManager.stop();
         mSourceManager.shutdown();
+        IdentifierCache.logStatistics();
+        BufferPoolTelemetry.getInstance().stop();
+        BufferPoolTelemetry.getInstance().logStatistics();
+        ChannelScheduler.logStatistics();
+        mMetricsHttpServer.stop();
         mLog.info("Shutdown complete.");
         mApplicationLog.stop();
     }
@@ -478,74 +504,6 @@ public class SDRTrunk implements Listener<TunerEvent>
         SystemProperties.getInstance().set(PROPERTY_BROADCAST_STATUS_VISIBLE, mBroadcastStatusVisible);
     }
 
-
-    /**
-     * Loads the application properties file from the user's home directory,
-     * creating the properties file for the first-time, if necessary
-     */
-    private void loadProperties(Path homePath)
-    {
-        Path propsPath = homePath.resolve("SDRTrunk.properties");
-
-        if(!Files.exists(propsPath))
-        {
-            try
-            {
-                mLog.info("SDRTrunk - creating application properties file [" +
-                    propsPath.toAbsolutePath() + "]");
-
-                Files.createFile(propsPath);
-            }
-            catch(IOException e)
-            {
-                mLog.error("SDRTrunk - couldn't create application properties "
-                    + "file [" + propsPath.toAbsolutePath(), e);
-            }
-        }
-
-        if(Files.exists(propsPath))
-        {
-            SystemProperties.getInstance().load(propsPath);
-        }
-        else
-        {
-            mLog.error("SDRTrunk - couldn't find or recreate the SDRTrunk " +
-                "application properties file");
-        }
-    }
-
-    /**
-     * Gets (or creates) the SDRTRunk application home directory.
-     *
-     * Note: the user can change this setting to allow log files and other
-     * files to reside elsewhere on the file system.
-     */
-    private Path getHomePath()
-    {
-        Path homePath = FileSystems.getDefault()
-            .getPath(System.getProperty("user.home"), "SDRTrunk");
-
-        if(!Files.exists(homePath))
-        {
-            try
-            {
-                Files.createDirectory(homePath);
-
-                mLog.info("SDRTrunk - created application home directory [" +
-                    homePath.toString() + "]");
-            }
-            catch(Exception e)
-            {
-                homePath = null;
-
-                mLog.error("SDRTrunk: exception while creating SDRTrunk home " +
-                    "directory in the user's home directory", e);
-            }
-        }
-
-        return homePath;
-    }
-
     @Override
     public void receive(TunerEvent event)
     {
@@ -0,0 +1,187 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.identifier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.github.dsheirer.protocol.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded, thread-safe interning (flyweight) cache for immutable integer-valued identifiers.
+ *
+ * Control channels repeat the same talkgroup, radio and site values continuously.  Each identifier type that uses
+ * this cache holds a single static instance so that repeated values resolve to a shared identifier instance instead
+ * of allocating a new identifier per message.  Shared instances also allow identifier comparisons to succeed on the
+ * identity check in Identifier.equals() without comparing values.
+ *
+ * Entries are keyed by protocol, role and integer value.  Least recently used entries are evicted once the cache
+ * reaches its maximum size.
+ *
+ * Note: only use this cache with identifiers that are truly immutable.
+ */
+public class IdentifierCache<T extends Identifier<?>>
+{
+    private final static Logger mLog = LoggerFactory.getLogger(IdentifierCache.class);
+    private static final List<IdentifierCache<?>> sCaches = new CopyOnWriteArrayList<>();
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private Protocol mProtocol;
+    private String mName;
+    private Cache<Long,T> mCache;
+
+    /**
+     * Constructs an instance
+     * @param protocol for the identifiers produced by this cache
+     * @param name of the cached identifier type for statistics reporting
+     * @param maximumSize number of identifiers to retain before evicting least recently used entries
+     */
+    public IdentifierCache(Protocol protocol, String name, int maximumSize)
+    {
+        mProtocol = protocol;
+        mName = name;
+        mCache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+
+        sCaches.add(this);
+    }
+
+    /**
+     * Constructs an instance with the default maximum size
+     * @param protocol for the identifiers produced by this cache
+     * @param name of the cached identifier type for statistics reporting
+     */
+    public IdentifierCache(Protocol protocol, String name)
+    {
+        this(protocol, name, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Protocol for identifiers managed by this cache
+     */
+    public Protocol getProtocol()
+    {
+        return mProtocol;
+    }
+
+    /**
+     * Name of the identifier type managed by this cache
+     */
+    public String getName()
+    {
+        return mName;
+    }
+
+    /**
+     * Returns the shared identifier instance for the role and value, creating it from the factory when it is not
+     * already cached.
+     *
+     * @param role of the identifier
+     * @param value of the identifier
+     * @param factory to create a new identifier for the value when it is not cached
+     * @return shared identifier instance
+     */
+    public T get(Role role, int value, IntFunction<T> factory)
+    {
+        long key = ((long)role.ordinal() << 32) | (value & 0xFFFFFFFFL);
+
+        try
+        {
+            return mCache.get(key, () -> factory.apply(value));
+        }
+        catch(ExecutionException ee)
+        {
+            mLog.error("Error creating cached identifier for " + mProtocol + " " + mName + " value:" + value, ee);
+        }
+
+        return factory.apply(value);
+    }
+
+    /**
+     * Number of identifiers currently cached
+     */
+    public long size()
+    {
+        return mCache.size();
+    }
+
+    /**
+     * Cache statistics (hit rate, miss count, eviction count)
+     */
+    public CacheStats getStats()
+    {
+        return mCache.stats();
+    }
+
+    /**
+     * Removes all cached identifiers
+     */
+    public void clear()
+    {
+        mCache.invalidateAll();
+    }
+
+    /**
+     * Formatted statistics summary for this cache
+     */
+    public String getStatistics()
+    {
+        CacheStats stats = getStats();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(mProtocol).append(" ").append(mName);
+        sb.append(" SIZE:").append(size());
+        sb.append(" REQUESTS:").append(stats.requestCount());
+        sb.append(" HIT RATE:").append(String.format("%.3f", stats.hitRate()));
+        sb.append(" EVICTIONS:").append(stats.evictionCount());
+        return sb.toString();
+    }
+
+    /**
+     * Unmodifiable list of all identifier caches that have been created
+     */
+    public static List<IdentifierCache<?>> getCaches()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(sCaches));
+    }
+
+    /**
+     * Logs the statistics for each of the identifier caches
+     */
+    public static void logStatistics()
+    {
+        for(IdentifierCache<?> cache: sCaches)
+        {
+            mLog.info("Identifier Cache - " + cache.getStatistics());
+        }
+    }
+}
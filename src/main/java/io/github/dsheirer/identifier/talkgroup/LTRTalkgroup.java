@@ -22,6 +22,7 @@
 
 package io.github.dsheirer.identifier.talkgroup;
 
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.protocol.Protocol;
 
@@ -33,6 +34,7 @@ public class LTRTalkgroup extends TalkgroupIdentifier implements Comparable<LTRT
     private static final int AREA_MASK = 0x2000;
     private static final int HOME_MASK = 0x1F00;
     private static final int GROUP_MASK = 0xFF;
+    private static final IdentifierCache<LTRTalkgroup> sCache = new IdentifierCache<>(Protocol.LTR, "Talkgroup");
 
     public LTRTalkgroup(Integer talkgroup, Role role)
     {
@@ -79,7 +81,7 @@ public class LTRTalkgroup extends TalkgroupIdentifier implements Comparable<LTRT
      */
     public static LTRTalkgroup create(int talkgroup)
     {
-        return new LTRTalkgroup(talkgroup, Role.TO);
+        return sCache.get(Role.TO, talkgroup, value -> new LTRTalkgroup(value, Role.TO));
     }
 
     public static int create(int area, int home, int group)
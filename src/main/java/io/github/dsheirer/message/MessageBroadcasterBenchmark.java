@@ -0,0 +1,123 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.message;
+
+import io.github.dsheirer.protocol.Protocol;
+import io.github.dsheirer.sample.ArrayBroadcaster;
+import io.github.dsheirer.sample.Broadcaster;
+import io.github.dsheirer.sample.Listener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+
+/**
+ * Message fan-out benchmark comparing the Broadcaster and ArrayBroadcaster for 1, 2 and 8 listeners
+ */
+public class MessageBroadcasterBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(MessageBroadcasterBenchmark.class);
+
+    /**
+     * Runs the benchmark
+     */
+    public static void main(String[] args)
+    {
+        DecimalFormat decimalFormat = new DecimalFormat("0.00");
+        IMessage[] messages = new IMessage[1024];
+
+        for(int x = 0; x < messages.length; x++)
+        {
+            messages[x] = new SyncLossMessage(x, 48, Protocol.APCO25);
+        }
+
+        int iterations = 20_000;
+
+        for(int listenerCount: new int[]{1, 2, 8})
+        {
+            Broadcaster<IMessage> broadcaster = new Broadcaster<>();
+            ArrayBroadcaster<IMessage> arrayBroadcaster = new ArrayBroadcaster<>();
+            MessageCounter[] counters = new MessageCounter[listenerCount];
+
+            for(int x = 0; x < listenerCount; x++)
+            {
+                counters[x] = new MessageCounter();
+                broadcaster.addListener(counters[x]);
+                arrayBroadcaster.addListener(counters[x]);
+            }
+
+            for(int round = 0; round < 5; round++)
+            {
+                long start = System.nanoTime();
+
+                for(int iteration = 0; iteration < iterations; iteration++)
+                {
+                    for(IMessage message: messages)
+                    {
+                        broadcaster.broadcast(message);
+                    }
+                }
+
+                long broadcasterNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+
+                for(int iteration = 0; iteration < iterations; iteration++)
+                {
+                    for(IMessage message: messages)
+                    {
+                        arrayBroadcaster.broadcast(message);
+                    }
+                }
+
+                long arrayBroadcasterNanos = System.nanoTime() - start;
+                double broadcasts = (double)iterations * messages.length;
+
+                mLog.info("Listeners:" + listenerCount + " round:" + round +
+                    " Broadcaster:" + decimalFormat.format(broadcasterNanos / broadcasts) + " ns/message" +
+                    " ArrayBroadcaster:" + decimalFormat.format(arrayBroadcasterNanos / broadcasts) + " ns/message" +
+                    " (" + decimalFormat.format((double)broadcasterNanos / arrayBroadcasterNanos) + "x)");
+            }
+
+            long received = 0;
+
+            for(MessageCounter counter: counters)
+            {
+                received += counter.mCount;
+            }
+
+            mLog.info("Listeners:" + listenerCount + " messages received:" + received);
+        }
+    }
+
+    /**
+     * Benchmark listener that consumes the message so that the broadcast isn't optimized away
+     */
+    private static class MessageCounter implements Listener<IMessage>
+    {
+        private long mCount;
+
+        @Override
+        public void receive(IMessage message)
+        {
+            mCount += message.getTimestamp() & 1;
+            mCount++;
+        }
+    }
+}
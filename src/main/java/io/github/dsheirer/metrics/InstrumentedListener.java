@@ -0,0 +1,68 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.metrics;
+
+import io.github.dsheirer.sample.Listener;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Listener wrapper that records the number of samples received and the (sampled) processing time of the wrapped
+ * listener in the processing metrics.
+ *
+ * @param <T> buffer type
+ */
+public class InstrumentedListener<T> implements Listener<T>
+{
+    private Listener<T> mListener;
+    private ProcessingMetrics mMetrics;
+    private ToIntFunction<T> mSampleCounter;
+
+    /**
+     * Constructs an instance
+     *
+     * @param listener to wrap
+     * @param metrics to record
+     * @param sampleCounter to count the samples in each received buffer
+     */
+    public InstrumentedListener(Listener<T> listener, ProcessingMetrics metrics, ToIntFunction<T> sampleCounter)
+    {
+        mListener = listener;
+        mMetrics = metrics;
+        mSampleCounter = sampleCounter;
+    }
+
+    /**
+     * Wrapped listener
+     */
+    public Listener<T> getListener()
+    {
+        return mListener;
+    }
+
+    @Override
+    public void receive(T t)
+    {
+        //Count samples before dispatch - the listener can release the buffer for reuse
+        int samples = mSampleCounter.applyAsInt(t);
+        long start = mMetrics.begin();
+        mListener.receive(t);
+        mMetrics.end(start, samples);
+    }
+}
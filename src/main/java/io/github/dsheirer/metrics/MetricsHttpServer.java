@@ -0,0 +1,141 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.properties.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP endpoint that serves the metrics registry contents in the Prometheus text exposition format at
+ * http://127.0.0.1:<port>/metrics
+ *
+ * The endpoint is bound to the loopback interface only and is disabled unless the metrics.http.port system property
+ * specifies a port (default 0 = disabled).
+ */
+public class MetricsHttpServer
+{
+    private final static Logger mLog = LoggerFactory.getLogger(MetricsHttpServer.class);
+
+    private static final String PORT_PROPERTY = "metrics.http.port";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private MetricsRegistry mMetricsRegistry;
+    private HttpServer mHttpServer;
+
+    /**
+     * Constructs an instance
+     *
+     * @param metricsRegistry to export
+     */
+    public MetricsHttpServer(MetricsRegistry metricsRegistry)
+    {
+        mMetricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * Starts the endpoint when a port is configured in the system properties
+     */
+    public void start()
+    {
+        int port = SystemProperties.getInstance().get(PORT_PROPERTY, 0);
+
+        if(port > 0)
+        {
+            start(port);
+        }
+    }
+
+    /**
+     * Starts the endpoint on the loopback interface
+     *
+     * @param port to listen on
+     */
+    public void start(int port)
+    {
+        if(mHttpServer != null)
+        {
+            return;
+        }
+
+        try
+        {
+            mHttpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            mHttpServer.createContext("/metrics", this::handle);
+            mHttpServer.setExecutor(Executors.newSingleThreadExecutor(new NamingThreadFactory("sdrtrunk metrics http")));
+            mHttpServer.start();
+            mLog.info("Metrics endpoint started at http://127.0.0.1:" + port + "/metrics");
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Unable to start metrics endpoint on port " + port, ioe);
+            mHttpServer = null;
+        }
+    }
+
+    /**
+     * Stops the endpoint
+     */
+    public void stop()
+    {
+        if(mHttpServer != null)
+        {
+            mHttpServer.stop(0);
+            mHttpServer = null;
+        }
+    }
+
+    /**
+     * Serves the metrics text
+     */
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            if(!"GET".equals(exchange.getRequestMethod()))
+            {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = mMetricsRegistry.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+
+            try(OutputStream outputStream = exchange.getResponseBody())
+            {
+                outputStream.write(body);
+            }
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+}
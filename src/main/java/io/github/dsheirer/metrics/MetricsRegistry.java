@@ -0,0 +1,487 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.metrics;
+
+import io.github.dsheirer.audio.playback.AudioOutput;
+import io.github.dsheirer.audio.playback.AudioPlaybackManager;
+import io.github.dsheirer.dsp.filter.channelizer.ChannelResultsReplayBuffer;
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.sample.buffer.BufferLeakTracker;
+import io.github.dsheirer.sample.buffer.BufferPoolTelemetry;
+import io.github.dsheirer.source.tuner.channel.ChannelScheduler;
+import io.github.dsheirer.source.tuner.channel.ScheduledChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Application-wide registry of processing metrics for tuners, channelizers, channel sources and decoder modules.
+ *
+ * Registered metrics are exported as JMX MBeans (io.github.dsheirer:type=<category>,name=<name>) and in the
+ * Prometheus text exposition format via the MetricsHttpServer.  Polyphase channelizer replay buffer statistics are
+ * registered separately and exported the same way (type=replay_buffer).  The Prometheus export also includes the
+ * reusable buffer pool telemetry, the channel scheduler statistics and the audio playback statistics.
+ *
+ * Settings are read from the metrics.jmx.enabled system property (default true).
+ */
+public class MetricsRegistry
+{
+    private final static Logger mLog = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    private static final String JMX_ENABLED_PROPERTY = "metrics.jmx.enabled";
+    private static final String JMX_DOMAIN = "io.github.dsheirer";
+    private static final String REPLAY_BUFFER_TYPE = "replay_buffer";
+
+    private static MetricsRegistry sInstance;
+
+    private Map<String,ProcessingMetrics> mMetrics = new ConcurrentHashMap<>();
+    private Map<ProcessingMetrics,ObjectName> mObjectNames = new ConcurrentHashMap<>();
+    private Map<String,ChannelResultsReplayBuffer> mReplayBuffers = new ConcurrentHashMap<>();
+    private volatile AudioPlaybackManager mAudioPlaybackManager;
+    private MBeanServer mMBeanServer;
+
+    /**
+     * Constructs an instance
+     *
+     * @param jmxEnabled to register metrics with the platform MBean server
+     */
+    public MetricsRegistry(boolean jmxEnabled)
+    {
+        if(jmxEnabled)
+        {
+            try
+            {
+                mMBeanServer = ManagementFactory.getPlatformMBeanServer();
+            }
+            catch(Exception e)
+            {
+                mLog.error("Unable to access the platform MBean server - JMX metrics export is disabled", e);
+            }
+        }
+    }
+
+    /**
+     * Application-wide instance
+     */
+    public static synchronized MetricsRegistry getInstance()
+    {
+        if(sInstance == null)
+        {
+            sInstance = new MetricsRegistry(SystemProperties.getInstance().get(JMX_ENABLED_PROPERTY, true));
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Creates and registers processing metrics for a component.  When the name is already registered, a numeric
+     * suffix is appended to create a unique name.
+     *
+     * @param category of the component
+     * @param name of the component
+     * @return registered metrics
+     */
+    public ProcessingMetrics register(MetricsCategory category, String name)
+    {
+        String baseName = category.getLabel() + ":" + name;
+        String key = baseName;
+        ProcessingMetrics metrics = new ProcessingMetrics(name, category);
+        int suffix = 2;
+
+        while(mMetrics.putIfAbsent(key, metrics) != null)
+        {
+            metrics = new ProcessingMetrics(name + " #" + suffix, category);
+            key = baseName + " #" + suffix;
+            suffix++;
+        }
+
+        if(mMBeanServer != null)
+        {
+            try
+            {
+                ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + category.getLabel() + ",name=" +
+                    ObjectName.quote(metrics.getName()));
+                mMBeanServer.registerMBean(metrics, objectName);
+                mObjectNames.put(metrics, objectName);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Unable to register JMX metrics for " + metrics, e);
+            }
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Removes the metrics from the registry
+     *
+     * @param metrics to remove, can be null
+     */
+    public void unregister(ProcessingMetrics metrics)
+    {
+        if(metrics == null)
+        {
+            return;
+        }
+
+        mMetrics.remove(metrics.getMetricsCategory().getLabel() + ":" + metrics.getName(), metrics);
+
+        ObjectName objectName = mObjectNames.remove(metrics);
+
+        if(objectName != null && mMBeanServer != null)
+        {
+            try
+            {
+                mMBeanServer.unregisterMBean(objectName);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Unable to unregister JMX metrics for " + metrics, e);
+            }
+        }
+    }
+
+    /**
+     * Registers the replay buffer statistics for a polyphase channelizer
+     *
+     * @param name of the channelizer, typically the name of the channelizer's registered processing metrics
+     * @param replayBuffer to register
+     */
+    public void registerReplayBuffer(String name, ChannelResultsReplayBuffer replayBuffer)
+    {
+        ChannelResultsReplayBuffer previous = mReplayBuffers.put(name, replayBuffer);
+
+        if(mMBeanServer != null)
+        {
+            try
+            {
+                ObjectName objectName = getReplayBufferObjectName(name);
+
+                if(previous != null)
+                {
+                    mMBeanServer.unregisterMBean(objectName);
+                }
+
+                mMBeanServer.registerMBean(replayBuffer, objectName);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Unable to register JMX replay buffer metrics for " + name, e);
+            }
+        }
+    }
+
+    /**
+     * Removes the replay buffer statistics from the registry
+     *
+     * @param name of the channelizer
+     * @param replayBuffer to remove
+     */
+    public void unregisterReplayBuffer(String name, ChannelResultsReplayBuffer replayBuffer)
+    {
+        if(mReplayBuffers.remove(name, replayBuffer) && mMBeanServer != null)
+        {
+            try
+            {
+                mMBeanServer.unregisterMBean(getReplayBufferObjectName(name));
+            }
+            catch(Exception e)
+            {
+                mLog.error("Unable to unregister JMX replay buffer metrics for " + name, e);
+            }
+        }
+    }
+
+    /**
+     * Registers the audio playback manager to export audio output underrun/overrun and discarded audio segment counts
+     */
+    public void registerAudioPlayback(AudioPlaybackManager audioPlaybackManager)
+    {
+        mAudioPlaybackManager = audioPlaybackManager;
+    }
+
+    /**
+     * Removes the audio playback manager from the registry
+     */
+    public void unregisterAudioPlayback(AudioPlaybackManager audioPlaybackManager)
+    {
+        if(mAudioPlaybackManager == audioPlaybackManager)
+        {
+            mAudioPlaybackManager = null;
+        }
+    }
+
+    /**
+     * JMX object name for the replay buffer registered to the channelizer name
+     */
+    private static ObjectName getReplayBufferObjectName(String name) throws Exception
+    {
+        return new ObjectName(JMX_DOMAIN + ":type=" + REPLAY_BUFFER_TYPE + ",name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * Currently registered metrics, sorted by category and name
+     */
+    public List<ProcessingMetrics> getMetrics()
+    {
+        List<ProcessingMetrics> metrics = new ArrayList<>(mMetrics.values());
+        metrics.sort(Comparator.comparing(ProcessingMetrics::getMetricsCategory)
+            .thenComparing(ProcessingMetrics::getName));
+        return metrics;
+    }
+
+    /**
+     * Formats the registered metrics in the Prometheus text exposition format (version 0.0.4)
+     */
+    public String toPrometheusText()
+    {
+        List<ProcessingMetrics> metrics = getMetrics();
+        StringBuilder sb = new StringBuilder();
+
+        append(sb, metrics, "sdrtrunk_samples_in_total", "counter", "Samples received",
+            ProcessingMetrics::getSamplesIn);
+        append(sb, metrics, "sdrtrunk_samples_out_total", "counter", "Samples produced",
+            ProcessingMetrics::getSamplesOut);
+        append(sb, metrics, "sdrtrunk_buffers_processed_total", "counter", "Buffers processed",
+            ProcessingMetrics::getBuffersProcessed);
+        append(sb, metrics, "sdrtrunk_processing_seconds_total", "counter",
+            "Estimated processing time extrapolated from sampled buffers", m -> m.getProcessingNanos() / 1E9);
+        append(sb, metrics, "sdrtrunk_queue_depth", "gauge", "Input queue depth", ProcessingMetrics::getQueueDepth);
+        append(sb, metrics, "sdrtrunk_overflows_total", "counter", "Overflow state entries",
+            ProcessingMetrics::getOverflowCount);
+        append(sb, metrics, "sdrtrunk_dropped_buffers_total", "counter", "Input buffers dropped due to overflow",
+            ProcessingMetrics::getDroppedCount);
+        append(sb, metrics, "sdrtrunk_gap_seconds_total", "counter", "Input stream gaps caused by dropped buffers",
+            m -> m.getGapMilliseconds() / 1E3);
+
+        appendReplayBuffers(sb);
+        appendBufferPools(sb);
+        appendChannelScheduler(sb);
+        appendAudioPlayback(sb);
+
+        return sb.toString();
+    }
+
+    /**
+     * Appends the polyphase channelizer replay buffer metric families
+     */
+    private void appendReplayBuffers(StringBuilder sb)
+    {
+        Map<String,ChannelResultsReplayBuffer> replayBuffers = new TreeMap<>(mReplayBuffers);
+
+        appendReplay(sb, replayBuffers, "sdrtrunk_replay_buffer_retained", "gauge", "Channel results buffers retained",
+            ChannelResultsReplayBuffer::getBufferCount);
+        appendReplay(sb, replayBuffers, "sdrtrunk_replay_buffer_bytes", "gauge", "Memory used by retained buffers",
+            ChannelResultsReplayBuffer::getMemoryUsed);
+        appendReplay(sb, replayBuffers, "sdrtrunk_replay_buffer_retained_seconds", "gauge",
+            "Duration spanned by retained buffers", b -> b.getRetainedDuration() / 1E3);
+        appendReplay(sb, replayBuffers, "sdrtrunk_replays_total", "counter", "Replays to late-starting channels",
+            ChannelResultsReplayBuffer::getReplayCount);
+        appendReplay(sb, replayBuffers, "sdrtrunk_replay_last_depth", "gauge",
+            "Buffers replayed in the most recent replay", ChannelResultsReplayBuffer::getLastReplayDepth);
+        appendReplay(sb, replayBuffers, "sdrtrunk_replay_last_seconds", "gauge", "Duration of the most recent replay",
+            b -> b.getLastReplayDuration() / 1E3);
+        appendReplay(sb, replayBuffers, "sdrtrunk_replay_max_seconds", "gauge", "Maximum duration of any replay",
+            b -> b.getMaximumReplayDuration() / 1E3);
+        appendReplay(sb, replayBuffers, "sdrtrunk_replay_last_catch_up_seconds", "gauge",
+            "Time for the most recently replayed channel to process its backlog", b -> b.getLastCatchUpTime() / 1E3);
+        appendReplay(sb, replayBuffers, "sdrtrunk_replay_max_catch_up_seconds", "gauge",
+            "Maximum time for any replayed channel to process its backlog", b -> b.getMaximumCatchUpTime() / 1E3);
+    }
+
+    /**
+     * Appends one replay buffer metric family for all registered channelizers
+     */
+    private static void appendReplay(StringBuilder sb, Map<String,ChannelResultsReplayBuffer> replayBuffers,
+                                     String family, String type, String help,
+                                     Function<ChannelResultsReplayBuffer,Number> valueFunction)
+    {
+        sb.append("# HELP ").append(family).append(" ").append(help).append("\n");
+        sb.append("# TYPE ").append(family).append(" ").append(type).append("\n");
+
+        for(Map.Entry<String,ChannelResultsReplayBuffer> entry: replayBuffers.entrySet())
+        {
+            sb.append(family).append("{channelizer=\"").append(escape(entry.getKey())).append("\"} ")
+                .append(valueFunction.apply(entry.getValue())).append("\n");
+        }
+    }
+
+    /**
+     * Appends the reusable buffer pool telemetry metric families
+     */
+    private static void appendBufferPools(StringBuilder sb)
+    {
+        List<BufferPoolTelemetry.PoolStatistics> pools = BufferPoolTelemetry.getInstance().getStatistics();
+
+        appendPool(sb, pools, "sdrtrunk_buffer_pool_live", "gauge", "Buffers in use",
+            BufferPoolTelemetry.PoolStatistics::getLiveCount);
+        appendPool(sb, pools, "sdrtrunk_buffer_pool_idle", "gauge", "Buffers waiting for reuse",
+            BufferPoolTelemetry.PoolStatistics::getIdleCount);
+        appendPool(sb, pools, "sdrtrunk_buffer_pool_created", "gauge", "Buffers created",
+            BufferPoolTelemetry.PoolStatistics::getCreatedCount);
+        appendPool(sb, pools, "sdrtrunk_buffer_pool_high_water", "gauge", "Maximum buffers in use",
+            BufferPoolTelemetry.PoolStatistics::getHighWaterMark);
+        appendPool(sb, pools, "sdrtrunk_buffer_pool_queues", "gauge", "Queue instances",
+            BufferPoolTelemetry.PoolStatistics::getQueueCount);
+
+        appendValue(sb, "sdrtrunk_buffer_leaks_total", "counter", "Suspected reusable buffer leaks (sampled)",
+            BufferLeakTracker.getInstance().getLeakCount());
+    }
+
+    /**
+     * Appends the channel scheduler latency and per-channel run time metric families when the scheduler is running
+     */
+    private static void appendChannelScheduler(StringBuilder sb)
+    {
+        ChannelScheduler scheduler = ChannelScheduler.getExistingInstance();
+
+        if(scheduler == null)
+        {
+            return;
+        }
+
+        appendValue(sb, "sdrtrunk_channel_scheduler_runs_total", "counter", "Channel runs", scheduler.getRunCount());
+        appendValue(sb, "sdrtrunk_channel_scheduler_deadline_runs_total", "counter",
+            "Channel runs scheduled by deadline rather than input", scheduler.getDeadlineRunCount());
+        appendValue(sb, "sdrtrunk_channel_scheduler_latency_seconds_total", "counter",
+            "Time channels spent waiting in the run queue", scheduler.getLatencyNanos() / 1E9);
+        appendValue(sb, "sdrtrunk_channel_scheduler_max_latency_seconds", "gauge",
+            "Maximum time a channel spent waiting in the run queue", scheduler.getMaxLatencyNanos() / 1E9);
+        appendValue(sb, "sdrtrunk_channel_scheduler_run_queue_depth", "gauge", "Runnable channels waiting",
+            scheduler.getRunQueueDepth());
+
+        List<ScheduledChannel> channels = scheduler.getChannels();
+
+        sb.append("# HELP sdrtrunk_channel_run_seconds_total Channel run time\n");
+        sb.append("# TYPE sdrtrunk_channel_run_seconds_total counter\n");
+
+        for(ScheduledChannel channel: channels)
+        {
+            sb.append("sdrtrunk_channel_run_seconds_total{channel=\"").append(escape(channel.toString()))
+                .append("\"} ").append(channel.getRunNanos() / 1E9).append("\n");
+        }
+    }
+
+    /**
+     * Appends the audio playback metric families when an audio playback manager is registered
+     */
+    private void appendAudioPlayback(StringBuilder sb)
+    {
+        AudioPlaybackManager audioPlaybackManager = mAudioPlaybackManager;
+
+        if(audioPlaybackManager == null)
+        {
+            return;
+        }
+
+        List<AudioOutput> audioOutputs = audioPlaybackManager.getAudioOutputs();
+
+        appendAudioOutput(sb, audioOutputs, "sdrtrunk_audio_output_underruns_total", "counter",
+            "Audio output ran out of audio while an audio segment was playing", AudioOutput::getUnderrunCount);
+        appendAudioOutput(sb, audioOutputs, "sdrtrunk_audio_output_overruns_total", "counter",
+            "Audio output was full and the render thread waited to write audio", AudioOutput::getOverrunCount);
+        appendValue(sb, "sdrtrunk_audio_segments_discarded_total", "counter",
+            "Audio segments discarded without being assigned to an audio output",
+            audioPlaybackManager.getDiscardedAudioSegmentCount());
+    }
+
+    /**
+     * Appends one audio output metric family for all audio outputs
+     */
+    private static void appendAudioOutput(StringBuilder sb, List<AudioOutput> audioOutputs, String family, String type,
+                                          String help, Function<AudioOutput,Number> valueFunction)
+    {
+        sb.append("# HELP ").append(family).append(" ").append(help).append("\n");
+        sb.append("# TYPE ").append(family).append(" ").append(type).append("\n");
+
+        for(AudioOutput audioOutput: audioOutputs)
+        {
+            sb.append(family).append("{output=\"").append(escape(audioOutput.getChannelName())).append("\"} ")
+                .append(valueFunction.apply(audioOutput)).append("\n");
+        }
+    }
+
+    /**
+     * Appends a metric family with a single unlabeled value
+     */
+    private static void appendValue(StringBuilder sb, String family, String type, String help, Number value)
+    {
+        sb.append("# HELP ").append(family).append(" ").append(help).append("\n");
+        sb.append("# TYPE ").append(family).append(" ").append(type).append("\n");
+        sb.append(family).append(" ").append(value).append("\n");
+    }
+
+    /**
+     * Appends one buffer pool metric family for all pools
+     */
+    private static void appendPool(StringBuilder sb, List<BufferPoolTelemetry.PoolStatistics> pools, String family,
+                                   String type, String help,
+                                   Function<BufferPoolTelemetry.PoolStatistics,Number> valueFunction)
+    {
+        sb.append("# HELP ").append(family).append(" ").append(help).append("\n");
+        sb.append("# TYPE ").append(family).append(" ").append(type).append("\n");
+
+        for(BufferPoolTelemetry.PoolStatistics pool: pools)
+        {
+            sb.append(family).append("{pool=\"").append(escape(pool.getName())).append("\"} ")
+                .append(valueFunction.apply(pool)).append("\n");
+        }
+    }
+
+    /**
+     * Appends one metric family for all registered components.  Negative values (e.g. components without a queue)
+     * are omitted.
+     */
+    private static void append(StringBuilder sb, List<ProcessingMetrics> metrics, String family, String type,
+                               String help, Function<ProcessingMetrics,Number> valueFunction)
+    {
+        sb.append("# HELP ").append(family).append(" ").append(help).append("\n");
+        sb.append("# TYPE ").append(family).append(" ").append(type).append("\n");
+
+        for(ProcessingMetrics metric: metrics)
+        {
+            Number value = valueFunction.apply(metric);
+
+            if(value.doubleValue() >= 0)
+            {
+                sb.append(family).append("{category=\"").append(metric.getCategory()).append("\",name=\"")
+                    .append(escape(metric.getName())).append("\"} ").append(value).append("\n");
+            }
+        }
+    }
+
+    /**
+     * Escapes a Prometheus label value
+     */
+    private static String escape(String value)
+    {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Always-on processing metrics for a single processing component (tuner, channelizer, channel source or module).
+ *
+ * Counters are low-contention adders that can be updated from any thread.  Processing time is sampled: only one of
+ * every SAMPLING_INTERVAL buffers is timed, so the cost of reading the nanosecond clock is amortized across buffers,
+ * and the total processing time is extrapolated from the sampled buffers.
+ *
+ * Usage on the processing thread:
+ *
+ *   long start = metrics.begin();
+ *   ... process the buffer ...
+ *   metrics.end(start, sampleCount);
+ */
+public class ProcessingMetrics implements ProcessingMetricsMBean
+{
+    public static final int SAMPLING_INTERVAL = 16;
+    private static final long NOT_SAMPLED = -1;
+
+    private String mName;
+    private MetricsCategory mCategory;
+    private LongAdder mSamplesIn = new LongAdder();
+    private LongAdder mSamplesOut = new LongAdder();
+    private LongAdder mBuffersProcessed = new LongAdder();
+    private LongAdder mOverflowCount = new LongAdder();
+    private LongAdder mSampledNanos = new LongAdder();
+    private LongAdder mSampledBuffers = new LongAdder();
+    private AtomicLong mBufferCounter = new AtomicLong();
+    private IntSupplier mQueueDepthSupplier;
+    private LongSupplier mDroppedSupplier;
+    private LongSupplier mGapMillisecondsSupplier;
+
+    /**
+     * Constructs an instance.  Use the MetricsRegistry to create registered instances.
+     *
+     * @param name of the processing component
+     * @param category of the processing component
+     */
+    public ProcessingMetrics(String name, MetricsCategory category)
+    {
+        mName = name;
+        mCategory = category;
+    }
+
+    @Override
+    public String getName()
+    {
+        return mName;
+    }
+
+    /**
+     * Category of the processing component
+     */
+    public MetricsCategory getMetricsCategory()
+    {
+        return mCategory;
+    }
+
+    @Override
+    public String getCategory()
+    {
+        return mCategory.getLabel();
+    }
+
+    /**
+     * Marks the start of processing for a buffer.
+     *
+     * @return start timestamp when this buffer is sampled for timing, or a not-sampled flag value otherwise.  Pass the
+     * returned value to end().
+     */
+    public long begin()
+    {
+        if(mBufferCounter.getAndIncrement() % SAMPLING_INTERVAL == 0)
+        {
+            return System.nanoTime();
+        }
+
+        return NOT_SAMPLED;
+    }
+
+    /**
+     * Marks the end of processing for a buffer.
+     *
+     * @param start value returned from begin()
+     * @param samples received in the buffer
+     */
+    public void end(long start, int samples)
+    {
+        if(start != NOT_SAMPLED)
+        {
+            mSampledNanos.add(System.nanoTime() - start);
+            mSampledBuffers.increment();
+        }
+
+        mBuffersProcessed.increment();
+        mSamplesIn.add(samples);
+    }
+
+    /**
+     * Records samples received without timing (e.g. a component that only forwards buffers)
+     */
+    public void samplesIn(int samples)
+    {
+        mBuffersProcessed.increment();
+        mSamplesIn.add(samples);
+    }
+
+    /**
+     * Records samples produced
+     */
+    public void samplesOut(int samples)
+    {
+        mSamplesOut.add(samples);
+    }
+
+    /**
+     * Records entry into an overflow state
+     */
+    public void overflow()
+    {
+        mOverflowCount.increment();
+    }
+
+    /**
+     * Sets the suppliers for the dropped buffer count and the total sample stream gap duration (milliseconds) of the
+     * component's input queue
+     */
+    public void setDropSuppliers(LongSupplier droppedSupplier, LongSupplier gapMillisecondsSupplier)
+    {
+        mDroppedSupplier = droppedSupplier;
+        mGapMillisecondsSupplier = gapMillisecondsSupplier;
+    }
+
+    /**
+     * Sets the supplier for the current input queue depth of the component
+     */
+    public void setQueueDepthSupplier(IntSupplier supplier)
+    {
+        mQueueDepthSupplier = supplier;
+    }
+
+    @Override
+    public long getSamplesIn()
+    {
+        return mSamplesIn.sum();
+    }
+
+    @Override
+    public long getSamplesOut()
+    {
+        return mSamplesOut.sum();
+    }
+
+    @Override
+    public long getBuffersProcessed()
+    {
+        return mBuffersProcessed.sum();
+    }
+
+    @Override
+    public long getProcessingNanos()
+    {
+        long sampledBuffers = mSampledBuffers.sum();
+
+        if(sampledBuffers == 0)
+        {
+            return 0;
+        }
+
+        return (long)(getAverageBufferNanos() * getBuffersProcessed());
+    }
+
+    @Override
+    public double getAverageBufferNanos()
+    {
+        long sampledBuffers = mSampledBuffers.sum();
+
+        if(sampledBuffers == 0)
+        {
+            return 0.0;
+        }
+
+        return (double)mSampledNanos.sum() / (double)sampledBuffers;
+    }
+
+    @Override
+    public int getQueueDepth()
+    {
+        IntSupplier supplier = mQueueDepthSupplier;
+        return supplier != null ? supplier.getAsInt() : -1;
+    }
+
+    @Override
+    public long getOverflowCount()
+    {
+        return mOverflowCount.sum();
+    }
+
+    @Override
+    public long getDroppedCount()
+    {
+        LongSupplier supplier = mDroppedSupplier;
+        return supplier != null ? supplier.getAsLong() : 0;
+    }
+
+    @Override
+    public long getGapMilliseconds()
+    {
+        LongSupplier supplier = mGapMillisecondsSupplier;
+        return supplier != null ? supplier.getAsLong() : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mCategory.getLabel() + " [" + mName + "]";
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.metrics;
+
+/**
+ * JMX management interface for processing metrics
+ */
+public interface ProcessingMetricsMBean
+{
+    /**
+     * Registered name of the processing component
+     */
+    String getName();
+
+    /**
+     * Category of the processing component
+     */
+    String getCategory();
+
+    /**
+     * Number of samples received
+     */
+    long getSamplesIn();
+
+    /**
+     * Number of samples produced
+     */
+    long getSamplesOut();
+
+    /**
+     * Number of buffers processed
+     */
+    long getBuffersProcessed();
+
+    /**
+     * Estimated total processing time in nanoseconds, extrapolated from the sampled buffer processing times
+     */
+    long getProcessingNanos();
+
+    /**
+     * Average processing time per buffer in nanoseconds across the sampled buffers
+     */
+    double getAverageBufferNanos();
+
+    /**
+     * Current queue depth, or -1 when the component doesn't have an input queue
+     */
+    int getQueueDepth();
+
+    /**
+     * Number of times the component entered an overflow state
+     */
+    long getOverflowCount();
+
+    /**
+     * Number of input buffers dropped due to overflow
+     */
+    long getDroppedCount();
+
+    /**
+     * Total duration of input stream gaps caused by dropped buffers, in milliseconds
+     */
+    long getGapMilliseconds();
+}
@@ -44,6 +44,10 @@ import io.github.dsheirer.identifier.IdentifierUpdateProvider;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.IMessageListener;
 import io.github.dsheirer.message.IMessageProvider;
+import io.github.dsheirer.metrics.InstrumentedListener;
+import io.github.dsheirer.metrics.MetricsCategory;
+import io.github.dsheirer.metrics.MetricsRegistry;
+import io.github.dsheirer.metrics.ProcessingMetrics;
 import io.github.dsheirer.module.decode.event.DecodeEventModel;
 import io.github.dsheirer.module.decode.event.IDecodeEvent;
 import io.github.dsheirer.module.decode.event.IDecodeEventListener;
@@ -52,6 +56,7 @@ import io.github.dsheirer.module.decode.event.MessageActivityModel;
 import io.github.dsheirer.module.log.EventLogger;
 import io.github.dsheirer.record.binary.BinaryRecorder;
 import io.github.dsheirer.record.wave.ComplexBufferWaveRecorder;
+import io.github.dsheirer.sample.ArrayBroadcaster;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.IReusableBufferListener;
@@ -59,7 +64,7 @@ import io.github.dsheirer.sample.buffer.IReusableBufferProvider;
 import io.github.dsheirer.sample.buffer.IReusableByteBufferListener;
 import io.github.dsheirer.sample.buffer.IReusableByteBufferProvider;
 import io.github.dsheirer.sample.buffer.IReusableComplexBufferListener;
-import io.github.dsheirer.sample.buffer.ReusableBufferBroadcaster;
+import io.github.dsheirer.sample.buffer.ReusableBufferArrayBroadcaster;
 import io.github.dsheirer.sample.buffer.ReusableByteBuffer;
 import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
 import io.github.dsheirer.sample.buffer.ReusableFloatBuffer;
@@ -76,8 +81,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
 
 /**
  * Processing chain provides a framework for connecting a complex or real sample
@@ -101,24 +109,30 @@ public class ProcessingChain implements Listener<ChannelEvent>
 {
     private final static Logger mLog = LoggerFactory.getLogger(ProcessingChain.class);
 
-    private ReusableBufferBroadcaster<ReusableFloatBuffer> mDemodulatedAudioBufferBroadcaster = new ReusableBufferBroadcaster();
-    private ReusableBufferBroadcaster<ReusableComplexBuffer> mBasebandComplexBufferBroadcaster = new ReusableBufferBroadcaster();
-    private ReusableBufferBroadcaster<ReusableByteBuffer> mDemodulatedBitstreamBufferBroadcaster = new ReusableBufferBroadcaster();
+    private ReusableBufferArrayBroadcaster<ReusableFloatBuffer> mDemodulatedAudioBufferBroadcaster = new ReusableBufferArrayBroadcaster<>();
+    private ReusableBufferArrayBroadcaster<ReusableComplexBuffer> mBasebandComplexBufferBroadcaster = new ReusableBufferArrayBroadcaster<>();
+    private ReusableBufferArrayBroadcaster<ReusableByteBuffer> mDemodulatedBitstreamBufferBroadcaster = new ReusableBufferArrayBroadcaster<>();
     private Broadcaster<AudioSegment> mAudioSegmentBroadcaster = new AudioSegmentBroadcaster<>();
-    private Broadcaster<IDecodeEvent> mDecodeEventBroadcaster = new Broadcaster<>();
-    private Broadcaster<ChannelEvent> mChannelEventBroadcaster = new Broadcaster<>();
-    private Broadcaster<DecoderStateEvent> mDecoderStateEventBroadcaster = new Broadcaster<>();
-    private Broadcaster<Heartbeat> mHeartbeatBroadcaster = new Broadcaster<>();
-    private Broadcaster<IdentifierUpdateNotification> mIdentifierUpdateNotificationBroadcaster = new Broadcaster<>();
-    private Broadcaster<SourceEvent> mSourceEventBroadcaster = new Broadcaster<>();
-    private Broadcaster<IMessage> mMessageBroadcaster = new Broadcaster<>();
-    private Broadcaster<SquelchStateEvent> mSquelchStateEventBroadcaster = new Broadcaster<>();
+    private ArrayBroadcaster<IDecodeEvent> mDecodeEventBroadcaster = new ArrayBroadcaster<>();
+    private ArrayBroadcaster<ChannelEvent> mChannelEventBroadcaster = new ArrayBroadcaster<>();
+    private ArrayBroadcaster<DecoderStateEvent> mDecoderStateEventBroadcaster = new ArrayBroadcaster<>();
+    private ArrayBroadcaster<Heartbeat> mHeartbeatBroadcaster = new ArrayBroadcaster<>();
+    private ArrayBroadcaster<IdentifierUpdateNotification> mIdentifierUpdateNotificationBroadcaster = new ArrayBroadcaster<>();
+    private ArrayBroadcaster<SourceEvent> mSourceEventBroadcaster = new ArrayBroadcaster<>();
+    private ArrayBroadcaster<IMessage> mMessageBroadcaster = new ArrayBroadcaster<>();
+    private ArrayBroadcaster<SquelchStateEvent> mSquelchStateEventBroadcaster = new ArrayBroadcaster<>();
     private AtomicBoolean mRunning = new AtomicBoolean();
     private List<Module> mModules = new ArrayList<>();
     private DecodeEventModel mDecodeEventModel;
     private AbstractChannelState mChannelState;
     private MessageActivityModel mMessageActivityModel;
     protected Source mSource;
+    private String mChannelName;
+    private Map<Module,ProcessingMetrics> mModuleMetrics = new HashMap<>();
+    private Map<Listener<?>,Listener<?>> mInstrumentedListeners = new HashMap<>();
+    private Map<Module,Listener<ReusableByteBuffer>> mBitstreamOutputListeners = new HashMap<>();
+    private ProcessingMetrics mSourceMetrics;
+    private Listener<?> mSourceListener;
 
     /**
      * Creates a processing chain for managing a set of modules
@@ -127,6 +141,8 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public ProcessingChain(Channel channel, AliasModel aliasModel)
     {
+        mChannelName = channel.getName();
+
         if(channel.getDecodeConfiguration().getTimeslotCount() == 1)
         {
             mChannelState = new SingleChannelState(channel, aliasModel);
@@ -178,6 +194,15 @@ public class ProcessingChain implements Listener<ChannelEvent>
 
         mModules.clear();
 
+        for(ProcessingMetrics metrics: mModuleMetrics.values())
+        {
+            MetricsRegistry.getInstance().unregister(metrics);
+        }
+
+        mModuleMetrics.clear();
+        mInstrumentedListeners.clear();
+        mBitstreamOutputListeners.clear();
+
         mAudioSegmentBroadcaster.dispose();
         mDecodeEventBroadcaster.dispose();
         mChannelEventBroadcaster.dispose();
@@ -295,6 +320,82 @@ public class ProcessingChain implements Listener<ChannelEvent>
         unregisterProviders(module);
 
         mModules.remove(module);
+
+        MetricsRegistry.getInstance().unregister(mModuleMetrics.remove(module));
+    }
+
+    /**
+     * Wraps the module's buffer listener to record samples received and processing time in the module's metrics.
+     *
+     * @param module that owns the listener
+     * @param listener to wrap
+     * @param sampleCounter to count the samples in each buffer
+     * @return instrumented listener to register with the broadcaster
+     */
+    private <T> Listener<T> instrument(Module module, Listener<T> listener, ToIntFunction<T> sampleCounter)
+    {
+        Listener<T> instrumented = new InstrumentedListener<>(listener, getModuleMetrics(module), sampleCounter);
+        mInstrumentedListeners.put(listener, instrumented);
+        return instrumented;
+    }
+
+    /**
+     * Wraps the listener for the module's output buffers to record the samples produced in the module's metrics.
+     *
+     * @param module that produces the buffers
+     * @param listener to receive the buffers
+     * @param sampleCounter to count the samples in each buffer
+     * @return listener to register with the module
+     */
+    private <T> Listener<T> countOutput(Module module, Listener<T> listener, ToIntFunction<T> sampleCounter)
+    {
+        ProcessingMetrics metrics = getModuleMetrics(module);
+
+        return t -> {
+            //Count samples before dispatch - the listener can release the buffer for reuse
+            metrics.samplesOut(sampleCounter.applyAsInt(t));
+            listener.receive(t);
+        };
+    }
+
+    /**
+     * Registered processing metrics for the module, created on first use
+     */
+    private ProcessingMetrics getModuleMetrics(Module module)
+    {
+        return mModuleMetrics.computeIfAbsent(module, m -> MetricsRegistry.getInstance()
+            .register(MetricsCategory.MODULE, mChannelName + "/" + m.getClass().getSimpleName()));
+    }
+
+    /**
+     * Module's bitstream buffer listener with the type argument that the raw listener interface doesn't declare
+     */
+    @SuppressWarnings("unchecked")
+    private static Listener<ReusableByteBuffer> getReusableByteBufferListener(Module module)
+    {
+        return ((IReusableByteBufferListener<ReusableByteBuffer>)module).getReusableByteBufferListener();
+    }
+
+    /**
+     * Module's complex buffer listener with the type argument that the raw listener interface doesn't declare
+     */
+    @SuppressWarnings("unchecked")
+    private static Listener<ReusableComplexBuffer> getReusableComplexBufferListener(Module module)
+    {
+        return ((IReusableComplexBufferListener<ReusableComplexBuffer>)module).getReusableComplexBufferListener();
+    }
+
+    /**
+     * Removes and returns the instrumented wrapper for the module's buffer listener
+     *
+     * @param listener that was wrapped
+     * @return instrumented listener registered with the broadcaster, or the listener if it was not wrapped
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Listener<T> uninstrument(Listener<T> listener)
+    {
+        Listener<T> instrumented = (Listener<T>)mInstrumentedListeners.remove(listener);
+        return instrumented != null ? instrumented : listener;
     }
 
     /**
@@ -340,17 +441,26 @@ public class ProcessingChain implements Listener<ChannelEvent>
 
         if(module instanceof IReusableBufferListener)
         {
-            mDemodulatedAudioBufferBroadcaster.addListener(((IReusableBufferListener)module).getReusableBufferListener());
+            Listener<ReusableFloatBuffer> listener = ((IReusableBufferListener)module).getReusableBufferListener();
+
+            //Listener can be null when the module receives buffers via another module (e.g. shared AFSK front end)
+            if(listener != null)
+            {
+                mDemodulatedAudioBufferBroadcaster.addListener(instrument(module, listener,
+                    ReusableFloatBuffer::getSampleCount));
+            }
         }
 
         if(module instanceof IReusableByteBufferListener)
         {
-            mDemodulatedBitstreamBufferBroadcaster.addListener(((IReusableByteBufferListener)module).getReusableByteBufferListener());
+            mDemodulatedBitstreamBufferBroadcaster.addListener(instrument(module, getReusableByteBufferListener(module),
+                ReusableByteBuffer::getSampleCount));
         }
 
         if(module instanceof IReusableComplexBufferListener)
         {
-            mBasebandComplexBufferBroadcaster.addListener(((IReusableComplexBufferListener)module).getReusableComplexBufferListener());
+            mBasebandComplexBufferBroadcaster.addListener(instrument(module, getReusableComplexBufferListener(module),
+                ReusableComplexBuffer::getSampleCount));
         }
 
         if(module instanceof ISourceEventListener)
@@ -407,17 +517,22 @@ public class ProcessingChain implements Listener<ChannelEvent>
 
         if(module instanceof IReusableBufferListener)
         {
-            mDemodulatedAudioBufferBroadcaster.removeListener(((IReusableBufferListener)module).getReusableBufferListener());
+            Listener<ReusableFloatBuffer> listener = ((IReusableBufferListener)module).getReusableBufferListener();
+
+            if(listener != null)
+            {
+                mDemodulatedAudioBufferBroadcaster.removeListener(uninstrument(listener));
+            }
         }
 
         if(module instanceof IReusableByteBufferListener)
         {
-            mDemodulatedBitstreamBufferBroadcaster.removeListener(((IReusableByteBufferListener)module).getReusableByteBufferListener());
+            mDemodulatedBitstreamBufferBroadcaster.removeListener(uninstrument(getReusableByteBufferListener(module)));
         }
 
         if(module instanceof IReusableComplexBufferListener)
         {
-            mBasebandComplexBufferBroadcaster.removeListener(((IReusableComplexBufferListener)module).getReusableComplexBufferListener());
+            mBasebandComplexBufferBroadcaster.removeListener(uninstrument(getReusableComplexBufferListener(module)));
         }
 
         if(module instanceof ISourceEventListener)
@@ -484,12 +599,16 @@ public class ProcessingChain implements Listener<ChannelEvent>
 
         if(module instanceof IReusableByteBufferProvider)
         {
-            ((IReusableByteBufferProvider)module).setBufferListener(mDemodulatedBitstreamBufferBroadcaster);
+            Listener<ReusableByteBuffer> listener = countOutput(module, mDemodulatedBitstreamBufferBroadcaster,
+                ReusableByteBuffer::getSampleCount);
+            mBitstreamOutputListeners.put(module, listener);
+            ((IReusableByteBufferProvider)module).setBufferListener(listener);
         }
 
         if(module instanceof IReusableBufferProvider)
         {
-            ((IReusableBufferProvider)module).setBufferListener(mDemodulatedAudioBufferBroadcaster);
+            ((IReusableBufferProvider)module).setBufferListener(countOutput(module, mDemodulatedAudioBufferBroadcaster,
+                ReusableFloatBuffer::getSampleCount));
         }
 
         if(module instanceof ISourceEventProvider)
@@ -521,7 +640,12 @@ public class ProcessingChain implements Listener<ChannelEvent>
 
         if(module instanceof IReusableByteBufferProvider)
         {
-            ((IReusableByteBufferProvider)module).removeBufferListener(mDemodulatedBitstreamBufferBroadcaster);
+            Listener<ReusableByteBuffer> listener = mBitstreamOutputListeners.remove(module);
+
+            if(listener != null)
+            {
+                ((IReusableByteBufferProvider)module).removeBufferListener(listener);
+            }
         }
 
         if(module instanceof IDecodeEventProvider)
@@ -586,8 +710,21 @@ public class ProcessingChain implements Listener<ChannelEvent>
                 //Broadcast the source center frequency / sample rate so that each of the modules can self-configure
                 mSourceEventBroadcaster.broadcast(SourceEvent.frequencyChange(mSource, mSource.getFrequency(), "Processing Chain Startup"));
 
+                //Channel source metrics measure the samples delivered to and the processing time of the whole chain
+                ProcessingMetrics sourceMetrics = MetricsRegistry.getInstance()
+                    .register(MetricsCategory.CHANNEL_SOURCE, mChannelName);
+                mSourceMetrics = sourceMetrics;
+                sourceMetrics.setDropSuppliers(mSource::getDroppedBufferCount, mSource::getGapMilliseconds);
+
                 //Setup the channel state to monitor source overflow conditions
-                mSource.setOverflowListener(mChannelState);
+                mSource.setOverflowListener(overflow -> {
+                    if(overflow)
+                    {
+                        sourceMetrics.overflow();
+                    }
+
+                    mChannelState.sourceOverflow(overflow);
+                });
 
                 /* Register with the source to receive sample data.  Setup a
                  * timer task to process the buffer queues 50 times a second
@@ -595,10 +732,16 @@ public class ProcessingChain implements Listener<ChannelEvent>
                 switch(mSource.getSampleType())
                 {
                     case COMPLEX:
-                        ((ComplexSource)mSource).setListener(mBasebandComplexBufferBroadcaster);
+                        Listener<ReusableComplexBuffer> complexListener = new InstrumentedListener<>(
+                            mBasebandComplexBufferBroadcaster, sourceMetrics, ReusableComplexBuffer::getSampleCount);
+                        mSourceListener = complexListener;
+                        ((ComplexSource)mSource).setListener(complexListener);
                         break;
                     case REAL:
-                        ((RealSource)mSource).setListener(mDemodulatedAudioBufferBroadcaster);
+                        Listener<ReusableFloatBuffer> realListener = new InstrumentedListener<>(
+                            mDemodulatedAudioBufferBroadcaster, sourceMetrics, ReusableFloatBuffer::getSampleCount);
+                        mSourceListener = realListener;
+                        ((RealSource)mSource).setListener(realListener);
                         break;
                     default:
                         throw new IllegalArgumentException("Unrecognized source "
@@ -628,6 +771,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
     /**
      * Stops processing if the chain is currently processing.  Invocations on an already stopped chain have no effect.
      */
+    @SuppressWarnings("unchecked")
     public void stop()
     {
         if(mRunning.compareAndSet(true, false))
@@ -643,10 +787,10 @@ public class ProcessingChain implements Listener<ChannelEvent>
                 switch(mSource.getSampleType())
                 {
                     case COMPLEX:
-                        ((ComplexSource)mSource).removeListener(mBasebandComplexBufferBroadcaster);
+                        ((ComplexSource)mSource).removeListener((Listener<ReusableComplexBuffer>)mSourceListener);
                         break;
                     case REAL:
-                        ((RealSource)mSource).removeListener(mDemodulatedAudioBufferBroadcaster);
+                        ((RealSource)mSource).removeListener((Listener<ReusableFloatBuffer>)mSourceListener);
                         break;
                     default:
                         throw new IllegalArgumentException("Unrecognized source sample type - cannot start processing " +
@@ -654,6 +798,9 @@ public class ProcessingChain implements Listener<ChannelEvent>
                 }
 
                 mSource = null;
+                mSourceListener = null;
+                MetricsRegistry.getInstance().unregister(mSourceMetrics);
+                mSourceMetrics = null;
             }
 
             /* Stop each of the remaining modules */
@@ -34,6 +34,7 @@ import io.github.dsheirer.filter.IFilter;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.MessageDirection;
 import io.github.dsheirer.module.Module;
+import io.github.dsheirer.module.decode.afsk.AFSK1200FrontEnd;
 import io.github.dsheirer.module.decode.am.AMDecoder;
 import io.github.dsheirer.module.decode.am.DecodeConfigAM;
 import io.github.dsheirer.module.decode.config.AuxDecodeConfiguration;
@@ -111,6 +112,10 @@ public class DecoderFactory
     {
         List<Module> modules = getPrimaryModules(channelMapModel, channel, aliasModel, userPreferences);
         modules.addAll(getAuxiliaryDecoders(channel.getAuxDecodeConfiguration()));
+
+        //Demodulate AFSK once for all AFSK decoders in the channel
+        AFSK1200FrontEnd.share(modules);
+
         return modules;
     }
 
@@ -0,0 +1,121 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module.decode.afsk;
+
+import io.github.dsheirer.dsp.afsk.AFSK1200Decoder;
+import io.github.dsheirer.module.Module;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.buffer.IReusableBufferListener;
+import io.github.dsheirer.sample.buffer.ReusableFloatBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared AFSK 1200-baud demodulation front end for a processing chain.  Resamples, correlates and recovers symbol
+ * timing for the demodulated audio once and distributes the normal and inverted symbol streams to each of the
+ * attached AFSK protocol decoders, so that the demodulation cost doesn't grow with the number of AFSK decoders.
+ *
+ * Symbol timing recovery operates on the mark/space sample decisions, which are independent of the output polarity,
+ * so a single front end can serve decoders that require either polarity.
+ */
+public class AFSK1200FrontEnd extends Module implements IReusableBufferListener, Listener<ReusableFloatBuffer>
+{
+    private AFSK1200Decoder mAFSK1200Decoder = new AFSK1200Decoder(AFSK1200Decoder.Output.NORMAL);
+
+    /**
+     * Constructs an instance.  Use share() to create a front end for a list of processing chain modules.
+     */
+    public AFSK1200FrontEnd()
+    {
+    }
+
+    /**
+     * Shared AFSK decoder
+     */
+    AFSK1200Decoder getDecoder()
+    {
+        return mAFSK1200Decoder;
+    }
+
+    /**
+     * Attaches each of the shareable AFSK decoders in the module list to a single shared front end when there are
+     * two or more shareable AFSK decoders, and adds the front end to the module list.
+     *
+     * @param modules for a processing chain
+     */
+    public static void share(List<Module> modules)
+    {
+        List<AbstractAFSKDecoder> decoders = new ArrayList<>();
+
+        for(Module module: modules)
+        {
+            if(module instanceof AbstractAFSKDecoder && ((AbstractAFSKDecoder)module).isShareable())
+            {
+                decoders.add((AbstractAFSKDecoder)module);
+            }
+        }
+
+        if(decoders.size() > 1)
+        {
+            AFSK1200FrontEnd frontEnd = new AFSK1200FrontEnd();
+
+            for(AbstractAFSKDecoder decoder: decoders)
+            {
+                decoder.attach(frontEnd);
+            }
+
+            modules.add(frontEnd);
+        }
+    }
+
+    @Override
+    public void receive(ReusableFloatBuffer reusableFloatBuffer)
+    {
+        mAFSK1200Decoder.receive(reusableFloatBuffer);
+    }
+
+    @Override
+    public Listener<ReusableFloatBuffer> getReusableBufferListener()
+    {
+        return this;
+    }
+
+    @Override
+    public void reset()
+    {
+    }
+
+    @Override
+    public void start()
+    {
+    }
+
+    @Override
+    public void stop()
+    {
+    }
+
+    @Override
+    public void dispose()
+    {
+        mAFSK1200Decoder.dispose();
+    }
+}
@@ -15,6 +15,7 @@
  ******************************************************************************/
 package io.github.dsheirer.module.decode.afsk;
 
+import io.github.dsheirer.bits.IBinarySymbolProcessor;
 import io.github.dsheirer.dsp.afsk.AFSK1200Decoder;
 import io.github.dsheirer.module.decode.Decoder;
 import io.github.dsheirer.sample.Listener;
@@ -26,11 +27,18 @@ import io.github.dsheirer.sample.buffer.ReusableFloatBuffer;
  *
  * This class handles the AFSK 1200 decoder and incoming sample stream buffer management.
  *
- * Sub-class implementations should invoke getDecoder().setListener() to receive decoded symbol stream.
+ * Sub-class implementations should invoke setSymbolProcessor() to receive decoded symbol stream.
+ *
+ * When multiple AFSK decoders operate in the same processing chain, the decoders can be attached to a shared
+ * AFSK1200FrontEnd that demodulates the audio once and distributes the symbols to each decoder.  Attached decoders
+ * no longer receive demodulated audio buffers.
  */
 public abstract class AbstractAFSKDecoder extends Decoder implements IReusableBufferListener, Listener<ReusableFloatBuffer>
 {
     private AFSK1200Decoder mAFSK1200Decoder;
+    private AFSK1200Decoder.Output mOutput;
+    private IBinarySymbolProcessor mSymbolProcessor;
+    private AFSK1200FrontEnd mFrontEnd;
 
     public AbstractAFSKDecoder(AFSK1200Decoder decoder)
     {
@@ -40,6 +48,7 @@ public abstract class AbstractAFSKDecoder extends Decoder implements IReusableBu
     public AbstractAFSKDecoder(AFSK1200Decoder.Output output)
     {
         mAFSK1200Decoder = new AFSK1200Decoder(output);
+        mOutput = output;
     }
 
     protected AFSK1200Decoder getDecoder()
@@ -47,15 +56,74 @@ public abstract class AbstractAFSKDecoder extends Decoder implements IReusableBu
         return mAFSK1200Decoder;
     }
 
+    /**
+     * Registers the processor to receive the decoded symbol stream
+     */
+    protected void setSymbolProcessor(IBinarySymbolProcessor symbolProcessor)
+    {
+        mSymbolProcessor = symbolProcessor;
+        mAFSK1200Decoder.setSymbolProcessor(symbolProcessor);
+    }
+
+    /**
+     * Indicates if this decoder can be attached to a shared front end.  Decoders that were constructed with an
+     * externally provided AFSK1200 decoder (ie instrumented decoders) cannot be shared.
+     */
+    public boolean isShareable()
+    {
+        return mOutput != null && mSymbolProcessor != null;
+    }
+
+    /**
+     * Indicates if this decoder is attached to a shared front end
+     */
+    public boolean isShared()
+    {
+        return mFrontEnd != null;
+    }
+
+    /**
+     * Attaches this decoder to the shared front end so that the symbol processor receives symbols from the front
+     * end.  This must be invoked before this decoder is added to a processing chain.
+     *
+     * @param frontEnd to attach
+     */
+    void attach(AFSK1200FrontEnd frontEnd)
+    {
+        if(!isShareable())
+        {
+            throw new IllegalStateException("AFSK decoder cannot be attached to a shared front end");
+        }
+
+        mFrontEnd = frontEnd;
+        mAFSK1200Decoder.removeListener();
+        mFrontEnd.getDecoder().addSymbolProcessor(mSymbolProcessor, mOutput);
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+
+        if(mFrontEnd != null)
+        {
+            mFrontEnd.getDecoder().removeSymbolProcessor(mSymbolProcessor);
+            mFrontEnd = null;
+        }
+    }
+
     @Override
     public void receive(ReusableFloatBuffer reusableFloatBuffer)
     {
         mAFSK1200Decoder.receive(reusableFloatBuffer);
     }
 
+    /**
+     * Buffer listener for demodulated audio, or null when this decoder is attached to a shared front end.
+     */
     @Override
     public Listener<ReusableFloatBuffer> getReusableBufferListener()
     {
-        return this;
+        return isShared() ? null : this;
     }
 }
@@ -27,14 +27,30 @@ import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.preference.PreferenceType;
 import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.util.SwingPlatform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Decode event table model.
+ *
+ * Events are retained in a ring buffer with newest events at row 0 and an identity index for updated event lookup, so
+ * adding, updating and evicting events are constant time operations.  Events can be received on any thread.  Received
+ * events are queued and applied on the Swing event dispatch thread (or the headless dispatch thread when running
+ * without a display) in batches, with a single table notification for each of the evicted, inserted and updated row
+ * ranges in each batch.
+ *
+ * The retention count and per-channel or global retention policy are provided by the DecodeEventRetention.
+ */
 public class DecodeEventModel extends AbstractTableModel implements Listener<IDecodeEvent>
 {
     private static final long serialVersionUID = 1L;
@@ -51,9 +67,16 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
     public static final int COLUMN_FREQUENCY = 8;
     public static final int COLUMN_DETAILS = 9;
 
-    protected int mMaxMessages = 500;
+    private DecodeEventRetention mRetention = DecodeEventRetention.getInstance();
+    protected int mMaxMessages = mRetention.getRetentionCount();
 
-    protected List<IDecodeEvent> mEvents = new ArrayList<>();
+    protected DecodeEventRingBuffer mEvents = new DecodeEventRingBuffer(mMaxMessages);
+    private Queue<IDecodeEvent> mReceivedEvents = new ConcurrentLinkedQueue<>();
+    private AtomicBoolean mFlushScheduled = new AtomicBoolean();
+    private List<IDecodeEvent> mInsertedEvents = new ArrayList<>();
+    private Map<IDecodeEvent,Boolean> mInsertedEventIndex = new IdentityHashMap<>();
+    private List<IDecodeEvent> mUpdatedEvents = new ArrayList<>();
+    private volatile boolean mDisposed;
 
     protected String[] mHeaders = new String[]{"Time", "Duration", "Event", "From", "Alias", "To", "Alias", "Channel", "Frequency", "Details"};
 
@@ -69,39 +92,50 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
     @Subscribe
     public void preferenceUpdated(PreferenceType preferenceType)
     {
-        if(preferenceType == PreferenceType.DECODE_EVENT)
-        {
-            for(int row = 0; row < mEvents.size(); row++)
-            {
-                fireTableCellUpdated(row, COLUMN_TIME);
-            }
-        }
-        else if(preferenceType == PreferenceType.TALKGROUP_FORMAT)
+        if(preferenceType == PreferenceType.DECODE_EVENT || preferenceType == PreferenceType.TALKGROUP_FORMAT)
         {
-            for(int row = 0; row < mEvents.size(); row++)
+            SwingPlatform.runOnDispatchThread(() ->
             {
-                fireTableCellUpdated(row, COLUMN_FROM_ID);
-                fireTableCellUpdated(row, COLUMN_TO_ID);
-            }
+                if(mEvents.size() > 0)
+                {
+                    fireTableRowsUpdated(0, mEvents.size() - 1);
+                }
+            });
         }
     }
 
 
     public void dispose()
     {
+        mDisposed = true;
         MyEventBus.getEventBus().unregister(this);
-        Iterator<IDecodeEvent> it = mEvents.iterator();
+        mReceivedEvents.clear();
 
-        while(it.hasNext())
+        SwingPlatform.runOnDispatchThread(() ->
         {
-            it.remove();
-        }
+            clear();
+            mRetention.dispose(this);
+        });
     }
 
     public void reset()
     {
-        dispose();
-        fireTableDataChanged();
+        mReceivedEvents.clear();
+
+        SwingPlatform.runOnDispatchThread(() ->
+        {
+            clear();
+            fireTableDataChanged();
+        });
+    }
+
+    /**
+     * Removes all events.  Invoke on the event dispatch thread.
+     */
+    private void clear()
+    {
+        mRetention.removed(mEvents.size());
+        mEvents.clear();
     }
 
     public int getMaxMessageCount()
@@ -112,37 +146,175 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
     public void setMaxMessageCount(int count)
     {
         mMaxMessages = count;
+
+        SwingPlatform.runOnDispatchThread(() ->
+        {
+            int size = mEvents.size();
+            int evicted = mEvents.setCapacity(mMaxMessages);
+
+            if(evicted > 0)
+            {
+                mRetention.removed(evicted);
+                fireTableRowsDeleted(size - evicted, size - 1);
+            }
+        });
     }
 
     /**
-     * Adds, updates or deletes the event from the model.  Producers can send
-     * the same call event multiple times to indicate that information in the
-     * event is updated.  Producers can also mark the event as invalid and the
-     * event will be removed from the model.
+     * Adds or updates the event in the model.  Producers can send the same call event multiple times to indicate
+     * that information in the event is updated.  Events are applied to the model on the event dispatch thread.
      */
     public void receive(final IDecodeEvent event)
     {
-        if(!mEvents.contains(event))
+        if(mDisposed)
         {
-            mEvents.add(0, event);
-            fireTableRowsInserted(0, 0);
-            prune();
+            return;
+        }
+
+        mReceivedEvents.add(event);
+
+        if(mFlushScheduled.compareAndSet(false, true))
+        {
+            SwingPlatform.invokeLater(this::flush);
+        }
+    }
+
+    /**
+     * Applies all queued events to the model and fires coalesced table notifications.  Inserted events are registered
+     * with the retention only after the insert notification, so that any global retention evictions are notified
+     * against the updated row indexes.  Invoked on the event dispatch thread.
+     */
+    private void flush()
+    {
+        mFlushScheduled.set(false);
+
+        if(mDisposed)
+        {
+            mReceivedEvents.clear();
+            return;
+        }
+
+        IDecodeEvent event = mReceivedEvents.poll();
+
+        while(event != null)
+        {
+            if(mEvents.contains(event))
+            {
+                mUpdatedEvents.add(event);
+            }
+            else if(mInsertedEventIndex.put(event, Boolean.TRUE) == null)
+            {
+                mInsertedEvents.add(event);
+            }
+
+            event = mReceivedEvents.poll();
+        }
+
+        int capacity = mEvents.getCapacity();
+        int insertCount = mInsertedEvents.size();
+        long firstSequence = -1;
+        int retainCount = 0;
+
+        if(insertCount >= capacity)
+        {
+            //The batch replaces all retained events
+            clear();
+
+            firstSequence = mEvents.add(mInsertedEvents.get(insertCount - capacity));
+
+            for(int x = insertCount - capacity + 1; x < insertCount; x++)
+            {
+                mEvents.add(mInsertedEvents.get(x));
+            }
+
+            retainCount = capacity;
+            fireTableDataChanged();
         }
         else
         {
-            int row = mEvents.indexOf(event);
-            fireTableRowsUpdated(row, row);
+            //Evict the oldest events to make room for the inserted events
+            int size = mEvents.size();
+            int evictCount = size + insertCount - capacity;
+
+            if(evictCount > 0)
+            {
+                for(int x = 0; x < evictCount; x++)
+                {
+                    mEvents.removeOldest();
+                }
+
+                mRetention.removed(evictCount);
+                fireTableRowsDeleted(size - evictCount, size - 1);
+            }
+
+            if(insertCount > 0)
+            {
+                firstSequence = mEvents.add(mInsertedEvents.get(0));
+
+                for(int x = 1; x < insertCount; x++)
+                {
+                    mEvents.add(mInsertedEvents.get(x));
+                }
+
+                retainCount = insertCount;
+                fireTableRowsInserted(0, insertCount - 1);
+            }
+
+            int firstRow = Integer.MAX_VALUE;
+            int lastRow = -1;
+
+            for(IDecodeEvent updatedEvent: mUpdatedEvents)
+            {
+                int row = mEvents.getRow(updatedEvent);
+
+                if(row >= 0)
+                {
+                    firstRow = Math.min(firstRow, row);
+                    lastRow = Math.max(lastRow, row);
+                }
+            }
+
+            if(lastRow >= 0)
+            {
+                fireTableRowsUpdated(firstRow, lastRow);
+            }
+        }
+
+        mInsertedEvents.clear();
+        mInsertedEventIndex.clear();
+        mUpdatedEvents.clear();
+
+        //Inserted events have consecutive sequence numbers
+        for(int x = 0; x < retainCount; x++)
+        {
+            mRetention.added(this, firstSequence + x);
         }
     }
 
-    private void prune()
+    /**
+     * Evicts the oldest events up to and including the sequence number.  Invoked by the global decode event retention
+     * on the event dispatch thread.
+     *
+     * @param sequence of the newest event to evict
+     * @return number of events evicted
+     */
+    int evictThrough(long sequence)
     {
-        while(mEvents.size() > mMaxMessages)
+        int size = mEvents.size();
+        int evictCount = 0;
+
+        while(mEvents.size() > 0 && mEvents.getOldestSequence() <= sequence)
+        {
+            mEvents.removeOldest();
+            evictCount++;
+        }
+
+        if(evictCount > 0)
         {
-            int index = mEvents.size() - 1;
-            mEvents.remove(index);
-            fireTableRowsDeleted(index, index);
+            fireTableRowsDeleted(size - evictCount, size - 1);
         }
+
+        return evictCount;
     }
 
     @Override
@@ -165,58 +337,55 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
     @Override
     public Object getValueAt(int rowIndex, int columnIndex)
     {
-        synchronized(mEvents)
-        {
-            IDecodeEvent event = mEvents.get(rowIndex);
+        IDecodeEvent event = mEvents.get(rowIndex);
 
-            if(event != null)
+        if(event != null)
+        {
+            switch(columnIndex)
             {
-                switch(columnIndex)
-                {
-                    case COLUMN_TIME:
-                        return event.getTimeStart();
-                    case COLUMN_DURATION:
-                        return event.getDuration();
-                    case COLUMN_EVENT:
-                        return event.getEventDescription();
-                    case COLUMN_FROM_ID:
-                        return event.getIdentifierCollection();
-                    case COLUMN_FROM_ALIAS:
-                        return event.getIdentifierCollection();
-                    case COLUMN_TO_ID:
-                        return event.getIdentifierCollection();
-                    case COLUMN_TO_ALIAS:
-                        return event.getIdentifierCollection();
-                    case COLUMN_CHANNEL:
-                        IChannelDescriptor channelDescriptor = event.getChannelDescriptor();
-
-                        if(channelDescriptor != null)
+                case COLUMN_TIME:
+                    return event.getTimeStart();
+                case COLUMN_DURATION:
+                    return event.getDuration();
+                case COLUMN_EVENT:
+                    return event.getEventDescription();
+                case COLUMN_FROM_ID:
+                    return event.getIdentifierCollection();
+                case COLUMN_FROM_ALIAS:
+                    return event.getIdentifierCollection();
+                case COLUMN_TO_ID:
+                    return event.getIdentifierCollection();
+                case COLUMN_TO_ALIAS:
+                    return event.getIdentifierCollection();
+                case COLUMN_CHANNEL:
+                    IChannelDescriptor channelDescriptor = event.getChannelDescriptor();
+
+                    if(channelDescriptor != null)
+                    {
+                        if(event.hasTimeslot())
                         {
-                            if(event.hasTimeslot())
-                            {
-                                return channelDescriptor.toString() + " TS:" + event.getTimeslot();
-                            }
-                            else
-                            {
-                                return channelDescriptor.toString();
-                            }
+                            return channelDescriptor.toString() + " TS:" + event.getTimeslot();
                         }
                         else
                         {
-                            if(event.hasTimeslot())
-                            {
-                                return "TS:" + event.getTimeslot();
-                            }
-                            else
-                            {
-                                return null;
-                            }
+                            return channelDescriptor.toString();
                         }
-                    case COLUMN_FREQUENCY:
-                        return event.getChannelDescriptor();
-                    case COLUMN_DETAILS:
-                        return event.getDetails();
-                }
+                    }
+                    else
+                    {
+                        if(event.hasTimeslot())
+                        {
+                            return "TS:" + event.getTimeslot();
+                        }
+                        else
+                        {
+                            return null;
+                        }
+                    }
+                case COLUMN_FREQUENCY:
+                    return event.getChannelDescriptor();
+                case COLUMN_DETAILS:
+                    return event.getDetails();
             }
         }
 
@@ -0,0 +1,204 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module.decode.event;
+
+import io.github.dsheirer.properties.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+
+/**
+ * Decode event retention settings and global retention tracking across all decode event models.
+ *
+ * With the per-channel policy, each decode event model retains up to the retention count of events.  With the global
+ * policy, the retention count is shared by all decode event models and the oldest events across all models are
+ * evicted first.
+ *
+ * Settings are read from the decode.event.retention.policy (PER_CHANNEL or GLOBAL) and decode.event.retention.count
+ * system properties.
+ *
+ * Note: global retention tracking is confined to the Swing event dispatch thread (see SwingPlatform).
+ */
+public class DecodeEventRetention
+{
+    private final static Logger mLog = LoggerFactory.getLogger(DecodeEventRetention.class);
+
+    private static final String POLICY_PROPERTY = "decode.event.retention.policy";
+    private static final String COUNT_PROPERTY = "decode.event.retention.count";
+    public static final int DEFAULT_RETENTION_COUNT = 500;
+
+    private static DecodeEventRetention sInstance;
+
+    private DecodeEventRetentionPolicy mPolicy;
+    private int mRetentionCount;
+    private ArrayDeque<RetainedEvent> mRetainedEvents = new ArrayDeque<>();
+    private int mRetainedCount;
+
+    /**
+     * Constructs an instance
+     *
+     * @param policy for retention
+     * @param retentionCount per channel or global maximum event count
+     */
+    public DecodeEventRetention(DecodeEventRetentionPolicy policy, int retentionCount)
+    {
+        mPolicy = policy;
+        mRetentionCount = Math.max(1, retentionCount);
+    }
+
+    /**
+     * Application-wide instance using the retention settings from the system properties
+     */
+    public static synchronized DecodeEventRetention getInstance()
+    {
+        if(sInstance == null)
+        {
+            DecodeEventRetentionPolicy policy = DecodeEventRetentionPolicy.PER_CHANNEL;
+            String value = SystemProperties.getInstance().get(POLICY_PROPERTY, policy.name());
+
+            try
+            {
+                policy = DecodeEventRetentionPolicy.valueOf(value);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Unrecognized decode event retention policy [" + value + "] - using " + policy.name());
+            }
+
+            int count = SystemProperties.getInstance().get(COUNT_PROPERTY, DEFAULT_RETENTION_COUNT);
+
+            sInstance = new DecodeEventRetention(policy, count);
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Retention policy
+     */
+    public DecodeEventRetentionPolicy getPolicy()
+    {
+        return mPolicy;
+    }
+
+    /**
+     * Indicates if the global retention policy is in effect
+     */
+    public boolean isGlobal()
+    {
+        return mPolicy == DecodeEventRetentionPolicy.GLOBAL;
+    }
+
+    /**
+     * Maximum number of events retained per channel or across all channels, according to the policy
+     */
+    public int getRetentionCount()
+    {
+        return mRetentionCount;
+    }
+
+    /**
+     * Number of events currently retained across all decode event models, when using the global policy
+     */
+    public int getRetainedCount()
+    {
+        return mRetainedCount;
+    }
+
+    /**
+     * Registers an event added to the decode event model and evicts the oldest events across all models when the
+     * global retention count is exceeded.
+     *
+     * @param model that added the event
+     * @param sequence number of the event in the model
+     */
+    void added(DecodeEventModel model, long sequence)
+    {
+        if(!isGlobal())
+        {
+            return;
+        }
+
+        mRetainedEvents.addLast(new RetainedEvent(model, sequence));
+        mRetainedCount++;
+
+        while(mRetainedCount > mRetentionCount && !mRetainedEvents.isEmpty())
+        {
+            RetainedEvent oldest = mRetainedEvents.pollFirst();
+
+            //Events already removed by the model (e.g. model reset or disposal) are not counted
+            mRetainedCount -= oldest.getModel().evictThrough(oldest.getSequence());
+        }
+    }
+
+    /**
+     * Registers events that were removed by the decode event model independent of global retention (e.g. reset or
+     * disposal).
+     *
+     * @param count of events removed
+     */
+    void removed(int count)
+    {
+        if(isGlobal())
+        {
+            mRetainedCount = Math.max(0, mRetainedCount - count);
+        }
+    }
+
+    /**
+     * Removes all retained events for the decode event model when the model is disposed.  The model's events should
+     * already be accounted for via the removed() method.
+     *
+     * @param model that is disposed
+     */
+    void dispose(DecodeEventModel model)
+    {
+        if(isGlobal())
+        {
+            mRetainedEvents.removeIf(retainedEvent -> retainedEvent.getModel() == model);
+        }
+    }
+
+    /**
+     * Decode event model and sequence number of a retained event
+     */
+    private static class RetainedEvent
+    {
+        private DecodeEventModel mModel;
+        private long mSequence;
+
+        public RetainedEvent(DecodeEventModel model, long sequence)
+        {
+            mModel = model;
+            mSequence = sequence;
+        }
+
+        public DecodeEventModel getModel()
+        {
+            return mModel;
+        }
+
+        public long getSequence()
+        {
+            return mSequence;
+        }
+    }
+}
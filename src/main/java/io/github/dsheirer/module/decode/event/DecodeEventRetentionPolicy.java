@@ -0,0 +1,49 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module.decode.event;
+
+/**
+ * Decode event retention policy
+ */
+public enum DecodeEventRetentionPolicy
+{
+    /**
+     * Each channel retains up to the retention count of decode events
+     */
+    PER_CHANNEL("Per Channel"),
+
+    /**
+     * All channels share the retention count and the oldest decode events across all channels are evicted first
+     */
+    GLOBAL("Global");
+
+    private String mLabel;
+
+    DecodeEventRetentionPolicy(String label)
+    {
+        mLabel = label;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mLabel;
+    }
+}
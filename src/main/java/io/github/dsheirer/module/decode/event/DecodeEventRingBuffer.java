@@ -0,0 +1,234 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module.decode.event;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Fixed capacity ring buffer of decode events, ordered newest (row 0) to oldest, with an identity hash index for
+ * constant time row lookup of an existing event.
+ *
+ * Each added event is assigned a monotonically increasing sequence number.  The row of an event is the difference
+ * between the newest sequence number and the event's sequence number, so adding an event or evicting the oldest
+ * event never shifts the stored events.  The backing array grows on demand up to the capacity.
+ *
+ * Note: this class is not thread safe.
+ */
+public class DecodeEventRingBuffer
+{
+    private static final int INITIAL_ARRAY_SIZE = 64;
+
+    private Map<IDecodeEvent,Long> mIndex = new IdentityHashMap<>();
+    private IDecodeEvent[] mEvents;
+    private int mCapacity;
+    private int mSize;
+    private long mNewestSequence = -1;
+
+    /**
+     * Constructs an instance
+     *
+     * @param capacity maximum number of events to retain
+     */
+    public DecodeEventRingBuffer(int capacity)
+    {
+        if(capacity < 1)
+        {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+
+        mCapacity = capacity;
+        mEvents = new IDecodeEvent[Math.min(capacity, INITIAL_ARRAY_SIZE)];
+    }
+
+    /**
+     * Maximum number of events retained
+     */
+    public int getCapacity()
+    {
+        return mCapacity;
+    }
+
+    /**
+     * Number of events currently retained
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /**
+     * Indicates if the event is currently retained
+     */
+    public boolean contains(IDecodeEvent event)
+    {
+        return mIndex.containsKey(event);
+    }
+
+    /**
+     * Adds the event as the newest event (row 0).  When the buffer is full, the oldest event is evicted.
+     *
+     * @param event to add
+     * @return sequence number assigned to the event
+     */
+    public long add(IDecodeEvent event)
+    {
+        if(mSize == mEvents.length && mSize < mCapacity)
+        {
+            resize(Math.min(mCapacity, mEvents.length * 2));
+        }
+
+        if(mSize == mCapacity)
+        {
+            removeOldest();
+        }
+
+        mNewestSequence++;
+        mEvents[slot(mNewestSequence)] = event;
+        mIndex.put(event, mNewestSequence);
+        mSize++;
+
+        return mNewestSequence;
+    }
+
+    /**
+     * Row of the event, where row 0 is the newest event
+     *
+     * @param event to lookup
+     * @return row or -1 if the event is not retained
+     */
+    public int getRow(IDecodeEvent event)
+    {
+        Long sequence = mIndex.get(event);
+
+        if(sequence == null)
+        {
+            return -1;
+        }
+
+        return (int)(mNewestSequence - sequence);
+    }
+
+    /**
+     * Event at the row, where row 0 is the newest event
+     *
+     * @param row of the event
+     * @return event or null if the row is out of range
+     */
+    public IDecodeEvent get(int row)
+    {
+        if(row < 0 || row >= mSize)
+        {
+            return null;
+        }
+
+        return mEvents[slot(mNewestSequence - row)];
+    }
+
+    /**
+     * Sequence number of the oldest retained event, or -1 when empty
+     */
+    public long getOldestSequence()
+    {
+        return mSize > 0 ? mNewestSequence - mSize + 1 : -1;
+    }
+
+    /**
+     * Removes the oldest event
+     *
+     * @return removed event or null if empty
+     */
+    public IDecodeEvent removeOldest()
+    {
+        if(mSize == 0)
+        {
+            return null;
+        }
+
+        int slot = slot(getOldestSequence());
+        IDecodeEvent event = mEvents[slot];
+        mEvents[slot] = null;
+        mIndex.remove(event);
+        mSize--;
+
+        return event;
+    }
+
+    /**
+     * Removes all events
+     */
+    public void clear()
+    {
+        mEvents = new IDecodeEvent[Math.min(mCapacity, INITIAL_ARRAY_SIZE)];
+        mIndex.clear();
+        mSize = 0;
+    }
+
+    /**
+     * Changes the capacity.  When the new capacity is smaller than the current size, the oldest events are evicted.
+     *
+     * @param capacity maximum number of events to retain
+     * @return number of events evicted
+     */
+    public int setCapacity(int capacity)
+    {
+        if(capacity < 1)
+        {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+
+        int evicted = 0;
+
+        while(mSize > capacity)
+        {
+            removeOldest();
+            evicted++;
+        }
+
+        mCapacity = capacity;
+        resize(Math.max(mSize, Math.min(capacity, INITIAL_ARRAY_SIZE)));
+
+        return evicted;
+    }
+
+    /**
+     * Resizes the backing array, preserving the retained events and their sequence numbers
+     */
+    private void resize(int length)
+    {
+        IDecodeEvent[] events = new IDecodeEvent[length];
+
+        for(int row = 0; row < mSize; row++)
+        {
+            long sequence = mNewestSequence - row;
+            events[(int)(sequence % length)] = mEvents[slot(sequence)];
+        }
+
+        mEvents = events;
+    }
+
+    /**
+     * Backing array index for the sequence number
+     */
+    private int slot(long sequence)
+    {
+        return (int)(sequence % mEvents.length);
+    }
+}
@@ -25,9 +25,9 @@ import io.github.dsheirer.filter.FilterSet;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.StuffBitsMessage;
 import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.util.SwingPlatform;
 
 import javax.swing.table.AbstractTableModel;
-import java.awt.EventQueue;
 import java.text.SimpleDateFormat;
 import java.util.LinkedList;
 
@@ -62,7 +62,7 @@ public class MessageActivityModel extends AbstractTableModel implements Listener
      */
     public void clear()
     {
-        EventQueue.invokeLater(new Runnable()
+        SwingPlatform.invokeLater(new Runnable()
         {
             @Override
             public void run()
@@ -125,7 +125,7 @@ public class MessageActivityModel extends AbstractTableModel implements Listener
         {
             final MessageItem messageItem = new MessageItem(message);
 
-            EventQueue.invokeLater(new Runnable()
+            SwingPlatform.invokeLater(new Runnable()
             {
                 @Override
                 public void run()
@@ -0,0 +1,380 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.module.decode.p25;
+
+import io.github.dsheirer.message.IMessage;
+import io.github.dsheirer.module.decode.DecoderType;
+import io.github.dsheirer.module.decode.p25.phase1.P25P1MessageFramer;
+import io.github.dsheirer.module.decode.p25.phase1.P25P1MessageProcessor;
+import io.github.dsheirer.module.decode.p25.phase2.P25P2MessageFramer;
+import io.github.dsheirer.module.decode.p25.phase2.P25P2MessageProcessor;
+import io.github.dsheirer.module.decode.p25.phase2.enumeration.ScrambleParameters;
+import io.github.dsheirer.record.binary.MappedBinaryReader;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.buffer.ReusableByteBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Replays a corpus of APCO-25 Phase 1 or Phase 2 bitstream (.bits) recordings through the message framers and message
+ * processors for decoder regression testing and benchmarking.
+ *
+ * Each recording is memory-mapped and decoded on a fork-join pool through its own framer and message processor, so
+ * recordings are decoded concurrently without any shared decoder state.  Each replay round logs the decoded message
+ * throughput (messages per second), the bitstream decode rate relative to real time and a histogram of the decoded
+ * message types.  Repeat the replay over several rounds to let the JIT warm up before comparing throughput numbers.
+ *
+ * Usage: P25BitstreamReplay P25P1|P25P2 directory|file [glob] [threads=N] [rounds=N] [scramble=wacn,system,nac]
+ */
+public class P25BitstreamReplay
+{
+    private final static Logger mLog = LoggerFactory.getLogger(P25BitstreamReplay.class);
+    private static final int BUFFER_SIZE = 4096;
+    private static final String DEFAULT_GLOB = "*.bits";
+
+    private DecoderType mDecoderType;
+    private ScrambleParameters mScrambleParameters;
+    private ForkJoinPool mPool;
+
+    /**
+     * Constructs an instance
+     *
+     * @param decoderType P25_PHASE1 or P25_PHASE2
+     * @param scrambleParameters for phase 2 recordings, or null to detect from the recording
+     * @param threads number of recordings to decode concurrently
+     */
+    public P25BitstreamReplay(DecoderType decoderType, ScrambleParameters scrambleParameters, int threads)
+    {
+        if(decoderType != DecoderType.P25_PHASE1 && decoderType != DecoderType.P25_PHASE2)
+        {
+            throw new IllegalArgumentException("Unsupported decoder type: " + decoderType);
+        }
+
+        mDecoderType = decoderType;
+        mScrambleParameters = scrambleParameters;
+        mPool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Decodes each of the recordings concurrently and returns the combined results
+     *
+     * @param recordings to replay
+     * @return combined replay results
+     */
+    public ReplayResult replay(List<Path> recordings) throws InterruptedException
+    {
+        long start = System.nanoTime();
+
+        List<Future<ReplayResult>> futures = new ArrayList<>();
+
+        for(Path recording : recordings)
+        {
+            futures.add(mPool.submit(new ReplayTask(recording)));
+        }
+
+        ReplayResult combined = new ReplayResult();
+
+        for(int x = 0; x < futures.size(); x++)
+        {
+            try
+            {
+                combined.add(futures.get(x).get());
+            }
+            catch(ExecutionException ee)
+            {
+                mLog.error("Error replaying recording [" + recordings.get(x) + "]", ee.getCause());
+                combined.mFailedRecordings++;
+            }
+        }
+
+        combined.mElapsedNanos = System.nanoTime() - start;
+
+        return combined;
+    }
+
+    /**
+     * Shuts down the fork-join pool
+     */
+    public void dispose()
+    {
+        mPool.shutdown();
+    }
+
+    /**
+     * Logs the throughput and message type histogram for the replay results
+     */
+    public void log(String label, ReplayResult result)
+    {
+        DecimalFormat df = new DecimalFormat("#,##0.0");
+        double seconds = result.mElapsedNanos / 1E9;
+        double recordedSeconds = (result.mBytes * 8.0) / mDecoderType.getProtocol().getBitRate();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(label).append(" - ").append(mDecoderType).append(" - recordings:").append(result.mRecordings);
+
+        if(result.mFailedRecordings > 0)
+        {
+            sb.append(" failed:").append(result.mFailedRecordings);
+        }
+
+        sb.append(" bytes:").append(result.mBytes);
+        sb.append(" messages:").append(result.mMessages);
+        sb.append(" invalid:").append(result.mInvalidMessages);
+        sb.append(" elapsed:").append(df.format(seconds * 1000.0)).append(" ms");
+        sb.append(" throughput:").append(df.format(result.mMessages / seconds)).append(" messages/sec");
+        sb.append(" decode rate:").append(df.format(recordedSeconds / seconds)).append("x real time");
+        sb.append("\n\tMessage Type Histogram:");
+
+        result.mHistogram.entrySet().stream()
+            .sorted(Map.Entry.<String,long[]>comparingByValue((a, b) -> Long.compare(b[0], a[0]))
+                .thenComparing(Map.Entry.comparingByKey()))
+            .forEach(entry -> sb.append("\n\t").append(String.format("%12d", entry.getValue()[0]))
+                .append("  ").append(entry.getKey()));
+
+        mLog.info(sb.toString());
+    }
+
+    /**
+     * Decodes a single recording through its own framer and message processor
+     */
+    public class ReplayTask implements Callable<ReplayResult>
+    {
+        private Path mRecording;
+
+        public ReplayTask(Path recording)
+        {
+            mRecording = recording;
+        }
+
+        @Override
+        public ReplayResult call() throws IOException
+        {
+            ReplayResult result = new ReplayResult();
+            long start = System.nanoTime();
+
+            try(MappedBinaryReader reader = new MappedBinaryReader(mRecording, BUFFER_SIZE))
+            {
+                if(mDecoderType == DecoderType.P25_PHASE1)
+                {
+                    P25P1MessageFramer messageFramer = new P25P1MessageFramer(null, mDecoderType.getProtocol().getBitRate());
+                    P25P1MessageProcessor messageProcessor = new P25P1MessageProcessor();
+                    messageFramer.setListener(messageProcessor);
+                    messageProcessor.setMessageListener(result);
+
+                    while(reader.hasNext())
+                    {
+                        messageFramer.receive(reader.next());
+                    }
+                }
+                else
+                {
+                    P25P2MessageFramer messageFramer = new P25P2MessageFramer(null, mDecoderType.getProtocol().getBitRate());
+
+                    if(mScrambleParameters != null)
+                    {
+                        messageFramer.setScrambleParameters(mScrambleParameters);
+                    }
+
+                    P25P2MessageProcessor messageProcessor = new P25P2MessageProcessor();
+                    messageFramer.setListener(messageProcessor);
+                    messageProcessor.setMessageListener(result);
+
+                    while(reader.hasNext())
+                    {
+                        messageFramer.receive(reader.next());
+                    }
+                }
+
+                result.mBytes = reader.getFileSize();
+            }
+
+            result.mRecordings = 1;
+            result.mElapsedNanos = System.nanoTime() - start;
+
+            mLog.debug("Replayed [" + mRecording.getFileName() + "] messages:" + result.mMessages + " elapsed:" +
+                ((result.mElapsedNanos) / 1_000_000) + " ms");
+
+            return result;
+        }
+    }
+
+    /**
+     * Replay counts and message type histogram for one or more recordings.  Also serves as the message listener
+     * for a single recording's message processor.
+     */
+    public static class ReplayResult implements Listener<IMessage>
+    {
+        private Map<String,long[]> mHistogram = new HashMap<>();
+        private long mMessages;
+        private long mInvalidMessages;
+        private long mBytes;
+        private long mElapsedNanos;
+        private int mRecordings;
+        private int mFailedRecordings;
+
+        @Override
+        public void receive(IMessage message)
+        {
+            mMessages++;
+
+            if(!message.isValid())
+            {
+                mInvalidMessages++;
+            }
+
+            mHistogram.computeIfAbsent(message.getClass().getSimpleName(), key -> new long[1])[0]++;
+        }
+
+        /**
+         * Adds the counts from the other result to this result
+         */
+        private void add(ReplayResult other)
+        {
+            mMessages += other.mMessages;
+            mInvalidMessages += other.mInvalidMessages;
+            mBytes += other.mBytes;
+            mRecordings += other.mRecordings;
+            mFailedRecordings += other.mFailedRecordings;
+
+            for(Map.Entry<String,long[]> entry : other.mHistogram.entrySet())
+            {
+                mHistogram.computeIfAbsent(entry.getKey(), key -> new long[1])[0] += entry.getValue()[0];
+            }
+        }
+
+        /**
+         * Total decoded messages
+         */
+        public long getMessageCount()
+        {
+            return mMessages;
+        }
+
+        /**
+         * Decoded message count for each message type (simple class name)
+         */
+        public Map<String,Long> getHistogram()
+        {
+            Map<String,Long> histogram = new HashMap<>();
+            mHistogram.forEach((key, value) -> histogram.put(key, value[0]));
+            return histogram;
+        }
+    }
+
+    /**
+     * Finds the recordings at the path, which can be a single recording or a directory of recordings
+     */
+    private static List<Path> findRecordings(Path path, String glob) throws IOException
+    {
+        List<Path> recordings = new ArrayList<>();
+
+        if(Files.isDirectory(path))
+        {
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(path, glob))
+            {
+                stream.forEach(recordings::add);
+            }
+
+            recordings.sort(null);
+        }
+        else
+        {
+            recordings.add(path);
+        }
+
+        return recordings;
+    }
+
+    public static void main(String[] args)
+    {
+        if(args.length < 2)
+        {
+            mLog.info("Usage: P25BitstreamReplay P25P1|P25P2 directory|file [glob] [threads=N] [rounds=N] " +
+                "[scramble=wacn,system,nac]");
+            return;
+        }
+
+        DecoderType decoderType = args[0].equalsIgnoreCase("P25P2") ? DecoderType.P25_PHASE2 : DecoderType.P25_PHASE1;
+        Path path = Paths.get(args[1]);
+        String glob = DEFAULT_GLOB;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int rounds = 3;
+        ScrambleParameters scrambleParameters = null;
+
+        for(int x = 2; x < args.length; x++)
+        {
+            String arg = args[x];
+
+            if(arg.startsWith("threads="))
+            {
+                threads = Integer.parseInt(arg.substring(8));
+            }
+            else if(arg.startsWith("rounds="))
+            {
+                rounds = Integer.parseInt(arg.substring(7));
+            }
+            else if(arg.startsWith("scramble="))
+            {
+                String[] values = arg.substring(9).split(",");
+                scrambleParameters = new ScrambleParameters(Integer.parseInt(values[0].trim()),
+                    Integer.parseInt(values[1].trim()), Integer.parseInt(values[2].trim()));
+            }
+            else
+            {
+                glob = arg;
+            }
+        }
+
+        P25BitstreamReplay replay = new P25BitstreamReplay(decoderType, scrambleParameters, threads);
+
+        try
+        {
+            List<Path> recordings = findRecordings(path, glob);
+            mLog.info("Replaying " + recordings.size() + " recordings from [" + path + "] using " + threads + " threads");
+
+            for(int round = 1; round <= rounds; round++)
+            {
+                replay.log("Round " + round, replay.replay(recordings));
+            }
+        }
+        catch(Exception e)
+        {
+            mLog.error("Error replaying bitstream recordings", e);
+        }
+        finally
+        {
+            replay.dispose();
+        }
+    }
+}
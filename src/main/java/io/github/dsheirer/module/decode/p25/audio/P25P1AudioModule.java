@@ -19,6 +19,7 @@
 package io.github.dsheirer.module.decode.p25.audio;
 
 import io.github.dsheirer.alias.AliasList;
+import io.github.dsheirer.audio.IAudioFrameDecoder;
 import io.github.dsheirer.audio.codec.mbe.ImbeAudioModule;
 import io.github.dsheirer.audio.squelch.SquelchState;
 import io.github.dsheirer.audio.squelch.SquelchStateEvent;
@@ -51,6 +52,15 @@ public class P25P1AudioModule extends ImbeAudioModule
         return 0;
     }
 
+    /**
+     * Creates a decoder that applies the audio gain to the decoded IMBE frames
+     */
+    @Override
+    protected IAudioFrameDecoder createAudioFrameDecoder()
+    {
+        return createAudioFrameDecoder(mGain);
+    }
+
     @Override
     public Listener<SquelchStateEvent> getSquelchStateListener()
     {
@@ -118,7 +128,8 @@ public class P25P1AudioModule extends ImbeAudioModule
     }
 
     /**
-     * Processes an audio packet by decoding the IMBE audio frames and rebroadcasting them as PCM audio packets.
+     * Processes an audio packet by adding the IMBE audio frames to the audio segment.  The frames are decoded to PCM
+     * audio on demand when a consumer of the audio segment requests the audio.
      */
     private void processAudio(LDUMessage ldu)
     {
@@ -126,9 +137,7 @@ public class P25P1AudioModule extends ImbeAudioModule
         {
             for(byte[] frame : ldu.getIMBEFrames())
             {
-                float[] audio = getAudioCodec().getAudio(frame);
-                audio = mGain.apply(audio);
-                addAudio(audio);
+                addVocoderFrame(frame);
             }
         }
         else
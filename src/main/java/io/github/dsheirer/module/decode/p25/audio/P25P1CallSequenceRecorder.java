@@ -25,7 +25,6 @@ package io.github.dsheirer.module.decode.p25.audio;
 
 import io.github.dsheirer.audio.codec.mbe.MBECallSequence;
 import io.github.dsheirer.audio.codec.mbe.MBECallSequenceRecorder;
-import io.github.dsheirer.bits.BinaryMessage;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.module.decode.p25.phase1.message.P25Message;
 import io.github.dsheirer.module.decode.p25.phase1.message.lc.LinkControlWord;
@@ -48,8 +47,8 @@ import org.slf4j.LoggerFactory;
 import java.util.List;
 
 /**
- * P25 Phase 1 IMBE Frame recorder generates P25 call sequence recordings containing JSON representations of audio
- * frames, optional encryption and call identifiers.
+ * P25 Phase 1 IMBE Frame recorder generates P25 call sequence recordings containing audio frames, optional
+ * encryption and call identifiers.
  */
 public class P25P1CallSequenceRecorder extends MBECallSequenceRecorder
 {
@@ -142,7 +141,7 @@ public class P25P1CallSequenceRecorder extends MBECallSequenceRecorder
     {
         if(mCallSequence == null)
         {
-            mCallSequence = new MBECallSequence(PROTOCOL);
+            mCallSequence = createCallSequence(PROTOCOL, -1);
         }
 
         if(lduMessage instanceof LDU1Message)
@@ -160,8 +159,7 @@ public class P25P1CallSequenceRecorder extends MBECallSequenceRecorder
 
         for(byte[] frame : voiceFrames)
         {
-            BinaryMessage frameBits = BinaryMessage.from(frame);
-            mCallSequence.addVoiceFrame(baseTimestamp, frameBits.toHexString());
+            mCallSequence.addVoiceFrame(baseTimestamp, frame);
 
             //Voice frames are 20 milliseconds each, so we increment the timestamp by 20 for each one
             baseTimestamp += 20;
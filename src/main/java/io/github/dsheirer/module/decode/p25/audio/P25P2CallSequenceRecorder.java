@@ -45,8 +45,8 @@ import org.slf4j.LoggerFactory;
 import java.util.List;
 
 /**
- * P25 Phase 2 AMBE Frame recorder generates P25 call sequence recordings containing JSON representations of audio
- * frames, optional encryption and call identifiers.
+ * P25 Phase 2 AMBE Frame recorder generates P25 call sequence recordings containing audio frames, optional
+ * encryption and call identifiers.
  */
 public class P25P2CallSequenceRecorder extends MBECallSequenceRecorder
 {
@@ -162,7 +162,7 @@ public class P25P2CallSequenceRecorder extends MBECallSequenceRecorder
         {
             if(mCallSequence == null)
             {
-                mCallSequence = new MBECallSequence(PROTOCOL);
+                mCallSequence = createCallSequence(PROTOCOL, getTimeslot());
             }
 
             List<BinaryMessage> voiceFrames = voiceTimeslot.getVoiceFrames();
@@ -171,7 +171,7 @@ public class P25P2CallSequenceRecorder extends MBECallSequenceRecorder
 
             for(BinaryMessage frame : voiceFrames)
             {
-                mCallSequence.addVoiceFrame(baseTimestamp, frame.toHexString());
+                mCallSequence.addVoiceFrame(baseTimestamp, frame.toByteArray());
 
                 //Voice frames are 20 milliseconds each, so we increment the timestamp by 20 for each one
                 baseTimestamp += 20;
@@ -211,7 +211,7 @@ public class P25P2CallSequenceRecorder extends MBECallSequenceRecorder
         {
             if(mCallSequence == null && isActive)
             {
-                mCallSequence = new MBECallSequence(PROTOCOL);
+                mCallSequence = createCallSequence(PROTOCOL, getTimeslot());
             }
 
             if(mCallSequence != null)
@@ -366,7 +366,7 @@ public class P25P2CallSequenceRecorder extends MBECallSequenceRecorder
 
                 if(mCallSequence == null)
                 {
-                    mCallSequence = new MBECallSequence(PROTOCOL);
+                    mCallSequence = createCallSequence(PROTOCOL, getTimeslot());
                 }
                 mCallSequence.setFromIdentifier(ptt.getSourceAddress().toString());
                 mCallSequence.setToIdentifier(ptt.getGroupAddress().toString());
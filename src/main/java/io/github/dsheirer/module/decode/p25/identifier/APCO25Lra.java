@@ -21,6 +21,7 @@ package io.github.dsheirer.module.decode.p25.identifier;
 
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
@@ -28,6 +29,8 @@ import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Lra extends IntegerIdentifier
 {
+    private static final IdentifierCache<APCO25Lra> sCache = new IdentifierCache<>(Protocol.APCO25, "LRA", 1000);
+
     public APCO25Lra(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.LOCATION_REGISTRATION_AREA, Role.BROADCAST);
@@ -44,6 +47,6 @@ public class APCO25Lra extends IntegerIdentifier
      */
     public static Identifier create(int lra)
     {
-        return new APCO25Lra(lra);
+        return sCache.get(Role.BROADCAST, lra, value -> new APCO25Lra(value));
     }
 }
@@ -21,6 +21,7 @@ package io.github.dsheirer.module.decode.p25.identifier;
 
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
@@ -28,6 +29,8 @@ import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Nac extends IntegerIdentifier
 {
+    private static final IdentifierCache<APCO25Nac> sCache = new IdentifierCache<>(Protocol.APCO25, "NAC", 1000);
+
     public APCO25Nac(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.NETWORK_ACCESS_CODE, Role.BROADCAST);
@@ -50,6 +53,6 @@ public class APCO25Nac extends IntegerIdentifier
      */
     public static Identifier create(int nac)
     {
-        return new APCO25Nac(nac);
+        return sCache.get(Role.BROADCAST, nac, value -> new APCO25Nac(value));
     }
 }
@@ -21,6 +21,7 @@ package io.github.dsheirer.module.decode.p25.identifier;
 
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
@@ -28,6 +29,8 @@ import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Rfss extends IntegerIdentifier
 {
+    private static final IdentifierCache<APCO25Rfss> sCache = new IdentifierCache<>(Protocol.APCO25, "RFSS", 1000);
+
     public APCO25Rfss(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.RF_SUBSYSTEM, Role.BROADCAST);
@@ -44,6 +47,6 @@ public class APCO25Rfss extends IntegerIdentifier
      */
     public static Identifier create(int rfss)
     {
-        return new APCO25Rfss(rfss);
+        return sCache.get(Role.BROADCAST, rfss, value -> new APCO25Rfss(value));
     }
 }
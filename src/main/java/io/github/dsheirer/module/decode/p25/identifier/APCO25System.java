@@ -21,6 +21,7 @@ package io.github.dsheirer.module.decode.p25.identifier;
 
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
@@ -28,6 +29,8 @@ import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25System extends IntegerIdentifier
 {
+    private static final IdentifierCache<APCO25System> sCache = new IdentifierCache<>(Protocol.APCO25, "System", 1000);
+
     public APCO25System(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.SYSTEM, Role.BROADCAST);
@@ -43,6 +46,6 @@ public class APCO25System extends IntegerIdentifier
      */
     public static Identifier create(int system)
     {
-        return new APCO25System(system);
+        return sCache.get(Role.BROADCAST, system, value -> new APCO25System(value));
     }
 }
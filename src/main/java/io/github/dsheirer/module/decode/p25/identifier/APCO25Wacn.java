@@ -21,6 +21,7 @@ package io.github.dsheirer.module.decode.p25.identifier;
 
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
@@ -28,6 +29,8 @@ import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Wacn extends IntegerIdentifier
 {
+    private static final IdentifierCache<APCO25Wacn> sCache = new IdentifierCache<>(Protocol.APCO25, "WACN", 1000);
+
     public APCO25Wacn(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.WACN, Role.BROADCAST);
@@ -44,6 +47,6 @@ public class APCO25Wacn extends IntegerIdentifier
      */
     public static Identifier create(int wacn)
     {
-        return new APCO25Wacn(wacn);
+        return sCache.get(Role.BROADCAST, wacn, value -> new APCO25Wacn(value));
     }
 }
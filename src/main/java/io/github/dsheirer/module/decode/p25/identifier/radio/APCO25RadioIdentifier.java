@@ -22,6 +22,7 @@
 
 package io.github.dsheirer.module.decode.p25.identifier.radio;
 
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.radio.RadioIdentifier;
 import io.github.dsheirer.protocol.Protocol;
@@ -31,6 +32,8 @@ import io.github.dsheirer.protocol.Protocol;
  */
 public class APCO25RadioIdentifier extends RadioIdentifier
 {
+    private static final IdentifierCache<RadioIdentifier> sCache = new IdentifierCache<>(Protocol.APCO25, "Radio");
+
     public APCO25RadioIdentifier(Integer value, Role role)
     {
         super(value, role);
@@ -47,7 +50,7 @@ public class APCO25RadioIdentifier extends RadioIdentifier
      */
     public static RadioIdentifier createTo(int radioId)
     {
-        return new APCO25RadioIdentifier(radioId, Role.TO);
+        return sCache.get(Role.TO, radioId, value -> new APCO25RadioIdentifier(value, Role.TO));
     }
 
     /**
@@ -55,7 +58,7 @@ public class APCO25RadioIdentifier extends RadioIdentifier
      */
     public static RadioIdentifier createFrom(int radioId)
     {
-        return new APCO25RadioIdentifier(radioId, Role.FROM);
+        return sCache.get(Role.FROM, radioId, value -> new APCO25RadioIdentifier(value, Role.FROM));
     }
 
     /**
@@ -63,6 +66,6 @@ public class APCO25RadioIdentifier extends RadioIdentifier
      */
     public static RadioIdentifier createAny(int radioId)
     {
-        return new APCO25RadioIdentifier(radioId, Role.ANY);
+        return sCache.get(Role.ANY, radioId, value -> new APCO25RadioIdentifier(value, Role.ANY));
     }
 }
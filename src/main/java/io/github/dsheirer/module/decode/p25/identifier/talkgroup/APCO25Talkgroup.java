@@ -22,12 +22,16 @@
 
 package io.github.dsheirer.module.decode.p25.identifier.talkgroup;
 
+import io.github.dsheirer.identifier.IdentifierCache;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.talkgroup.TalkgroupIdentifier;
 import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Talkgroup extends TalkgroupIdentifier
 {
+    private static final IdentifierCache<TalkgroupIdentifier> sCache =
+        new IdentifierCache<>(Protocol.APCO25, "Talkgroup");
+
     public APCO25Talkgroup(Integer value)
     {
         super(value, Role.TO);
@@ -49,7 +53,7 @@ public class APCO25Talkgroup extends TalkgroupIdentifier
      */
     public static TalkgroupIdentifier create(int talkgroup)
     {
-        return new APCO25Talkgroup(talkgroup);
+        return sCache.get(Role.TO, talkgroup, value -> new APCO25Talkgroup(value));
     }
 
     /**
@@ -57,6 +61,6 @@ public class APCO25Talkgroup extends TalkgroupIdentifier
      */
     public static TalkgroupIdentifier createAny(int talkgroup)
     {
-        return new APCO25Talkgroup(talkgroup, Role.ANY);
+        return sCache.get(Role.ANY, talkgroup, value -> new APCO25Talkgroup(value, Role.ANY));
     }
 }
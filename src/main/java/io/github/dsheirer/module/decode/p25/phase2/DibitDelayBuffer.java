@@ -22,81 +22,170 @@
 
 package io.github.dsheirer.module.decode.p25.phase2;
 
-import io.github.dsheirer.bits.BitSetFullException;
 import io.github.dsheirer.bits.CorrectedBinaryMessage;
 import io.github.dsheirer.dsp.symbol.Dibit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
 /**
  * Circular buffer for storing and accessing dibits.
+ *
+ * Dibits are packed two bits per dibit into 64-bit words, in transmitted (message) bit order: bit 1 of a dibit is
+ * stored at the lower bit index and bit 2 at the next higher bit index.  Windows of the buffer are extracted as
+ * packed words, so that sync pattern checks and message extraction don't allocate intermediate dibit arrays.
  */
 public class DibitDelayBuffer
 {
     private final static Logger mLog = LoggerFactory.getLogger(DibitDelayBuffer.class);
 
-    protected Dibit[] mBuffer;
+    //Dibits indexed by packed (message bit order) value: bit 1 in bit position 0 and bit 2 in bit position 1
+    private static final Dibit[] PACKED_DIBITS = {Dibit.D00_PLUS_1, Dibit.D10_MINUS_1, Dibit.D01_PLUS_3,
+        Dibit.D11_MINUS_3};
+
+    protected long[] mBuffer;
+    protected int mLength;
     protected int mPointer;
+    private long[] mWindow = new long[0];
 
     /**
-     * Constructs a dibit delay buffer of the specified length
+     * Constructs a dibit delay buffer of the specified length.  The buffer is preloaded with D00_PLUS_1 dibits.
      */
     public DibitDelayBuffer(int length)
     {
-        mBuffer = new Dibit[length];
+        mLength = length;
+        mBuffer = new long[(length * 2 + 63) / 64];
+    }
 
-        //Preload the buffer to avoid null pointers
-        for(int x = 0; x < length; x++)
-        {
-            mBuffer[x] = Dibit.D00_PLUS_1;
-        }
+    /**
+     * Length of this buffer in dibits
+     */
+    public int getLength()
+    {
+        return mLength;
+    }
+
+    /**
+     * Packed (message bit order) value for the dibit
+     */
+    private static int pack(Dibit dibit)
+    {
+        return (dibit.getBit1() ? 1 : 0) | (dibit.getBit2() ? 2 : 0);
+    }
+
+    /**
+     * Packed value of the dibit at the physical buffer index
+     */
+    private int getPacked(int index)
+    {
+        return (int)(mBuffer[index >> 5] >>> ((index & 31) * 2)) & 3;
+    }
+
+    /**
+     * Dibit at the logical index
+     * @param index where 0 is the oldest dibit and the newest dibit is buffer length - 1
+     * @return dibit
+     */
+    public Dibit getDibit(int index)
+    {
+        return PACKED_DIBITS[getPacked((mPointer + index) % mLength)];
     }
 
     /**
      * Returns an ordered buffer of the internal circular buffer contents.
+     *
+     * Note: this method allocates a new array.  Use getBuffer(int,int,Dibit[]) to copy into a reusable array.
      */
     public Dibit[] getBuffer()
     {
-        Dibit[] transferBuffer = new Dibit[mBuffer.length];
+        return getBuffer(0, mLength);
+    }
+
+    /**
+     * Returns an ordered buffer of a portion of the internal circular buffer contents.
+     *
+     * Note: this method allocates a new array.  Use getBuffer(int,int,Dibit[]) to copy into a reusable array.
+     */
+    public Dibit[] getBuffer(int start, int length)
+    {
+        Dibit[] transferBuffer = new Dibit[length];
+        getBuffer(start, length, transferBuffer);
+        return transferBuffer;
+    }
 
-        int transferBufferPointer = 0;
-        int bufferPointer = mPointer;
+    /**
+     * Copies a portion of the internal circular buffer contents into the destination array.
+     *
+     * @param start dibit index where 0 is the oldest dibit and the newest dibit is buffer length - 1
+     * @param length number of dibits to copy
+     * @param destination array to receive the dibits, sized to at least the length
+     */
+    public void getBuffer(int start, int length, Dibit[] destination)
+    {
+        int bufferPointer = (mPointer + start) % mLength;
 
-        while(transferBufferPointer < transferBuffer.length)
+        for(int x = 0; x < length; x++)
         {
-            transferBuffer[transferBufferPointer++] = mBuffer[bufferPointer++];
+            destination[x] = PACKED_DIBITS[getPacked(bufferPointer++)];
 
-            if(bufferPointer >= mBuffer.length)
+            if(bufferPointer >= mLength)
             {
                 bufferPointer = 0;
             }
         }
-
-        return transferBuffer;
     }
 
-    public Dibit[] getBuffer(int start, int length)
+    /**
+     * Extracts up to 32 dibits (64 bits) from the buffer as a packed value in message bit order, where the first
+     * message bit is bit 0 of the returned value.
+     *
+     * @param start dibit index where 0 is the oldest dibit and the newest dibit is buffer length - 1
+     * @param dibitLength number of dibits, 1 - 32
+     * @return packed bits
+     */
+    public long getBits(int start, int dibitLength)
     {
-        Dibit[] transferBuffer = new Dibit[length];
+        int physicalStart = (mPointer + start) % mLength;
+        int firstLength = Math.min(dibitLength, mLength - physicalStart);
 
-        int transferBufferPointer = 0;
-        int bufferPointer = (mPointer + start) % mBuffer.length;
+        long bits = readBits(mBuffer, physicalStart * 2, firstLength * 2);
 
-        while(transferBufferPointer < transferBuffer.length)
+        if(firstLength < dibitLength)
         {
-            transferBuffer[transferBufferPointer++] = mBuffer[bufferPointer++];
-
-            if(bufferPointer >= mBuffer.length)
-            {
-                bufferPointer = 0;
-            }
+            bits |= readBits(mBuffer, 0, (dibitLength - firstLength) * 2) << (firstLength * 2);
         }
 
-        return transferBuffer;
+        return bits;
     }
 
     /**
-     * Extracts a corrected binary message from the dibit buffer
+     * Copies a window of the buffer into the destination words as packed bits in message bit order (ie in
+     * BitSet.toLongArray() order).  The destination words covering the window are overwritten.
+     *
+     * @param start dibit index where 0 is the oldest dibit and the newest dibit is buffer length - 1
+     * @param dibitLength number of dibits to copy
+     * @param destination words, sized to at least (dibitLength * 2 + 63) / 64
+     */
+    public void getBits(int start, int dibitLength, long[] destination)
+    {
+        Arrays.fill(destination, 0, (dibitLength * 2 + 63) / 64, 0l);
+
+        int physicalStart = (mPointer + start) % mLength;
+        int firstLength = Math.min(dibitLength, mLength - physicalStart);
+
+        copyBits(mBuffer, physicalStart * 2, destination, 0, firstLength * 2);
+
+        if(firstLength < dibitLength)
+        {
+            copyBits(mBuffer, 0, destination, firstLength * 2, (dibitLength - firstLength) * 2);
+        }
+    }
+
+    /**
+     * Extracts a corrected binary message from the dibit buffer.  The window is extracted into a reusable packed
+     * word array and only the set bits are transferred to the message, so the message is the only allocation.
      *
      * @param start dibit index where 0 is the oldest dibit and the newest dibit is buffer length - 1
      * @param dibitLength number of dibits to include in the message, making the message length = dibitLength * 2
@@ -104,51 +193,93 @@ public class DibitDelayBuffer
      */
     public CorrectedBinaryMessage getMessage(int start, int dibitLength)
     {
-        CorrectedBinaryMessage message = new CorrectedBinaryMessage(dibitLength * 2);
+        int bitLength = dibitLength * 2;
+        int wordCount = (bitLength + 63) / 64;
 
-        int dibitCount = 0;
-        int bufferPointer = (mPointer + start) % mBuffer.length;
+        if(mWindow.length < wordCount)
+        {
+            mWindow = new long[wordCount];
+        }
 
-        try
+        getBits(start, dibitLength, mWindow);
+
+        CorrectedBinaryMessage message = new CorrectedBinaryMessage(bitLength);
+
+        for(int x = 0; x < wordCount; x++)
         {
-            while(dibitCount < dibitLength)
+            long word = mWindow[x];
+
+            while(word != 0)
             {
-                Dibit dibit = mBuffer[bufferPointer++];
-                message.add(dibit.getBit1());
-                message.add(dibit.getBit2());
-                dibitCount++;
-
-                if(bufferPointer >= mBuffer.length)
-                {
-                    bufferPointer = 0;
-                }
+                message.set((x << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
             }
         }
-        catch(BitSetFullException e)
+
+        message.setPointer(bitLength);
+
+        return message;
+    }
+
+    /**
+     * Reads up to 64 bits starting at the bit offset
+     */
+    private static long readBits(long[] words, int bitOffset, int bitCount)
+    {
+        int index = bitOffset >> 6;
+        int shift = bitOffset & 63;
+
+        long value = words[index] >>> shift;
+
+        if(shift != 0 && shift + bitCount > 64)
         {
-            //This shouldn't happen
-            mLog.error("Bit set full ??", e);
+            value |= words[index + 1] << (64 - shift);
         }
 
-        return message;
+        return bitCount == 64 ? value : value & ((1l << bitCount) - 1);
     }
 
-    public int[] getBufferAsArray()
+    /**
+     * ORs up to 64 bits into the words starting at the bit offset
+     */
+    private static void writeBits(long[] words, int bitOffset, long value, int bitCount)
     {
-        Dibit[] dibits = getBuffer();
+        int index = bitOffset >> 6;
+        int shift = bitOffset & 63;
 
-        int[] bits = new int[dibits.length * 2];
+        words[index] |= value << shift;
 
-        for(int x = 0; x < dibits.length; x++)
+        if(shift != 0 && shift + bitCount > 64)
         {
-            if(dibits[x].getBit1())
-            {
-                bits[x * 2] = 1;
-            }
-            if(dibits[x].getBit2())
-            {
-                bits[x * 2 + 1] = 1;
-            }
+            words[index + 1] |= value >>> (64 - shift);
+        }
+    }
+
+    /**
+     * Copies the bit range from the source words into the (zeroed) destination words, 64 bits at a time
+     */
+    private static void copyBits(long[] source, int sourceOffset, long[] destination, int destinationOffset,
+                                 int bitLength)
+    {
+        int copied = 0;
+
+        while(copied < bitLength)
+        {
+            int count = Math.min(64, bitLength - copied);
+            writeBits(destination, destinationOffset + copied, readBits(source, sourceOffset + copied, count), count);
+            copied += count;
+        }
+    }
+
+    public int[] getBufferAsArray()
+    {
+        int[] bits = new int[mLength * 2];
+
+        for(int x = 0; x < mLength; x++)
+        {
+            int packed = getPacked((mPointer + x) % mLength);
+            bits[x * 2] = packed & 1;
+            bits[x * 2 + 1] = (packed >> 1) & 1;
         }
 
         return bits;
@@ -159,9 +290,13 @@ public class DibitDelayBuffer
      */
     public void put(Dibit dibit)
     {
-        mBuffer[mPointer++] = dibit;
+        int index = mPointer >> 5;
+        int shift = (mPointer & 31) * 2;
+        mBuffer[index] = (mBuffer[index] & ~(3l << shift)) | ((long)pack(dibit) << shift);
+
+        mPointer++;
 
-        if(mPointer >= mBuffer.length)
+        if(mPointer >= mLength)
         {
             mPointer = 0;
         }
@@ -173,7 +308,7 @@ public class DibitDelayBuffer
      */
     public Dibit getAndPut(Dibit dibit)
     {
-        Dibit toReturn = mBuffer[mPointer];
+        Dibit toReturn = PACKED_DIBITS[getPacked(mPointer)];
         put(dibit);
         return toReturn;
     }
@@ -182,35 +317,81 @@ public class DibitDelayBuffer
     {
         StringBuilder sb = new StringBuilder();
 
-        int counter = 0;
-        int pointer = mPointer;
+        for(int bit: getBufferAsArray())
+        {
+            sb.append(bit);
+        }
+
+        mLog.debug("BUFFER: " + sb + " Length:" + mLength);
+    }
+
+    /**
+     * Measures the heap allocation per superframe (3 x 720-dibit fragments) for the sync pattern checks and fragment
+     * message extraction performed by the super frame detector, comparing dibit array windows against packed windows.
+     */
+    public static void main(String[] args)
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if(!(bean instanceof com.sun.management.ThreadMXBean))
+        {
+            mLog.error("Thread allocation measurement is not supported by this JVM");
+            return;
+        }
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)bean;
+        long threadId = Thread.currentThread().getId();
+
+        DibitDelayBuffer buffer = new DibitDelayBuffer(720);
+        Dibit[] dibits = Dibit.values();
+
+        for(int x = 0; x < 720; x++)
+        {
+            buffer.put(dibits[(x * 7) % 4]);
+        }
+
+        int superframes = 100_000;
+        int errors = 0;
 
-        while(counter < mBuffer.length)
+        for(int round = 0; round < 3; round++)
         {
-            sb.append(mBuffer[pointer].getBit1() ? "1" : "0");
-            sb.append(mBuffer[pointer++].getBit2() ? "1" : "0");
+            long start = threadBean.getThreadAllocatedBytes(threadId);
 
-            if(pointer >= mBuffer.length)
+            for(int x = 0; x < superframes * 3; x++)
             {
-                pointer = 0;
+                buffer.put(dibits[x & 3]);
+                errors += P25P2SyncPattern.getBitErrorCount(buffer.getBuffer(0, 20));
+                errors += P25P2SyncPattern.getBitErrorCount(buffer.getBuffer(540, 20));
             }
 
-            counter++;
-        }
-        mLog.debug("BUFFER: " + sb + " Length:" + mBuffer.length);
-    }
+            long arrayWindows = threadBean.getThreadAllocatedBytes(threadId) - start;
 
-    public static void main(String[] args)
-    {
-        Dibit[] test = {
-            Dibit.D01_PLUS_3,Dibit.D01_PLUS_3,Dibit.D01_PLUS_3,Dibit.D11_MINUS_3,
-            Dibit.D01_PLUS_3,Dibit.D01_PLUS_3,Dibit.D11_MINUS_3,Dibit.D01_PLUS_3,
-            Dibit.D01_PLUS_3,Dibit.D01_PLUS_3,Dibit.D01_PLUS_3,Dibit.D11_MINUS_3,
-            Dibit.D11_MINUS_3,Dibit.D11_MINUS_3,Dibit.D01_PLUS_3,Dibit.D11_MINUS_3,
-            Dibit.D11_MINUS_3,Dibit.D11_MINUS_3,Dibit.D11_MINUS_3,Dibit.D01_PLUS_3};
+            start = threadBean.getThreadAllocatedBytes(threadId);
 
-        int bitErrors = P25P2SyncPattern.getBitErrorCount(test);
+            for(int x = 0; x < superframes * 3; x++)
+            {
+                buffer.put(dibits[x & 3]);
+                errors += P25P2SyncPattern.getBitErrorCount(buffer.getBits(0, 20));
+                errors += P25P2SyncPattern.getBitErrorCount(buffer.getBits(540, 20));
+            }
+
+            long packedWindows = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+            start = threadBean.getThreadAllocatedBytes(threadId);
+
+            for(int x = 0; x < superframes * 3; x++)
+            {
+                buffer.put(dibits[x & 3]);
+                errors += buffer.getMessage(0, 720).cardinality() & 1;
+            }
+
+            long messages = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+            mLog.info("Round " + round + " allocation per superframe - sync checks with dibit arrays:" +
+                (arrayWindows / superframes) + " bytes, packed sync checks:" + (packedWindows / superframes) +
+                " bytes, fragment messages:" + (messages / superframes) + " bytes");
+        }
 
-        mLog.debug("Bit Errors:" + bitErrors);
+        mLog.debug("Checksum:" + errors);
     }
 }
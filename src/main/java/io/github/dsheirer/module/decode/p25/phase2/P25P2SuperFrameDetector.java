@@ -242,13 +242,13 @@ public class P25P2SuperFrameDetector implements Listener<Dibit>, ISyncDetectList
             if(mSynchronized)
             {
                 //If we're synchronized, then this is a counter based trigger and we check both sync locations
-                Dibit[] sync1Dibits = mFragmentBuffer.getBuffer(DIBIT_DELAY_BUFFER_INDEX_SYNC_1, 20);
-                int sync1BitErrorCount = P25P2SyncPattern.getBitErrorCount(sync1Dibits);
+                int sync1BitErrorCount = P25P2SyncPattern.getBitErrorCount(
+                    mFragmentBuffer.getBits(DIBIT_DELAY_BUFFER_INDEX_SYNC_1, 20));
 
                 if(sync1BitErrorCount <= SYNCHRONIZED_SYNC_MATCH_THRESHOLD)
                 {
-                    Dibit[] sync2Dibits = mFragmentBuffer.getBuffer(DIBIT_DELAY_BUFFER_INDEX_SYNC_2, 20);
-                    int sync2BitErrorCount = P25P2SyncPattern.getBitErrorCount(sync2Dibits);
+                    int sync2BitErrorCount = P25P2SyncPattern.getBitErrorCount(
+                        mFragmentBuffer.getBits(DIBIT_DELAY_BUFFER_INDEX_SYNC_2, 20));
 
                     if(sync2BitErrorCount <= SYNCHRONIZED_SYNC_MATCH_THRESHOLD)
                     {
@@ -271,8 +271,8 @@ public class P25P2SuperFrameDetector implements Listener<Dibit>, ISyncDetectList
 
             //If we're not synchronized, this is a sync detector trigger and we only have to check sync 1 for error
             // count because the sync detector has already triggered on sync 2
-            Dibit[] sync1Dibits = mFragmentBuffer.getBuffer(DIBIT_DELAY_BUFFER_INDEX_SYNC_1, 20);
-            int sync1BitErrorCount = P25P2SyncPattern.getBitErrorCount(sync1Dibits);
+            int sync1BitErrorCount = P25P2SyncPattern.getBitErrorCount(
+                mFragmentBuffer.getBits(DIBIT_DELAY_BUFFER_INDEX_SYNC_1, 20));
 
             if(sync1BitErrorCount <= UN_SYNCHRONIZED_SYNC_MATCH_THRESHOLD)
             {
@@ -33,6 +33,44 @@ public class P25P2SyncPattern
         Dibit.D11_MINUS_3,Dibit.D11_MINUS_3,Dibit.D01_PLUS_3,Dibit.D11_MINUS_3,
         Dibit.D11_MINUS_3,Dibit.D11_MINUS_3,Dibit.D11_MINUS_3,Dibit.D11_MINUS_3};
 
+    //Sync pattern packed in message bit order, matching DibitDelayBuffer.getBits()
+    private static final long SYNC_PATTERN_BITS = pack(SYNC_PATTERN);
+
+    /**
+     * Packs the dibits into a long in message bit order, where bit 1 of the first dibit is bit 0 of the value
+     */
+    private static long pack(Dibit[] dibits)
+    {
+        long bits = 0;
+
+        for(int x = 0; x < dibits.length; x++)
+        {
+            if(dibits[x].getBit1())
+            {
+                bits |= (1l << (x * 2));
+            }
+
+            if(dibits[x].getBit2())
+            {
+                bits |= (1l << (x * 2 + 1));
+            }
+        }
+
+        return bits;
+    }
+
+    /**
+     * Calculates the bit error count for the 40-bit sync pattern packed in message bit order (see
+     * DibitDelayBuffer.getBits())
+     *
+     * @param bits containing 20 packed dibits
+     * @return number of bit errors relative to the sync pattern
+     */
+    public static int getBitErrorCount(long bits)
+    {
+        return Long.bitCount(bits ^ SYNC_PATTERN_BITS);
+    }
+
     public static int getBitErrorCount(Dibit[] dibits)
     {
         if(dibits.length != 20)
@@ -120,6 +120,32 @@ public class LinearFeedbackShiftRegister
         return sequence;
     }
 
+    /**
+     * Generates a 4320 bit (de)scrambling sequence for APCO25 Phase II channel superframe, packed into 64-bit words
+     * using the same bit ordering as BitSet.toLongArray() (ie bit N is bit N % 64 of word N / 64).
+     *
+     * @param wacn for the network from the Network Status Broadcast message.
+     * @param system for the network from the Network Status Broadcast message.
+     * @param nac or color code for the network from the Network Status Broadcast message.
+     * @return packed scrambling sequence
+     */
+    public long[] generatePackedScramblingSequence(int wacn, int system, int nac)
+    {
+        updateSeed(wacn, system, nac);
+
+        long[] words = new long[(4320 + 63) / 64];
+
+        for(int x = 0; x < 4320; x++)
+        {
+            if(next())
+            {
+                words[x >> 6] |= (1l << (x & 63));
+            }
+        }
+
+        return words;
+    }
+
     /**
      * Provides the next output bit from the LFSR
      */
@@ -32,14 +32,17 @@ import java.util.List;
 
 /**
  * APCO-25 Phase II scrambling sequence utility that provides scrambling sequence snippets for each of the 12 timeslots
- * in a 12-timeslot super frame.
+ * in a 12-timeslot super frame.  Scrambling sequence snippets are obtained from the process-wide scrambling
+ * sequence cache.
  */
 public class ScramblingSequence
 {
     private final static Logger mLog = LoggerFactory.getLogger(ScramblingSequence.class);
 
-    private LinearFeedbackShiftRegister mShiftRegister = new LinearFeedbackShiftRegister();
     private List<BinaryMessage> mScramblingSegments = new ArrayList<>();
+    private int mWacn;
+    private int mSystem;
+    private int mNac;
 
     /**
      * Constructs an instance
@@ -64,30 +67,25 @@ public class ScramblingSequence
     }
 
     /**
-     * Updates this scrambling sequence with the specified parameters from the Network Broadcast Status message and
-     * generates 12 x 320-bit scrambling sequences for each of the superframe's 12 timeslots.
+     * Updates this scrambling sequence with the 12 x 320-bit scrambling sequences for each of the superframe's 12
+     * timeslots for the specified parameters from the Network Broadcast Status message.
      */
     public void update(int wacn, int system, int nac)
     {
-        if(!mShiftRegister.isCurrent(wacn, system, nac))
+        if(mWacn != wacn || mSystem != system || mNac != nac)
         {
-            mScramblingSegments.clear();
-
-            BinaryMessage scramblingSequence = mShiftRegister.generateScramblingSequence(wacn, system, nac);
-
-            //Note: the scrambling sequence starts at halfway through the first ISCH of the superframe, so we start
-            //chopping the LFSR sequence using 320 of each 360 bits starting at bit 20 of 40 of the first ISCH.
-            for(int x = 20; x < 4320; x += 360)
-            {
-                mScramblingSegments.add(scramblingSequence.getSubMessage(x, x + 320));
-            }
+            mScramblingSegments = ScramblingSequenceCache.getSegments(wacn, system, nac);
+            mWacn = wacn;
+            mSystem = system;
+            mNac = nac;
         }
     }
 
     /**
      * Accesses the scrambling sequence for the specified timeslot index
      * @param timeslot 0 - 11
-     * @return scrambling sequence (320-bits) for the specified timeslot
+     * @return scrambling sequence (320-bits) for the specified timeslot.  Note: the returned sequence is shared and
+     * must not be modified.
      */
     public BinaryMessage getTimeslotSequence(int timeslot)
     {
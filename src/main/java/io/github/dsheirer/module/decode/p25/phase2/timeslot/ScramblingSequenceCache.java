@@ -0,0 +1,171 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module.decode.p25.phase2.timeslot;
+
+import io.github.dsheirer.bits.BinaryMessage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of APCO-25 Phase II timeslot scrambling segments, keyed by WACN, system and NAC.
+ *
+ * Each entry contains the 12 x 320-bit timeslot scrambling segments for a superframe.  Segments are generated once
+ * per WACN/system/NAC as packed 64-bit words, sliced at the word level and shared by every Phase II channel for the
+ * site, so a traffic channel start doesn't regenerate the scrambling sequence.
+ *
+ * Note: cached segments are shared across threads and must be treated as read-only.  Descramble a timeslot by
+ * XOR'ing the segment into the timeslot message (BitSet.xor() operates on 64-bit words).
+ */
+public class ScramblingSequenceCache
+{
+    private static final int MAXIMUM_ENTRIES = 256;
+    private static final int SEGMENT_LENGTH = 320;
+    private static final int SEGMENT_SPACING = 360;
+    private static final int SEGMENT_START = 20;
+
+    private static final Map<Long,List<BinaryMessage>> sCache = new ConcurrentHashMap<>();
+    private static final AtomicLong sHits = new AtomicLong();
+    private static final AtomicLong sMisses = new AtomicLong();
+
+    /**
+     * Utility class - static methods only
+     */
+    private ScramblingSequenceCache()
+    {
+    }
+
+    /**
+     * Timeslot scrambling segments for the WACN, system and NAC
+     *
+     * @param wacn value
+     * @param system value
+     * @param nac value
+     * @return unmodifiable list of 12 x 320-bit read-only scrambling segments
+     */
+    public static List<BinaryMessage> getSegments(int wacn, int system, int nac)
+    {
+        long key = ((long)(0xFFFFF & wacn) << 24) | ((0xFFF & system) << 12) | (0xFFF & nac);
+
+        List<BinaryMessage> segments = sCache.get(key);
+
+        if(segments != null)
+        {
+            sHits.incrementAndGet();
+            return segments;
+        }
+
+        sMisses.incrementAndGet();
+        segments = createSegments(wacn, system, nac);
+
+        //Bound the cache - a single process only ever sees a handful of sites
+        if(sCache.size() < MAXIMUM_ENTRIES)
+        {
+            List<BinaryMessage> existing = sCache.putIfAbsent(key, segments);
+
+            if(existing != null)
+            {
+                return existing;
+            }
+        }
+
+        return segments;
+    }
+
+    /**
+     * Generates the packed scrambling sequence and slices it into timeslot segments.
+     *
+     * Note: the scrambling sequence starts at halfway through the first ISCH of the superframe, so we start chopping
+     * the LFSR sequence using 320 of each 360 bits starting at bit 20 of 40 of the first ISCH.
+     */
+    private static List<BinaryMessage> createSegments(int wacn, int system, int nac)
+    {
+        long[] sequence = new LinearFeedbackShiftRegister().generatePackedScramblingSequence(wacn, system, nac);
+
+        List<BinaryMessage> segments = new ArrayList<>();
+
+        for(int x = 0; x < 12; x++)
+        {
+            long[] words = extract(sequence, SEGMENT_START + (x * SEGMENT_SPACING), SEGMENT_LENGTH);
+            segments.add(new BinaryMessage(BitSet.valueOf(words), SEGMENT_LENGTH));
+        }
+
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Extracts a bit range from the packed words into a new array of packed words
+     *
+     * @param words packed source bits
+     * @param start bit index
+     * @param length in bits
+     * @return packed words containing the bit range, starting at bit 0
+     */
+    static long[] extract(long[] words, int start, int length)
+    {
+        int wordCount = (length + 63) / 64;
+        long[] extracted = new long[wordCount];
+        int shift = start & 63;
+
+        for(int x = 0; x < wordCount; x++)
+        {
+            int index = (start >> 6) + x;
+            long word = words[index] >>> shift;
+
+            if(shift != 0 && index + 1 < words.length)
+            {
+                word |= words[index + 1] << (64 - shift);
+            }
+
+            extracted[x] = word;
+        }
+
+        //Clear any bits beyond the requested length
+        int remainder = length & 63;
+
+        if(remainder != 0)
+        {
+            extracted[wordCount - 1] &= (1l << remainder) - 1;
+        }
+
+        return extracted;
+    }
+
+    /**
+     * Number of cache lookups that found existing segments
+     */
+    public static long getHitCount()
+    {
+        return sHits.get();
+    }
+
+    /**
+     * Number of cache lookups that generated new segments
+     */
+    public static long getMissCount()
+    {
+        return sMisses.get();
+    }
+}
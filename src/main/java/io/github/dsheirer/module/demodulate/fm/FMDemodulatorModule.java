@@ -22,7 +22,9 @@ import io.github.dsheirer.dsp.filter.fir.FIRFilterSpecification;
 import io.github.dsheirer.dsp.filter.fir.complex.ComplexFIRFilter2;
 import io.github.dsheirer.dsp.filter.resample.RealResampler;
 import io.github.dsheirer.dsp.fm.FMDemodulator;
+import io.github.dsheirer.dsp.fm.FastFMDemodulator;
 import io.github.dsheirer.module.Module;
+import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.IReusableBufferProvider;
 import io.github.dsheirer.sample.buffer.IReusableComplexBufferListener;
@@ -37,14 +39,18 @@ import org.slf4j.LoggerFactory;
  * FM Demodulator with integrated fractional resampler.
  *
  * Note: no filtering is applied to the demodulated audio.
+ *
+ * The demodulator implementation is selectable.  The block demodulator (FastFMDemodulator) is used by default and
+ * the original scalar demodulator can be selected by setting the fm.demodulator.fast system property to false.
  */
 public class FMDemodulatorModule extends Module implements ISourceEventListener, IReusableComplexBufferListener,
     Listener<ReusableComplexBuffer>, IReusableBufferProvider
 {
     private final static Logger mLog = LoggerFactory.getLogger(FMDemodulatorModule.class);
+    private static final String FAST_DEMODULATOR_PROPERTY = "fm.demodulator.fast";
 
     private ComplexFIRFilter2 mIQFilter;
-    private FMDemodulator mDemodulator = new FMDemodulator();
+    private FMDemodulator mDemodulator;
     private RealResampler mResampler;
     private SourceEventProcessor mSourceEventProcessor = new SourceEventProcessor();
     private Listener<ReusableFloatBuffer> mResampledReusableBufferListener;
@@ -59,9 +65,24 @@ public class FMDemodulatorModule extends Module implements ISourceEventListener,
      * low pass filter is constructed at runtime based on receiving a sample rate notification source event.
      */
     public FMDemodulatorModule(double channelBandwidth, double outputSampleRate)
+    {
+        this(channelBandwidth, outputSampleRate,
+            SystemProperties.getInstance().get(FAST_DEMODULATOR_PROPERTY, true));
+    }
+
+    /**
+     * Creates an FM demodulator for the specified channel bandwidth and output sample rate, using the specified
+     * demodulator implementation.
+     *
+     * @param channelBandwidth of the channel
+     * @param outputSampleRate of the demodulated audio
+     * @param fastDemodulator true to use the block FastFMDemodulator or false to use the scalar FMDemodulator
+     */
+    public FMDemodulatorModule(double channelBandwidth, double outputSampleRate, boolean fastDemodulator)
     {
         mChannelBandwidth = channelBandwidth;
         mOutputSampleRate = outputSampleRate;
+        mDemodulator = fastDemodulator ? new FastFMDemodulator() : new FMDemodulator();
     }
 
     @Override
@@ -21,10 +21,6 @@
  */
 package io.github.dsheirer.playlist;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import io.github.dsheirer.alias.Alias;
 import io.github.dsheirer.alias.AliasModel;
 import io.github.dsheirer.audio.broadcast.BroadcastModel;
@@ -48,8 +44,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -231,7 +225,7 @@ public class PlaylistManager implements Listener<ChannelEvent>
     }
 
     /**
-     * Checks the path argument to determine if it is a valid V2 playlist file by loading and deserializer the file.
+     * Checks the path argument to determine if it is a V2 playlist file by inspecting the root element of the file.
      * @param path to check
      * @return true if the path is a valid playist.
      */
@@ -242,23 +236,7 @@ public class PlaylistManager implements Listener<ChannelEvent>
             return false;
         }
 
-        JacksonXmlModule xmlModule = new JacksonXmlModule();
-        xmlModule.setDefaultUseWrapper(false);
-        ObjectMapper objectMapper = new XmlMapper(xmlModule);
-
-        try(InputStream in = Files.newInputStream(path))
-        {
-            PlaylistV2 playlist = objectMapper.readValue(in, PlaylistV2.class);
-
-            //If jackson can successfully deserialize the file, then it's a good V2 playlist
-            return true;
-        }
-        catch(IOException ioe)
-        {
-            mLog.error("IO error while reading playlist file", ioe);
-        }
-
-        return false;
+        return PlaylistSerializer.isPlaylist(path);
     }
 
     /**
@@ -270,14 +248,9 @@ public class PlaylistManager implements Listener<ChannelEvent>
     {
         PlaylistV2 playlist = new PlaylistV2();
 
-        try(OutputStream out = Files.newOutputStream(path))
+        try
         {
-            JacksonXmlModule xmlModule = new JacksonXmlModule();
-            xmlModule.setDefaultUseWrapper(false);
-            ObjectMapper objectMapper = new XmlMapper(xmlModule);
-            objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-            objectMapper.writeValue(out, playlist);
-            out.flush();
+            PlaylistSerializer.write(playlist, path);
         }
         catch(IOException ioe)
         {
@@ -403,33 +376,11 @@ public class PlaylistManager implements Listener<ChannelEvent>
             }
         }
 
-        //Create a temporary lock file to signify that we're in the process of updating the playlist
-        if(!Files.exists(playlistPreference.getPlaylistLock()))
-        {
-            try
-            {
-                Files.createFile(playlistPreference.getPlaylistLock());
-            }
-            catch(IOException e)
-            {
-                mLog.error("Error creating temporary lock file prior to saving playlist [" +
-                    playlistPreference.getPlaylistLock().toString() + "]", e);
-            }
-        }
-
-        try(OutputStream out = Files.newOutputStream(playlistPreference.getPlaylist()))
+        try
         {
-            JacksonXmlModule xmlModule = new JacksonXmlModule();
-            xmlModule.setDefaultUseWrapper(false);
-            ObjectMapper objectMapper = new XmlMapper(xmlModule);
-            objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-            objectMapper.writeValue(out, playlist);
-            out.flush();
-
-            //Remove the playlist lock file to indicate that we successfully saved the file
-            if(Files.exists(playlistPreference.getPlaylistLock()))
+            if(!PlaylistSerializer.write(playlist, playlistPreference.getPlaylist()))
             {
-                Files.delete(playlistPreference.getPlaylistLock());
+                mLog.debug("Playlist is unchanged - skipping playlist file update");
             }
         }
         catch(IOException ioe)
@@ -451,7 +402,8 @@ public class PlaylistManager implements Listener<ChannelEvent>
 
         PlaylistV2 playlist = null;
 
-        //Check for a lock file that indicates the previous save attempt was incomplete or had an error
+        //Check for a lock file that indicates the previous save attempt was incomplete or had an error.  Playlist
+        //saves are now atomic, so this only applies to lock files left behind by earlier versions
         if(Files.exists(files.getPlaylistLock()))
         {
             mLog.info("Previous playlist save was incomplete -- restoring from backup file (if possible)");
@@ -481,13 +433,9 @@ public class PlaylistManager implements Listener<ChannelEvent>
         {
             mLog.info("Loading playlist [" + files.getPlaylist().toString() + "]");
 
-            JacksonXmlModule xmlModule = new JacksonXmlModule();
-            xmlModule.setDefaultUseWrapper(false);
-            ObjectMapper objectMapper = new XmlMapper(xmlModule);
-
-            try(InputStream in = Files.newInputStream(files.getPlaylist()))
+            try
             {
-                playlist = objectMapper.readValue(in, PlaylistV2.class);
+                playlist = PlaylistSerializer.read(files.getPlaylist());
 
                 if(PlaylistUpdater.update(playlist))
                 {
@@ -503,13 +451,9 @@ public class PlaylistManager implements Listener<ChannelEvent>
         {
             mLog.info("Loading legacy playlist [" + files.getLegacyPlaylist().toString() + "]");
 
-            JacksonXmlModule xmlModule = new JacksonXmlModule();
-            xmlModule.setDefaultUseWrapper(false);
-            ObjectMapper objectMapper = new XmlMapper(xmlModule);
-
-            try(InputStream in = Files.newInputStream(files.getLegacyPlaylist()))
+            try
             {
-                playlist = objectMapper.readValue(in, PlaylistV2.class);
+                playlist = PlaylistSerializer.read(files.getLegacyPlaylist());
 
                 //Perform any updates that may be needed for the playist.
                 if(PlaylistUpdater.update(playlist))
@@ -0,0 +1,475 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.playlist;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.xml.JacksonXmlAnnotationIntrospector;
+import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import io.github.dsheirer.properties.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Playlist file reader and writer.
+ *
+ * Uses shared, preconfigured Jackson readers and writers (immutable and thread safe) instead of constructing a new
+ * XML mapper for each load or save.  Playlists are streamed to a temporary file in the playlist directory and then
+ * renamed over the playlist, so the playlist file is never left partially written.  A save that produces the same
+ * content as the playlist file on disk (by SHA-256 hash) leaves the playlist file untouched.
+ *
+ * Optional binary snapshot: when the playlist.snapshot.enabled system property is true, a compact binary (Smile)
+ * copy of the playlist is written next to the playlist file with the SHA-256 hash of the XML content that it was
+ * created from.  On load, the snapshot is used instead of parsing the XML when the hash matches the playlist file,
+ * which avoids the XML parsing cost for large playlists.  Any mismatch or snapshot error falls back to the XML.
+ */
+public class PlaylistSerializer
+{
+    private final static Logger mLog = LoggerFactory.getLogger(PlaylistSerializer.class);
+
+    private static final String SNAPSHOT_ENABLED_PROPERTY = "playlist.snapshot.enabled";
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    private static final byte[] SNAPSHOT_MAGIC = "SDRTPLS1".getBytes(StandardCharsets.US_ASCII);
+    private static final String ROOT_ELEMENT = "playlist";
+    private static final int HEADER_SNIFF_LENGTH = 8192;
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final ObjectReader XML_READER;
+    private static final ObjectWriter XML_WRITER;
+    private static final ObjectReader SNAPSHOT_READER;
+    private static final ObjectWriter SNAPSHOT_WRITER;
+
+    static
+    {
+        JacksonXmlModule xmlModule = new JacksonXmlModule();
+        xmlModule.setDefaultUseWrapper(false);
+        XmlMapper xmlMapper = new XmlMapper(xmlModule);
+        xmlMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        XML_READER = xmlMapper.readerFor(PlaylistV2.class);
+        XML_WRITER = xmlMapper.writerFor(PlaylistV2.class);
+
+        //Use the XML annotation names so the snapshot properties match the XML element and attribute names
+        ObjectMapper snapshotMapper = new ObjectMapper(new SmileFactory());
+        snapshotMapper.setAnnotationIntrospector(new JacksonXmlAnnotationIntrospector(false));
+        snapshotMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        SNAPSHOT_READER = snapshotMapper.readerFor(PlaylistV2.class);
+        SNAPSHOT_WRITER = snapshotMapper.writerFor(PlaylistV2.class);
+    }
+
+    /**
+     * Utility class - static methods only
+     */
+    private PlaylistSerializer()
+    {
+    }
+
+    /**
+     * Indicates if the optional binary snapshot is enabled
+     */
+    public static boolean isSnapshotEnabled()
+    {
+        return SystemProperties.getInstance().get(SNAPSHOT_ENABLED_PROPERTY, false);
+    }
+
+    /**
+     * Binary snapshot file for the playlist
+     */
+    public static Path getSnapshotPath(Path playlist)
+    {
+        return Paths.get(playlist.toString() + SNAPSHOT_EXTENSION);
+    }
+
+    /**
+     * Indicates if the file is a playlist by inspecting the root element at the start of the file, without
+     * deserializing the file.
+     *
+     * @param path to check
+     * @return true if the file's root element is a playlist element
+     */
+    public static boolean isPlaylist(Path path)
+    {
+        if(path == null || !Files.isRegularFile(path))
+        {
+            return false;
+        }
+
+        byte[] header = new byte[HEADER_SNIFF_LENGTH];
+        int length = 0;
+
+        try(InputStream in = Files.newInputStream(path))
+        {
+            int read;
+
+            while(length < header.length && (read = in.read(header, length, header.length - length)) > 0)
+            {
+                length += read;
+            }
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("IO error while reading playlist file", ioe);
+            return false;
+        }
+
+        String text = new String(header, 0, length, StandardCharsets.UTF_8);
+        int index = text.startsWith("\uFEFF") ? 1 : 0;
+
+        while(index < text.length())
+        {
+            char c = text.charAt(index);
+
+            if(Character.isWhitespace(c))
+            {
+                index++;
+            }
+            else if(text.startsWith("<?", index))
+            {
+                index = skipPast(text, index, "?>");
+            }
+            else if(text.startsWith("<!--", index))
+            {
+                index = skipPast(text, index, "-->");
+            }
+            else if(text.startsWith("<!", index))
+            {
+                index = skipPast(text, index, ">");
+            }
+            else if(text.startsWith("<" + ROOT_ELEMENT, index))
+            {
+                int next = index + ROOT_ELEMENT.length() + 1;
+
+                if(next >= text.length())
+                {
+                    return false;
+                }
+
+                char terminator = text.charAt(next);
+                return terminator == '>' || terminator == '/' || Character.isWhitespace(terminator);
+            }
+            else
+            {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Index immediately following the terminator, or the text length when the terminator isn't found
+     */
+    private static int skipPast(String text, int index, String terminator)
+    {
+        int end = text.indexOf(terminator, index);
+        return end < 0 ? text.length() : end + terminator.length();
+    }
+
+    /**
+     * Reads the playlist file, using the binary snapshot when enabled and the snapshot matches the playlist file.
+     *
+     * @param path to the playlist XML file
+     * @return playlist
+     * @throws IOException if there is an error reading or parsing the playlist
+     */
+    public static PlaylistV2 read(Path path) throws IOException
+    {
+        if(!isSnapshotEnabled())
+        {
+            try(InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))
+            {
+                return XML_READER.readValue(in);
+            }
+        }
+
+        byte[] hash = hash(path);
+        Path snapshot = getSnapshotPath(path);
+
+        if(Files.exists(snapshot))
+        {
+            try
+            {
+                PlaylistV2 playlist = readSnapshot(snapshot, hash);
+
+                if(playlist != null)
+                {
+                    mLog.info("Loaded playlist from binary snapshot [" + snapshot.toString() + "]");
+                    return playlist;
+                }
+
+                mLog.info("Playlist binary snapshot is out of date - loading playlist XML");
+            }
+            catch(Exception e)
+            {
+                mLog.error("Error reading playlist binary snapshot [" + snapshot.toString() +
+                    "] - loading playlist XML", e);
+            }
+        }
+
+        PlaylistV2 playlist;
+
+        try(InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))
+        {
+            playlist = XML_READER.readValue(in);
+        }
+
+        writeSnapshot(playlist, snapshot, hash);
+
+        return playlist;
+    }
+
+    /**
+     * Writes the playlist to the path using a temporary file and an atomic rename.  When the serialized content is
+     * identical to the existing playlist file, the existing file is left untouched.
+     *
+     * @param playlist to write
+     * @param path for the playlist
+     * @return true if the playlist file was updated or false if the content was unchanged
+     * @throws IOException if there is an error writing the playlist
+     */
+    public static boolean write(PlaylistV2 playlist, Path path) throws IOException
+    {
+        Path temp = createTempFile(path);
+        MessageDigest digest = getDigest();
+
+        try
+        {
+            try(FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+                OutputStream out = new DigestOutputStream(new BufferedOutputStream(fileOut, BUFFER_SIZE), digest))
+            {
+                XML_WRITER.writeValue(out, playlist);
+                out.flush();
+                fileOut.getFD().sync();
+            }
+
+            byte[] hash = digest.digest();
+
+            if(Files.exists(path) && Arrays.equals(hash, hash(path)))
+            {
+                return false;
+            }
+
+            move(temp, path);
+
+            if(isSnapshotEnabled())
+            {
+                writeSnapshot(playlist, getSnapshotPath(path), hash);
+            }
+
+            return true;
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads the binary snapshot when the snapshot's XML hash matches the hash argument
+     *
+     * @return playlist or null if the snapshot doesn't match
+     */
+    private static PlaylistV2 readSnapshot(Path snapshot, byte[] hash) throws IOException
+    {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot),
+            BUFFER_SIZE)))
+        {
+            byte[] magic = new byte[SNAPSHOT_MAGIC.length];
+            in.readFully(magic);
+
+            if(!Arrays.equals(magic, SNAPSHOT_MAGIC))
+            {
+                return null;
+            }
+
+            byte[] snapshotHash = new byte[in.readUnsignedByte()];
+            in.readFully(snapshotHash);
+
+            if(!Arrays.equals(snapshotHash, hash))
+            {
+                return null;
+            }
+
+            return SNAPSHOT_READER.readValue((InputStream)in);
+        }
+    }
+
+    /**
+     * Writes the binary snapshot with the hash of the XML content that the playlist was read from or written to.
+     * Errors are logged and the snapshot is removed, since the XML playlist remains the source of truth.
+     */
+    private static void writeSnapshot(PlaylistV2 playlist, Path snapshot, byte[] hash)
+    {
+        try
+        {
+            Path temp = createTempFile(snapshot);
+
+            try
+            {
+                try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp),
+                    BUFFER_SIZE)))
+                {
+                    out.write(SNAPSHOT_MAGIC);
+                    out.writeByte(hash.length);
+                    out.write(hash);
+                    SNAPSHOT_WRITER.writeValue((OutputStream)out, playlist);
+                }
+
+                move(temp, snapshot);
+            }
+            finally
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+        catch(Exception e)
+        {
+            mLog.error("Error writing playlist binary snapshot [" + snapshot.toString() + "]", e);
+
+            try
+            {
+                Files.deleteIfExists(snapshot);
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error removing playlist binary snapshot [" + snapshot.toString() + "]", ioe);
+            }
+        }
+    }
+
+    /**
+     * Creates an empty temporary file alongside the target file so that it can be renamed over the target.  The
+     * temporary file is created with the default file permissions rather than the owner-only permissions used by
+     * Files.createTempFile(), and the permissions of an existing target file are copied to the temporary file so that
+     * replacing the target doesn't change its permissions.
+     *
+     * @param target file that will be replaced by the temporary file
+     * @return temporary file
+     * @throws IOException if the temporary file can't be created
+     */
+    private static Path createTempFile(Path target) throws IOException
+    {
+        Path directory = target.toAbsolutePath().getParent();
+        String prefix = target.getFileName().toString() + ".";
+
+        while(true)
+        {
+            Path temp = directory.resolve(prefix + Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE) +
+                ".tmp");
+
+            try
+            {
+                Files.createFile(temp);
+            }
+            catch(FileAlreadyExistsException e)
+            {
+                continue;
+            }
+
+            try
+            {
+                if(Files.exists(target) &&
+                    Files.getFileStore(target).supportsFileAttributeView(PosixFileAttributeView.class))
+                {
+                    Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+                }
+            }
+            catch(IOException | UnsupportedOperationException e)
+            {
+                mLog.warn("Unable to copy file permissions from [" + target.toString() + "] - " + e.getMessage());
+            }
+
+            return temp;
+        }
+    }
+
+    /**
+     * Renames the source file over the target file, atomically when supported by the file system
+     */
+    private static void move(Path source, Path target) throws IOException
+    {
+        try
+        {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch(AtomicMoveNotSupportedException e)
+        {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * SHA-256 hash of the file contents
+     */
+    private static byte[] hash(Path path) throws IOException
+    {
+        MessageDigest digest = getDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try(InputStream in = new DigestInputStream(Files.newInputStream(path), digest))
+        {
+            while(in.read(buffer) >= 0)
+            {
+                //Digest is updated as the stream is read
+            }
+        }
+
+        return digest.digest();
+    }
+
+    private static MessageDigest getDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            //SHA-256 is required on every Java platform
+            throw new IllegalStateException("SHA-256 message digest is not available", e);
+        }
+    }
+}
@@ -130,7 +130,7 @@ public class BinaryReader implements Iterator<ReusableByteBuffer>, AutoCloseable
         }
     }
 
-    public class TimestampTracker
+    public static class TimestampTracker
     {
         private final Pattern TIMESTAMP_BITRATE_PATTERN = Pattern.compile(".*(\\d{8}_\\d{6})_(\\d{4,8})BPS_.*.bits");
         private final SimpleDateFormat SDF = new SimpleDateFormat("yyyyMMdd_HHmmss");
@@ -0,0 +1,153 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.record.binary;
+
+import io.github.dsheirer.sample.buffer.ReusableByteBuffer;
+import io.github.dsheirer.sample.buffer.ReusableByteBufferQueue;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Memory-mapped binary (.bits) recording reader.
+ *
+ * Maps the recording into memory in read-only windows and copies each buffer directly from the mapped region, avoiding
+ * the stream and read() call overhead of the BinaryReader.  Intended for replaying large numbers of bitstream
+ * recordings through the message framers.  Buffers are produced in the same sizes and with the same timestamps as
+ * the BinaryReader.
+ *
+ * Note: this class is not thread safe.  Use one reader per thread.
+ */
+public class MappedBinaryReader implements Iterator<ReusableByteBuffer>, AutoCloseable
+{
+    private static final long MAXIMUM_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private ReusableByteBufferQueue mBufferQueue = new ReusableByteBufferQueue("Mapped Binary Reader");
+    private BinaryReader.TimestampTracker mTimestampTracker = new BinaryReader.TimestampTracker();
+    private FileChannel mFileChannel;
+    private MappedByteBuffer mWindow;
+    private long mFileSize;
+    private long mPosition;
+    private int mBufferSize;
+
+    /**
+     * Constructs a memory-mapped binary reader
+     * @param path to the binary file
+     * @param bufferSize for each buffer read from the file
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public MappedBinaryReader(Path path, int bufferSize) throws IOException
+    {
+        if(bufferSize < 1)
+        {
+            throw new IllegalArgumentException("Buffer size must be greater than zero");
+        }
+
+        mBufferSize = bufferSize;
+        mFileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        mFileSize = mFileChannel.size();
+        mTimestampTracker.processFileName(path.toString());
+    }
+
+    /**
+     * Size of the recording in bytes
+     */
+    public long getFileSize()
+    {
+        return mFileSize;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        mWindow = null;
+
+        if(mFileChannel != null)
+        {
+            mFileChannel.close();
+            mFileChannel = null;
+        }
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return mFileChannel != null && mPosition < mFileSize;
+    }
+
+    /**
+     * Returns a full reusable byte buffer, or at the end of the file this method may return a
+     * reusable byte buffer that is less than the requested buffer size, containing the remaining
+     * bytes from the file.
+     */
+    @Override
+    public ReusableByteBuffer next()
+    {
+        if(!hasNext())
+        {
+            throw new NoSuchElementException("End of file");
+        }
+
+        int length = (int)Math.min(mBufferSize, mFileSize - mPosition);
+        ReusableByteBuffer buffer = mBufferQueue.getBuffer(length);
+        byte[] bytes = buffer.getBytes();
+        int offset = 0;
+
+        try
+        {
+            while(offset < length)
+            {
+                MappedByteBuffer window = getWindow();
+                int count = Math.min(length - offset, window.remaining());
+                window.get(bytes, offset, count);
+                offset += count;
+                mPosition += count;
+            }
+        }
+        catch(IOException ioe)
+        {
+            buffer.decrementUserCount();
+            throw new IllegalStateException("Error mapping binary file", ioe);
+        }
+
+        buffer.setTimestamp(mTimestampTracker.getTimestamp());
+        mTimestampTracker.updateBytesProcessed(length);
+
+        return buffer;
+    }
+
+    /**
+     * Mapped window containing the current position, mapping the next window when the current window is exhausted
+     */
+    private MappedByteBuffer getWindow() throws IOException
+    {
+        if(mWindow == null || !mWindow.hasRemaining())
+        {
+            long size = Math.min(MAXIMUM_WINDOW_SIZE, mFileSize - mPosition);
+            mWindow = mFileChannel.map(FileChannel.MapMode.READ_ONLY, mPosition, size);
+        }
+
+        return mWindow;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.sample;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Broadcasts an item to multiple listeners, optimized for hot sample buffer and message paths.
+ *
+ * Listeners are held in an immutable array that is replaced (copy-on-write) and published through a volatile field
+ * whenever a listener is added or removed.  Broadcasting reads the array once and uses an indexed loop, so there is no
+ * locking and no iterator allocation per broadcast, with fast paths for zero and one listeners.
+ *
+ * Note: adding and removing listeners is synchronized and intended to be infrequent relative to broadcasting.
+ */
+public class ArrayBroadcaster<T> implements Listener<T>
+{
+    private static final Listener<?>[] NO_LISTENERS = new Listener<?>[0];
+
+    private volatile Listener<T>[] mListeners = noListeners();
+
+    public ArrayBroadcaster()
+    {
+    }
+
+    /**
+     * Implements the Listener<T> interface to receive an element and broadcast that element to all registered
+     * listeners.
+     *
+     * @param t element to broadcast
+     */
+    @Override
+    public void receive(T t)
+    {
+        broadcast(t);
+    }
+
+    /**
+     * Clear listeners to prepare for garbage collection
+     */
+    public void dispose()
+    {
+        clear();
+    }
+
+    /**
+     * Indicates if this broadcaster has any listeners registered
+     */
+    public boolean hasListeners()
+    {
+        return mListeners.length > 0;
+    }
+
+    /**
+     * Indicates if the listener is currently registered with this broadcaster
+     */
+    public boolean hasListener(Listener<T> listener)
+    {
+        return listener != null && indexOf(mListeners, listener) >= 0;
+    }
+
+    /**
+     * The count of listeners currently registered with this broadcaster
+     */
+    public int getListenerCount()
+    {
+        return mListeners.length;
+    }
+
+    /**
+     * Snapshot of the listeners currently registered with this broadcaster
+     */
+    public List<Listener<T>> getListeners()
+    {
+        return Collections.unmodifiableList(Arrays.asList(mListeners));
+    }
+
+    /**
+     * Current listener array for sub-class broadcast implementations.  The array must not be modified.
+     */
+    protected Listener<T>[] getListenerArray()
+    {
+        return mListeners;
+    }
+
+    /**
+     * Registers the listener to receive elements from this broadcaster
+     *
+     * @param listener
+     */
+    public synchronized void addListener(Listener<T> listener)
+    {
+        if(listener != null && indexOf(mListeners, listener) < 0)
+        {
+            Listener<T>[] listeners = Arrays.copyOf(mListeners, mListeners.length + 1);
+            listeners[listeners.length - 1] = listener;
+            mListeners = listeners;
+        }
+    }
+
+    /**
+     * Deregisters the listener from receiving elements from this broadcaster
+     */
+    public synchronized void removeListener(Listener<T> listener)
+    {
+        if(listener != null)
+        {
+            int index = indexOf(mListeners, listener);
+
+            if(index >= 0)
+            {
+                Listener<T>[] listeners = Arrays.copyOf(mListeners, mListeners.length - 1);
+                System.arraycopy(mListeners, index + 1, listeners, index, listeners.length - index);
+                mListeners = listeners;
+            }
+        }
+    }
+
+    /**
+     * Deregisters all listeners from this broadcaster
+     */
+    public synchronized void clear()
+    {
+        mListeners = noListeners();
+    }
+
+    /**
+     * Shared empty listener array.  The array is empty and never modified, so it can be safely typed for any element.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Listener<T>[] noListeners()
+    {
+        return (Listener<T>[])NO_LISTENERS;
+    }
+
+    /**
+     * Broadcasts the element to all registered listeners
+     */
+    public void broadcast(T t)
+    {
+        Listener<T>[] listeners = mListeners;
+
+        switch(listeners.length)
+        {
+            case 0:
+                break;
+            case 1:
+                listeners[0].receive(t);
+                break;
+            default:
+                for(int x = 0; x < listeners.length; x++)
+                {
+                    listeners[x].receive(t);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Index of the listener in the array, using equality to match Broadcaster semantics
+     */
+    private static int indexOf(Listener<?>[] listeners, Listener<?> listener)
+    {
+        for(int x = 0; x < listeners.length; x++)
+        {
+            if(listeners[x].equals(listener))
+            {
+                return x;
+            }
+        }
+
+        return -1;
+    }
+}
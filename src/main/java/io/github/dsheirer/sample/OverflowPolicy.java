@@ -0,0 +1,62 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.sample;
+
+/**
+ * Policy for handling inbound elements when an overflowable transfer queue exceeds its maximum size.
+ */
+public enum OverflowPolicy
+{
+    /**
+     * Discards all inbound elements once the queue exceeds the maximum size, until the queue is drained to or below
+     * the reset threshold.
+     */
+    DISCARD_UNTIL_RESET("Discard Until Reset"),
+
+    /**
+     * Evicts the oldest queued elements to keep the queue at the maximum size and evicts queued elements that are
+     * older than the maximum age relative to the newest element.
+     */
+    DROP_OLDEST("Drop Oldest"),
+
+    /**
+     * Drops only the inbound element while the queue is at the maximum size.
+     */
+    DROP_NEWEST("Drop Newest"),
+
+    /**
+     * Signals backpressure to the producer once the queue passes the backpressure threshold so that the producer can
+     * stop offering elements until the queue drains to the reset threshold.  Inbound elements that would exceed the
+     * maximum size are dropped.
+     */
+    BACKPRESSURE("Backpressure");
+
+    private String mLabel;
+
+    OverflowPolicy(String label)
+    {
+        mLabel = label;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mLabel;
+    }
+}
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package io.github.dsheirer.sample;
 
+import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.source.Source;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,11 +27,16 @@ import java.util.Collection;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class OverflowableTransferQueue<E>
 {
     private final static Logger mLog = LoggerFactory.getLogger(OverflowableTransferQueue.class);
 
+    public static final String CHANNEL_POLICY_PROPERTY = "channel.queue.overflow.policy";
+    public static final String CHANNEL_MAXIMUM_AGE_PROPERTY = "channel.queue.maximum.age.milliseconds";
+    public static final int DEFAULT_CHANNEL_MAXIMUM_AGE = 1000;
+
     public enum State {NORMAL, OVERFLOW};
     private IOverflowListener mOverflowListener;
     private Source mSourceOverflowListener;
@@ -38,13 +44,35 @@ public class OverflowableTransferQueue<E>
     protected LinkedTransferQueue<E> mQueue = new LinkedTransferQueue<E>();
     protected AtomicInteger mCounter = new AtomicInteger();
     protected AtomicBoolean mOverflow = new AtomicBoolean();
+    protected AtomicBoolean mBackpressure = new AtomicBoolean();
+    private AtomicBoolean mDiscontinuity = new AtomicBoolean();
+    private OverflowPolicy mOverflowPolicy = OverflowPolicy.DISCARD_UNTIL_RESET;
     private int mMaximumSize;
     private int mResetThreshold;
+    private int mBackpressureThreshold;
+    private long mMaximumAge;
+
+    //Gap tracking - producer thread only
+    private long mGapStartTimestamp;
+    private long mGapEndTimestamp;
+    private boolean mGapOpen;
+    private boolean mGapContinued;
+
+    private AtomicLong mDroppedCount = new AtomicLong();
+    private AtomicLong mGapCount = new AtomicLong();
+    private AtomicLong mGapMilliseconds = new AtomicLong();
+    private AtomicLong mLongestGapMilliseconds = new AtomicLong();
 
     /**
      * Concurrent transfer queue that couples a higher-throughput linked transfer queue with an atomic integer for
-     * monitoring queue size.  When the queue size exceeds maximum size (overflow), all inbound elements are ignored
-     * until the queue size is reduced to or below the reset threshold.
+     * monitoring queue size.  When the queue size exceeds maximum size (overflow), inbound elements are handled
+     * according to the overflow policy.  The default policy ignores all inbound elements until the queue size is
+     * reduced to or below the reset threshold.
+     *
+     * Dropped elements are counted and each run of consecutive drops is tracked as a gap in the element stream, with
+     * the gap duration derived from the element timestamps (see getTimestamp()).
+     *
+     * Note: offer() and skipped() should be invoked from a single producer thread.
      *
      * @param maximumSize of the queue.  Overflow state will occur once queue size exceeds this value.
      * @param resetThreshold for resetting overflow state to normal, once queue size is at or below this value.
@@ -53,6 +81,7 @@ public class OverflowableTransferQueue<E>
     {
         mMaximumSize = maximumSize;
         mResetThreshold = resetThreshold;
+        mBackpressureThreshold = resetThreshold + ((maximumSize - resetThreshold) / 2);
     }
 
     public void dispose()
@@ -63,25 +92,237 @@ public class OverflowableTransferQueue<E>
     }
 
     /**
-     * Adds the element to the queue if able to do so without exceeding maximum queue size.  Otherwise, ignores
-     * the element.
+     * Overflow policy for this queue
+     */
+    public OverflowPolicy getOverflowPolicy()
+    {
+        return mOverflowPolicy;
+    }
+
+    /**
+     * Sets the overflow policy for this queue
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy)
+    {
+        mOverflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Sets the maximum age of queued elements relative to the newest element, for the drop oldest policy.
+     *
+     * @param maximumAge in milliseconds, or zero for no age limit
+     */
+    public void setMaximumAge(long maximumAge)
+    {
+        mMaximumAge = maximumAge;
+    }
+
+    /**
+     * Applies the channel queue overflow policy and maximum age from the system properties
+     */
+    public void applyChannelSettings()
+    {
+        String value = SystemProperties.getInstance().get(CHANNEL_POLICY_PROPERTY,
+            OverflowPolicy.DISCARD_UNTIL_RESET.name());
+
+        try
+        {
+            setOverflowPolicy(OverflowPolicy.valueOf(value));
+        }
+        catch(Exception e)
+        {
+            mLog.error("Unrecognized channel queue overflow policy [" + value + "] - using " + mOverflowPolicy.name());
+        }
+
+        setMaximumAge(SystemProperties.getInstance().get(CHANNEL_MAXIMUM_AGE_PROPERTY, DEFAULT_CHANNEL_MAXIMUM_AGE));
+    }
+
+    /**
+     * Adds the element to the queue if able to do so without exceeding maximum queue size.  Otherwise, the element
+     * is handled according to the overflow policy.
      */
     public void offer(E e)
     {
-        if(!mOverflow.get())
+        switch(mOverflowPolicy)
         {
-            mQueue.offer(e);
+            case DROP_OLDEST:
+                closeGap(e);
+                mQueue.offer(e);
+
+                if(mCounter.incrementAndGet() > mMaximumSize || mMaximumAge > 0)
+                {
+                    evict(getTimestamp(e));
+                }
+                break;
+            case DROP_NEWEST:
+            case BACKPRESSURE:
+                if(mCounter.get() >= mMaximumSize)
+                {
+                    drop(e);
+                    overflow(e);
+                }
+                else
+                {
+                    closeGap(e);
+                    mQueue.offer(e);
 
-            int size = mCounter.incrementAndGet();
+                    int size = mCounter.incrementAndGet();
 
-            if(size > mMaximumSize)
+                    if(mOverflowPolicy == OverflowPolicy.BACKPRESSURE && size >= mBackpressureThreshold)
+                    {
+                        mBackpressure.set(true);
+                    }
+                }
+                break;
+            case DISCARD_UNTIL_RESET:
+            default:
+                if(!mOverflow.get())
+                {
+                    closeGap(e);
+                    mQueue.offer(e);
+
+                    int size = mCounter.incrementAndGet();
+
+                    if(size > mMaximumSize)
+                    {
+                        setOverflow(true);
+                    }
+                }
+                else
+                {
+                    drop(e);
+                    overflow(e);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Records an element that the producer skipped in response to backpressure, without queuing it.  The element is
+     * counted as dropped and included in the gap accounting, but ownership of the element is not transferred.
+     *
+     * @param e element that the producer did not offer to this queue
+     */
+    public void skipped(E e)
+    {
+        drop(e);
+    }
+
+    /**
+     * Indicates if the producer should stop offering elements until the queue drains to the reset threshold.  Only
+     * applies to the backpressure policy.
+     */
+    public boolean isBackpressure()
+    {
+        return mBackpressure.get();
+    }
+
+    /**
+     * Evicts the oldest elements while the queue exceeds maximum size or the oldest element exceeds the maximum age,
+     * relative to the newest element timestamp.
+     */
+    private void evict(long newestTimestamp)
+    {
+        boolean evicted = false;
+
+        while(true)
+        {
+            E oldest = mQueue.peek();
+
+            if(oldest == null)
+            {
+                break;
+            }
+
+            boolean expired = mMaximumAge > 0 && newestTimestamp > 0 && getTimestamp(oldest) > 0 &&
+                (newestTimestamp - getTimestamp(oldest)) > mMaximumAge;
+
+            if(mCounter.get() <= mMaximumSize && !expired)
+            {
+                break;
+            }
+
+            //The consumer may have removed the element since the peek - only account for elements we actually remove
+            if(mQueue.remove(oldest))
+            {
+                mCounter.decrementAndGet();
+                drop(oldest);
+                overflow(oldest);
+                evicted = true;
+            }
+        }
+
+        if(evicted)
+        {
+            //Evicted elements precede the remaining elements, so the gap ends at the new head of the queue
+            closeGap(mQueue.peek());
+        }
+    }
+
+    /**
+     * Counts the dropped element and opens a gap or extends the current gap.
+     */
+    private void drop(E e)
+    {
+        mDroppedCount.incrementAndGet();
+        mDiscontinuity.set(true);
+
+        if(!mGapOpen)
+        {
+            mGapOpen = true;
+
+            long timestamp = getTimestamp(e);
+
+            //When the drop policy evicts the element that ended the previous gap (e.g. repeated drop oldest
+            //evictions), the previous gap continues rather than starting a new gap.
+            mGapContinued = timestamp > 0 && timestamp == mGapEndTimestamp;
+
+            if(!mGapContinued)
+            {
+                mGapStartTimestamp = timestamp;
+            }
+
+            if(mOverflowPolicy != OverflowPolicy.DISCARD_UNTIL_RESET)
             {
                 setOverflow(true);
             }
         }
-        else
+    }
+
+    /**
+     * Closes the current gap, if any, using the timestamp of the element that follows the dropped elements.
+     *
+     * @param next element following the gap, or null if not known
+     */
+    private void closeGap(E next)
+    {
+        if(mGapOpen)
         {
-            overflow(e);
+            mGapOpen = false;
+
+            long end = next != null ? getTimestamp(next) : 0;
+
+            if(mGapContinued)
+            {
+                if(end > mGapEndTimestamp)
+                {
+                    mGapMilliseconds.addAndGet(end - mGapEndTimestamp);
+                    mLongestGapMilliseconds.accumulateAndGet(end - mGapStartTimestamp, Math::max);
+                }
+            }
+            else
+            {
+                mGapCount.incrementAndGet();
+
+                if(end > 0 && mGapStartTimestamp > 0 && end > mGapStartTimestamp)
+                {
+                    long duration = end - mGapStartTimestamp;
+                    mGapMilliseconds.addAndGet(duration);
+                    mLongestGapMilliseconds.accumulateAndGet(duration, Math::max);
+                }
+            }
+
+            mGapEndTimestamp = end;
         }
     }
 
@@ -96,6 +337,18 @@ public class OverflowableTransferQueue<E>
         //No-op.  Override in subclass to perform any cleanup actions during overflow
     }
 
+    /**
+     * Timestamp of the element in milliseconds, used for gap durations and maximum age.  Override this method in
+     * subclasses where the element carries a timestamp.
+     *
+     * @param e element
+     * @return timestamp in milliseconds or zero if the element doesn't have a timestamp
+     */
+    protected long getTimestamp(E e)
+    {
+        return 0;
+    }
+
     /**
      * Removes and returns a single element from the head of the queue or null if the queue is empty
      */
@@ -105,7 +358,8 @@ public class OverflowableTransferQueue<E>
 
         if(element != null)
         {
-            mCounter.decrementAndGet();
+            int size = mCounter.decrementAndGet();
+            checkReset(size);
         }
 
         return element;
@@ -120,10 +374,7 @@ public class OverflowableTransferQueue<E>
 
         int size = mCounter.addAndGet(-drainCount);
 
-        if(mOverflow.get() && size <= mResetThreshold)
-        {
-            setOverflow(false);
-        }
+        checkReset(size);
 
         return drainCount;
     }
@@ -137,12 +388,78 @@ public class OverflowableTransferQueue<E>
 
         int size = mCounter.addAndGet(-drainCount);
 
-        if(mOverflow.get() && size <= mResetThreshold)
+        checkReset(size);
+
+        return drainCount;
+    }
+
+    /**
+     * Resets the overflow and backpressure states once the queue size is at or below the reset threshold
+     */
+    private void checkReset(int size)
+    {
+        if(size <= mResetThreshold)
         {
-            setOverflow(false);
+            if(mOverflow.get())
+            {
+                setOverflow(false);
+            }
+
+            mBackpressure.set(false);
         }
+    }
 
-        return drainCount;
+    /**
+     * Indicates if elements were dropped since the last invocation of this method, and clears the indicator.  The
+     * consumer can use this to resynchronize any timing that is derived from the element stream.
+     */
+    public boolean takeDiscontinuity()
+    {
+        return mDiscontinuity.getAndSet(false);
+    }
+
+    /**
+     * Current number of queued elements
+     */
+    public int size()
+    {
+        return mCounter.get();
+    }
+
+    /**
+     * Number of elements dropped or skipped due to overflow
+     */
+    public long getDroppedCount()
+    {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * Number of gaps (runs of consecutive dropped elements) in the element stream
+     */
+    public long getGapCount()
+    {
+        return mGapCount.get();
+    }
+
+    /**
+     * Total duration of the gaps in the element stream
+     *
+     * @return duration in milliseconds, derived from element timestamps
+     */
+    public long getGapMilliseconds()
+    {
+        return mGapMilliseconds.get();
+    }
+
+    /**
+     * Duration of the longest gap in the element stream
+     *
+     * @return duration in milliseconds, derived from element timestamps
+     */
+    public long getLongestGapMilliseconds()
+    {
+        return mLongestGapMilliseconds.get();
     }
 
     /**
@@ -191,6 +508,7 @@ public class OverflowableTransferQueue<E>
             mQueue.clear();
             mCounter.set(0);
             mOverflow.set(false);
+            mBackpressure.set(false);
         }
     }
-}
\ No newline at end of file
+}
@@ -20,6 +20,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Queue;
 import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public abstract class AbstractReusableBufferQueue<T extends AbstractReusableBuffer>
         implements IReusableBufferDisposedListener<T>
@@ -27,7 +29,10 @@ public abstract class AbstractReusableBufferQueue<T extends AbstractReusableBuff
     private final static Logger mLog = LoggerFactory.getLogger(AbstractReusableBufferQueue.class);
 
     private Queue<T> mReusableBufferQueue = new LinkedTransferQueue<>();
-    private int mBufferCount = 0;
+    private AtomicInteger mBufferCount = new AtomicInteger();
+    private AtomicInteger mIdleCount = new AtomicInteger();
+    private volatile int mHighWaterMark;
+    private LongAdder mAcquiredCount = new LongAdder();
     private String mDebugName;
 
     //Set to true to log when reusable buffers are created to monitor proper user count management
@@ -41,6 +46,7 @@ public abstract class AbstractReusableBufferQueue<T extends AbstractReusableBuff
     public AbstractReusableBufferQueue(String debugName)
     {
         mDebugName = debugName;
+        BufferPoolTelemetry.getInstance().register(this);
     }
 
     /**
@@ -48,6 +54,7 @@ public abstract class AbstractReusableBufferQueue<T extends AbstractReusableBuff
      */
     public AbstractReusableBufferQueue()
     {
+        BufferPoolTelemetry.getInstance().register(this);
     }
 
     /**
@@ -63,7 +70,8 @@ public abstract class AbstractReusableBufferQueue<T extends AbstractReusableBuff
             buffer = mReusableBufferQueue.poll();
         }
 
-        mBufferCount = 0;
+        mBufferCount.set(0);
+        mIdleCount.set(0);
     }
 
     /**
@@ -75,7 +83,9 @@ public abstract class AbstractReusableBufferQueue<T extends AbstractReusableBuff
     @Override
     public void disposed(T reusableBuffer)
     {
+        BufferLeakTracker.getInstance().released(reusableBuffer);
         mReusableBufferQueue.offer(reusableBuffer);
+        mIdleCount.incrementAndGet();
     }
 
     /**
@@ -83,19 +93,49 @@ public abstract class AbstractReusableBufferQueue<T extends AbstractReusableBuff
      */
     protected T getRecycledBuffer()
     {
-        return mReusableBufferQueue.poll();
+        T buffer = mReusableBufferQueue.poll();
+
+        if(buffer != null)
+        {
+            mIdleCount.decrementAndGet();
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Records the buffer as handed out by this queue for pool telemetry and leak tracking.  Sub-class getBuffer()
+     * methods invoke this method on the recycled or newly created buffer before returning it.
+     *
+     * @param buffer being returned to the caller
+     * @return the buffer
+     */
+    protected T acquired(T buffer)
+    {
+        mAcquiredCount.increment();
+
+        int live = mBufferCount.get() - mIdleCount.get();
+
+        if(live > mHighWaterMark)
+        {
+            mHighWaterMark = live;
+        }
+
+        BufferLeakTracker.getInstance().acquired(buffer, this);
+
+        return buffer;
     }
 
     /**
-     * Increments the count of buffers managed by this queue.  Note: this method is NOT thread safe
+     * Increments the count of buffers managed by this queue.
      */
     protected void incrementBufferCount()
     {
-        mBufferCount++;
+        int count = mBufferCount.incrementAndGet();
 
         if(mBufferCreationLoggingEnabled)
         {
-            mLog.debug("Buffer Created - count:" + mBufferCount +
+            mLog.debug("Buffer Created - count:" + count +
                 " debug:" + (mDebugName != null ? mDebugName : "null") + " class:" + this.getClass());
         }
     }
@@ -105,7 +145,31 @@ public abstract class AbstractReusableBufferQueue<T extends AbstractReusableBuff
      */
     protected int getBufferCount()
     {
-        return mBufferCount;
+        return mBufferCount.get();
+    }
+
+    /**
+     * Current count of buffers waiting in this queue for reuse
+     */
+    protected int getIdleCount()
+    {
+        return mIdleCount.get();
+    }
+
+    /**
+     * Maximum count of buffers that were in use at the same time
+     */
+    protected int getHighWaterMark()
+    {
+        return mHighWaterMark;
+    }
+
+    /**
+     * Count of buffers handed out by this queue
+     */
+    protected long getAcquiredCount()
+    {
+        return mAcquiredCount.sum();
     }
 
     /**
@@ -0,0 +1,303 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.sample.buffer;
+
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.util.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in, sampled tracker for reusable buffers that are not returned to their queue.
+ *
+ * One of every N buffer acquisitions records the acquisition stack trace.  Tracked buffers that have not been
+ * returned to their queue (ie user count reached zero) within the threshold are reported once as suspected leaks,
+ * aggregated by acquisition site, and are then no longer tracked.  At most MAXIMUM_TRACKED_BUFFERS buffers are
+ * tracked at once and sampling pauses while the limit is reached.  Because only sampled acquisitions are tracked, the
+ * overhead is low enough to run in production.
+ *
+ * Settings are read from the system properties:
+ *  buffer.leak.tracker.enabled - true to enable tracking (default false)
+ *  buffer.leak.tracker.sample.interval - track one of every N acquisitions (default 100)
+ *  buffer.leak.tracker.threshold.seconds - age after which an unreturned buffer is a suspected leak (default 60)
+ *
+ * Note: buffers that are intentionally retained (e.g. replay and delay buffers) are also reported when they are held
+ * longer than the threshold.
+ */
+public class BufferLeakTracker
+{
+    private final static Logger mLog = LoggerFactory.getLogger(BufferLeakTracker.class);
+
+    private static final String ENABLED_PROPERTY = "buffer.leak.tracker.enabled";
+    private static final String SAMPLE_INTERVAL_PROPERTY = "buffer.leak.tracker.sample.interval";
+    private static final String THRESHOLD_PROPERTY = "buffer.leak.tracker.threshold.seconds";
+    private static final int MAXIMUM_TRACKED_BUFFERS = 10_000;
+    private static final int STACK_TRACE_DEPTH = 8;
+
+    private static volatile BufferLeakTracker sInstance;
+
+    private boolean mEnabled;
+    private int mSampleInterval;
+    private long mThresholdMillis;
+    private AtomicLong mAcquisitionCounter = new AtomicLong();
+    private Map<AbstractReusableBuffer,Acquisition> mTracked = new ConcurrentHashMap<>();
+    private Map<String,LongAdder> mLeaksBySite = new ConcurrentHashMap<>();
+    private LongAdder mLeakCount = new LongAdder();
+    private AtomicBoolean mTrackingLimitReached = new AtomicBoolean();
+
+    /**
+     * Constructs an instance
+     *
+     * @param enabled to track acquisitions
+     * @param sampleInterval to track one of every N acquisitions
+     * @param thresholdSeconds after which an unreturned buffer is a suspected leak
+     */
+    public BufferLeakTracker(boolean enabled, int sampleInterval, int thresholdSeconds)
+    {
+        mEnabled = enabled;
+        mSampleInterval = Math.max(1, sampleInterval);
+        mThresholdMillis = Math.max(1, thresholdSeconds) * 1000l;
+
+        if(mEnabled)
+        {
+            long period = Math.max(1, thresholdSeconds / 2);
+            ThreadPool.SCHEDULED.scheduleAtFixedRate(this::check, period, period, TimeUnit.SECONDS);
+            mLog.info("Reusable buffer leak tracking enabled - sampling 1 of every " + mSampleInterval +
+                " acquisitions with a " + thresholdSeconds + " second threshold");
+        }
+    }
+
+    /**
+     * Application-wide instance using the settings from the system properties
+     */
+    public static BufferLeakTracker getInstance()
+    {
+        //Invoked on every buffer acquisition and release - avoid synchronizing once the instance exists
+        BufferLeakTracker instance = sInstance;
+
+        if(instance == null)
+        {
+            synchronized(BufferLeakTracker.class)
+            {
+                if(sInstance == null)
+                {
+                    SystemProperties properties = SystemProperties.getInstance();
+                    sInstance = new BufferLeakTracker(properties.get(ENABLED_PROPERTY, false),
+                        properties.get(SAMPLE_INTERVAL_PROPERTY, 100), properties.get(THRESHOLD_PROPERTY, 60));
+                }
+
+                instance = sInstance;
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Indicates if leak tracking is enabled
+     */
+    public boolean isEnabled()
+    {
+        return mEnabled;
+    }
+
+    /**
+     * Records the acquisition of the buffer from the queue when this acquisition is sampled
+     */
+    void acquired(AbstractReusableBuffer buffer, AbstractReusableBufferQueue<?> queue)
+    {
+        if(mEnabled && mAcquisitionCounter.getAndIncrement() % mSampleInterval == 0)
+        {
+            if(mTracked.size() < MAXIMUM_TRACKED_BUFFERS)
+            {
+                mTracked.put(buffer, new Acquisition(queue.getClass().getSimpleName() + " [" +
+                    queue.getDebugName() + "]", new Throwable()));
+            }
+            else if(mTrackingLimitReached.compareAndSet(false, true))
+            {
+                mLog.warn("Reusable buffer leak tracking paused - tracking the maximum of " +
+                    MAXIMUM_TRACKED_BUFFERS + " unreturned buffers");
+            }
+        }
+    }
+
+    /**
+     * Records the return of the buffer to its queue
+     */
+    void released(AbstractReusableBuffer buffer)
+    {
+        if(mEnabled && !mTracked.isEmpty())
+        {
+            mTracked.remove(buffer);
+        }
+    }
+
+    /**
+     * Reports tracked buffers that exceed the threshold as suspected leaks and stops tracking the reported buffers so
+     * that sampling can continue
+     */
+    private void check()
+    {
+        try
+        {
+            long cutoff = System.currentTimeMillis() - mThresholdMillis;
+
+            Iterator<Map.Entry<AbstractReusableBuffer,Acquisition>> it = mTracked.entrySet().iterator();
+
+            while(it.hasNext())
+            {
+                Map.Entry<AbstractReusableBuffer,Acquisition> entry = it.next();
+                Acquisition acquisition = entry.getValue();
+
+                if(acquisition.getTimestamp() < cutoff)
+                {
+                    it.remove();
+                    mLeakCount.increment();
+
+                    String site = acquisition.getSite();
+                    mLeaksBySite.computeIfAbsent(site, s -> new LongAdder()).increment();
+
+                    mLog.warn("Suspected reusable buffer leak - buffer [" + entry.getKey().name() + "] not returned " +
+                        "after " + ((System.currentTimeMillis() - acquisition.getTimestamp()) / 1000) +
+                        " seconds - acquired from " + site);
+                }
+            }
+
+            if(mTracked.size() < MAXIMUM_TRACKED_BUFFERS && mTrackingLimitReached.compareAndSet(true, false))
+            {
+                mLog.info("Reusable buffer leak tracking resumed");
+            }
+        }
+        catch(Throwable t)
+        {
+            mLog.error("Error while checking for reusable buffer leaks", t);
+        }
+    }
+
+    /**
+     * Number of suspected leaks reported
+     */
+    public long getLeakCount()
+    {
+        return mLeakCount.sum();
+    }
+
+    /**
+     * Suspected leak counts by acquisition site, largest first
+     */
+    public List<String> getLeakReport()
+    {
+        List<Map.Entry<String,LongAdder>> entries = new ArrayList<>(mLeaksBySite.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+
+        List<String> report = new ArrayList<>();
+
+        for(Map.Entry<String,LongAdder> entry: entries)
+        {
+            report.add("leaks:" + entry.getValue().sum() + " " + entry.getKey());
+        }
+
+        return report;
+    }
+
+    /**
+     * Logs the suspected leak counts by acquisition site
+     */
+    public void logLeaks()
+    {
+        if(!mEnabled)
+        {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Reusable Buffer Leak Tracker - tracked:").append(mTracked.size()).append(" suspected leaks:")
+            .append(getLeakCount());
+
+        for(String line: getLeakReport())
+        {
+            sb.append("\n\t").append(line);
+        }
+
+        mLog.info(sb.toString());
+    }
+
+    /**
+     * Acquisition timestamp and call site for a tracked buffer
+     */
+    private static class Acquisition
+    {
+        private String mQueueName;
+        private Throwable mStackTrace;
+        private long mTimestamp = System.currentTimeMillis();
+
+        public Acquisition(String queueName, Throwable stackTrace)
+        {
+            mQueueName = queueName;
+            mStackTrace = stackTrace;
+        }
+
+        public long getTimestamp()
+        {
+            return mTimestamp;
+        }
+
+        /**
+         * Queue name and the first frames of the acquisition stack trace outside of the buffer queue classes
+         */
+        public String getSite()
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append(mQueueName);
+
+            int depth = 0;
+
+            for(StackTraceElement element: mStackTrace.getStackTrace())
+            {
+                String className = element.getClassName();
+
+                //Skip the tracker and buffer queue frames
+                if(className.startsWith("io.github.dsheirer.sample.buffer.") &&
+                    (className.contains("Queue") || className.endsWith("BufferLeakTracker")))
+                {
+                    continue;
+                }
+
+                sb.append("\n\t\tat ").append(element);
+
+                if(++depth >= STACK_TRACE_DEPTH)
+                {
+                    break;
+                }
+            }
+
+            return sb.toString();
+        }
+    }
+}
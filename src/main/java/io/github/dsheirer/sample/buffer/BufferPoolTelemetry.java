@@ -0,0 +1,253 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.sample.buffer;
+
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.util.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application-wide telemetry for reusable buffer queues (pools).
+ *
+ * Each reusable buffer queue registers itself when constructed and is weakly referenced, so queues owned by disposed
+ * modules drop out of the telemetry once they are garbage collected.  Statistics are aggregated by queue type and
+ * debug name, so that the many queue instances created for each channel's decoder modules are reported as one pool.
+ *
+ * Statistics are logged periodically when the buffer.pool.telemetry.log.interval.minutes system property is set
+ * (default 0 = disabled).
+ */
+public class BufferPoolTelemetry
+{
+    private final static Logger mLog = LoggerFactory.getLogger(BufferPoolTelemetry.class);
+
+    private static final String LOG_INTERVAL_PROPERTY = "buffer.pool.telemetry.log.interval.minutes";
+    private static final BufferPoolTelemetry sInstance = new BufferPoolTelemetry();
+
+    private Set<AbstractReusableBufferQueue<?>> mQueues = Collections.newSetFromMap(new WeakHashMap<>());
+    private ScheduledFuture<?> mLoggingFuture;
+
+    private BufferPoolTelemetry()
+    {
+    }
+
+    /**
+     * Application-wide instance
+     */
+    public static BufferPoolTelemetry getInstance()
+    {
+        return sInstance;
+    }
+
+    /**
+     * Starts periodic statistics logging when a logging interval is configured in the system properties
+     */
+    public synchronized void start()
+    {
+        int minutes = SystemProperties.getInstance().get(LOG_INTERVAL_PROPERTY, 0);
+
+        if(minutes > 0 && mLoggingFuture == null)
+        {
+            mLoggingFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(() -> {
+                try
+                {
+                    logStatistics();
+                }
+                catch(Throwable t)
+                {
+                    mLog.error("Error logging reusable buffer pool statistics", t);
+                }
+            }, minutes, minutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Stops periodic statistics logging
+     */
+    public synchronized void stop()
+    {
+        if(mLoggingFuture != null)
+        {
+            mLoggingFuture.cancel(false);
+            mLoggingFuture = null;
+        }
+    }
+
+    /**
+     * Registers the queue for telemetry reporting
+     */
+    synchronized void register(AbstractReusableBufferQueue<?> queue)
+    {
+        mQueues.add(queue);
+    }
+
+    /**
+     * Current number of registered (not yet garbage collected) queues
+     */
+    public synchronized int getQueueCount()
+    {
+        return mQueues.size();
+    }
+
+    /**
+     * Snapshot of the pool statistics aggregated by queue type and debug name, sorted by live buffer count, largest
+     * first.
+     */
+    public List<PoolStatistics> getStatistics()
+    {
+        List<AbstractReusableBufferQueue<?>> queues;
+
+        synchronized(this)
+        {
+            queues = new ArrayList<>(mQueues);
+        }
+
+        Map<String,PoolStatistics> pools = new TreeMap<>();
+
+        for(AbstractReusableBufferQueue<?> queue: queues)
+        {
+            String name = queue.getClass().getSimpleName() + " [" +
+                (queue.getDebugName() != null ? queue.getDebugName() : "unnamed") + "]";
+            pools.computeIfAbsent(name, PoolStatistics::new).add(queue);
+        }
+
+        List<PoolStatistics> statistics = new ArrayList<>(pools.values());
+        statistics.sort(Comparator.comparingLong(PoolStatistics::getLiveCount).reversed());
+        return statistics;
+    }
+
+    /**
+     * Logs the pool statistics and any suspected buffer leaks
+     */
+    public void logStatistics()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Reusable Buffer Pool Statistics - queues:").append(getQueueCount());
+
+        for(PoolStatistics statistics: getStatistics())
+        {
+            sb.append("\n\t").append(statistics);
+        }
+
+        mLog.info(sb.toString());
+
+        BufferLeakTracker.getInstance().logLeaks();
+    }
+
+    /**
+     * Statistics for one or more reusable buffer queues with the same type and debug name
+     */
+    public static class PoolStatistics
+    {
+        private String mName;
+        private int mQueueCount;
+        private long mCreatedCount;
+        private long mIdleCount;
+        private long mHighWaterMark;
+        private long mAcquiredCount;
+
+        public PoolStatistics(String name)
+        {
+            mName = name;
+        }
+
+        private void add(AbstractReusableBufferQueue<?> queue)
+        {
+            mQueueCount++;
+            mCreatedCount += queue.getBufferCount();
+            mIdleCount += queue.getIdleCount();
+            mHighWaterMark += queue.getHighWaterMark();
+            mAcquiredCount += queue.getAcquiredCount();
+        }
+
+        /**
+         * Queue type and debug name
+         */
+        public String getName()
+        {
+            return mName;
+        }
+
+        /**
+         * Number of queue instances
+         */
+        public int getQueueCount()
+        {
+            return mQueueCount;
+        }
+
+        /**
+         * Number of buffers created by the queues
+         */
+        public long getCreatedCount()
+        {
+            return mCreatedCount;
+        }
+
+        /**
+         * Number of buffers waiting in the queues for reuse
+         */
+        public long getIdleCount()
+        {
+            return mIdleCount;
+        }
+
+        /**
+         * Number of buffers currently in use (created and not returned to the queues)
+         */
+        public long getLiveCount()
+        {
+            return Math.max(0, mCreatedCount - mIdleCount);
+        }
+
+        /**
+         * Sum of the per-queue maximum live buffer counts
+         */
+        public long getHighWaterMark()
+        {
+            return mHighWaterMark;
+        }
+
+        /**
+         * Number of buffers handed out by the queues
+         */
+        public long getAcquiredCount()
+        {
+            return mAcquiredCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return mName + " queues:" + mQueueCount + " live:" + getLiveCount() + " idle:" + mIdleCount +
+                " created:" + mCreatedCount + " high water:" + mHighWaterMark + " acquired:" + mAcquiredCount;
+        }
+    }
+}
@@ -21,10 +21,11 @@ public class OverflowableReusableBufferTransferQueue<T extends AbstractReusableB
 {
     /**
      * Concurrent transfer queue that couples a higher-throughput linked transfer queue with an atomic integer for
-     * monitoring queue size.  When the queue size exceeds maximum size (overflow), all inbound elements are ignored
-     * until the queue size is reduced to or below the reset threshold.
+     * monitoring queue size.  When the queue size exceeds maximum size (overflow), inbound elements are handled
+     * according to the overflow policy.
      *
-     * This implementation includes special handling for reusable complex buffers.
+     * This implementation includes special handling for reusable complex buffers and uses the buffer timestamps for
+     * gap durations and maximum age.
      *
      * @param maximumSize of the queue.  Overflow state will occur once queue size exceeds this value.
      * @param resetThreshold for resetting overflow state to normal, once queue size is at or below this value.
@@ -46,6 +47,15 @@ public class OverflowableReusableBufferTransferQueue<T extends AbstractReusableB
         t.decrementUserCount();
     }
 
+    /**
+     * Buffer timestamp for gap durations and maximum age
+     */
+    @Override
+    protected long getTimestamp(T t)
+    {
+        return t.getTimestamp();
+    }
+
     /**
      * Overrides the buffer clear method to decrement the user count on each buffer that is being cleared from the queue.
      */
@@ -64,6 +74,7 @@ public class OverflowableReusableBufferTransferQueue<T extends AbstractReusableB
 
             mCounter.set(0);
             mOverflow.set(false);
+            mBackpressure.set(false);
         }
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.sample.buffer;
+
+import io.github.dsheirer.sample.ArrayBroadcaster;
+import io.github.dsheirer.sample.Listener;
+
+/**
+ * Array broadcaster for reusable buffers that manages the buffer user count across the registered listeners.
+ */
+public class ReusableBufferArrayBroadcaster<T extends AbstractReusableBuffer> extends ArrayBroadcaster<T>
+{
+    /**
+     * Broadcasts the buffer to all registered listeners, transferring this broadcaster's user count on the buffer.
+     *
+     * The total user count is established and applied to the buffer prior to dispatching.  If we were to simply
+     * increment the user count prior to sending to each consumer, there is a possibility that the consumer could
+     * immediately decrement the user count and prematurely signal that the buffer is ready for disposal before we
+     * send the buffer to all consumers.  With a single listener, this broadcaster's user count is simply handed off
+     * to the listener.  With no listeners, the buffer is released.
+     */
+    @Override
+    public void broadcast(T reusableBuffer)
+    {
+        Listener<T>[] listeners = getListenerArray();
+
+        switch(listeners.length)
+        {
+            case 0:
+                reusableBuffer.decrementUserCount();
+                break;
+            case 1:
+                listeners[0].receive(reusableBuffer);
+                break;
+            default:
+                reusableBuffer.incrementUserCount(listeners.length - 1);
+
+                for(int x = 0; x < listeners.length; x++)
+                {
+                    listeners[x].receive(reusableBuffer);
+                }
+                break;
+        }
+    }
+}
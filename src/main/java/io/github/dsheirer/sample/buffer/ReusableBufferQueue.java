@@ -52,7 +52,7 @@ public class ReusableBufferQueue extends AbstractReusableBufferQueue<ReusableFlo
         buffer.resize(size);
         buffer.incrementUserCount();
 
-        return buffer;
+        return acquired(buffer);
     }
 
     /**
@@ -75,6 +75,6 @@ public class ReusableBufferQueue extends AbstractReusableBufferQueue<ReusableFlo
         buffer.reloadFrom(samples, timestamp);
         buffer.incrementUserCount();
 
-        return buffer;
+        return acquired(buffer);
     }
 }
@@ -49,6 +49,6 @@ public class ReusableByteBufferQueue extends AbstractReusableBufferQueue<Reusabl
         buffer.resize(size);
         buffer.incrementUserCount();
 
-        return buffer;
+        return acquired(buffer);
     }
 }
@@ -50,6 +50,6 @@ public class ReusableChannelResultsBufferQueue extends AbstractReusableBufferQue
 
         buffer.incrementUserCount();
 
-        return buffer;
+        return acquired(buffer);
     }
 }
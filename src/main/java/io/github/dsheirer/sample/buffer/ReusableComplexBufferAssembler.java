@@ -62,6 +62,19 @@ public class ReusableComplexBufferAssembler
         }
     }
 
+    /**
+     * Resynchronizes the assembler timing after a discontinuity in the incoming sample stream (e.g. dropped buffers).
+     * Flushes any partially assembled buffer so that an assembled buffer never spans the discontinuity, and then
+     * updates the reference timestamp for the next received sample.
+     *
+     * @param timestamp of the first/next sample received by this assembler
+     */
+    public void resynchronize(long timestamp)
+    {
+        flush();
+        updateTimestamp(timestamp);
+    }
+
     public void dispose()
     {
         mReusableComplexBufferQueue.dispose();
@@ -135,6 +148,39 @@ public class ReusableComplexBufferAssembler
         }
     }
 
+    /**
+     * Adds a range of samples from the array to this assembler.  As each buffer is assembled, it will be dispatched
+     * to the registered listener.
+     *
+     * @param samples array containing interleaved I/Q samples to assemble
+     * @param offset into the samples array for the first sample
+     * @param length number of floats to assemble from the samples array
+     */
+    public void receive(float[] samples, int offset, int length)
+    {
+        int end = offset + length;
+
+        while(offset < end)
+        {
+            int toCopy = mBuffer.remaining();
+
+            if((end - offset) < toCopy)
+            {
+                toCopy = end - offset;
+            }
+
+            mBuffer.put(samples, offset, toCopy);
+
+            offset += toCopy;
+            mTimestampManager.increment(toCopy / 2);
+
+            if(!mBuffer.hasRemaining())
+            {
+                flush();
+            }
+        }
+    }
+
     /**
      * Adds the samples to this assembler.  As each buffer is assembled, it will be dispatched to the registered
      * listener.
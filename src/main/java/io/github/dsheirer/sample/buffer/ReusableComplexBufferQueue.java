@@ -59,6 +59,6 @@ public class ReusableComplexBufferQueue extends AbstractReusableBufferQueue<Reus
         buffer.resize(size);
         buffer.incrementUserCount();
 
-        return buffer;
+        return acquired(buffer);
     }
 }
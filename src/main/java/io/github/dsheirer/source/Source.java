@@ -90,6 +90,26 @@ public abstract class Source extends Module implements ISourceEventListener, ISo
      */
     public abstract void dispose();
 
+    /**
+     * Number of sample buffers dropped by this source due to overflow.  Sources without an internal sample buffer
+     * queue return zero.
+     */
+    public long getDroppedBufferCount()
+    {
+        return 0;
+    }
+
+    /**
+     * Total duration of the gaps in the sample stream caused by dropped sample buffers.  Sources without an internal
+     * sample buffer queue return zero.
+     *
+     * @return duration in milliseconds
+     */
+    public long getGapMilliseconds()
+    {
+        return 0;
+    }
+
     /**
      * Registers the listener to receive overflow state changes.  Use null argument to clear the listener
      */
@@ -21,6 +21,8 @@
  */
 package io.github.dsheirer.source.tuner;
 
+import io.github.dsheirer.metrics.MetricsCategory;
+import io.github.dsheirer.metrics.MetricsRegistry;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.preference.source.ChannelizerType;
 import io.github.dsheirer.sample.Broadcaster;
@@ -56,6 +58,7 @@ public abstract class Tuner implements ISourceEventProcessor, ITunerErrorListene
         //Register to receive frequency and sample rate change notifications
         mTunerController.addListener(this::process);
         mTunerController.setTunerErrorListener(this);
+        mTunerController.setMetrics(MetricsRegistry.getInstance().register(MetricsCategory.TUNER, name));
         mTunerFrequencyErrorMonitor = new TunerFrequencyErrorMonitor(this);
         mTunerFrequencyErrorMonitor.start();
     }
@@ -193,6 +196,8 @@ public abstract class Tuner implements ISourceEventProcessor, ITunerErrorListene
      */
     public void dispose()
     {
+        MetricsRegistry.getInstance().unregister(getTunerController().getMetrics());
+        getTunerController().setMetrics(null);
         getTunerController().dispose();
     }
 
@@ -18,6 +18,7 @@
  */
 package io.github.dsheirer.source.tuner;
 
+import io.github.dsheirer.metrics.ProcessingMetrics;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.record.RecorderFactory;
 import io.github.dsheirer.record.wave.ComplexBufferWaveRecorder;
@@ -51,6 +52,7 @@ public abstract class TunerController implements Tunable, ISourceEventProcessor,
     private int mMeasuredFrequencyError;
     private ComplexBufferWaveRecorder mRecorder;
     private ITunerErrorListener mTunerErrorListener;
+    private ProcessingMetrics mMetrics;
 
     /**
      * Abstract tuner controller class.  The tuner controller manages frequency bandwidth and currently tuned channels
@@ -377,9 +379,34 @@ public abstract class TunerController implements Tunable, ISourceEventProcessor,
      */
     protected void broadcast(ReusableComplexBuffer reusableComplexBuffer)
     {
+        ProcessingMetrics metrics = mMetrics;
+
+        if(metrics != null)
+        {
+            metrics.samplesOut(reusableComplexBuffer.getSampleCount());
+        }
+
         mReusableBufferBroadcaster.broadcast(reusableComplexBuffer);
     }
 
+    /**
+     * Processing metrics for this tuner controller
+     *
+     * @return metrics or null if metrics are not registered
+     */
+    public ProcessingMetrics getMetrics()
+    {
+        return mMetrics;
+    }
+
+    /**
+     * Sets the processing metrics to record the samples produced by this tuner controller
+     */
+    public void setMetrics(ProcessingMetrics metrics)
+    {
+        mMetrics = metrics;
+    }
+
     /**
      * Implements the Listener<T> interface to receive and distribute complex buffers from subclass implementations
      */
@@ -52,6 +52,8 @@ public class TunerEvent
         LOCK_STATE_CHANGE,
         MEASURED_FREQUENCY_ERROR_UPDATED,
         SAMPLE_RATE_UPDATED,
+        TUNER_ADDED,
+        TUNER_REMOVED,
 
         CLEAR_MAIN_SPECTRAL_DISPLAY,
         REQUEST_MAIN_SPECTRAL_DISPLAY,
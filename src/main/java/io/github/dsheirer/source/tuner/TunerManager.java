@@ -21,7 +21,9 @@
  */
 package io.github.dsheirer.source.tuner;
 
+import io.github.dsheirer.controller.NamingThreadFactory;
 import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.source.SourceException;
 import io.github.dsheirer.source.mixer.MixerManager;
 import io.github.dsheirer.source.tuner.airspy.AirspyTuner;
@@ -46,18 +48,33 @@ import org.usb4java.LibUsb;
 import javax.sound.sampled.TargetDataLine;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class TunerManager
 {
     private final static Logger mLog = LoggerFactory.getLogger(TunerManager.class);
     private static final int MAXIMUM_USB_2_DATA_RATE = 480000000;
+    private static final double MAXIMUM_USB_BUS_UTILIZATION = 0.7;
+    private static final String TUNER_INIT_THREADS_PROPERTY = "tuner.init.threads";
+    private static final int DEFAULT_TUNER_INIT_THREADS = 8;
+    private static final long TUNER_INIT_SHUTDOWN_WAIT_MILLISECONDS = 5000;
 
     private TunerModel mTunerModel;
     private UserPreferences mUserPreferences;
     private Map<Integer,List<Tuner>> mUSBBusTunerMap = new TreeMap<>();
+    private Map<Integer,Semaphore> mUSBBusPermitsMap = new TreeMap<>();
+    private Thread mTunerInitThread;
 
     /**
      * Application-wide LibUSB timeout processor for transfer buffers.  All classes that need to use USB transfer
@@ -77,7 +94,6 @@ public class TunerManager
         mUserPreferences = userPreferences;
 
         initTuners();
-        validateUSBBusTransferRates();
     }
 
     /**
@@ -101,7 +117,8 @@ public class TunerManager
     }
 
     /**
-     * Loads all USB tuners and USB/Mixer tuner devices
+     * Discovers the USB tuner devices and starts initializing them.  Each tuner is added to the tuner model as soon
+     * as it finishes initializing and the tuner model is notified once all of the tuner devices have been processed.
      */
     private void initTuners()
     {
@@ -132,6 +149,8 @@ public class TunerManager
             }
         }
 
+        List<TunerInitTask> tasks = new ArrayList<>();
+
         for(Device device : deviceList)
         {
             DeviceDescriptor descriptor = new DeviceDescriptor();
@@ -143,49 +162,263 @@ public class TunerManager
                 mLog.error("unable to read device descriptor [" +
                     LibUsb.errorName(result) + "]");
             }
+            else if(TunerClass.valueOf(descriptor.idVendor(), descriptor.idProduct()) == TunerClass.UNKNOWN)
+            {
+                mLog.info(getDeviceLabel(LibUsb.getBusNumber(device), descriptor) + " " +
+                    getDeviceClass(descriptor.bDeviceClass()));
+            }
             else
             {
-                TunerInitStatus status = initTuner(device, descriptor);
+                tasks.add(new TunerInitTask(device, descriptor, LibUsb.getBusNumber(device)));
+            }
+        }
+
+        initTuners(tasks, deviceList);
+    }
+
+    /**
+     * Initializes the tuner devices concurrently and adds each loaded tuner to the tuner model as soon as it finishes
+     * initializing, so that channels that use a tuner can start without waiting for slower tuners to load.  Tuners are
+     * added to the tuner model in the order that they finish initializing.
+     *
+     * Tuner initialization is dominated by synchronous USB control transfers.  Devices on different USB buses are
+     * initialized in parallel.  The number of devices initialized at the same time on each USB bus is derived from
+     * the same USB bus data rate budget that is used to validate the bus transfer rates (see getBusConcurrency()).
+     * The tuner.init.threads system property sets the overall limit.
+     *
+     * This method does not wait for the tuners to initialize.  Once all tuner devices are processed, the USB bus
+     * transfer rates are validated, the device list is released and the tuner model is notified that tuner
+     * initialization is complete.
+     *
+     * @param tasks for each tuner device, in USB device list order
+     * @param deviceList containing the tuner devices, to release once initialization is complete
+     */
+    private void initTuners(List<TunerInitTask> tasks, DeviceList deviceList)
+    {
+        if(tasks.isEmpty())
+        {
+            LibUsb.freeDeviceList(deviceList, true);
+            validateUSBBusTransferRates();
+            mTunerModel.tunerInitializationComplete();
+            return;
+        }
+
+        long start = System.currentTimeMillis();
 
-                StringBuilder sb = new StringBuilder();
+        int threads = Math.max(1, Math.min(tasks.size(), SystemProperties.getInstance()
+            .get(TUNER_INIT_THREADS_PROPERTY, DEFAULT_TUNER_INIT_THREADS)));
 
-                int bus = LibUsb.getBusNumber(device);
-                sb.append("USB Bus [").append(bus).append("]");
-                sb.append(" Device [");
-                sb.append(String.format("%04X", descriptor.idVendor()));
-                sb.append(":");
-                sb.append(String.format("%04X", descriptor.idProduct()));
-                sb.append("]");
+        //Group the devices by USB bus, the same grouping that is used for the USB bus data rate validation
+        Map<Integer,List<TunerInitTask>> busTaskMap = new TreeMap<>();
 
-                if(status.isLoaded())
+        for(TunerInitTask task: tasks)
+        {
+            busTaskMap.computeIfAbsent(task.getBus(), bus -> new ArrayList<>()).add(task);
+        }
+
+        for(Map.Entry<Integer,List<TunerInitTask>> entry: busTaskMap.entrySet())
+        {
+            int busConcurrency = getBusConcurrency(entry.getValue());
+            mUSBBusPermitsMap.put(entry.getKey(), new Semaphore(busConcurrency));
+            mLog.info("USB Bus [" + entry.getKey() + "] initializing [" + entry.getValue().size() +
+                "] tuner device(s) [" + busConcurrency + "] at a time");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new NamingThreadFactory("sdrtrunk tuner init"));
+        CompletionService<TunerInitStatus> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<TunerInitStatus>,TunerInitTask> futureTaskMap = new HashMap<>();
+
+        //Submit in round-robin order across the buses so that pool threads aren't all blocked waiting on one bus
+        int submitted = 0;
+        int round = 0;
+
+        while(submitted < tasks.size())
+        {
+            for(List<TunerInitTask> busTasks: busTaskMap.values())
+            {
+                if(round < busTasks.size())
+                {
+                    TunerInitTask task = busTasks.get(round);
+                    task.setBusPermits(mUSBBusPermitsMap.get(task.getBus()));
+                    futureTaskMap.put(completionService.submit(task), task);
+                    submitted++;
+                }
+            }
+
+            round++;
+        }
+
+        mTunerInitThread = new Thread(() -> {
+            int loaded = 0;
+
+            for(int x = 0; x < tasks.size(); x++)
+            {
+                TunerInitTask task = null;
+                TunerInitStatus status;
+
+                try
+                {
+                    Future<TunerInitStatus> future = completionService.take();
+                    task = futureTaskMap.get(future);
+                    status = future.get();
+                }
+                catch(InterruptedException ie)
                 {
-                    Tuner tuner = status.getTuner();
-
-                    try
-                    {
-                        mTunerModel.addTuner(tuner);
-                        sb.append(" LOADED: ");
-                        sb.append(tuner.toString());
-                        sb.append(" Max Rate:").append(tuner.getMaximumUSBBitsPerSecond()).append(" bps");
-                        updateUSBBusTunerMap(bus, tuner);
-                    }
-                    catch(Exception e)
-                    {
-                        sb.append(" NOT LOADED: ");
-                        sb.append(status.getInfo());
-                        sb.append(" Error:").append(e.getMessage());
-                    }
+                    Thread.currentThread().interrupt();
+                    mLog.error("Interrupted while waiting for tuner initialization");
+                    break;
                 }
-                else
+                catch(ExecutionException ee)
                 {
-                    sb.append(" ").append(getDeviceClass(descriptor.bDeviceClass()));
+                    mLog.error("Error initializing tuner", ee.getCause());
+                    status = new TunerInitStatus(null, "error during initialization - " + ee.getCause().getMessage());
                 }
 
-                mLog.info(sb.toString());
+                if(addTuner(task, status))
+                {
+                    loaded++;
+                }
+            }
+
+            executor.shutdown();
+
+            mLog.info("initialized [" + loaded + "/" + tasks.size() + "] tuner device(s) on [" + busTaskMap.size() +
+                "] USB bus(es) in [" + (System.currentTimeMillis() - start) + "] ms using [" + threads +
+                "] thread(s)");
+
+            LibUsb.freeDeviceList(deviceList, true);
+            validateUSBBusTransferRates();
+            mTunerModel.tunerInitializationComplete();
+        }, "sdrtrunk tuner init monitor");
+
+        mTunerInitThread.setDaemon(true);
+        mTunerInitThread.start();
+    }
+
+    /**
+     * Adds the tuner from the initialization status to the tuner model and logs the outcome for the tuner device.
+     *
+     * @param task for the tuner device
+     * @param status of the tuner initialization
+     * @return true if the tuner was loaded
+     */
+    private boolean addTuner(TunerInitTask task, TunerInitStatus status)
+    {
+        boolean loaded = false;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(getDeviceLabel(task.getBus(), task.getDescriptor()));
+
+        if(status.isLoaded())
+        {
+            Tuner tuner = status.getTuner();
+
+            try
+            {
+                mTunerModel.addTuner(tuner);
+                sb.append(" LOADED: ");
+                sb.append(tuner.toString());
+                sb.append(" Max Rate:").append(tuner.getMaximumUSBBitsPerSecond()).append(" bps");
+                updateUSBBusTunerMap(task.getBus(), tuner);
+                loaded = true;
+            }
+            catch(Exception e)
+            {
+                sb.append(" NOT LOADED: ");
+                sb.append(status.getInfo());
+                sb.append(" Error:").append(e.getMessage());
             }
         }
+        else
+        {
+            sb.append(" NOT LOADED: ").append(status.getInfo());
+        }
 
-        LibUsb.freeDeviceList(deviceList, true);
+        sb.append(" Init:").append(task.getInitTime()).append(" ms");
+
+        if(task.getWaitTime() > 0)
+        {
+            sb.append(" Bus Wait:").append(task.getWaitTime()).append(" ms");
+        }
+
+        mLog.info(sb.toString());
+
+        return loaded;
+    }
+
+    /**
+     * Number of tuner devices to initialize at the same time on a USB bus.  This is the number of the most demanding
+     * device on the bus that fit within the USB bus data rate budget used by validateUSBBusTransferRates(), so that
+     * high rate tuners (e.g. Airspy or HackRF) are initialized one at a time, while several low rate tuners (e.g.
+     * RTL2832) are initialized together.
+     *
+     * @param busTasks for the tuner devices on the bus
+     * @return concurrency, 1 to the number of devices on the bus
+     */
+    private static int getBusConcurrency(List<TunerInitTask> busTasks)
+    {
+        long maximumBPS = 0;
+
+        for(TunerInitTask task: busTasks)
+        {
+            TunerClass tunerClass = TunerClass.valueOf(task.getDescriptor().idVendor(), task.getDescriptor().idProduct());
+            maximumBPS = Math.max(maximumBPS, getMaximumUSBBitsPerSecond(tunerClass));
+        }
+
+        if(maximumBPS <= 0)
+        {
+            return busTasks.size();
+        }
+
+        int concurrency = (int)(MAXIMUM_USB_2_DATA_RATE * MAXIMUM_USB_BUS_UTILIZATION / maximumBPS);
+
+        return Math.max(1, Math.min(busTasks.size(), concurrency));
+    }
+
+    /**
+     * Maximum USB data rate of the tuner that is created for the tuner class, before the tuner is created.  This
+     * matches Tuner.getMaximumUSBBitsPerSecond() for the tuner.
+     *
+     * @param tunerClass of the USB device
+     * @return maximum data rate in bits per second, or 0 for unsupported devices
+     */
+    private static long getMaximumUSBBitsPerSecond(TunerClass tunerClass)
+    {
+        switch(tunerClass)
+        {
+            case AIRSPY:
+                return AirspyTuner.MAXIMUM_USB_BITS_PER_SECOND;
+            case FUNCUBE_DONGLE_PRO:
+                return (long)FCD1TunerController.SAMPLE_RATE * FCDTuner.USB_BITS_PER_SAMPLE;
+            case FUNCUBE_DONGLE_PRO_PLUS:
+                return (long)FCD2TunerController.SAMPLE_RATE * FCDTuner.USB_BITS_PER_SAMPLE;
+            case HACKRF_ONE:
+            case HACKRF_JAWBREAKER:
+            case RAD1O:
+                return HackRFTuner.MAXIMUM_USB_BITS_PER_SECOND;
+            case ETTUS_USRP_B100:
+            case TEST_TUNER:
+            case RECORDING_TUNER:
+            case UNKNOWN:
+                return 0;
+            default:
+                return RTL2832Tuner.MAXIMUM_USB_BITS_PER_SECOND;
+        }
+    }
+
+    /**
+     * Log label for the USB device
+     */
+    private static String getDeviceLabel(int bus, DeviceDescriptor descriptor)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("USB Bus [").append(bus).append("]");
+        sb.append(" Device [");
+        sb.append(String.format("%04X", descriptor.idVendor()));
+        sb.append(":");
+        sb.append(String.format("%04X", descriptor.idProduct()));
+        sb.append("]");
+        return sb.toString();
     }
 
     private static String getDeviceClass(byte deviceClass)
@@ -263,7 +496,7 @@ public class TunerManager
                 totalBPS += tuner.getMaximumUSBBitsPerSecond();
             }
 
-            if(totalBPS > (MAXIMUM_USB_2_DATA_RATE * .7))
+            if(totalBPS > (MAXIMUM_USB_2_DATA_RATE * MAXIMUM_USB_BUS_UTILIZATION))
             {
                 warning = true;
             }
@@ -341,10 +574,32 @@ public class TunerManager
     }
 
     /**
-     * Releases all tuners in preparation for shutdown
+     * Releases all tuners in preparation for shutdown.  Waits briefly for any tuner initialization that is still in
+     * progress so that tuners that finish loading during shutdown are also released.  A tuner whose initialization is
+     * blocked (e.g. on a USB transfer) does not prevent the remaining tuners from being released.
      */
     public void releaseTuners()
     {
+        Thread tunerInitThread = mTunerInitThread;
+
+        if(tunerInitThread != null)
+        {
+            try
+            {
+                tunerInitThread.join(TUNER_INIT_SHUTDOWN_WAIT_MILLISECONDS);
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            if(tunerInitThread.isAlive())
+            {
+                mLog.warn("Tuner initialization did not complete within [" + TUNER_INIT_SHUTDOWN_WAIT_MILLISECONDS +
+                    "] ms - releasing the tuners that are loaded");
+            }
+        }
+
         mLog.info("Releasing [" + mTunerModel.getTuners().size() + "] tuner(s) ...");
         Tuner tuner = mTunerModel.getTuner(0);
 
@@ -531,6 +786,81 @@ public class TunerManager
         return new TunerInitStatus(null, reason);
     }
 
+    /**
+     * Initializes a single tuner device while holding a permit for the device's USB bus
+     */
+    private class TunerInitTask implements Callable<TunerInitStatus>
+    {
+        private Device mDevice;
+        private DeviceDescriptor mDescriptor;
+        private int mBus;
+        private Semaphore mBusPermits;
+        private long mWaitTime;
+        private long mInitTime;
+
+        public TunerInitTask(Device device, DeviceDescriptor descriptor, int bus)
+        {
+            mDevice = device;
+            mDescriptor = descriptor;
+            mBus = bus;
+        }
+
+        public DeviceDescriptor getDescriptor()
+        {
+            return mDescriptor;
+        }
+
+        public int getBus()
+        {
+            return mBus;
+        }
+
+        public void setBusPermits(Semaphore busPermits)
+        {
+            mBusPermits = busPermits;
+        }
+
+        /**
+         * Time spent waiting for a USB bus permit in milliseconds
+         */
+        public long getWaitTime()
+        {
+            return mWaitTime;
+        }
+
+        /**
+         * Time spent initializing the tuner in milliseconds
+         */
+        public long getInitTime()
+        {
+            return mInitTime;
+        }
+
+        @Override
+        public TunerInitStatus call() throws Exception
+        {
+            long start = System.currentTimeMillis();
+
+            mBusPermits.acquire();
+
+            try
+            {
+                long initStart = System.currentTimeMillis();
+                mWaitTime = initStart - start;
+
+                TunerInitStatus status = initTuner(mDevice, mDescriptor);
+
+                mInitTime = System.currentTimeMillis() - initStart;
+
+                return status;
+            }
+            finally
+            {
+                mBusPermits.release();
+            }
+        }
+    }
+
     public class TunerInitStatus
     {
         private Tuner mTuner;
@@ -31,8 +31,11 @@ import io.github.dsheirer.source.tuner.channel.TunerChannel;
 import io.github.dsheirer.source.tuner.channel.TunerChannelSource;
 import io.github.dsheirer.source.tuner.configuration.TunerConfiguration;
 import io.github.dsheirer.source.tuner.configuration.TunerConfigurationModel;
+import io.github.dsheirer.source.tuner.manager.TunerLoad;
+import io.github.dsheirer.source.tuner.manager.TunerPlacementCalculator;
 import io.github.dsheirer.source.tuner.recording.RecordingTuner;
 import io.github.dsheirer.spectrum.SpectralDisplayPanel;
+import io.github.dsheirer.util.SwingPlatform;
 import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 public class TunerModel extends AbstractTableModel implements Listener<TunerEvent>
@@ -64,8 +68,10 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
     private static final String[] COLUMNS = {"Tuner", "ID", "Sample Rate", "Frequency", "Channels", "Current PPM",
         "Measured Error", "Display"};
 
-    private List<Tuner> mTuners = new ArrayList<>();
-    private List<Listener<TunerEvent>> mTunerEventListeners = new ArrayList<>();
+    private List<Tuner> mTuners = new CopyOnWriteArrayList<>();
+    private List<Listener<TunerEvent>> mTunerEventListeners = new CopyOnWriteArrayList<>();
+    private List<Runnable> mTunerInitializationCompleteListeners = new ArrayList<>();
+    private boolean mTunerInitializationComplete;
     private DecimalFormat mFrequencyFormat = new DecimalFormat("0.00000");
     private DecimalFormat mSampleRateFormat = new DecimalFormat("0.000");
     private DecimalFormat mFrequencyErrorPPMFormat = new DecimalFormat("0.0");
@@ -167,9 +173,11 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
 
                 int index = mTuners.indexOf(tuner);
 
-                fireTableRowsInserted(index, index);
+                SwingPlatform.invokeLater(() -> fireTableRowsInserted(index, index));
 
                 tuner.addTunerChangeListener(this);
+
+                broadcast(new TunerEvent(tuner, Event.TUNER_ADDED));
             }
             catch(SourceException se)
             {
@@ -195,6 +203,8 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
             mTuners.remove(tuner);
 
             fireTableRowsDeleted(index, index);
+
+            broadcast(new TunerEvent(tuner, Event.TUNER_REMOVED));
         }
     }
 
@@ -236,6 +246,56 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
         }
     }
 
+    /**
+     * Indicates if all of the tuner devices discovered at startup have been processed and either added to this model
+     * or rejected.
+     */
+    public synchronized boolean isTunerInitializationComplete()
+    {
+        return mTunerInitializationComplete;
+    }
+
+    /**
+     * Registers the listener to be run once all of the tuner devices discovered at startup have been processed.  The
+     * listener is run immediately on the calling thread when tuner initialization is already complete.
+     *
+     * @param listener to run once tuner initialization is complete
+     */
+    public void addTunerInitializationCompleteListener(Runnable listener)
+    {
+        synchronized(this)
+        {
+            if(!mTunerInitializationComplete)
+            {
+                mTunerInitializationCompleteListeners.add(listener);
+                return;
+            }
+        }
+
+        listener.run();
+    }
+
+    /**
+     * Signals that all of the tuner devices discovered at startup have been processed and runs each of the registered
+     * tuner initialization complete listeners.
+     */
+    public void tunerInitializationComplete()
+    {
+        List<Runnable> listeners;
+
+        synchronized(this)
+        {
+            mTunerInitializationComplete = true;
+            listeners = new ArrayList<>(mTunerInitializationCompleteListeners);
+            mTunerInitializationCompleteListeners.clear();
+        }
+
+        for(Runnable listener: listeners)
+        {
+            listener.run();
+        }
+    }
+
     /**
      * Requests to display the first tuner in this model.  Invoke this method
      * after all listeners have registered and tuners have been added to this
@@ -450,26 +510,43 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
                     preferredTuner + "] - searching for another tuner");
             }
 
-            Iterator<Tuner> it = mTuners.iterator();
+            //Rank the tuners by placement cost and try each tuner in order.  Tuners that are estimated to be unable
+            //to source the channel are ranked last but are still tried, since the channel source manager makes the
+            //final determination.
+            List<TunerLoad> placement = TunerPlacementCalculator.getPlacement(tunerChannel, mTuners);
+            Iterator<TunerLoad> it = placement.iterator();
 
             while(it.hasNext() && source == null)
             {
-                tuner = it.next();
+                TunerLoad candidate = it.next();
+                tuner = candidate.getTuner();
 
-                if(!tuner.hasError())
+                try
                 {
-                    try
-                    {
-                        source = tuner.getChannelSourceManager().getSource(tunerChannel, channelSpecification);
-                    }
-                    catch(Exception e)
+                    source = tuner.getChannelSourceManager().getSource(tunerChannel, channelSpecification);
+
+                    if(source != null && mLog.isDebugEnabled())
                     {
-                        mLog.error("Error obtaining channel from tuner [" + tuner.getName() + "]", e);
+                        mLog.debug("Placed channel [" + tunerChannel.getFrequency() + "] on " + candidate +
+                            " from candidates " + placement);
                     }
                 }
+                catch(Exception e)
+                {
+                    mLog.error("Error obtaining channel from tuner [" + tuner.getName() + "]", e);
+                }
             }
         }
 
         return source;
     }
+
+    /**
+     * Current channel count, occupied bandwidth and relative channelizer load for each tuner that is not in an
+     * error state.
+     */
+    public List<TunerLoad> getTunerLoads()
+    {
+        return TunerPlacementCalculator.getLoads(mTuners);
+    }
 }
\ No newline at end of file
@@ -33,6 +33,9 @@ public class AirspyTuner extends Tuner
 {
     private final static Logger mLog = LoggerFactory.getLogger(AirspyTuner.class);
 
+    //4-bytes per sample = 32 bits times 10 MSps = 320,000,000 bits per second
+    public static final int MAXIMUM_USB_BITS_PER_SECOND = 320000000;
+
     public AirspyTuner(AirspyTunerController controller, UserPreferences userPreferences)
     {
         super("Airspy " + controller.getDeviceInfo().getSerialNumber(), controller, userPreferences);
@@ -79,7 +82,6 @@ public class AirspyTuner extends Tuner
     @Override
     public int getMaximumUSBBitsPerSecond()
     {
-        //4-bytes per sample = 32 bits times 10 MSps = 320,000,000 bits per second
-        return 320000000;
+        return MAXIMUM_USB_BITS_PER_SECOND;
     }
 }
@@ -75,6 +75,7 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
             channelSpecification.getStopFrequency());
 
         mBuffer = new OverflowableReusableBufferTransferQueue<>(BUFFER_MAX_CAPACITY, BUFFER_OVERFLOW_RESET_THRESHOLD);
+        mBuffer.applyChannelSettings();
 
         //Setup the frequency mixer to the current source frequency
         mChannelSampleRate = sampleRate / (double)decimation;
@@ -96,6 +97,18 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
         mBuffer.setOverflowListener(listener);
     }
 
+    @Override
+    public long getDroppedBufferCount()
+    {
+        return mBuffer.getDroppedCount();
+    }
+
+    @Override
+    public long getGapMilliseconds()
+    {
+        return mBuffer.getGapMilliseconds();
+    }
+
     @Override
     public void dispose()
     {
@@ -109,6 +122,7 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
     public void receive(ReusableComplexBuffer buffer)
     {
         mBuffer.offer(buffer);
+        bufferQueued();
     }
 
     /**
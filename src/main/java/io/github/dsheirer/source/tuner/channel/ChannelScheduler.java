@@ -0,0 +1,344 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.source.tuner.channel;
+
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.util.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Data-driven scheduler for tuner channel source processing.
+ *
+ * Channels are placed on a single FIFO run queue when they become runnable: either the producer has queued enough
+ * input buffers (signal threshold), or the deadline has passed since the channel last ran.  A fixed set of worker
+ * threads drains the run queue in arrival order, so each runnable channel gets a turn before any channel runs twice.
+ * A single deadline sweep, running at half the deadline interval, replaces the per-channel fixed-rate timers.
+ *
+ * Settings are read from the system properties:
+ *  channel.scheduler.threads - number of worker threads (default: available processors, minimum 2)
+ *  channel.scheduler.deadline.milliseconds - maximum interval between channel runs (default 50)
+ *  channel.scheduler.signal.threshold - queued input buffers that make a channel runnable (default 1)
+ */
+public class ChannelScheduler
+{
+    private final static Logger mLog = LoggerFactory.getLogger(ChannelScheduler.class);
+
+    private static final String THREADS_PROPERTY = "channel.scheduler.threads";
+    private static final String DEADLINE_PROPERTY = "channel.scheduler.deadline.milliseconds";
+    private static final String SIGNAL_THRESHOLD_PROPERTY = "channel.scheduler.signal.threshold";
+
+    private static ChannelScheduler sInstance;
+
+    private LinkedBlockingQueue<ScheduledChannel> mRunQueue = new LinkedBlockingQueue<>();
+    private Set<ScheduledChannel> mChannels = ConcurrentHashMap.newKeySet();
+    private ExecutorService mWorkers;
+    private ScheduledFuture<?> mDeadlineFuture;
+    private int mThreadCount;
+    private long mDeadlineMilliseconds;
+    private long mDeadlineNanos;
+    private int mSignalThreshold;
+
+    private LongAdder mRunCount = new LongAdder();
+    private LongAdder mDeadlineRunCount = new LongAdder();
+    private LongAdder mLatencyNanos = new LongAdder();
+    private AtomicLong mMaxLatencyNanos = new AtomicLong();
+
+    /**
+     * Constructs an instance
+     *
+     * @param threadCount number of worker threads
+     * @param deadlineMilliseconds maximum interval between channel runs
+     * @param signalThreshold number of queued input buffers that make a channel runnable
+     */
+    public ChannelScheduler(int threadCount, long deadlineMilliseconds, int signalThreshold)
+    {
+        mThreadCount = Math.max(1, threadCount);
+        mDeadlineMilliseconds = Math.max(2, deadlineMilliseconds);
+        mDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(mDeadlineMilliseconds);
+        mSignalThreshold = Math.max(1, signalThreshold);
+
+        mWorkers = Executors.newFixedThreadPool(mThreadCount, new NamingThreadFactory("sdrtrunk channel scheduler",
+            true));
+
+        for(int x = 0; x < mThreadCount; x++)
+        {
+            mWorkers.submit(new Worker());
+        }
+
+        mLog.info("Channel scheduler started with [" + mThreadCount + "] worker threads - deadline [" +
+            mDeadlineMilliseconds + " ms] signal threshold [" + mSignalThreshold + " buffers]");
+    }
+
+    /**
+     * Application-wide instance using the settings from the system properties
+     */
+    public static synchronized ChannelScheduler getInstance()
+    {
+        if(sInstance == null)
+        {
+            SystemProperties properties = SystemProperties.getInstance();
+            int threads = properties.get(THREADS_PROPERTY, Math.max(2, Runtime.getRuntime().availableProcessors()));
+            int deadline = properties.get(DEADLINE_PROPERTY, 50);
+            int threshold = properties.get(SIGNAL_THRESHOLD_PROPERTY, 1);
+
+            sInstance = new ChannelScheduler(threads, deadline, threshold);
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Application-wide instance when it has been created, otherwise null.  Use this method to access the scheduler
+     * without starting it.
+     */
+    public static synchronized ChannelScheduler getExistingInstance()
+    {
+        return sInstance;
+    }
+
+    /**
+     * Logs the application-wide scheduler statistics when the scheduler has been created
+     */
+    public static void logStatistics()
+    {
+        ChannelScheduler scheduler = getExistingInstance();
+
+        if(scheduler != null)
+        {
+            mLog.info(scheduler.getStatistics());
+        }
+    }
+
+    /**
+     * Number of queued input buffers that make a channel runnable
+     */
+    public int getSignalThreshold()
+    {
+        return mSignalThreshold;
+    }
+
+    /**
+     * Maximum interval between channel runs in milliseconds
+     */
+    public long getDeadlineMilliseconds()
+    {
+        return mDeadlineMilliseconds;
+    }
+
+    /**
+     * Registers the channel for deadline scheduling and schedules an initial run
+     */
+    void register(ScheduledChannel channel)
+    {
+        mChannels.add(channel);
+
+        synchronized(this)
+        {
+            if(mDeadlineFuture == null)
+            {
+                long period = Math.max(1, mDeadlineMilliseconds / 2);
+                mDeadlineFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(this::checkDeadlines, period, period,
+                    TimeUnit.MILLISECONDS);
+            }
+        }
+
+        channel.signal();
+    }
+
+    /**
+     * Removes the channel from deadline scheduling
+     */
+    void unregister(ScheduledChannel channel)
+    {
+        mChannels.remove(channel);
+
+        synchronized(this)
+        {
+            if(mChannels.isEmpty() && mDeadlineFuture != null)
+            {
+                mDeadlineFuture.cancel(false);
+                mDeadlineFuture = null;
+            }
+        }
+    }
+
+    /**
+     * Places the channel on the run queue
+     */
+    void enqueue(ScheduledChannel channel)
+    {
+        mRunQueue.offer(channel);
+    }
+
+    /**
+     * Schedules each registered channel that hasn't run within the deadline
+     */
+    private void checkDeadlines()
+    {
+        try
+        {
+            long now = System.nanoTime();
+
+            for(ScheduledChannel channel: mChannels)
+            {
+                if(channel.isOverdue(now, mDeadlineNanos))
+                {
+                    mDeadlineRunCount.increment();
+                    channel.schedule();
+                }
+            }
+        }
+        catch(Throwable t)
+        {
+            mLog.error("Error while checking channel deadlines", t);
+        }
+    }
+
+    /**
+     * Number of registered channels
+     */
+    public int getChannelCount()
+    {
+        return mChannels.size();
+    }
+
+    /**
+     * Registered channels
+     */
+    public List<ScheduledChannel> getChannels()
+    {
+        return new ArrayList<>(mChannels);
+    }
+
+    /**
+     * Number of channels waiting in the run queue
+     */
+    public int getRunQueueDepth()
+    {
+        return mRunQueue.size();
+    }
+
+    /**
+     * Total number of channel runs
+     */
+    public long getRunCount()
+    {
+        return mRunCount.sum();
+    }
+
+    /**
+     * Number of runs scheduled by the deadline sweep rather than by an input signal
+     */
+    public long getDeadlineRunCount()
+    {
+        return mDeadlineRunCount.sum();
+    }
+
+    /**
+     * Total time channels spent waiting in the run queue, in nanoseconds
+     */
+    public long getLatencyNanos()
+    {
+        return mLatencyNanos.sum();
+    }
+
+    /**
+     * Maximum time a channel spent waiting in the run queue, in nanoseconds
+     */
+    public long getMaxLatencyNanos()
+    {
+        return mMaxLatencyNanos.get();
+    }
+
+    /**
+     * Scheduler statistics summary
+     */
+    public String getStatistics()
+    {
+        long runs = getRunCount();
+        double averageLatency = runs > 0 ? getLatencyNanos() / (double)runs / 1E6 : 0.0;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Channel Scheduler - channels:").append(getChannelCount());
+        sb.append(" runs:").append(runs);
+        sb.append(" deadline runs:").append(getDeadlineRunCount());
+        sb.append(" average latency:").append(String.format("%.3f", averageLatency)).append("ms");
+        sb.append(" max latency:").append(String.format("%.3f", getMaxLatencyNanos() / 1E6)).append("ms");
+
+        for(ScheduledChannel channel: getChannels())
+        {
+            sb.append("\n\t").append(channel).append(" runs:").append(channel.getRunCount()).append(" run time:")
+                .append(String.format("%.3f", channel.getRunNanos() / 1E6)).append("ms");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Worker that drains the run queue
+     */
+    private class Worker implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            while(!Thread.currentThread().isInterrupted())
+            {
+                ScheduledChannel channel;
+
+                try
+                {
+                    channel = mRunQueue.take();
+                }
+                catch(InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                try
+                {
+                    long latency = channel.run();
+
+                    mRunCount.increment();
+                    mLatencyNanos.add(latency);
+                    mMaxLatencyNanos.accumulateAndGet(latency, Math::max);
+                }
+                catch(Throwable t)
+                {
+                    mLog.error("Error while running scheduled channel [" + channel + "]", t);
+                }
+            }
+        }
+    }
+}
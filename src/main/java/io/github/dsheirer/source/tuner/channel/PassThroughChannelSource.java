@@ -54,6 +54,19 @@ public class PassThroughChannelSource extends TunerChannelSource implements ISou
     {
         super(listener, tunerChannel);
         mTunerController = tunerController;
+        mBufferQueue.applyChannelSettings();
+    }
+
+    @Override
+    public long getDroppedBufferCount()
+    {
+        return mBufferQueue.getDroppedCount();
+    }
+
+    @Override
+    public long getGapMilliseconds()
+    {
+        return mBufferQueue.getGapMilliseconds();
     }
 
     @Override
@@ -122,5 +135,6 @@ public class PassThroughChannelSource extends TunerChannelSource implements ISou
     public void receive(ReusableComplexBuffer reusableComplexBuffer)
     {
         mBufferQueue.offer(reusableComplexBuffer);
+        bufferQueued();
     }
 }
@@ -0,0 +1,169 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.source.tuner.channel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Channel processing task that is run by the channel scheduler when the channel is runnable.
+ *
+ * A channel becomes runnable when the producer signals that enough input has been queued (see bufferQueued()) or
+ * when the scheduler's deadline passes without a run.  A channel is never run concurrently by more than one worker
+ * and a signal received while the channel is running causes the channel to be rescheduled after the run.
+ */
+public abstract class ScheduledChannel
+{
+    private ChannelScheduler mScheduler;
+    private AtomicBoolean mScheduled = new AtomicBoolean();
+    private AtomicBoolean mPending = new AtomicBoolean();
+    private AtomicInteger mQueuedCount = new AtomicInteger();
+    private volatile long mScheduledNanos;
+    private volatile long mLastRunNanos = System.nanoTime();
+    private LongAdder mRunCount = new LongAdder();
+    private LongAdder mRunNanos = new LongAdder();
+
+    /**
+     * Constructs an instance
+     *
+     * @param scheduler to run this channel
+     */
+    public ScheduledChannel(ChannelScheduler scheduler)
+    {
+        mScheduler = scheduler;
+    }
+
+    /**
+     * Performs the channel processing.  Invoked on a channel scheduler worker thread.
+     */
+    protected abstract void process();
+
+    /**
+     * Registers this channel with the scheduler to start processing
+     */
+    public void start()
+    {
+        mLastRunNanos = System.nanoTime();
+        mScheduler.register(this);
+    }
+
+    /**
+     * Removes this channel from the scheduler.  A run that is already queued or in progress will still complete.
+     */
+    public void stop()
+    {
+        mScheduler.unregister(this);
+    }
+
+    /**
+     * Signals that an input buffer was queued for this channel.  The channel is scheduled to run once the number of
+     * queued buffers reaches the scheduler's signal threshold.
+     */
+    public void bufferQueued()
+    {
+        if(mQueuedCount.incrementAndGet() >= mScheduler.getSignalThreshold())
+        {
+            signal();
+        }
+    }
+
+    /**
+     * Schedules this channel to run as soon as a worker is available
+     */
+    public void signal()
+    {
+        mPending.set(true);
+        schedule();
+    }
+
+    /**
+     * Places this channel on the scheduler's run queue, unless it is already queued or running
+     */
+    void schedule()
+    {
+        if(mScheduled.compareAndSet(false, true))
+        {
+            mScheduledNanos = System.nanoTime();
+            mScheduler.enqueue(this);
+        }
+    }
+
+    /**
+     * Indicates if the deadline has passed since this channel last ran
+     *
+     * @param now nanoseconds
+     * @param deadlineNanos maximum interval between runs
+     */
+    boolean isOverdue(long now, long deadlineNanos)
+    {
+        return now - mLastRunNanos >= deadlineNanos;
+    }
+
+    /**
+     * Runs this channel on a scheduler worker thread and reschedules it when it was signalled during the run.
+     *
+     * @return scheduling latency in nanoseconds (time spent in the run queue)
+     */
+    long run()
+    {
+        long start = System.nanoTime();
+        long latency = start - mScheduledNanos;
+
+        mPending.set(false);
+        mQueuedCount.set(0);
+
+        try
+        {
+            process();
+        }
+        finally
+        {
+            long end = System.nanoTime();
+            mLastRunNanos = end;
+            mRunCount.increment();
+            mRunNanos.add(end - start);
+
+            mScheduled.set(false);
+
+            if(mPending.get())
+            {
+                schedule();
+            }
+        }
+
+        return latency;
+    }
+
+    /**
+     * Number of times this channel has run
+     */
+    public long getRunCount()
+    {
+        return mRunCount.sum();
+    }
+
+    /**
+     * Total run time of this channel in nanoseconds
+     */
+    public long getRunNanos()
+    {
+        return mRunNanos.sum();
+    }
+}
@@ -28,22 +28,20 @@ import io.github.dsheirer.source.ISourceEventProcessor;
 import io.github.dsheirer.source.SourceEvent;
 import io.github.dsheirer.source.SourceEventListenerToProcessorAdapter;
 import io.github.dsheirer.source.SourceException;
-import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 public abstract class TunerChannelSource extends ComplexSource implements ISourceEventProcessor
 {
     private final static Logger mLog = LoggerFactory.getLogger(TunerChannelSource.class);
-    private static final long BUFFER_PROCESSOR_RUN_INTERVAL_MILLISECONDS = 50;
     private SourceEventListenerToProcessorAdapter mConsumerSourceEventListenerAdapter;
     private TunerChannel mTunerChannel;
     private Listener<SourceEvent> mProducerSourceEventListener;
     private Listener<SourceEvent> mConsumerSourceEventListener;
-    private ScheduledIntervalProcessor mScheduledIntervalProcessor = new ScheduledIntervalProcessor();
+    private ChannelProcessor mChannelProcessor = new ChannelProcessor(ChannelScheduler.getInstance());
+    private long mStartTimestamp;
 
     /**
      * Tuner Channel Source is a Digital Drop Channel (DDC) abstract class that defines the minimum functionality
@@ -104,11 +102,20 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
     public abstract void setListener(Listener<ReusableComplexBuffer> complexBufferListener);
 
     /**
-     * Commands sub-class to process queued samples and distribute them to the consumer.  This method will be invoked
-     * by an interval timer.
+     * Commands sub-class to process queued samples and distribute them to the consumer.  This method is invoked by
+     * the channel scheduler when input has been queued (see bufferQueued()) or the scheduler deadline has passed.
      */
     protected abstract void processSamples();
 
+    /**
+     * Signals the channel scheduler that the sub-class queued an input buffer for processing.  Sub-classes invoke this
+     * method each time they receive an input buffer from the producer.
+     */
+    protected void bufferQueued()
+    {
+        mChannelProcessor.bufferQueued();
+    }
+
     /**
      * Tuner channel for this tuner channel source
      */
@@ -123,6 +130,17 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
         stop();
     }
 
+    /**
+     * Sets the requested start timestamp for the sample stream.  When the producer retains recent samples, the sample
+     * stream is preloaded with samples that contain or follow this timestamp.  Set before invoking start().
+     *
+     * @param timestamp in milliseconds, or zero to start with the current samples
+     */
+    public void setStartTimestamp(long timestamp)
+    {
+        mStartTimestamp = timestamp;
+    }
+
     /**
      * Starts this tuner channel source producing sample stream.
      */
@@ -130,8 +148,13 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
     {
         //Broadcast current frequency and sample rate so consumer can configure correctly
         broadcastConsumerSourceEvent(SourceEvent.frequencyChange(this, getFrequency(), "Startup"));
-        broadcastProducerSourceEvent(SourceEvent.startSampleStreamRequest(this));
-        mScheduledIntervalProcessor.start();
+
+        //Only traffic channels set a start timestamp (the time of the channel grant) to replay the start of the call.
+        //Control and standard channels never set it and start with the current samples.
+        long timestamp = mStartTimestamp > 0 ? mStartTimestamp : System.currentTimeMillis();
+        broadcastProducerSourceEvent(SourceEvent.startSampleStreamRequest(this, timestamp));
+
+        mChannelProcessor.start();
     }
 
     /**
@@ -142,7 +165,7 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
     {
         broadcastProducerSourceEvent(SourceEvent.stopSampleStreamRequest(this));
         broadcastProducerSourceEvent(SourceEvent.sourceDisposeRequest(this));
-        mScheduledIntervalProcessor.stop();
+        mChannelProcessor.requestStop();
     }
 
     @Override
@@ -264,53 +287,63 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
     }
 
     /**
-     * Processor to periodically invoke buffer sample processing on an interval timer.  At each interval this processor
-     * sends a heartbeat to the registered consumer and then commands the sub-class implementation to process any
-     * queued buffers and distribute complex buffer sample(s) to the registered consumer.
+     * Scheduled channel processor that runs on the channel scheduler when input is queued or the scheduler deadline
+     * passes.  Each run sends a heartbeat to the registered consumer, at most once per scheduler deadline interval,
+     * and then commands the sub-class implementation to process any queued buffers and distribute complex buffer
+     * sample(s) to the registered consumer.
      */
-    public class ScheduledIntervalProcessor implements Runnable
+    public class ChannelProcessor extends ScheduledChannel
     {
-        private ScheduledFuture<?> mScheduledFuture;
-        private boolean mStopped = false;
+        private long mHeartbeatIntervalNanos;
+        private long mLastHeartbeatNanos;
+        private volatile boolean mStopped = false;
+        private boolean mDisposed = false;
 
-        /**
-         * Commands this processor to do a shutdown at the end of this or the next iteration.  Once successfully
-         * shutdown, it will invoke the performDisposal() method to cleanup this instance.
-         */
-        public void stop()
+        public ChannelProcessor(ChannelScheduler scheduler)
         {
-            mStopped = true;
+            super(scheduler);
+            mHeartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(scheduler.getDeadlineMilliseconds());
         }
 
         /**
-         * Starts buffer processing on a fixed interval using a scheduled thread pool
+         * Commands this processor to do a shutdown on the next run.  Once successfully shutdown, it will invoke the
+         * performDisposal() method to cleanup this instance.
          */
-        public void start()
+        public void requestStop()
         {
-            if(mScheduledFuture == null)
-            {
-                mScheduledFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(this, 0,
-                    BUFFER_PROCESSOR_RUN_INTERVAL_MILLISECONDS, TimeUnit.MILLISECONDS);
-            }
+            mStopped = true;
+            signal();
         }
 
         /**
-         * Implementation of the Runnable interface to periodically send a heartbeat and then process buffer samples.
+         * Sends a heartbeat when due and then processes buffer samples.
          */
         @Override
-        public void run()
+        protected void process()
         {
+            if(mDisposed)
+            {
+                return;
+            }
+
             try
             {
                 if(!mStopped)
                 {
-                    try
-                    {
-                        getHeartbeatManager().broadcast();
-                    }
-                    catch(Throwable t)
+                    long now = System.nanoTime();
+
+                    if(now - mLastHeartbeatNanos >= mHeartbeatIntervalNanos)
                     {
-                        mLog.error("Error while sending heartbeat", t);
+                        mLastHeartbeatNanos = now;
+
+                        try
+                        {
+                            getHeartbeatManager().broadcast();
+                        }
+                        catch(Throwable t)
+                        {
+                            mLog.error("Error while sending heartbeat", t);
+                        }
                     }
                 }
 
@@ -328,13 +361,8 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
 
                 if(mStopped)
                 {
-                    if(mScheduledFuture != null)
-                    {
-                        //Set may-interrupt to false so that we can complete this iteration
-                        mScheduledFuture.cancel(false);
-                    }
-
-                    mScheduledFuture = null;
+                    stop();
+                    mDisposed = true;
 
                     try
                     {
@@ -352,5 +380,11 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
                 mLog.error("Error during heartbeat processing", t);
             }
         }
+
+        @Override
+        public String toString()
+        {
+            return TunerChannelSource.this.toString();
+        }
     }
 }
@@ -28,6 +28,8 @@ import io.github.dsheirer.source.tuner.TunerType;
 
 public class FCDTuner extends Tuner
 {
+    public static final int USB_BITS_PER_SAMPLE = 32;
+
     public FCDTuner(FCDTunerController controller, UserPreferences userPreferences)
     {
         super(controller.getConfiguration().toString(), controller, userPreferences);
@@ -70,6 +72,6 @@ public class FCDTuner extends Tuner
     @Override
     public int getMaximumUSBBitsPerSecond()
     {
-        return (int)getController().getCurrentSampleRate() * 32;
+        return (int)getController().getCurrentSampleRate() * USB_BITS_PER_SAMPLE;
     }
 }
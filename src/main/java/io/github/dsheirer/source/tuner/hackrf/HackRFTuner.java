@@ -34,6 +34,9 @@ public class HackRFTuner extends Tuner
 {
     private final static Logger mLog = LoggerFactory.getLogger(HackRFTuner.class);
 
+    //16 bits per sample * 20 MSPS
+    public static final int MAXIMUM_USB_BITS_PER_SECOND = 320000000;
+
     public HackRFTuner(HackRFTunerController controller, UserPreferences userPreferences) throws SourceException
     {
         super("HackRF", controller, userPreferences);
@@ -80,7 +83,6 @@ public class HackRFTuner extends Tuner
     @Override
     public int getMaximumUSBBitsPerSecond()
     {
-        //16 bits per sample * 20 MSPS
-        return 320000000;
+        return MAXIMUM_USB_BITS_PER_SECOND;
     }
 }
\ No newline at end of file
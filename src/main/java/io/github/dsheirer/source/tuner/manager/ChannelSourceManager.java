@@ -44,6 +44,12 @@ public abstract class ChannelSourceManager implements ISourceEventProcessor
      */
     public abstract SortedSet<TunerChannel> getTunerChannels();
 
+    /**
+     * Copy of the sorted set of tuner channels being sourced by this source manager.  The copy is safe to use while
+     * tuner channels are being added or removed on other threads.
+     */
+    public abstract SortedSet<TunerChannel> getTunerChannelSnapshot();
+
     /**
      * Count of tuner channels being sourced by this source manager.
      * @return
@@ -66,6 +66,15 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
         return mTunerChannels;
     }
 
+    @Override
+    public SortedSet<TunerChannel> getTunerChannelSnapshot()
+    {
+        synchronized(mTunerChannels)
+        {
+            return new TreeSet<>(mTunerChannels);
+        }
+    }
+
     @Override
     public int getTunerChannelCount()
     {
@@ -90,7 +99,11 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
                 tunerChannelSource.setFrequency(mTunerController.getFrequency());
 
                 //Add to the channel list and update the tuner center frequency as needed
-                mTunerChannels.add(tunerChannel);
+                synchronized(mTunerChannels)
+                {
+                    mTunerChannels.add(tunerChannel);
+                }
+
                 updateTunerFrequency();
 
                 //Lock the tuner controller frequency and sample rate
@@ -274,7 +287,12 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
                     {
                         CICTunerChannelSource channelSource = (CICTunerChannelSource)sourceEvent.getSource();
                         mChannelSources.remove(channelSource);
-                        mTunerChannels.remove(channelSource.getTunerChannel());
+
+                        synchronized(mTunerChannels)
+                        {
+                            mTunerChannels.remove(channelSource.getTunerChannel());
+                        }
+
                         channelSource.dispose();
 
                         //Unlock the tuner controller if there are no more channels
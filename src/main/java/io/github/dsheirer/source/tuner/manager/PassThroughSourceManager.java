@@ -60,6 +60,15 @@ public class PassThroughSourceManager extends ChannelSourceManager
         return mTunerChannels;
     }
 
+    @Override
+    public SortedSet<TunerChannel> getTunerChannelSnapshot()
+    {
+        synchronized(mTunerChannels)
+        {
+            return new TreeSet<>(mTunerChannels);
+        }
+    }
+
     @Override
     public int getTunerChannelCount()
     {
@@ -72,7 +81,11 @@ public class PassThroughSourceManager extends ChannelSourceManager
         PassThroughChannelSource channelSource = new PassThroughChannelSource(new SourceEventProxy(),
                 mTunerController, tunerChannel);
 
-        mTunerChannels.add(tunerChannel);
+        synchronized(mTunerChannels)
+        {
+            mTunerChannels.add(tunerChannel);
+        }
+
         mTunerChannelSources.add(channelSource);
 
         return channelSource;
@@ -95,7 +108,12 @@ public class PassThroughSourceManager extends ChannelSourceManager
                 {
                     PassThroughChannelSource source = (PassThroughChannelSource)event.getSource();
                     mTunerController.removeBufferListener(source);
-                    mTunerChannels.remove(source.getTunerChannel());
+
+                    synchronized(mTunerChannels)
+                    {
+                        mTunerChannels.remove(source.getTunerChannel());
+                    }
+
                     mTunerChannelSources.remove(source);
                     broadcast(SourceEvent.channelCountChange(mTunerChannels.size()));
                 }
@@ -392,6 +392,16 @@ public class PolyphaseChannelSourceManager extends ChannelSourceManager
         return mPolyphaseChannelManager.getTunerChannels();
     }
 
+    /**
+     * Copy of the tuner channels currently being sourced by this source manager.  The polyphase channel manager
+     * already builds a new set from its thread-safe channel source list.
+     */
+    @Override
+    public SortedSet<TunerChannel> getTunerChannelSnapshot()
+    {
+        return getTunerChannels();
+    }
+
     /**
      * Count of tuner channels currently being sourced by this source manager
      */
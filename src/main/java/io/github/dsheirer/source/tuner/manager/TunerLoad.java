@@ -0,0 +1,200 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.source.tuner.manager;
+
+import io.github.dsheirer.source.tuner.Tuner;
+
+import java.text.DecimalFormat;
+
+/**
+ * Current and projected load for a single tuner, used by the tuner placement calculator to rank candidate tuners
+ * for a channel request.
+ *
+ * Bandwidth values are the span between the lowest and highest channel edges sourced by the tuner.  Channelizer
+ * load is a relative CPU cost estimate based on the channelizer type, tuner sample rate and channel count.
+ */
+public class TunerLoad implements Comparable<TunerLoad>
+{
+    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("0.00");
+
+    private Tuner mTuner;
+    private boolean mFeasible;
+    private boolean mRetuneRequired;
+    private int mChannelCount;
+    private int mProjectedChannelCount;
+    private long mUsableBandwidth;
+    private long mUsedBandwidth;
+    private long mProjectedUsedBandwidth;
+    private double mChannelizerLoad;
+    private double mProjectedChannelizerLoad;
+    private double mCost;
+
+    /**
+     * Constructs an instance
+     *
+     * @param tuner for this load
+     * @param feasible indicates if the requested channel can be added to the tuner
+     * @param retuneRequired indicates if the tuner center frequency must change to add the requested channel
+     * @param channelCount current channel count
+     * @param projectedChannelCount channel count after the requested channel is added
+     * @param usableBandwidth of the tuner
+     * @param usedBandwidth current channel set span
+     * @param projectedUsedBandwidth channel set span after the requested channel is added
+     * @param channelizerLoad current relative channelizer cpu load
+     * @param projectedChannelizerLoad relative channelizer cpu load after the requested channel is added
+     * @param cost of placing the requested channel on this tuner, lower is better
+     */
+    public TunerLoad(Tuner tuner, boolean feasible, boolean retuneRequired, int channelCount, int projectedChannelCount,
+                     long usableBandwidth, long usedBandwidth, long projectedUsedBandwidth, double channelizerLoad,
+                     double projectedChannelizerLoad, double cost)
+    {
+        mTuner = tuner;
+        mFeasible = feasible;
+        mRetuneRequired = retuneRequired;
+        mChannelCount = channelCount;
+        mProjectedChannelCount = projectedChannelCount;
+        mUsableBandwidth = usableBandwidth;
+        mUsedBandwidth = usedBandwidth;
+        mProjectedUsedBandwidth = projectedUsedBandwidth;
+        mChannelizerLoad = channelizerLoad;
+        mProjectedChannelizerLoad = projectedChannelizerLoad;
+        mCost = cost;
+    }
+
+    public Tuner getTuner()
+    {
+        return mTuner;
+    }
+
+    /**
+     * Indicates if the requested channel can be placed on this tuner
+     */
+    public boolean isFeasible()
+    {
+        return mFeasible;
+    }
+
+    /**
+     * Indicates if placing the requested channel requires a change to the tuner's center frequency while the tuner
+     * is already sourcing other channels.
+     */
+    public boolean isRetuneRequired()
+    {
+        return mRetuneRequired;
+    }
+
+    public int getChannelCount()
+    {
+        return mChannelCount;
+    }
+
+    public int getProjectedChannelCount()
+    {
+        return mProjectedChannelCount;
+    }
+
+    public long getUsableBandwidth()
+    {
+        return mUsableBandwidth;
+    }
+
+    public long getUsedBandwidth()
+    {
+        return mUsedBandwidth;
+    }
+
+    public long getProjectedUsedBandwidth()
+    {
+        return mProjectedUsedBandwidth;
+    }
+
+    /**
+     * Fraction (0.0 - 1.0) of the usable bandwidth occupied by the channel set after placement
+     */
+    public double getProjectedBandwidthUtilization()
+    {
+        if(mUsableBandwidth > 0)
+        {
+            return Math.min(1.0, (double)mProjectedUsedBandwidth / (double)mUsableBandwidth);
+        }
+
+        return 1.0;
+    }
+
+    public double getChannelizerLoad()
+    {
+        return mChannelizerLoad;
+    }
+
+    public double getProjectedChannelizerLoad()
+    {
+        return mProjectedChannelizerLoad;
+    }
+
+    /**
+     * Placement cost for the requested channel.  Lower cost is preferred.
+     */
+    public double getCost()
+    {
+        return mCost;
+    }
+
+    @Override
+    public int compareTo(TunerLoad other)
+    {
+        if(isFeasible() != other.isFeasible())
+        {
+            return isFeasible() ? -1 : 1;
+        }
+
+        return Double.compare(getCost(), other.getCost());
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("TUNER [").append(mTuner.getName()).append("]");
+
+        if(mFeasible)
+        {
+            sb.append(" COST:").append(DECIMAL_FORMAT.format(mCost));
+        }
+        else
+        {
+            sb.append(" COST:N/A");
+        }
+
+        sb.append(" CHANNELS:").append(mChannelCount).append("->").append(mProjectedChannelCount);
+        sb.append(" BANDWIDTH:").append(mUsedBandwidth).append("->").append(mProjectedUsedBandwidth);
+        sb.append("/").append(mUsableBandwidth);
+        sb.append(" LOAD:").append(DECIMAL_FORMAT.format(mChannelizerLoad)).append("->")
+            .append(DECIMAL_FORMAT.format(mProjectedChannelizerLoad));
+
+        if(mRetuneRequired)
+        {
+            sb.append(" RETUNE");
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.source.tuner.manager;
+
+import io.github.dsheirer.source.tuner.Tuner;
+import io.github.dsheirer.source.tuner.TunerController;
+import io.github.dsheirer.source.tuner.channel.TunerChannel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Ranks tuners for a channel request, treating tuner/channel assignment as a bin-packing problem where each tuner
+ * is a bin with a usable bandwidth capacity, a center DC spike exclusion zone and a channelizer CPU cost.
+ *
+ * The cost of placing a channel on a tuner combines:
+ *  - Bandwidth: the increase in the occupied channel span as a fraction of the tuner's usable bandwidth (best-fit),
+ *    so that channels are packed into tuners that already cover their frequency and wide spans remain available.
+ *  - Open tuner: a penalty for starting an idle tuner, so that idle tuners remain available for channels that
+ *    cannot be sourced by the tuners already in use.
+ *  - Retune: a penalty for changing the center frequency of a tuner that is already sourcing channels, since
+ *    retuning disrupts the sample stream of every channel on that tuner.
+ *  - Channelizer load: the incremental and resulting relative CPU cost for the tuner's channelizer type.
+ *
+ * Feasibility is estimated with the CenterFrequencyCalculator.  The channel source manager of the selected tuner
+ * makes the final determination when the source is requested, so callers should try the ranked tuners in order.
+ */
+public class TunerPlacementCalculator
+{
+    private static final double BANDWIDTH_WEIGHT = 1.0;
+    private static final double OPEN_TUNER_PENALTY = 0.5;
+    private static final double RETUNE_PENALTY = 0.75;
+    private static final double LOAD_WEIGHT = 0.05;
+
+    /**
+     * Relative CPU cost per channel per MHz of tuner sample rate for a heterodyne (mix and decimate) channel, where
+     * each channel processes every tuner sample.
+     */
+    private static final double HETERODYNE_CHANNEL_COST = 1.0;
+
+    /**
+     * Relative CPU cost per MHz of tuner sample rate for the polyphase channelizer, paid once per tuner when any
+     * channel is sourced, and the much smaller per-channel synthesis cost.
+     */
+    private static final double POLYPHASE_CHANNELIZER_COST = 1.0;
+    private static final double POLYPHASE_CHANNEL_COST = 0.1;
+
+    /**
+     * Calculates the placement cost of the tuner channel for each of the tuners.
+     *
+     * @param tunerChannel requested
+     * @param tuners available
+     * @return placement loads for each tuner, sorted with feasible tuners first in order of increasing cost
+     */
+    public static List<TunerLoad> getPlacement(TunerChannel tunerChannel, List<Tuner> tuners)
+    {
+        List<TunerLoad> loads = new ArrayList<>();
+
+        for(Tuner tuner: tuners)
+        {
+            if(!tuner.hasError())
+            {
+                loads.add(getLoad(tunerChannel, tuner));
+            }
+        }
+
+        Collections.sort(loads);
+
+        return loads;
+    }
+
+    /**
+     * Calculates the current load for each of the tuners without a channel request.
+     *
+     * @param tuners to evaluate
+     * @return current loads for each tuner that is not in an error state
+     */
+    public static List<TunerLoad> getLoads(List<Tuner> tuners)
+    {
+        List<TunerLoad> loads = new ArrayList<>();
+
+        for(Tuner tuner: tuners)
+        {
+            if(!tuner.hasError())
+            {
+                loads.add(getLoad(null, tuner));
+            }
+        }
+
+        return loads;
+    }
+
+    /**
+     * Calculates the current and projected load of the tuner when the tuner channel is added.
+     *
+     * @param tunerChannel requested or null to calculate the current load only
+     * @param tuner to evaluate
+     * @return load
+     */
+    public static TunerLoad getLoad(TunerChannel tunerChannel, Tuner tuner)
+    {
+        TunerController controller = tuner.getTunerController();
+        ChannelSourceManager channelSourceManager = tuner.getChannelSourceManager();
+        SortedSet<TunerChannel> channels = channelSourceManager.getTunerChannelSnapshot();
+
+        int channelCount = channels.size();
+        long usableBandwidth = controller.getUsableBandwidth();
+        long usedBandwidth = getSpan(channels);
+        double sampleRateMHz = controller.getSampleRate() / 1E6;
+        double load = getChannelizerLoad(channelSourceManager, channelCount, sampleRateMHz);
+
+        if(tunerChannel == null)
+        {
+            return new TunerLoad(tuner, false, false, channelCount, channelCount, usableBandwidth, usedBandwidth,
+                usedBandwidth, load, load, 0.0);
+        }
+
+        boolean feasible = CenterFrequencyCalculator.canTune(tunerChannel, controller, channels);
+
+        SortedSet<TunerChannel> projectedChannels = new TreeSet<>(channels);
+        projectedChannels.add(tunerChannel);
+        int projectedChannelCount = projectedChannels.size();
+        long projectedUsedBandwidth = getSpan(projectedChannels);
+        double projectedLoad = getChannelizerLoad(channelSourceManager, projectedChannelCount, sampleRateMHz);
+
+        boolean retuneRequired = channelCount > 0 && !controller.isTunedFor(tunerChannel);
+
+        double cost = 0.0;
+
+        if(usableBandwidth > 0)
+        {
+            cost += BANDWIDTH_WEIGHT * (double)(projectedUsedBandwidth - usedBandwidth) / (double)usableBandwidth;
+        }
+
+        if(channelCount == 0)
+        {
+            cost += OPEN_TUNER_PENALTY;
+        }
+
+        if(retuneRequired)
+        {
+            cost += RETUNE_PENALTY;
+        }
+
+        cost += LOAD_WEIGHT * projectedLoad;
+
+        return new TunerLoad(tuner, feasible, retuneRequired, channelCount, projectedChannelCount, usableBandwidth,
+            usedBandwidth, projectedUsedBandwidth, load, projectedLoad, cost);
+    }
+
+    /**
+     * Bandwidth spanned by the set of channels from the lowest channel edge to the highest channel edge
+     */
+    private static long getSpan(SortedSet<TunerChannel> channels)
+    {
+        if(channels.isEmpty())
+        {
+            return 0;
+        }
+
+        return channels.last().getMaxFrequency() - channels.first().getMinFrequency();
+    }
+
+    /**
+     * Estimated relative channelizer CPU load for the channel source manager type and channel count.
+     */
+    private static double getChannelizerLoad(ChannelSourceManager channelSourceManager, int channelCount,
+                                             double sampleRateMHz)
+    {
+        if(channelCount == 0)
+        {
+            return 0.0;
+        }
+
+        if(channelSourceManager instanceof PolyphaseChannelSourceManager)
+        {
+            return sampleRateMHz * (POLYPHASE_CHANNELIZER_COST + (POLYPHASE_CHANNEL_COST * channelCount));
+        }
+        else if(channelSourceManager instanceof HeterodyneChannelSourceManager)
+        {
+            return sampleRateMHz * HETERODYNE_CHANNEL_COST * channelCount;
+        }
+
+        return 0.0;
+    }
+}
@@ -33,6 +33,9 @@ public class RTL2832Tuner extends Tuner
 {
     private final static Logger mLog = LoggerFactory.getLogger(RTL2832Tuner.class);
 
+    //16 bits per sample * 2.4 MSPS
+    public static final int MAXIMUM_USB_BITS_PER_SECOND = 38400000;
+
     private TunerClass mTunerClass;
 
     public RTL2832Tuner(TunerClass tunerClass, RTL2832TunerController controller, UserPreferences userPreferences)
@@ -78,7 +81,6 @@ public class RTL2832Tuner extends Tuner
     @Override
     public int getMaximumUSBBitsPerSecond()
     {
-        //16 bits per sample * 2.4 MSPS
-        return 38400000;
+        return MAXIMUM_USB_BITS_PER_SECOND;
     }
 }
\ No newline at end of file
@@ -35,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
@@ -44,6 +45,13 @@ import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * Processes both complex samples or float samples and dispatches a float array of DFT results, using configurable fft
  * size and output dispatch timelines.
+ *
+ * For complex samples, when the sample rate produces more samples per display frame than a single DFT can consume,
+ * the processor uses Welch averaging: the power of up to a maximum number of 50% overlapping DFT segments is averaged
+ * for each display frame, which uses more of the sample stream and reduces the variance of the noise floor.  The
+ * maximum segment count bounds the CPU cost per display frame and any remaining samples are flushed.  Averaged results
+ * are dispatched as complex bins with the real part set to the root of the averaged power and the imaginary part set
+ * to zero, so that converters can treat them like single DFT results.
  */
 public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEventProcessor, IDFTWidthChangeProcessor
 {
@@ -51,6 +59,9 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
     private static final int BUFFER_QUEUE_MAX_SIZE = 20;
     private static final int BUFFER_QUEUE_OVERFLOW_RESET_THRESHOLD = 6;
     private static final String FRAME_RATE_PROPERTY = "spectral.display.frame.rate";
+    private static final String AVERAGING_SEGMENTS_PROPERTY = "spectral.display.averaging.segments";
+    private static final int DEFAULT_AVERAGING_SEGMENTS = 8;
+    private static final int MAXIMUM_AVERAGING_SEGMENTS = 64;
 
     //The Cosine and Hann windows seem to offer the best spectral display with minimal bin leakage/smearing
     private WindowType mWindowType = WindowType.HANN;
@@ -63,6 +74,11 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
     private int mFrameSize;
     private int mFrameFlushCount;
     private int mFrameOverlapCount;
+    private int mMaximumAveragingSegments;
+    private int mAveragingSegments = 1;
+    private int mSegmentOverlapCount;
+    private float[] mSegmentSamples;
+    private float[] mPowerAccumulator;
     private SampleType mSampleType;
     private AtomicBoolean mRunning = new AtomicBoolean();
     private ScheduledFuture<?> mProcessorTaskHandle;
@@ -75,6 +91,8 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
     {
         setSampleType(sampleType);
         mFrameRate = SystemProperties.getInstance().get(FRAME_RATE_PROPERTY, 20);
+        mMaximumAveragingSegments = SystemProperties.getInstance().get(AVERAGING_SEGMENTS_PROPERTY,
+            DEFAULT_AVERAGING_SEGMENTS);
         calculateConsumptionRate();
         start();
     }
@@ -167,6 +185,43 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
         restart();
     }
 
+    /**
+     * Maximum number of overlapping DFT segments to average for each display frame (Welch averaging).  This limits
+     * the CPU cost of the processor.  A value of 1 disables averaging.
+     */
+    public int getMaximumAveragingSegments()
+    {
+        return mMaximumAveragingSegments;
+    }
+
+    /**
+     * Sets the maximum number of overlapping DFT segments to average for each display frame.
+     *
+     * @param segments in the range 1 - 64, where a value of 1 disables averaging
+     */
+    public void setMaximumAveragingSegments(int segments)
+    {
+        if(segments < 1 || segments > MAXIMUM_AVERAGING_SEGMENTS)
+        {
+            throw new IllegalArgumentException("DFTProcessor averaging segments must be in range 1 - " +
+                MAXIMUM_AVERAGING_SEGMENTS + " -- requested setting:" + segments);
+        }
+
+        mMaximumAveragingSegments = segments;
+
+        SystemProperties.getInstance().set(AVERAGING_SEGMENTS_PROPERTY, mMaximumAveragingSegments);
+
+        calculateConsumptionRate();
+    }
+
+    /**
+     * Number of DFT segments currently averaged for each display frame
+     */
+    public int getAveragingSegments()
+    {
+        return mAveragingSegments;
+    }
+
     public void start()
     {
         if(mProcessorTaskHandle == null)
@@ -219,26 +274,33 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
 
         try
         {
-            if(mFrameFlushCount > 0)
+            if(mAveragingSegments > 1)
             {
-                mOverflowableBufferStream.flush(mFrameFlushCount);
+                calculateAveraged();
             }
+            else
+            {
+                if(mFrameFlushCount > 0)
+                {
+                    mOverflowableBufferStream.flush(mFrameFlushCount);
+                }
 
-            //If this throws an IO exception, the buffer queue is (temporarily) empty and we return from the method
-            float[] samples = mOverflowableBufferStream.get(mFrameSize, mFrameOverlapCount);
+                //The previous samples were dispatched above, so we can reuse the array.  If this throws an IO
+                //exception, the buffer queue is (temporarily) empty and the array is not modified.
+                float[] samples = mPreviousSamples;
+                mOverflowableBufferStream.get(samples, mFrameOverlapCount);
 
-            Window.apply(mWindow, samples);
+                Window.apply(mWindow, samples);
 
-            if(mSampleType == SampleType.REAL)
-            {
-                mFFT.realForward(samples);
-            }
-            else
-            {
-                mFFT.complexForward(samples);
+                if(mSampleType == SampleType.REAL)
+                {
+                    mFFT.realForward(samples);
+                }
+                else
+                {
+                    mFFT.complexForward(samples);
+                }
             }
-
-            mPreviousSamples = samples;
         }
         catch(IOException ioe)
         {
@@ -258,6 +320,77 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
         }
     }
 
+    /**
+     * Calculates a Welch averaged power spectrum from overlapping complex sample segments and stores the results in
+     * the previous samples array for dispatch on the next frame.  The final segment of each display frame does not
+     * retain an overlap so that the flushed samples don't create a discontinuity in the following segment.
+     *
+     * @throws IOException if the buffer queue is (temporarily) empty.  Any segments processed before the queue
+     * emptied are averaged and stored.
+     */
+    private void calculateAveraged() throws IOException
+    {
+        int segments = mAveragingSegments;
+
+        if(mSegmentSamples == null || mSegmentSamples.length != mFrameSize)
+        {
+            mSegmentSamples = new float[mFrameSize];
+        }
+
+        if(mPowerAccumulator == null || mPowerAccumulator.length != mFrameSize / 2)
+        {
+            mPowerAccumulator = new float[mFrameSize / 2];
+        }
+
+        float[] samples = mSegmentSamples;
+        float[] power = mPowerAccumulator;
+        Arrays.fill(power, 0.0f);
+        int processed = 0;
+
+        try
+        {
+            for(int segment = 0; segment < segments; segment++)
+            {
+                boolean lastSegment = (segment == segments - 1);
+
+                //Flush the unused samples after the final segment
+                if(lastSegment && mFrameFlushCount > 0)
+                {
+                    mOverflowableBufferStream.flush(mFrameFlushCount);
+                }
+
+                mOverflowableBufferStream.get(samples, lastSegment ? 0 : mSegmentOverlapCount);
+
+                Window.apply(mWindow, samples);
+                mFFT.complexForward(samples);
+
+                for(int x = 0; x < power.length; x++)
+                {
+                    int index = x * 2;
+                    power[x] += (samples[index] * samples[index]) + (samples[index + 1] * samples[index + 1]);
+                }
+
+                processed++;
+            }
+        }
+        finally
+        {
+            float[] results = mPreviousSamples;
+
+            if(processed > 0 && results.length == samples.length)
+            {
+                float scale = 1.0f / processed;
+
+                for(int x = 0; x < power.length; x++)
+                {
+                    int index = x * 2;
+                    results[index] = (float)Math.sqrt(power[x] * scale);
+                    results[index + 1] = 0.0f;
+                }
+            }
+        }
+    }
+
     /**
      * Takes a calculated DFT results set, reformats the data, and sends it
      * out to all registered listeners.
@@ -348,6 +481,35 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
         mPreviousSamples = new float[mFrameSize];
 
         int productionRate = mSampleRate * floatsPerSample;
+
+        //Use Welch averaging when the samples produced per display frame can provide at least two 50% overlapping
+        //segments.  The final segment doesn't overlap the next display frame, so each frame consumes one full segment
+        //plus one half segment for each additional segment.  Remaining samples are flushed.
+        if(mSampleType == SampleType.COMPLEX && mMaximumAveragingSegments > 1)
+        {
+            int floatsPerFrame = productionRate / mFrameRate;
+            int hop = mFrameSize / 2;
+
+            if(floatsPerFrame >= mFrameSize + hop)
+            {
+                mAveragingSegments = Math.min(1 + ((floatsPerFrame - mFrameSize) / hop), mMaximumAveragingSegments);
+                mSegmentOverlapCount = mFrameSize - hop;
+                mFrameOverlapCount = 0;
+                mFrameFlushCount = floatsPerFrame - mFrameSize - ((mAveragingSegments - 1) * hop);
+
+                if(mFrameFlushCount % floatsPerSample != 0)
+                {
+                    mFrameFlushCount++;
+                }
+
+                return;
+            }
+        }
+
+        mAveragingSegments = 1;
+        mFrameFlushCount = 0;
+        mFrameOverlapCount = 0;
+
         int consumptionRate = mFrameRate * mFrameSize;
         int residual = productionRate - consumptionRate;
 
@@ -0,0 +1,197 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.spectrum;
+
+import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.source.tuner.Tuner;
+import io.github.dsheirer.source.tuner.TunerEvent;
+import io.github.dsheirer.source.tuner.TunerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Manages headless power spectral density (PSD) export for each tuner in the tuner model.  When enabled, a power
+ * spectrum exporter is started against each tuner's sample stream as the tuner is added to the tuner model and is
+ * stopped when the tuner is removed.
+ *
+ * Export is controlled by the following system properties:
+ *
+ * spectrum.export.enabled - true to export (default false)
+ * spectrum.export.directory - export directory (default: 'spectrum' folder in the application root directory)
+ * spectrum.export.interval.milliseconds - interval between exported rows (default 1000)
+ * spectrum.export.columns - maximum bin value columns per row (default 1024)
+ */
+public class PowerSpectrumExportManager implements Listener<TunerEvent>
+{
+    private final static Logger mLog = LoggerFactory.getLogger(PowerSpectrumExportManager.class);
+
+    public static final String ENABLED_PROPERTY = "spectrum.export.enabled";
+    public static final String DIRECTORY_PROPERTY = "spectrum.export.directory";
+    public static final String INTERVAL_PROPERTY = "spectrum.export.interval.milliseconds";
+    public static final String COLUMNS_PROPERTY = "spectrum.export.columns";
+    private static final String DEFAULT_DIRECTORY_NAME = "spectrum";
+
+    private TunerModel mTunerModel;
+    private UserPreferences mUserPreferences;
+    private Path mExportDirectory;
+    private int mExportIntervalMilliseconds;
+    private int mMaximumColumns;
+    private Map<Tuner,PowerSpectrumExporter> mExporterMap = new HashMap<>();
+
+    /**
+     * Constructs an instance
+     *
+     * @param tunerModel providing the tuners
+     * @param userPreferences for the default export directory
+     */
+    public PowerSpectrumExportManager(TunerModel tunerModel, UserPreferences userPreferences)
+    {
+        mTunerModel = tunerModel;
+        mUserPreferences = userPreferences;
+    }
+
+    /**
+     * Indicates if power spectrum export is enabled in the system properties
+     */
+    public static boolean isEnabled()
+    {
+        return SystemProperties.getInstance().get(ENABLED_PROPERTY, false);
+    }
+
+    /**
+     * Starts exporting for each current tuner and for tuners subsequently added to the tuner model, when power
+     * spectrum export is enabled.
+     */
+    public void start()
+    {
+        if(!isEnabled())
+        {
+            return;
+        }
+
+        SystemProperties properties = SystemProperties.getInstance();
+        String directory = properties.get(DIRECTORY_PROPERTY, "");
+        mExportDirectory = !directory.isEmpty() ? Paths.get(directory) :
+            mUserPreferences.getDirectoryPreference().getDirectoryApplicationRoot().resolve(DEFAULT_DIRECTORY_NAME);
+        mExportIntervalMilliseconds = Math.max(1, properties.get(INTERVAL_PROPERTY,
+            PowerSpectrumExporter.DEFAULT_EXPORT_INTERVAL_MILLISECONDS));
+        mMaximumColumns = Math.max(1, properties.get(COLUMNS_PROPERTY, PowerSpectrumExporter.DEFAULT_MAXIMUM_COLUMNS));
+
+        mLog.info("Power spectrum export enabled - directory [" + mExportDirectory + "] interval [" +
+            mExportIntervalMilliseconds + " ms] columns [" + mMaximumColumns + "]");
+
+        mTunerModel.addListener(this);
+
+        for(Tuner tuner: mTunerModel.getTuners())
+        {
+            start(tuner);
+        }
+    }
+
+    /**
+     * Stops exporting for all tuners
+     */
+    public void stop()
+    {
+        mTunerModel.removeListener(this);
+
+        synchronized(mExporterMap)
+        {
+            for(PowerSpectrumExporter exporter: mExporterMap.values())
+            {
+                exporter.dispose();
+            }
+
+            mExporterMap.clear();
+        }
+    }
+
+    @Override
+    public void receive(TunerEvent event)
+    {
+        switch(event.getEvent())
+        {
+            case TUNER_ADDED:
+                start(event.getTuner());
+                break;
+            case TUNER_REMOVED:
+                stop(event.getTuner());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Starts exporting for the tuner
+     */
+    private void start(Tuner tuner)
+    {
+        if(tuner == null)
+        {
+            return;
+        }
+
+        synchronized(mExporterMap)
+        {
+            if(mExporterMap.containsKey(tuner))
+            {
+                return;
+            }
+
+            PowerSpectrumExporter exporter = new PowerSpectrumExporter(mExportDirectory, mExportIntervalMilliseconds,
+                mMaximumColumns);
+
+            try
+            {
+                exporter.start(tuner);
+                mExporterMap.put(tuner, exporter);
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Unable to start power spectrum export for tuner [" + tuner.getName() + "]", ioe);
+                exporter.dispose();
+            }
+        }
+    }
+
+    /**
+     * Stops exporting for the tuner
+     */
+    private void stop(Tuner tuner)
+    {
+        synchronized(mExporterMap)
+        {
+            PowerSpectrumExporter exporter = mExporterMap.remove(tuner);
+
+            if(exporter != null)
+            {
+                exporter.dispose();
+            }
+        }
+    }
+}
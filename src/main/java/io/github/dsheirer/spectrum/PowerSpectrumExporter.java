@@ -0,0 +1,335 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum;
+
+import io.github.dsheirer.sample.SampleType;
+import io.github.dsheirer.source.ISourceEventProcessor;
+import io.github.dsheirer.source.SourceEvent;
+import io.github.dsheirer.source.tuner.Tuner;
+import io.github.dsheirer.spectrum.converter.ComplexDecibelConverter;
+import io.github.dsheirer.util.TimeStamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Headless power spectral density (PSD) exporter for a tuner.  Runs a Welch averaged DFT processor against the
+ * tuner's sample stream, without a spectral display, and appends one CSV row per export interval to a file in the
+ * export directory.
+ *
+ * Each row contains the timestamp (milliseconds), tuner center frequency and sample rate, the estimated noise floor
+ * (median bin power in dB), band occupancy (fraction of bins more than the occupancy threshold above the noise floor)
+ * and the bin power values in dB from lowest to highest frequency.  Bins are reduced to the maximum column count by
+ * retaining the peak value of each group of adjacent bins.
+ */
+public class PowerSpectrumExporter implements DFTResultsListener, ISourceEventProcessor
+{
+    private final static Logger mLog = LoggerFactory.getLogger(PowerSpectrumExporter.class);
+
+    public static final int DEFAULT_EXPORT_INTERVAL_MILLISECONDS = 1000;
+    public static final int DEFAULT_MAXIMUM_COLUMNS = 1024;
+    public static final float DEFAULT_OCCUPANCY_THRESHOLD_DB = 10.0f;
+    private static final long[] DECIMAL_SCALES = {1l, 10l, 100l, 1000l, 10000l, 100000l, 1000000l, 10000000l,
+        100000000l, 1000000000l};
+
+    private Path mExportDirectory;
+    private int mExportIntervalMilliseconds;
+    private int mMaximumColumns;
+    private float mOccupancyThreshold = DEFAULT_OCCUPANCY_THRESHOLD_DB;
+    private DFTProcessor mDFTProcessor = new DFTProcessor(SampleType.COMPLEX);
+    private ComplexDecibelConverter mDecibelConverter = new ComplexDecibelConverter();
+    private Tuner mTuner;
+    private BufferedWriter mWriter;
+    private long mLastExportTimestamp;
+    private long mFrequency;
+    private double mSampleRate;
+    private float[] mSortBuffer = new float[0];
+    private float[] mColumns = new float[0];
+    private StringBuilder mRowBuilder = new StringBuilder();
+
+    /**
+     * Constructs an instance
+     *
+     * @param exportDirectory for the PSD file
+     * @param exportIntervalMilliseconds between exported rows
+     * @param maximumColumns of bin values per row
+     */
+    public PowerSpectrumExporter(Path exportDirectory, int exportIntervalMilliseconds, int maximumColumns)
+    {
+        mExportDirectory = exportDirectory;
+        mExportIntervalMilliseconds = exportIntervalMilliseconds;
+        mMaximumColumns = maximumColumns;
+        mDFTProcessor.stop();
+        mDFTProcessor.addConverter(mDecibelConverter);
+        mDecibelConverter.addListener(this);
+    }
+
+    /**
+     * Constructs an instance with the default export interval and column count
+     *
+     * @param exportDirectory for the PSD file
+     */
+    public PowerSpectrumExporter(Path exportDirectory)
+    {
+        this(exportDirectory, DEFAULT_EXPORT_INTERVAL_MILLISECONDS, DEFAULT_MAXIMUM_COLUMNS);
+    }
+
+    /**
+     * DFT processor used by this exporter, for adjusting DFT size, frame rate and averaging.
+     */
+    public DFTProcessor getDFTProcessor()
+    {
+        return mDFTProcessor;
+    }
+
+    /**
+     * Sets the threshold above the noise floor that a bin must exceed to be counted as occupied
+     * @param thresholdDb decibels above the noise floor
+     */
+    public void setOccupancyThreshold(float thresholdDb)
+    {
+        mOccupancyThreshold = thresholdDb;
+    }
+
+    /**
+     * Starts exporting the power spectrum for the tuner.
+     *
+     * @param tuner to monitor
+     * @throws IOException if the export file cannot be created
+     */
+    public void start(Tuner tuner) throws IOException
+    {
+        stop();
+
+        Files.createDirectories(mExportDirectory);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(TimeStamp.getLongTimeStamp("_"));
+        sb.append("_").append(tuner.getName().replaceAll("[^A-Za-z0-9_-]", "_"));
+        sb.append("_psd.csv");
+
+        Path file = mExportDirectory.resolve(sb.toString());
+        mLog.info("Creating power spectrum export file:" + file);
+        mWriter = Files.newBufferedWriter(file);
+        mWriter.write("timestamp,frequency,sample_rate,noise_floor_db,occupancy,bins_db...");
+        mWriter.newLine();
+        mWriter.flush();
+
+        mTuner = tuner;
+        mTuner.getTunerController().addListener(this);
+        mDFTProcessor.clearBuffer();
+        mDFTProcessor.start();
+        mTuner.getTunerController().addBufferListener(mDFTProcessor);
+
+        process(SourceEvent.frequencyChange(null, mTuner.getTunerController().getFrequency()));
+        process(SourceEvent.sampleRateChange(mTuner.getTunerController().getSampleRate()));
+    }
+
+    /**
+     * Stops exporting and closes the export file
+     */
+    public void stop()
+    {
+        if(mTuner != null)
+        {
+            mTuner.getTunerController().removeBufferListener(mDFTProcessor);
+            mTuner.getTunerController().removeListener(this);
+            mTuner = null;
+        }
+
+        mDFTProcessor.stop();
+        mDFTProcessor.clearBuffer();
+
+        if(mWriter != null)
+        {
+            try
+            {
+                mWriter.flush();
+                mWriter.close();
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error closing power spectrum export file", ioe);
+            }
+
+            mWriter = null;
+        }
+    }
+
+    /**
+     * Stops exporting and releases resources
+     */
+    public void dispose()
+    {
+        stop();
+        mDFTProcessor.dispose();
+        mDecibelConverter.dispose();
+    }
+
+    @Override
+    public void process(SourceEvent event)
+    {
+        switch(event.getEvent())
+        {
+            case NOTIFICATION_FREQUENCY_CHANGE:
+                mFrequency = event.getValue().longValue();
+                break;
+            case NOTIFICATION_SAMPLE_RATE_CHANGE:
+                mSampleRate = event.getValue().doubleValue();
+                mDFTProcessor.process(event);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Receives power spectrum results in dB from the decibel converter and exports a row when the export interval
+     * has elapsed.
+     */
+    @Override
+    public void receive(float[] results)
+    {
+        long now = System.currentTimeMillis();
+
+        if(mWriter == null || now - mLastExportTimestamp < mExportIntervalMilliseconds ||
+           results.length == 0 || Float.isNaN(results[0]))
+        {
+            return;
+        }
+
+        mLastExportTimestamp = now;
+
+        if(mSortBuffer.length != results.length)
+        {
+            mSortBuffer = new float[results.length];
+        }
+
+        System.arraycopy(results, 0, mSortBuffer, 0, results.length);
+        Arrays.sort(mSortBuffer);
+        float noiseFloor = mSortBuffer[mSortBuffer.length / 2];
+
+        float occupancyThreshold = noiseFloor + mOccupancyThreshold;
+        int occupied = 0;
+
+        for(float result: results)
+        {
+            if(result > occupancyThreshold)
+            {
+                occupied++;
+            }
+        }
+
+        int binsPerColumn = (int)Math.ceil((double)results.length / (double)mMaximumColumns);
+        int columnCount = (int)Math.ceil((double)results.length / (double)binsPerColumn);
+
+        if(mColumns.length != columnCount)
+        {
+            mColumns = new float[columnCount];
+        }
+
+        Arrays.fill(mColumns, Float.NEGATIVE_INFINITY);
+
+        for(int x = 0; x < results.length; x++)
+        {
+            int column = x / binsPerColumn;
+
+            if(results[x] > mColumns[column])
+            {
+                mColumns[column] = results[x];
+            }
+        }
+
+        StringBuilder sb = mRowBuilder;
+        sb.setLength(0);
+        sb.append(now);
+        sb.append(",").append(mFrequency);
+        sb.append(",").append((long)mSampleRate);
+        sb.append(",");
+        appendDecimal(sb, noiseFloor, 2);
+        sb.append(",");
+        appendDecimal(sb, (double)occupied / (double)results.length, 4);
+
+        for(float column: mColumns)
+        {
+            sb.append(",");
+            appendDecimal(sb, column, 1);
+        }
+
+        try
+        {
+            mWriter.write(sb.toString());
+            mWriter.newLine();
+            mWriter.flush();
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error writing power spectrum export row - stopping export", ioe);
+            stop();
+        }
+    }
+
+    /**
+     * Appends the value rounded to the number of decimal places, without the formatter and intermediate string
+     * overhead of String.format().  Infinite and NaN values are appended as Double.toString() represents them.
+     *
+     * @param sb to append to
+     * @param value to append
+     * @param decimals number of decimal places, 0 - 9
+     */
+    static void appendDecimal(StringBuilder sb, double value, int decimals)
+    {
+        if(Double.isNaN(value) || Double.isInfinite(value))
+        {
+            sb.append(value);
+            return;
+        }
+
+        long scale = DECIMAL_SCALES[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+
+        if(value < 0 && scaled != 0)
+        {
+            sb.append('-');
+        }
+
+        sb.append(scaled / scale);
+
+        if(decimals > 0)
+        {
+            sb.append('.');
+
+            long fraction = scaled % scale;
+
+            //Leading zeros of the fractional part
+            for(long digit = scale / 10; digit > 1 && fraction < digit; digit /= 10)
+            {
+                sb.append('0');
+            }
+
+            sb.append(fraction);
+        }
+    }
+}
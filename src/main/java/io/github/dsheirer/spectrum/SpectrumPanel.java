@@ -131,7 +131,8 @@ public class SpectrumPanel extends JPanel implements DFTResultsListener, Setting
         if(mDisplayFFTBins == null ||
             mDisplayFFTBins.length != currentFFTBins.length)
         {
-            mDisplayFFTBins = currentFFTBins;
+            //Copy the results since the converter reuses its results arrays
+            mDisplayFFTBins = Arrays.copyOf(currentFFTBins, currentFFTBins.length);
         }
 
         //Apply smoothing across the bins of the DFT results
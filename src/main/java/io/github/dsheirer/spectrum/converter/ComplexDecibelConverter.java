@@ -17,8 +17,7 @@
  ******************************************************************************/
 package io.github.dsheirer.spectrum.converter;
 
-
-import org.apache.commons.math3.util.FastMath;
+import io.github.dsheirer.util.FastLog;
 
 /**
  * Converts complex DFT output to scaled dB values with a maximum amplitude of
@@ -58,9 +57,15 @@ import org.apache.commons.math3.util.FastMath;
  * 
  * and the dynamic range is:  (-66.23 to 0.0 dB)
  * 
+ * Output arrays are reused.  The converter alternates between two output arrays so that a listener's reference to
+ * the dispatched array remains valid until the next result set is dispatched.  Listeners that retain results
+ * beyond that point should copy them.
  */
 public class ComplexDecibelConverter extends DFTResultsConverter
 {
+	private float[] mProcessed = new float[ 0 ];
+	private float[] mAlternateProcessed = new float[ 0 ];
+
 	/**
 	 * Converts the output of the JTransforms FloatFFT_1D.complexForward()
 	 * calculation into the power spectrum in decibels, normalized to the
@@ -78,7 +83,14 @@ public class ComplexDecibelConverter extends DFTResultsConverter
 //		float dftBinSizeScalor = 1.0f / (float)Math.pow( halfResults, 2.0 );
 		float dftBinSizeScalor = 1.0f / (float)halfResults;
 		
-		float[] processed = new float[ halfResults ];
+		if( mAlternateProcessed.length != halfResults )
+		{
+			mAlternateProcessed = new float[ halfResults ];
+		}
+
+		float[] processed = mAlternateProcessed;
+		mAlternateProcessed = mProcessed;
+		mProcessed = processed;
 
 		int middle = processed.length / 2;
 		
@@ -87,7 +99,7 @@ public class ComplexDecibelConverter extends DFTResultsConverter
 			//Calculate the magnitude squared (power) value from each bin's real 
 			//and imaginary value and scale it to the DFT bin size squared.
 			//Convert the scaled value to decibels.
-			float decibels = 10.0f * (float) FastMath.log10(
+			float decibels = 10.0f * FastLog.log10(
 				( ( results[ x ] * results[ x ] ) + 
 				  ( results[ x + 1 ] * results[ x + 1 ] ) ) * dftBinSizeScalor ); 
 
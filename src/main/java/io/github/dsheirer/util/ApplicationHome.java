@@ -0,0 +1,112 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.util;
+
+import io.github.dsheirer.properties.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Application home directory and application properties file setup shared by the GUI and headless entry points.
+ */
+public class ApplicationHome
+{
+    private final static Logger mLog = LoggerFactory.getLogger(ApplicationHome.class);
+
+    /**
+     * Utility class - static methods only
+     */
+    private ApplicationHome()
+    {
+    }
+
+    /**
+     * Gets (or creates) the SDRTRunk application home directory.
+     *
+     * Note: the user can change this setting to allow log files and other
+     * files to reside elsewhere on the file system.
+     *
+     * @return home path or null if the directory can't be created
+     */
+    public static Path getHomePath()
+    {
+        Path homePath = FileSystems.getDefault()
+            .getPath(System.getProperty("user.home"), "SDRTrunk");
+
+        if(!Files.exists(homePath))
+        {
+            try
+            {
+                Files.createDirectory(homePath);
+
+                mLog.info("SDRTrunk - created application home directory [" +
+                    homePath.toString() + "]");
+            }
+            catch(Exception e)
+            {
+                homePath = null;
+
+                mLog.error("SDRTrunk: exception while creating SDRTrunk home " +
+                    "directory in the user's home directory", e);
+            }
+        }
+
+        return homePath;
+    }
+
+    /**
+     * Loads the application properties file from the user's home directory,
+     * creating the properties file for the first-time, if necessary
+     */
+    public static void loadProperties(Path homePath)
+    {
+        Path propsPath = homePath.resolve("SDRTrunk.properties");
+
+        if(!Files.exists(propsPath))
+        {
+            try
+            {
+                mLog.info("SDRTrunk - creating application properties file [" +
+                    propsPath.toAbsolutePath() + "]");
+
+                Files.createFile(propsPath);
+            }
+            catch(IOException e)
+            {
+                mLog.error("SDRTrunk - couldn't create application properties "
+                    + "file [" + propsPath.toAbsolutePath(), e);
+            }
+        }
+
+        if(Files.exists(propsPath))
+        {
+            SystemProperties.getInstance().load(propsPath);
+        }
+        else
+        {
+            mLog.error("SDRTrunk - couldn't find or recreate the SDRTrunk " +
+                "application properties file");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.util;
+
+/**
+ * Fast single-precision logarithm approximations for display and metering purposes.
+ *
+ * The base-2 logarithm is calculated from the IEEE-754 exponent plus a cubic polynomial approximation of the
+ * logarithm of the mantissa over the interval [1, 2).  Maximum absolute error is approximately 0.0013 in log2,
+ * which is approximately 0.004 dB when used to calculate 10 * log10(power).
+ *
+ * Note: these methods are not suitable for signal processing that requires full precision.
+ */
+public class FastLog
+{
+    private static final float LOG10_OF_2 = 0.30102999566f;
+
+    //Least-squares cubic fit of log2(m) for mantissa m in [1, 2)
+    private static final float C0 = -2.13384771f;
+    private static final float C1 = 3.01078397f;
+    private static final float C2 = -1.02952195f;
+    private static final float C3 = 0.153918478f;
+
+    /**
+     * Approximate base-2 logarithm
+     * @param value greater than zero
+     * @return approximate log2 of the value, or negative infinity for values less than or equal to zero
+     */
+    public static float log2(float value)
+    {
+        if(value <= 0.0f)
+        {
+            return Float.NEGATIVE_INFINITY;
+        }
+
+        int bits = Float.floatToRawIntBits(value);
+        int exponent = ((bits >>> 23) & 0xFF) - 127;
+        float mantissa = Float.intBitsToFloat((bits & 0x007FFFFF) | 0x3F800000);
+
+        return exponent + (((C3 * mantissa + C2) * mantissa + C1) * mantissa + C0);
+    }
+
+    /**
+     * Approximate base-10 logarithm
+     * @param value greater than zero
+     * @return approximate log10 of the value, or negative infinity for values less than or equal to zero
+     */
+    public static float log10(float value)
+    {
+        return log2(value) * LOG10_OF_2;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.util;
+
+import javafx.application.Platform;
+
+/**
+ * Dispatches model updates to the JavaFX application thread when the JavaFX toolkit is in use.
+ *
+ * The headless daemon never starts the JavaFX toolkit, so updates to JavaFX properties on the models are applied
+ * directly on the calling thread instead.
+ */
+public class FxPlatform
+{
+    private static volatile boolean sToolkitEnabled = true;
+
+    /**
+     * Utility class - static methods only
+     */
+    private FxPlatform()
+    {
+    }
+
+    /**
+     * Disables dispatch to the JavaFX application thread.  Invoke at startup when running without the JavaFX toolkit.
+     */
+    public static void disableToolkit()
+    {
+        sToolkitEnabled = false;
+    }
+
+    /**
+     * Indicates if the JavaFX toolkit is in use
+     */
+    public static boolean isToolkitEnabled()
+    {
+        return sToolkitEnabled;
+    }
+
+    /**
+     * Runs the runnable on the JavaFX application thread, or immediately on the calling thread when the toolkit is
+     * disabled.
+     */
+    public static void runLater(Runnable runnable)
+    {
+        if(sToolkitEnabled)
+        {
+            Platform.runLater(runnable);
+        }
+        else
+        {
+            runnable.run();
+        }
+    }
+}
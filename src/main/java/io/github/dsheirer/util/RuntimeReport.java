@@ -0,0 +1,97 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.util;
+
+import io.github.dsheirer.properties.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the application startup time and the steady-state heap usage, so that the GUI and headless modes can be
+ * compared from their logs.
+ *
+ * Steady-state heap is the heap in use after the most recent garbage collection, summed across the heap memory pools.
+ * Periodic heap reports are enabled with the runtime.report.interval.minutes system property.
+ */
+public class RuntimeReport
+{
+    private final static Logger mLog = LoggerFactory.getLogger(RuntimeReport.class);
+
+    private static final String INTERVAL_PROPERTY = "runtime.report.interval.minutes";
+    private static final long MEGABYTE = 1024 * 1024;
+
+    /**
+     * Utility class - static methods only
+     */
+    private RuntimeReport()
+    {
+    }
+
+    /**
+     * Logs the startup time since JVM start and the current heap usage and starts periodic heap reporting.
+     *
+     * @param mode of the application (e.g. GUI or Headless)
+     * @param defaultIntervalMinutes for periodic heap reports when the system property is not set, 0 to disable
+     */
+    public static void startupComplete(String mode, int defaultIntervalMinutes)
+    {
+        long startup = ManagementFactory.getRuntimeMXBean().getUptime();
+        mLog.info(mode + " startup complete in " + startup + " ms - " + getHeapSummary());
+
+        int interval = SystemProperties.getInstance().get(INTERVAL_PROPERTY, defaultIntervalMinutes);
+
+        if(interval > 0)
+        {
+            ThreadPool.SCHEDULED.scheduleAtFixedRate(() -> mLog.info(mode + " runtime - " + getHeapSummary()),
+                interval, interval, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Heap usage summary with the steady-state (after last collection), current and committed heap sizes
+     */
+    public static String getHeapSummary()
+    {
+        long afterCollection = 0;
+
+        for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if(pool.getType() == MemoryType.HEAP)
+            {
+                MemoryUsage usage = pool.getCollectionUsage();
+
+                if(usage != null)
+                {
+                    afterCollection += usage.getUsed();
+                }
+            }
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+
+        return "heap after last GC:" + (afterCollection / MEGABYTE) + "MB used:" + (heap.getUsed() / MEGABYTE) +
+            "MB committed:" + (heap.getCommitted() / MEGABYTE) + "MB";
+    }
+}
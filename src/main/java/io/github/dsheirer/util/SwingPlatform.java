@@ -0,0 +1,114 @@
+/*
+ * *****************************************************************************
+ *  Copyright (C) 2014-2020 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+package io.github.dsheirer.util;
+
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Dispatches table model updates to the Swing event dispatch thread when running with a display.
+ *
+ * The headless daemon never starts AWT, so table model updates are applied on a single daemon dispatch thread
+ * instead.  This keeps each model confined to one thread in both modes, without starting the AWT event queue.
+ */
+public class SwingPlatform
+{
+    private static ExecutorService sHeadlessDispatcher;
+    private static volatile Thread sHeadlessDispatchThread;
+
+    /**
+     * Utility class - static methods only
+     */
+    private SwingPlatform()
+    {
+    }
+
+    /**
+     * Indicates if the application is running without a display (java.awt.headless)
+     */
+    public static boolean isHeadless()
+    {
+        return GraphicsEnvironment.isHeadless();
+    }
+
+    /**
+     * Runs the runnable on the event dispatch thread, or on the headless dispatch thread when running headless
+     */
+    public static void invokeLater(Runnable runnable)
+    {
+        if(isHeadless())
+        {
+            getHeadlessDispatcher().execute(runnable);
+        }
+        else
+        {
+            EventQueue.invokeLater(runnable);
+        }
+    }
+
+    /**
+     * Indicates if the calling thread is the event dispatch thread, or the headless dispatch thread when running
+     * headless
+     */
+    public static boolean isDispatchThread()
+    {
+        if(isHeadless())
+        {
+            return Thread.currentThread() == sHeadlessDispatchThread;
+        }
+
+        return EventQueue.isDispatchThread();
+    }
+
+    /**
+     * Runs the runnable immediately when invoked on the dispatch thread, otherwise schedules it to run on the
+     * dispatch thread.
+     */
+    public static void runOnDispatchThread(Runnable runnable)
+    {
+        if(isDispatchThread())
+        {
+            runnable.run();
+        }
+        else
+        {
+            invokeLater(runnable);
+        }
+    }
+
+    /**
+     * Single thread executor for headless model updates, created on first use
+     */
+    private static synchronized ExecutorService getHeadlessDispatcher()
+    {
+        if(sHeadlessDispatcher == null)
+        {
+            sHeadlessDispatcher = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sdrtrunk headless model dispatch");
+                thread.setDaemon(true);
+                sHeadlessDispatchThread = thread;
+                return thread;
+            });
+        }
+
+        return sHeadlessDispatcher;
+    }
+}